@@ -1,6 +1,7 @@
 package ca.mcgill.purposeful.configuration;
 
 import java.util.ArrayList;
+import java.util.List;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.security.authentication.AbstractAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -17,14 +18,14 @@ public class AuthenticationConverter implements Converter<Jwt, AbstractAuthentic
    */
   @Override
   public AbstractAuthenticationToken convert(Jwt source) {
-    // Intialize an array list of authorities stored as strings
-    ArrayList<String> authorities =
-        new ArrayList<String>(source.getClaimAsStringList("grantedAuthorities"));
+    // the authorities stored as strings
+    List<String> authorities = source.getClaimAsStringList("grantedAuthorities");
 
     // convert these strings into SimpleGrantedAuthorities
-    ArrayList<SimpleGrantedAuthority> simpleAuthorities = new ArrayList<SimpleGrantedAuthority>();
+    ArrayList<SimpleGrantedAuthority> simpleAuthorities =
+        new ArrayList<SimpleGrantedAuthority>(authorities.size());
     for (String authority : authorities) {
-      simpleAuthorities.add(new SimpleGrantedAuthority(authority.toString()));
+      simpleAuthorities.add(new SimpleGrantedAuthority(authority));
     }
     // create a new Tken with the new authorities as well as the username of the
     // user
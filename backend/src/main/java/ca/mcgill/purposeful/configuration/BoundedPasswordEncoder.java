@@ -0,0 +1,156 @@
+package ca.mcgill.purposeful.configuration;
+
+import ca.mcgill.purposeful.exception.GlobalException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Password encoder hashing and checking the passwords on a few dedicated threads. Hashing a
+ * password takes tens of milliseconds of CPU on purpose, so a burst of logins or registrations
+ * would otherwise keep every request thread busy. At most a bounded number of passwords wait for
+ * a thread: past that, or past the timeout, the request fails right away with a 503 instead of
+ * queueing behind the others.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+  /** The lowest BCrypt cost the calibration picks */
+  public static final int MIN_BCRYPT_COST = 10;
+
+  /** The highest BCrypt cost the calibration picks */
+  public static final int MAX_BCRYPT_COST = 16;
+
+  private final PasswordEncoder delegate;
+  private final ThreadPoolExecutor executor;
+  private final long timeoutMillis;
+
+  /**
+   * Constructor for BoundedPasswordEncoder
+   *
+   * @param delegate the encoder doing the hashing
+   * @param threads the number of threads hashing the passwords
+   * @param queueSize the number of passwords that can wait for a thread
+   * @param timeoutMillis how long a request waits for its password at most
+   */
+  public BoundedPasswordEncoder(
+      PasswordEncoder delegate, int threads, int queueSize, long timeoutMillis) {
+    this.delegate = delegate;
+    this.timeoutMillis = timeoutMillis;
+    AtomicInteger threadCount = new AtomicInteger();
+    this.executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            0,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueSize),
+            runnable -> {
+              Thread thread =
+                  new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return run(() -> delegate.encode(rawPassword));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return run(() -> delegate.matches(rawPassword, encodedPassword));
+  }
+
+  /** Whether a stored hash has a lower cost than the current one, so it is hashed again */
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    return delegate.upgradeEncoding(encodedPassword);
+  }
+
+  /**
+   * Get the number of passwords waiting for a thread
+   *
+   * @return the number of queued passwords
+   */
+  public int getQueuedPasswords() {
+    return executor.getQueue().size();
+  }
+
+  /** Stop the hashing threads, called by Spring when the application stops */
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Get the highest BCrypt cost whose hashing takes at most the target time on this machine. Each
+   * step of cost doubles the hashing time.
+   *
+   * @param targetMillis the time a password should take to hash
+   * @return the cost, between {@link #MIN_BCRYPT_COST} and {@link #MAX_BCRYPT_COST}
+   */
+  public static int calibrateBCryptCost(long targetMillis) {
+    BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(MIN_BCRYPT_COST);
+    // the first hash warms up the code
+    encoder.encode("calibration");
+    long fastest = Long.MAX_VALUE;
+    for (int i = 0; i < 3; i++) {
+      long start = System.nanoTime();
+      encoder.encode("calibration");
+      fastest = Math.min(fastest, System.nanoTime() - start);
+    }
+    int cost = MIN_BCRYPT_COST;
+    long nanos = fastest * 2;
+    while (cost < MAX_BCRYPT_COST && nanos <= targetMillis * 1_000_000) {
+      cost++;
+      nanos *= 2;
+    }
+    return cost;
+  }
+
+  /**
+   * Run a hashing task on the hashing threads and wait for its result
+   *
+   * @param task the hashing task
+   * @return the result of the task
+   * @throws GlobalException if too many passwords wait or the task takes longer than the timeout
+   */
+  private <T> T run(Callable<T> task) {
+    Future<T> future;
+    try {
+      future = executor.submit(task);
+    } catch (RejectedExecutionException e) {
+      throw busy();
+    }
+    try {
+      return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      future.cancel(true);
+      throw busy();
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw busy();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  private static GlobalException busy() {
+    return new GlobalException(
+        HttpStatus.SERVICE_UNAVAILABLE, "Too many logins at once. Please try again in a moment.");
+  }
+}
@@ -0,0 +1,68 @@
+package ca.mcgill.purposeful.configuration;
+
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Indexes that cannot be declared on the entities with JPA annotations (e.g. expression indexes,
+ * unique indexes that existing rows could violate or that native statements rely on). Hibernate
+ * creates the tables on startup, these are then added if they do not exist yet.
+ */
+@Configuration
+public class DatabaseIndexConfiguration {
+
+  /** The statements creating the indexes, in the order they should be run */
+  private static final String[] INDEXES = {
+    // Case insensitive lookups of users by email (e.g. the ideas created by a user)
+    "CREATE INDEX IF NOT EXISTS app_user_lower_email_idx ON app_user (lower(email))",
+    // A user reacts at most once to an idea (see REMOVE_DUPLICATE_REACTIONS)
+    "CREATE UNIQUE INDEX IF NOT EXISTS reaction_idea_user_idx ON reaction (idea_id, user_id)",
+    // An icon is stored once per normalized URL, inserted with ON CONFLICT (icon_hash)
+    "CREATE UNIQUE INDEX IF NOT EXISTS url_icon_hash_idx ON url (icon_hash)",
+    // Full text search of the ideas, the column is computed by the database on every write
+    "ALTER TABLE idea ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS ("
+        + "setweight(to_tsvector('english', coalesce(title, '')), 'A')"
+        + " || setweight(to_tsvector('english', coalesce(purpose, '')), 'B')"
+        + " || setweight(to_tsvector('english', coalesce(description, '')), 'C')) STORED",
+    "CREATE INDEX IF NOT EXISTS idea_search_vector_idx ON idea USING GIN (search_vector)"
+  };
+
+  /**
+   * Remove the reactions a user made more than once to the same idea and take them out of the
+   * number of high fives of the idea. All the parts of the statement see the reactions as they were
+   * before it, so the removed ones are subtracted from the count.
+   */
+  private static final String REMOVE_DUPLICATE_REACTIONS =
+      "WITH removed AS (DELETE FROM reaction r USING reaction d"
+          + " WHERE r.idea_id = d.idea_id AND r.user_id = d.user_id AND r.id > d.id"
+          + " RETURNING r.idea_id),"
+          + " counts AS (SELECT idea_id, count(*) AS n FROM removed GROUP BY idea_id)"
+          + " UPDATE idea i SET high_five_count ="
+          + " (SELECT count(*) FROM reaction r WHERE r.idea_id = i.id) - c.n"
+          + " FROM counts c WHERE i.id = c.idea_id";
+
+  /**
+   * Create the missing indexes on startup. The duplicate reactions are only looked for before the
+   * unique index on the reactions is created, since it prevents them afterwards.
+   *
+   * @param jdbcTemplate to run the statements
+   * @return the application runner
+   */
+  @Bean
+  public ApplicationRunner databaseIndexRunner(JdbcTemplate jdbcTemplate) {
+    return args -> {
+      Integer reactionIndexes =
+          jdbcTemplate.queryForObject(
+              "SELECT count(*) FROM pg_indexes WHERE indexname = 'reaction_idea_user_idx'",
+              Integer.class);
+      if (reactionIndexes == null || reactionIndexes == 0) {
+        jdbcTemplate.execute(REMOVE_DUPLICATE_REACTIONS);
+      }
+      for (String index : INDEXES) {
+        jdbcTemplate.execute(index);
+      }
+    };
+  }
+}
@@ -0,0 +1,9 @@
+package ca.mcgill.purposeful.configuration;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/** Runs the methods annotated with @Scheduled (e.g. cleanup jobs) */
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration {}
@@ -1,26 +1,38 @@
 package ca.mcgill.purposeful.configuration;
 
-import com.nimbusds.jose.jwk.JWK;
+import ca.mcgill.purposeful.exception.GlobalExceptionFilter;
+import com.nimbusds.jose.JWSAlgorithm;
 import com.nimbusds.jose.jwk.JWKSet;
-import com.nimbusds.jose.jwk.RSAKey;
 import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
 import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
 import com.nimbusds.jose.proc.SecurityContext;
-import java.security.KeyPairGenerator;
-import java.security.interfaces.RSAPrivateKey;
-import java.security.interfaces.RSAPublicKey;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationProvider;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -30,6 +42,84 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 @Configuration
 public class SecurityConfiguration {
 
+  /** The algorithm signing the JWTs, RS256 or ES256 */
+  @Value("${purposeful.jwt.algorithm:RS256}")
+  String algorithm;
+
+  /** Comma separated PEM files of the JWT keys, the signing key first */
+  @Value("${purposeful.jwt.key-files:}")
+  String[] keyFiles;
+
+  /** PKCS#12 keystore of the JWT keys, used instead of the PEM files when set */
+  @Value("${purposeful.jwt.keystore:}")
+  String keyStore;
+
+  @Value("${purposeful.jwt.keystore-password:}")
+  String keyStorePassword;
+
+  @Value("${purposeful.jwt.keystore-signing-alias:}")
+  String keyStoreSigningAlias;
+
+  @Value("${purposeful.password.bcrypt-cost:10}")
+  int bcryptCost;
+
+  @Value("${purposeful.password.bcrypt-target-ms:0}")
+  long bcryptTargetMillis;
+
+  @Value("${purposeful.password.threads:0}")
+  int hashingThreads;
+
+  @Value("${purposeful.password.queue-size:50}")
+  int hashingQueueSize;
+
+  @Value("${purposeful.password.timeout-ms:5000}")
+  long hashingTimeoutMillis;
+
+  @Value("${purposeful.token-cache.max-size:10000}")
+  int tokenCacheMaxSize;
+
+  @Value("${purposeful.token-cache.ttl-seconds:300}")
+  long tokenCacheTimeToLiveSeconds;
+
+  @Value("${purposeful.credential-cache.max-size:1000}")
+  int credentialCacheMaxSize;
+
+  @Value("${purposeful.credential-cache.ttl-seconds:60}")
+  long credentialCacheTimeToLiveSeconds;
+
+  /**
+   * Configures the filters of the login endpoint, the only one accepting a username and password
+   * (HTTP Basic) to exchange them for a token. The other endpoints only accept the token, so a
+   * password is not checked with BCrypt on every request.
+   */
+  @Bean
+  @Order(1)
+  SecurityFilterChain loginFilterChain(
+      HttpSecurity http, VerifiedCredentialCache verifiedCredentialCache) throws Exception {
+    return http.securityMatcher("/api/login", "/api/login/")
+        .csrf()
+        .disable()
+        .cors()
+        .configurationSource(corsConfigurationSource())
+        .and()
+        // answer the failures of the authentication filters, like too many logins at once
+        .addFilterBefore(new GlobalExceptionFilter(), BasicAuthenticationFilter.class)
+        .authenticationManager(verifiedCredentialCache)
+        .oauth2ResourceServer() // a token is validated with a GET on the login endpoint
+        .jwt()
+        .authenticationManager(verifiedTokenCache())
+        .and()
+        .and()
+        .authorizeHttpRequests()
+        .anyRequest()
+        .authenticated()
+        .and()
+        // "Authorization":"Basic encodeBase64(username:password)" in the headers of the request
+        .httpBasic()
+        .and()
+        .build();
+  }
+
   /** Configures the filters between the server layer and the controller */
   @Bean
   SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -41,7 +131,7 @@ public class SecurityConfiguration {
         .and()
         .oauth2ResourceServer()
         .jwt()
-        .jwtAuthenticationConverter(new AuthenticationConverter())
+        .authenticationManager(verifiedTokenCache())
         .and()
         .and() // configuring your project to accept jwt tokens as a method of authentication.
         // Jwt (Json Web Token) tokens are json objects as strings, with no spaces,
@@ -54,71 +144,140 @@ public class SecurityConfiguration {
         .and()
         // .oauth2Login().loginPage("/login")
         // .formLogin().and() // two ways to provide authentication to users. Users have
-        // username and password - way they provide is either through a form or ( see
-        // next )
-        .httpBasic()
-        .and() // another way - in hhtp request that the backend sends, in headers there is
-        // "Authorization":"Basic encodeBase64(username:password)" ( encodebase64 is a
-        // method in javascript method that does base 64 encoding )
+        // username and password - way they provide is either through a form or through
+        // HTTP Basic, which only the login endpoint accepts (see loginFilterChain)
         .build(); // you build the object and return a securityFilterChain object
   }
 
   /**
-   * This Bean is used for encoding user passwords
+   * This Bean is used for encoding user passwords, with BCrypt on a few dedicated threads (see
+   * {@link BoundedPasswordEncoder}). When a target time is set, the cost is the highest one hashing
+   * a password within it, but never below the configured cost. The passwords hashed with a lower
+   * cost are hashed again on the next successful login.
    *
    * @return an object that can encrypt passwords
    */
   @Bean
   PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+    int cost = bcryptCost;
+    if (bcryptTargetMillis > 0) {
+      cost = Math.max(cost, BoundedPasswordEncoder.calibrateBCryptCost(bcryptTargetMillis));
+    }
+    int threads =
+        hashingThreads > 0 ? hashingThreads : Runtime.getRuntime().availableProcessors();
+    return new BoundedPasswordEncoder(
+        new BCryptPasswordEncoder(cost), threads, hashingQueueSize, hashingTimeoutMillis);
   }
 
   /**
-   * Creating the two keys to use in encoder and decoder methods
+   * The keys of the tokens: from a keystore if one is configured, else from PEM files, else a key
+   * generated at startup (see {@link JWTKey})
    *
-   * @return the public and private keys
+   * @return the key signing the tokens and the keys verifying them
+   * @throws Exception if the keys cannot be loaded
    */
   @Bean
-  JWTKey rsaKeys() throws Exception {
-
-    // generate an RSA key pair with a key generator object
-    KeyPairGenerator keyGenerator = KeyPairGenerator.getInstance("RSA");
-    keyGenerator.initialize(2048);
-    var keyPair = keyGenerator.generateKeyPair();
-
-    // the private key ( used to sign tokens )
-    RSAPrivateKey rsaPrivateKey = (RSAPrivateKey) keyPair.getPrivate();
-
-    // validate a token - used to exchange authentication permissions
-    RSAPublicKey rsaPublicKey = (RSAPublicKey) keyPair.getPublic();
-
-    return new JWTKey(rsaPrivateKey, rsaPublicKey);
+  JWTKey jwtKeys() throws Exception {
+    JWSAlgorithm signingAlgorithm = JWSAlgorithm.parse(algorithm);
+    JWTKey keys;
+    if (!keyStore.isBlank()) {
+      keys =
+          JWTKey.fromKeyStore(
+              Path.of(keyStore), keyStorePassword.toCharArray(), keyStoreSigningAlias);
+    } else if (keyFiles.length > 0) {
+      List<Path> paths = new ArrayList<>();
+      for (String keyFile : keyFiles) {
+        paths.add(Path.of(keyFile.trim()));
+      }
+      keys = JWTKey.fromPemFiles(paths);
+    } else {
+      return JWTKey.generate(signingAlgorithm);
+    }
+    if (!keys.getSigningAlgorithm().equals(signingAlgorithm)) {
+      throw new IllegalStateException(
+          "The JWT signing key signs with " + keys.getSigningAlgorithm() + ", not " + algorithm);
+    }
+    return keys;
   }
 
   /**
-   * Takes json objects and converts it to JWT token format - with a signature and base64 encoding
+   * Takes json objects and converts it to JWT token format - with a signature and base64 encoding.
+   * Only the signing key is given to the encoder, which writes its id and its algorithm in the
+   * header of the token.
    *
    * @return a NimbusJWT Encoder object
    * @throws Exception if the keys are not valid
    */
   @Bean
   JwtEncoder jwtEncoder() throws Exception {
-    JWK jwk =
-        new RSAKey.Builder(rsaKeys().getPublicKey()).privateKey(rsaKeys().getPrivateKey()).build();
-    JWKSource<SecurityContext> jwks = new ImmutableJWKSet<>(new JWKSet(jwk));
-    return new NimbusJwtEncoder(jwks);
+    JWTKey keys = jwtKeys();
+    JWKSource<SecurityContext> jwks = new ImmutableJWKSet<>(new JWKSet(keys.getSigningKey()));
+    JwtEncoder encoder = new NimbusJwtEncoder(jwks);
+    SignatureAlgorithm signatureAlgorithm =
+        SignatureAlgorithm.from(keys.getSigningAlgorithm().getName());
+    return parameters ->
+        encoder.encode(
+            JwtEncoderParameters.from(
+                JwsHeader.with(signatureAlgorithm).build(), parameters.getClaims()));
   }
 
   /**
-   * Takes in public key, and uses it to decode the JWT. Decoded from base64 to ascii so that it can
-   * be validated
+   * Takes in the public keys, and uses them to decode the JWT. Decoded from base64 to ascii so that
+   * it can be validated with the key whose id is in the header of the token
    *
    * @return a Nimbus JWT Decoder object
    * @throws Exception if the keys are not valid
    */
   @Bean
   JwtDecoder jwtDecoder() throws Exception {
-    return NimbusJwtDecoder.withPublicKey(rsaKeys().getPublicKey()).build();
+    JWTKey keys = jwtKeys();
+    DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+    jwtProcessor.setJWSKeySelector(
+        new JWSVerificationKeySelector<>(
+            keys.getVerificationAlgorithms(),
+            new ImmutableJWKSet<>(keys.getVerificationKeys())));
+    // the claims (expiry, ...) are validated by the decoder itself
+    jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {});
+    return new NimbusJwtDecoder(jwtProcessor);
+  }
+
+  /**
+   * Verifies the bearer tokens with the decoder and converts them with {@link
+   * AuthenticationConverter}, reusing the authentication of the tokens verified recently
+   *
+   * @return the cache of the verified tokens
+   * @throws Exception if the keys are not valid
+   */
+  @Bean
+  VerifiedTokenCache verifiedTokenCache() throws Exception {
+    JwtAuthenticationProvider provider = new JwtAuthenticationProvider(jwtDecoder());
+    provider.setJwtAuthenticationConverter(new AuthenticationConverter());
+    return new VerifiedTokenCache(
+        provider, tokenCacheMaxSize, tokenCacheTimeToLiveSeconds * 1000);
+  }
+
+  /**
+   * Checks the usernames and passwords of the logins against the users and their password hashes,
+   * hashing again the ones with a lower cost, and reuses the credentials checked recently (see
+   * {@link VerifiedCredentialCache})
+   *
+   * @param userDetailsService loads the users by email
+   * @param userDetailsPasswordService stores the passwords hashed again
+   * @return the cache of the verified credentials
+   */
+  @Bean
+  VerifiedCredentialCache verifiedCredentialCache(
+      UserDetailsService userDetailsService,
+      UserDetailsPasswordService userDetailsPasswordService) {
+    DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+    provider.setUserDetailsService(userDetailsService);
+    provider.setUserDetailsPasswordService(userDetailsPasswordService);
+    provider.setPasswordEncoder(passwordEncoder());
+    return new VerifiedCredentialCache(
+        provider,
+        userDetailsService,
+        credentialCacheMaxSize,
+        credentialCacheTimeToLiveSeconds * 1000);
   }
 
   /**
@@ -0,0 +1,199 @@
+package ca.mcgill.purposeful.configuration;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+/**
+ * Authenticates the usernames and passwords of HTTP Basic requests, remembering the ones checked
+ * recently. Checking a password with BCrypt takes tens of milliseconds of CPU, so a client sending
+ * the same credentials again within the time to live is let in without checking the password
+ * again. The user is still loaded, and the credentials are only reused while the stored password
+ * hash is the one they were checked against, so a changed password or a deleted account takes
+ * effect right away. The credentials are kept by their HMAC with a random key created at startup,
+ * never in clear, and the least recently used ones are evicted past the maximum size. See the login
+ * filter chain in {@link SecurityConfiguration}.
+ */
+public class VerifiedCredentialCache implements AuthenticationManager {
+
+  private final AuthenticationProvider provider;
+  private final UserDetailsService userDetailsService;
+  private final int maxSize;
+  private final long timeToLiveMillis;
+  private final SecretKeySpec salt;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /* Checked credentials by digest, from the least to the most recently used */
+  private final LinkedHashMap<String, Entry> entries;
+
+  /**
+   * Constructor for VerifiedCredentialCache
+   *
+   * @param provider checks the credentials that are not cached
+   * @param userDetailsService loads the users whose credentials are cached
+   * @param maxSize the maximum number of credentials kept (0 to keep none)
+   * @param timeToLiveMillis how long credentials are kept after being checked
+   */
+  public VerifiedCredentialCache(
+      AuthenticationProvider provider,
+      UserDetailsService userDetailsService,
+      int maxSize,
+      long timeToLiveMillis) {
+    this.provider = provider;
+    this.userDetailsService = userDetailsService;
+    this.maxSize = maxSize;
+    this.timeToLiveMillis = timeToLiveMillis;
+    byte[] key = new byte[32];
+    new SecureRandom().nextBytes(key);
+    this.salt = new SecretKeySpec(key, "HmacSHA256");
+    this.entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > VerifiedCredentialCache.this.maxSize;
+          }
+        };
+  }
+
+  /**
+   * Authenticate a username and password, without checking the password again if the same ones
+   * were checked recently against the current password of the user
+   *
+   * @param authentication the username and password of the request
+   * @return the authentication of the user
+   * @throws AuthenticationException if the credentials are not valid
+   */
+  @Override
+  public Authentication authenticate(Authentication authentication)
+      throws AuthenticationException {
+    String key = digest(authentication.getName(), String.valueOf(authentication.getCredentials()));
+    long now = System.currentTimeMillis();
+    Entry entry;
+    synchronized (entries) {
+      entry = entries.get(key);
+      if (entry != null && now >= entry.expiresAt) {
+        entries.remove(key);
+        entry = null;
+      }
+    }
+
+    if (entry != null) {
+      UserDetails user = loadUser(authentication.getName());
+      if (user != null && user.getPassword().equals(entry.passwordHash) && user.isEnabled()) {
+        hits.incrementAndGet();
+        return UsernamePasswordAuthenticationToken.authenticated(
+            user, null, user.getAuthorities());
+      }
+      synchronized (entries) {
+        entries.remove(key);
+      }
+    }
+
+    misses.incrementAndGet();
+    Authentication verified = provider.authenticate(authentication);
+    if (maxSize > 0 && verified.getPrincipal() instanceof UserDetails user) {
+      synchronized (entries) {
+        entries.put(key, new Entry(user.getPassword(), now + timeToLiveMillis));
+      }
+      return UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities());
+    }
+    return verified;
+  }
+
+  /** Forget all the credentials */
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  /**
+   * Get the number of requests authenticated without checking the password
+   *
+   * @return the number of hits
+   */
+  public long getHits() {
+    return hits.get();
+  }
+
+  /**
+   * Get the number of requests whose password had to be checked
+   *
+   * @return the number of misses
+   */
+  public long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * Get the number of credentials currently kept
+   *
+   * @return the size of the cache
+   */
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  /**
+   * Load a user, or null if they do not exist anymore
+   *
+   * @param username the email of the user
+   * @return the user
+   */
+  private UserDetails loadUser(String username) {
+    try {
+      return userDetailsService.loadUserByUsername(username);
+    } catch (UsernameNotFoundException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Digest a username and password with the salt of the cache
+   *
+   * @param username the username
+   * @param password the password
+   * @return the base64 HMAC-SHA256 of the credentials
+   */
+  private String digest(String username, String password) {
+    try {
+      Mac mac = Mac.getInstance("HmacSHA256");
+      mac.init(salt);
+      mac.update(username.getBytes(StandardCharsets.UTF_8));
+      mac.update((byte) 0);
+      return Base64.getEncoder()
+          .encodeToString(mac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /** Credentials checked against a password hash, until when they can be reused */
+  private static class Entry {
+    final String passwordHash;
+    final long expiresAt;
+
+    Entry(String passwordHash, long expiresAt) {
+      this.passwordHash = passwordHash;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
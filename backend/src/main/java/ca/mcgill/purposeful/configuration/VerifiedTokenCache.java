@@ -0,0 +1,188 @@
+package ca.mcgill.purposeful.configuration;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+/**
+ * Authenticates the bearer tokens, remembering the tokens already verified. The same token is sent
+ * with every request of a user, so instead of parsing it, checking its signature and converting it
+ * again, the authentication of a token seen recently is reused until the token expires or the time
+ * to live ends. The tokens are kept by their SHA-256 digest, and the least recently used ones are
+ * evicted past the maximum size. A reused authentication keeps the details (remote address) of the
+ * request that verified its token. See the security filter chain in {@link SecurityConfiguration}.
+ */
+public class VerifiedTokenCache implements AuthenticationManager {
+
+  private final AuthenticationProvider provider;
+  private final int maxSize;
+  private final long timeToLiveMillis;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /* Verified tokens by digest, from the least to the most recently used */
+  private final LinkedHashMap<String, Entry> entries;
+
+  /**
+   * Constructor for VerifiedTokenCache
+   *
+   * @param provider verifies and converts the tokens that are not cached
+   * @param maxSize the maximum number of tokens kept (0 to keep none)
+   * @param timeToLiveMillis how long a token is kept at most, even if it expires later
+   */
+  public VerifiedTokenCache(AuthenticationProvider provider, int maxSize, long timeToLiveMillis) {
+    this.provider = provider;
+    this.maxSize = maxSize;
+    this.timeToLiveMillis = timeToLiveMillis;
+    this.entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > VerifiedTokenCache.this.maxSize;
+          }
+        };
+  }
+
+  /**
+   * Authenticate a bearer token, from the cache if it was verified recently
+   *
+   * @param authentication the bearer token of the request
+   * @return the authentication of the token
+   * @throws AuthenticationException if the token is not valid
+   */
+  @Override
+  public Authentication authenticate(Authentication authentication)
+      throws AuthenticationException {
+    String key = digest(((BearerTokenAuthenticationToken) authentication).getToken());
+    long now = System.currentTimeMillis();
+    synchronized (entries) {
+      Entry entry = entries.get(key);
+      if (entry != null) {
+        if (now < entry.expiresAt) {
+          hits.incrementAndGet();
+          return entry.authentication;
+        }
+        entries.remove(key);
+      }
+    }
+
+    misses.incrementAndGet();
+    Authentication verified = provider.authenticate(authentication);
+    if (maxSize > 0 && verified instanceof JwtAuthenticationToken jwtAuthentication) {
+      long expiresAt = now + timeToLiveMillis;
+      Instant tokenExpiresAt = jwtAuthentication.getToken().getExpiresAt();
+      if (tokenExpiresAt != null) {
+        expiresAt = Math.min(expiresAt, tokenExpiresAt.toEpochMilli());
+      }
+      synchronized (entries) {
+        entries.put(key, new Entry(jwtAuthentication, expiresAt));
+      }
+    }
+    return verified;
+  }
+
+  /**
+   * Forget a token, so it is verified again on its next request (e.g. once it is revoked)
+   *
+   * @param token the bearer token
+   */
+  public void evict(String token) {
+    String key = digest(token);
+    synchronized (entries) {
+      entries.remove(key);
+    }
+  }
+
+  /**
+   * Forget all the tokens of a user, so they are verified again on their next request (e.g. once
+   * the user is deleted or their tokens are revoked)
+   *
+   * @param subject the subject of the tokens, the email of the user
+   */
+  public void evictSubject(String subject) {
+    synchronized (entries) {
+      Iterator<Entry> iterator = entries.values().iterator();
+      while (iterator.hasNext()) {
+        if (subject.equals(iterator.next().authentication.getName())) {
+          iterator.remove();
+        }
+      }
+    }
+  }
+
+  /** Forget all the tokens */
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  /**
+   * Get the number of requests authenticated from the cache
+   *
+   * @return the number of hits
+   */
+  public long getHits() {
+    return hits.get();
+  }
+
+  /**
+   * Get the number of requests whose token had to be verified
+   *
+   * @return the number of misses
+   */
+  public long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * Get the number of tokens currently kept
+   *
+   * @return the size of the cache
+   */
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  /**
+   * Digest a token, so the cache does not keep the tokens themselves
+   *
+   * @param token the bearer token
+   * @return the base64 SHA-256 digest of the token
+   */
+  private static String digest(String token) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return Base64.getEncoder()
+          .encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /** A verified token, until when it can be reused */
+  private static class Entry {
+    final JwtAuthenticationToken authentication;
+    final long expiresAt;
+
+    Entry(JwtAuthenticationToken authentication, long expiresAt) {
+      this.authentication = authentication;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
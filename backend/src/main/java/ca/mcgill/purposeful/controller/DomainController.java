@@ -3,36 +3,80 @@ package ca.mcgill.purposeful.controller;
 import ca.mcgill.purposeful.dto.DomainDTO;
 import ca.mcgill.purposeful.model.Domain;
 import ca.mcgill.purposeful.service.DomainService;
+import ca.mcgill.purposeful.util.ReferenceListCache;
 import java.util.ArrayList;
 import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 /** API for accessing the endpoints of Domain */
 @RestController
 @RequestMapping({"/api/domain", "/api/domain/"})
 public class DomainController {
 
+  /** The number of matches of an autocompletion when the client does not specify it */
+  private static final int DEFAULT_AUTOCOMPLETE_LIMIT = 10;
+
   @Autowired private DomainService domainService;
 
   /**
-   * GET method to retrieve all domains in the database.
+   * GET method to retrieve all domains in the database. The response carries an ETag and a
+   * Last-Modified date, so a client sending them back gets a 304 until the domains change.
    *
+   * @param request the request, to check its conditional headers
    * @return domains in the database
    * @author Adam Kazma
    */
   @GetMapping()
   @PreAuthorize("hasAnyAuthority('User', 'Moderator', 'Owner')")
-  public ResponseEntity<List<DomainDTO>> getAllDomains() {
-    ArrayList<DomainDTO> domains = new ArrayList<>();
-    for (Domain d : domainService.getAllDomains()) {
-      domains.add(new DomainDTO(d));
+  public ResponseEntity<List<DomainDTO>> getAllDomains(WebRequest request) {
+    ReferenceListCache.Snapshot<Domain> domains = domainService.getDomainList();
+    if (request.checkNotModified(domains.getETag(), domains.getLastModified())) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+          .cacheControl(CacheControl.noCache().cachePrivate())
+          .build();
+    }
+
+    ArrayList<DomainDTO> dtos = new ArrayList<>();
+    for (Domain d : domains.getItems()) {
+      dtos.add(new DomainDTO(d));
+    }
+    return ResponseEntity.ok()
+        .cacheControl(CacheControl.noCache().cachePrivate())
+        .eTag(domains.getETag())
+        .lastModified(domains.getLastModified())
+        .body(dtos);
+  }
+
+  /**
+   * GET method to autocomplete the name of a domain, so clients do not need the whole list.
+   * The domains whose name starts with the prefix come first, then those with a word that does.
+   *
+   * @param prefix the start of the name, ignoring case and accents (optional)
+   * @param limit the maximum number of domains to return (optional)
+   * @return the matching domains
+   */
+  @GetMapping({"/autocomplete", "/autocomplete/"})
+  @PreAuthorize("hasAnyAuthority('User', 'Moderator', 'Owner')")
+  public ResponseEntity<List<DomainDTO>> autocomplete(
+      @RequestParam(required = false) String prefix,
+      @RequestParam(required = false) Integer limit) {
+    List<Domain> matches =
+        domainService.autocompleteDomains(
+            prefix, limit == null ? DEFAULT_AUTOCOMPLETE_LIMIT : limit);
+
+    ArrayList<DomainDTO> dtos = new ArrayList<>();
+    for (Domain d : matches) {
+      dtos.add(new DomainDTO(d));
     }
-    return new ResponseEntity<List<DomainDTO>>(domains, HttpStatus.OK);
+    return ResponseEntity.status(HttpStatus.OK).body(dtos);
   }
 }
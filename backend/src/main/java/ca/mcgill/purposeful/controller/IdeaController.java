@@ -1,14 +1,29 @@
 package ca.mcgill.purposeful.controller;
 
+import ca.mcgill.purposeful.dto.FacetCountsDTO;
 import ca.mcgill.purposeful.dto.IdeaDTO;
+import ca.mcgill.purposeful.dto.IdeaImportResultDTO;
+import ca.mcgill.purposeful.dto.IdeaPageDTO;
 import ca.mcgill.purposeful.dto.IdeaRequestDTO;
+import ca.mcgill.purposeful.dto.IdeaSummaryDTO;
 import ca.mcgill.purposeful.dto.SearchFilterDTO;
 import ca.mcgill.purposeful.exception.GlobalException;
 import ca.mcgill.purposeful.model.Idea;
 import ca.mcgill.purposeful.service.AppUserService;
+import ca.mcgill.purposeful.service.IdeaImportService;
 import ca.mcgill.purposeful.service.IdeaService;
+import ca.mcgill.purposeful.service.ReactionService;
+import ca.mcgill.purposeful.service.RecommendationService;
+import ca.mcgill.purposeful.util.IdeaCursor;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -21,10 +36,28 @@ import org.springframework.web.bind.annotation.*;
 @RequestMapping({"api/idea", "api/idea/"})
 public class IdeaController {
 
+  /** The number of ideas per page when the client does not specify it */
+  private static final int DEFAULT_PAGE_SIZE = 20;
+
+  /** The sort modes of the browsed ideas */
+  private static final String SORT_NEWEST = "newest";
+
+  private static final String SORT_TRENDING = "trending";
+
+  private static final String SORT_RELEVANCE = "relevance";
+
   @Autowired IdeaService ideaService;
 
   @Autowired AppUserService appUserService;
 
+  @Autowired IdeaImportService ideaImportService;
+
+  @Autowired ReactionService reactionService;
+
+  @Autowired RecommendationService recommendationService;
+
+  @Autowired ObjectMapper objectMapper;
+
   /**
    * This method gets the idea from the database with the given id
    *
@@ -35,7 +68,7 @@ public class IdeaController {
   @PreAuthorize("hasAnyAuthority('User', 'Moderator', 'Owner')")
   public ResponseEntity<IdeaDTO> getIdeaById(@PathVariable String id) {
     Idea idea = ideaService.getIdeaById(id);
-    return ResponseEntity.status(HttpStatus.OK).body(new IdeaDTO(idea));
+    return ResponseEntity.status(HttpStatus.OK).body(convertToDto(List.of(idea)).get(0));
   }
 
   /**
@@ -50,13 +83,126 @@ public class IdeaController {
   public ResponseEntity<List<IdeaDTO>> filterIdeas(@RequestBody SearchFilterDTO searchFilterDTO) {
     return ResponseEntity.status(HttpStatus.OK)
         .body(
-            IdeaDTO.convertToDto(
+            convertToDto(
                 ideaService.getIdeasByAllCriteria(
                     searchFilterDTO.getDomains(),
                     searchFilterDTO.getTopics(),
                     searchFilterDTO.getTechnologies())));
   }
 
+  /**
+   * Filter ideas by topics, domains, and techs, returning only what a list of ideas shows, one
+   * page at a time. Results are ordered by date.
+   *
+   * @param searchFilterDTO The filters to apply
+   * @param page the index of the page to return, starting at 0 (optional, 0 by default)
+   * @param pageSize the number of ideas in a page (optional)
+   * @return A list of idea summaries that matches the filters
+   */
+  @PostMapping({"/summary", "/summary/"})
+  @PreAuthorize("hasAnyAuthority('User', 'Moderator', 'Owner')")
+  public ResponseEntity<List<IdeaSummaryDTO>> filterIdeaSummaries(
+      @RequestBody SearchFilterDTO searchFilterDTO,
+      @RequestParam(required = false) Integer page,
+      @RequestParam(required = false) Integer pageSize) {
+    return ResponseEntity.status(HttpStatus.OK)
+        .body(
+            addReactedByMe(
+                ideaService.getIdeaSummariesByAllCriteria(
+                    searchFilterDTO.getDomains(),
+                    searchFilterDTO.getTopics(),
+                    searchFilterDTO.getTechnologies(),
+                    IdeaService.pageRequest(
+                        page == null ? 0 : page,
+                        pageSize == null ? DEFAULT_PAGE_SIZE : pageSize))));
+  }
+
+  /**
+   * Filter ideas by topics, domains, and techs, one page at a time. Results are ordered by date,
+   * or from the most to the least trending when the sort is "trending". When a search text is
+   * given, only the ideas containing its words are returned, from the most to the least relevant.
+   * The first page is requested without a cursor, and each page comes with the cursor of the next
+   * one (null once the last page is reached). When facets are requested, the page also comes with
+   * the number of ideas of each domain, topic and technology.
+   *
+   * @param searchFilterDTO The filters to apply, along with the page size and cursor
+   * @return A page of idea DTOs that matches the filters
+   * @author Wassim Jabbour
+   */
+  @PostMapping({"/browse", "/browse/"})
+  @PreAuthorize("hasAnyAuthority('User', 'Moderator', 'Owner')")
+  public ResponseEntity<IdeaPageDTO> browseIdeas(@RequestBody SearchFilterDTO searchFilterDTO) {
+    int pageSize =
+        searchFilterDTO.getPageSize() == null ? DEFAULT_PAGE_SIZE : searchFilterDTO.getPageSize();
+
+    String search = searchFilterDTO.getSearch();
+    boolean searching = search != null && !search.isBlank();
+    String sort = searchFilterDTO.getSort();
+    if (sort == null) {
+      sort = searching ? SORT_RELEVANCE : SORT_NEWEST;
+    }
+    if (searching && !sort.equals(SORT_RELEVANCE)) {
+      throw new GlobalException(
+          HttpStatus.BAD_REQUEST,
+          "Search results can only be sorted by \"" + SORT_RELEVANCE + "\".");
+    }
+    if (!searching && !sort.equals(SORT_NEWEST) && !sort.equals(SORT_TRENDING)) {
+      throw new GlobalException(
+          HttpStatus.BAD_REQUEST,
+          "The sort must be \"" + SORT_NEWEST + "\" or \"" + SORT_TRENDING + "\".");
+    }
+
+    List<Idea> page;
+    if (searching) {
+      page =
+          ideaService.searchIdeasPage(
+              search,
+              searchFilterDTO.getDomains(),
+              searchFilterDTO.getTopics(),
+              searchFilterDTO.getTechnologies(),
+              pageSize,
+              searchFilterDTO.getCursor());
+    } else if (sort.equals(SORT_TRENDING)) {
+      page =
+          ideaService.getTrendingIdeasPage(
+              searchFilterDTO.getDomains(),
+              searchFilterDTO.getTopics(),
+              searchFilterDTO.getTechnologies(),
+              pageSize,
+              searchFilterDTO.getCursor());
+    } else {
+      page =
+          ideaService.getIdeasPageByAllCriteria(
+              searchFilterDTO.getDomains(),
+              searchFilterDTO.getTopics(),
+              searchFilterDTO.getTechnologies(),
+              pageSize,
+              searchFilterDTO.getCursor());
+    }
+
+    // A full page means there may be more ideas after the last one
+    String nextCursor = null;
+    if (page.size() == pageSize) {
+      nextCursor =
+          sort.equals(SORT_NEWEST)
+              ? IdeaCursor.encode(page.get(page.size() - 1))
+              : IdeaService.nextOffsetCursor(searchFilterDTO.getCursor(), pageSize);
+    }
+
+    FacetCountsDTO facets = null;
+    if (Boolean.TRUE.equals(searchFilterDTO.getFacets())) {
+      facets =
+          ideaService.getFacetCounts(
+              search,
+              searchFilterDTO.getDomains(),
+              searchFilterDTO.getTopics(),
+              searchFilterDTO.getTechnologies());
+    }
+
+    return ResponseEntity.status(HttpStatus.OK)
+        .body(new IdeaPageDTO(convertToDto(page), nextCursor, facets));
+  }
+
   /**
    * This method creates an idea
    *
@@ -77,20 +223,9 @@ public class IdeaController {
       throw new GlobalException(HttpStatus.BAD_REQUEST, "ideaDTO is null.");
     }
 
-    // create the urls for the supporting images
-    List<String> supportingImageUrlIds = null;
-    if (ideaDTO.getImgUrls() != null) {
-      supportingImageUrlIds = ideaService.createSupportingURLS(ideaDTO.getImgUrls());
-    }
-
-    // create the icon url if it doesn't already exist
-    String iconUrlId = null;
-    if (ideaDTO.getIconUrl() != null) {
-      iconUrlId = ideaService.createIconURL(ideaDTO.getIconUrl());
-    }
-
+    // the idea and its urls are created in a single transaction
     Idea createdIdea =
-        ideaService.createIdea(
+        ideaService.createIdeaWithURLs(
             ideaDTO.getTitle(),
             ideaDTO.getPurpose(),
             ideaDTO.getDescription(),
@@ -100,8 +235,8 @@ public class IdeaController {
             ideaDTO.getDomainIds(),
             ideaDTO.getTechIds(),
             ideaDTO.getTopicIds(),
-            supportingImageUrlIds,
-            iconUrlId,
+            ideaDTO.getImgUrls(),
+            ideaDTO.getIconUrl(),
             auth.getName());
 
     IdeaRequestDTO createdIdeaDTO = new IdeaRequestDTO(createdIdea);
@@ -109,6 +244,34 @@ public class IdeaController {
     return ResponseEntity.status(HttpStatus.OK).body(createdIdeaDTO);
   }
 
+  /**
+   * This method creates many ideas at once. The body is a JSON array of ideas, read one idea at a
+   * time so that large imports are not held in memory. Each idea is created or rejected on its own.
+   *
+   * @param ideas the JSON array of ideas to be created
+   * @return the result of each idea, in the order they were sent
+   * @throws GlobalException if user is not authenticated or the body is not a JSON array of ideas
+   */
+  @PostMapping(value = {"/bulk", "/bulk/"})
+  @PreAuthorize("hasAuthority('User')")
+  public ResponseEntity<List<IdeaImportResultDTO>> createIdeas(InputStream ideas)
+      throws GlobalException {
+    Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+    if (auth == null) {
+      throw new GlobalException(HttpStatus.BAD_REQUEST, "User is not authenticated.");
+    }
+
+    List<IdeaImportResultDTO> results;
+    try (MappingIterator<IdeaRequestDTO> ideaDTOs =
+        objectMapper.readerFor(IdeaRequestDTO.class).readValues(ideas)) {
+      results = ideaImportService.importIdeas(ideaDTOs, auth.getName());
+    } catch (IOException e) {
+      throw new GlobalException(HttpStatus.BAD_REQUEST, "The ideas could not be read.");
+    }
+
+    return ResponseEntity.status(HttpStatus.OK).body(results);
+  }
+
   /**
    * This method modifies an idea
    *
@@ -125,20 +288,9 @@ public class IdeaController {
     if (ideaDTO == null) {
       throw new GlobalException(HttpStatus.BAD_REQUEST, "ideaDTO is null");
     }
-    // create the urls for the supporting images
-    List<String> supportingImageUrlIds = null;
-    if (ideaDTO.getImgUrls() != null) {
-      supportingImageUrlIds = ideaService.createSupportingURLS(ideaDTO.getImgUrls());
-    }
-
-    // create the icon url if it doesn't already exist
-    String iconUrlId = null;
-    if (ideaDTO.getIconUrl() != null) {
-      iconUrlId = ideaService.createIconURL(ideaDTO.getIconUrl());
-    }
-
+    // the idea and its urls are modified in a single transaction
     Idea modifiedIdea =
-        ideaService.modifyIdea(
+        ideaService.modifyIdeaWithURLs(
             ideaDTO.getId(),
             ideaDTO.getTitle(),
             ideaDTO.getPurpose(),
@@ -149,8 +301,8 @@ public class IdeaController {
             ideaDTO.getDomainIds(),
             ideaDTO.getTechIds(),
             ideaDTO.getTopicIds(),
-            supportingImageUrlIds,
-            iconUrlId);
+            ideaDTO.getImgUrls(),
+            ideaDTO.getIconUrl());
     IdeaRequestDTO modifiedIdeaDTO = new IdeaRequestDTO(modifiedIdea);
 
     return ResponseEntity.status(HttpStatus.OK).body(modifiedIdeaDTO);
@@ -169,7 +321,7 @@ public class IdeaController {
     // Check if the user is authorized
     Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
     String requestEmail = authentication.getName();
-    String ownerEmail = ideaService.getIdeaById(id).getUser().getAppUser().getEmail();
+    String ownerEmail = ideaService.getIdeaWithOwnerById(id).getUser().getAppUser().getEmail();
     if (!requestEmail.equals(ownerEmail)
         && !authentication.getAuthorities().contains("Owner")
         && !authentication.getAuthorities().contains("Moderator")) {
@@ -182,45 +334,200 @@ public class IdeaController {
   }
 
   /**
-   * Retrieve all the ideas that a user created.
+   * Retrieve all the ideas that a user created, from newest to oldest. When a page or a page size
+   * is given, only that page is returned.
    *
+   * @param page the index of the page to return, starting at 0 (optional)
+   * @param pageSize the number of ideas in a page (optional)
    * @return a response entity with a list of ideas and the HttpStatus
    * @author Ramin Akhavan
    */
   @GetMapping({"/user", "/user/"})
   @PreAuthorize("hasAnyAuthority('User', 'Moderator', 'Owner')")
-  public ResponseEntity<List<IdeaDTO>> getUserCreatedIdeas() {
+  public ResponseEntity<List<IdeaDTO>> getUserCreatedIdeas(
+      @RequestParam(required = false) Integer page,
+      @RequestParam(required = false) Integer pageSize) {
     Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
     if (authentication == null) {
       throw new GlobalException(HttpStatus.BAD_REQUEST, "User is not authenticated.");
     }
     String requestEmail = authentication.getName();
 
-    List<Idea> createdIdeas = ideaService.getCreatedIdeas(requestEmail);
-
-    List<IdeaDTO> ideaDTOs = IdeaDTO.convertToDto(createdIdeas);
+    List<Idea> createdIdeas;
+    if (page == null && pageSize == null) {
+      createdIdeas = ideaService.getCreatedIdeas(requestEmail);
+    } else {
+      createdIdeas =
+          ideaService.getCreatedIdeas(
+              requestEmail,
+              page == null ? 0 : page,
+              pageSize == null ? DEFAULT_PAGE_SIZE : pageSize);
+    }
 
-    return ResponseEntity.status(HttpStatus.OK).body(IdeaDTO.convertToDto(createdIdeas));
+    return ResponseEntity.status(HttpStatus.OK).body(convertToDto(createdIdeas));
   }
 
   /**
-   * Get all ideas that the user has requested to collaborate on
+   * Get all ideas that the user has requested to collaborate on, from newest to oldest. When a page
+   * or a page size is given, only that page is returned.
    *
+   * @param page the index of the page to return, starting at 0 (optional)
+   * @param pageSize the number of ideas in a page (optional)
    * @return a response entity with a list of ideas that the user has requested collaboration on and
    *     the HttpStatus
    * @author Enzo Benoit-Jeannin
    */
   @GetMapping({"/user/requests", "/user/requests/"})
   @PreAuthorize("hasAnyAuthority('User', 'Moderator', 'Owner')")
-  public ResponseEntity<List<IdeaDTO>> getIdeasByCollaborationRequests() {
+  public ResponseEntity<List<IdeaDTO>> getIdeasByCollaborationRequests(
+      @RequestParam(required = false) Integer page,
+      @RequestParam(required = false) Integer pageSize) {
     Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
     if (authentication == null) {
       throw new GlobalException(HttpStatus.BAD_REQUEST, "User is not authenticated.");
     }
     String requestEmail = authentication.getName();
 
-    List<Idea> requestedIdeas = ideaService.getIdeasByCollaborationRequest(requestEmail);
+    List<Idea> requestedIdeas;
+    if (page == null && pageSize == null) {
+      requestedIdeas = ideaService.getIdeasByCollaborationRequest(requestEmail);
+    } else {
+      requestedIdeas =
+          ideaService.getIdeasByCollaborationRequest(
+              requestEmail,
+              page == null ? 0 : page,
+              pageSize == null ? DEFAULT_PAGE_SIZE : pageSize);
+    }
 
-    return ResponseEntity.status(HttpStatus.OK).body(IdeaDTO.convertToDto(requestedIdeas));
+    return ResponseEntity.status(HttpStatus.OK).body(convertToDto(requestedIdeas));
+  }
+
+  /**
+   * Retrieve the summaries of the ideas that a user created, from newest to oldest. When a page or
+   * a page size is given, only that page is returned.
+   *
+   * @param page the index of the page to return, starting at 0 (optional)
+   * @param pageSize the number of ideas in a page (optional)
+   * @return a response entity with a list of idea summaries and the HttpStatus
+   */
+  @GetMapping({"/user/summary", "/user/summary/"})
+  @PreAuthorize("hasAnyAuthority('User', 'Moderator', 'Owner')")
+  public ResponseEntity<List<IdeaSummaryDTO>> getUserCreatedIdeaSummaries(
+      @RequestParam(required = false) Integer page,
+      @RequestParam(required = false) Integer pageSize) {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (authentication == null) {
+      throw new GlobalException(HttpStatus.BAD_REQUEST, "User is not authenticated.");
+    }
+
+    List<IdeaSummaryDTO> createdIdeas =
+        ideaService.getCreatedIdeaSummaries(authentication.getName(), pageable(page, pageSize));
+
+    return ResponseEntity.status(HttpStatus.OK).body(addReactedByMe(createdIdeas));
+  }
+
+  /**
+   * Get the summaries of the ideas that the user has requested to collaborate on, from newest to
+   * oldest. When a page or a page size is given, only that page is returned.
+   *
+   * @param page the index of the page to return, starting at 0 (optional)
+   * @param pageSize the number of ideas in a page (optional)
+   * @return a response entity with a list of idea summaries and the HttpStatus
+   */
+  @GetMapping({"/user/requests/summary", "/user/requests/summary/"})
+  @PreAuthorize("hasAnyAuthority('User', 'Moderator', 'Owner')")
+  public ResponseEntity<List<IdeaSummaryDTO>> getIdeaSummariesByCollaborationRequests(
+      @RequestParam(required = false) Integer page,
+      @RequestParam(required = false) Integer pageSize) {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (authentication == null) {
+      throw new GlobalException(HttpStatus.BAD_REQUEST, "User is not authenticated.");
+    }
+
+    List<IdeaSummaryDTO> requestedIdeas =
+        ideaService.getIdeaSummariesByCollaborationRequest(
+            authentication.getName(), pageable(page, pageSize));
+
+    return ResponseEntity.status(HttpStatus.OK).body(addReactedByMe(requestedIdeas));
+  }
+
+  /**
+   * Get the ideas recommended to the user from their interests, from the most to the least
+   * relevant
+   *
+   * @param count the maximum number of ideas to return (optional)
+   * @return a response entity with a list of recommended ideas and the HttpStatus
+   */
+  @GetMapping({"/recommended", "/recommended/"})
+  @PreAuthorize("hasAuthority('User')")
+  public ResponseEntity<List<IdeaDTO>> getRecommendedIdeas(
+      @RequestParam(required = false) Integer count) {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (authentication == null) {
+      throw new GlobalException(HttpStatus.BAD_REQUEST, "User is not authenticated.");
+    }
+    String requestEmail = authentication.getName();
+
+    List<Idea> recommendedIdeas =
+        recommendationService.getRecommendedIdeas(
+            requestEmail, count == null ? DEFAULT_PAGE_SIZE : count);
+
+    return ResponseEntity.status(HttpStatus.OK).body(convertToDto(recommendedIdeas));
+  }
+
+  /**
+   * Convert ideas to DTOs, flagging the ones the current user high-fived with a single query
+   *
+   * @param ideas the ideas to convert
+   * @return the DTOs of the ideas, in the same order
+   */
+  private List<IdeaDTO> convertToDto(List<Idea> ideas) {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (authentication == null) {
+      return IdeaDTO.convertToDto(ideas);
+    }
+    List<String> ideaIds = new ArrayList<>();
+    for (Idea idea : ideas) {
+      ideaIds.add(idea.getId());
+    }
+    return IdeaDTO.convertToDto(
+        ideas, reactionService.getReactedIdeaIds(authentication.getName(), ideaIds));
+  }
+
+  /**
+   * Flag the idea summaries that the current user high-fived, with a single query
+   *
+   * @param summaries the summaries of the ideas
+   * @return the same summaries
+   */
+  private List<IdeaSummaryDTO> addReactedByMe(List<IdeaSummaryDTO> summaries) {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (authentication == null) {
+      return summaries;
+    }
+    List<String> ideaIds = new ArrayList<>();
+    for (IdeaSummaryDTO summary : summaries) {
+      ideaIds.add(summary.getId());
+    }
+    Set<String> reacted = reactionService.getReactedIdeaIds(authentication.getName(), ideaIds);
+    for (IdeaSummaryDTO summary : summaries) {
+      summary.setReactedByMe(reacted.contains(summary.getId()));
+    }
+    return summaries;
+  }
+
+  /**
+   * Get the page of ideas to return, or all of them when neither a page nor a page size is given
+   *
+   * @param page the index of the page, starting at 0 (optional)
+   * @param pageSize the number of ideas in a page (optional)
+   * @return the page request
+   */
+  private static Pageable pageable(Integer page, Integer pageSize) {
+    if (page == null && pageSize == null) {
+      return Pageable.unpaged();
+    }
+    return IdeaService.pageRequest(
+        page == null ? 0 : page, pageSize == null ? DEFAULT_PAGE_SIZE : pageSize);
   }
 }
@@ -8,6 +8,7 @@ import ca.mcgill.purposeful.exception.GlobalException;
 import ca.mcgill.purposeful.model.AppUser;
 import ca.mcgill.purposeful.model.Reaction;
 import ca.mcgill.purposeful.model.Reaction.ReactionType;
+import ca.mcgill.purposeful.service.ReactionBufferService;
 import ca.mcgill.purposeful.service.ReactionService;
 import java.util.Date;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,6 +31,9 @@ public class ReactionController {
   @Autowired private AppUserRepository appUserRepository;
   @Autowired private RegularUserRepository regularUserRepository;
 
+  @Autowired(required = false)
+  private ReactionBufferService reactionBufferService;
+
   /**
    * POST method to react
    *
@@ -66,6 +70,15 @@ public class ReactionController {
 
     String app_user_id = appUser.getId();
     String user_id = regularUserRepository.findRegularUserByAppUser_Id(app_user_id).getId();
+    // react in the buffer, which does not create the reaction right away
+    if (reactionBufferService != null) {
+      if (reactionBufferService.toggle(date, reactionType, idea_id, user_id)) {
+        return new ResponseEntity<ReactionDTO>(
+            new ReactionDTO(date, reactionType, idea_id, email), HttpStatus.OK);
+      }
+      return new ResponseEntity<ReactionDTO>(new ReactionDTO(), HttpStatus.OK);
+    }
+
     // react
     Reaction reaction = reactionService.react(date, reactionType, idea_id, user_id);
 
@@ -3,36 +3,81 @@ package ca.mcgill.purposeful.controller;
 import ca.mcgill.purposeful.dto.TechDTO;
 import ca.mcgill.purposeful.model.Technology;
 import ca.mcgill.purposeful.service.TechnologyService;
+import ca.mcgill.purposeful.util.ReferenceListCache;
 import java.util.ArrayList;
 import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 /** API for accessing the endpoints of Technology */
 @RestController
 @RequestMapping({"/api/tech", "/api/tech/"})
 public class TechnologyController {
 
+  /** The number of matches of an autocompletion when the client does not specify it */
+  private static final int DEFAULT_AUTOCOMPLETE_LIMIT = 10;
+
   @Autowired private TechnologyService technologyService;
 
   /**
-   * GET method to retrieve all technologies in the database.
+   * GET method to retrieve all technologies in the database. The response carries an ETag and a
+   * Last-Modified date, so a client sending them back gets a 304 until the technologies change.
    *
-   * @return techs in the database
+   * @param request the request, to check its conditional headers
+   * @return technologies in the database
    * @author Adam Kazma
    */
   @GetMapping()
   @PreAuthorize("hasAnyAuthority('User', 'Moderator', 'Owner')")
-  public ResponseEntity<List<TechDTO>> getAllTechs() {
-    ArrayList<TechDTO> techs = new ArrayList<>();
-    for (Technology t : technologyService.getAllTechs()) {
-      techs.add(new TechDTO(t));
+  public ResponseEntity<List<TechDTO>> getAllTechs(WebRequest request) {
+    ReferenceListCache.Snapshot<Technology> techs = technologyService.getTechList();
+    if (request.checkNotModified(techs.getETag(), techs.getLastModified())) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+          .cacheControl(CacheControl.noCache().cachePrivate())
+          .build();
+    }
+
+    ArrayList<TechDTO> dtos = new ArrayList<>();
+    for (Technology t : techs.getItems()) {
+      dtos.add(new TechDTO(t));
+    }
+    return ResponseEntity.ok()
+        .cacheControl(CacheControl.noCache().cachePrivate())
+        .eTag(techs.getETag())
+        .lastModified(techs.getLastModified())
+        .body(dtos);
+  }
+
+  /**
+   * GET method to autocomplete the name of a technology, so clients do not need the whole list.
+   * The technologies whose name starts with the prefix come first, then those with a word that
+   * does.
+   *
+   * @param prefix the start of the name, ignoring case and accents (optional)
+   * @param limit the maximum number of technologies to return (optional)
+   * @return the matching technologies
+   */
+  @GetMapping({"/autocomplete", "/autocomplete/"})
+  @PreAuthorize("hasAnyAuthority('User', 'Moderator', 'Owner')")
+  public ResponseEntity<List<TechDTO>> autocomplete(
+      @RequestParam(required = false) String prefix,
+      @RequestParam(required = false) Integer limit) {
+    List<Technology> matches =
+        technologyService.autocompleteTechs(
+            prefix, limit == null ? DEFAULT_AUTOCOMPLETE_LIMIT : limit);
+
+    ArrayList<TechDTO> dtos = new ArrayList<>();
+    for (Technology t : matches) {
+      dtos.add(new TechDTO(t));
     }
-    return new ResponseEntity<List<TechDTO>>(techs, HttpStatus.OK);
+    return ResponseEntity.status(HttpStatus.OK).body(dtos);
   }
 }
@@ -3,36 +3,79 @@ package ca.mcgill.purposeful.controller;
 import ca.mcgill.purposeful.dto.TopicDTO;
 import ca.mcgill.purposeful.model.Topic;
 import ca.mcgill.purposeful.service.TopicService;
+import ca.mcgill.purposeful.util.ReferenceListCache;
 import java.util.ArrayList;
 import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 /** API for accessing the endpoints of Topic */
 @RestController
 @RequestMapping({"/api/topic", "/api/topic/"})
 public class TopicController {
 
+  /** The number of matches of an autocompletion when the client does not specify it */
+  private static final int DEFAULT_AUTOCOMPLETE_LIMIT = 10;
+
   @Autowired private TopicService topicService;
 
   /**
-   * GET method to retrieve all topics in the database.
+   * GET method to retrieve all topics in the database. The response carries an ETag and a
+   * Last-Modified date, so a client sending them back gets a 304 until the topics change.
    *
+   * @param request the request, to check its conditional headers
    * @return topics in the database
    * @author Adam Kazma
    */
   @GetMapping()
   @PreAuthorize("hasAnyAuthority('User', 'Moderator', 'Owner')")
-  public ResponseEntity<List<TopicDTO>> getAllTopics() {
-    ArrayList<TopicDTO> topics = new ArrayList<>();
-    for (Topic t : topicService.getAllTopics()) {
-      topics.add(new TopicDTO(t));
+  public ResponseEntity<List<TopicDTO>> getAllTopics(WebRequest request) {
+    ReferenceListCache.Snapshot<Topic> topics = topicService.getTopicList();
+    if (request.checkNotModified(topics.getETag(), topics.getLastModified())) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+          .cacheControl(CacheControl.noCache().cachePrivate())
+          .build();
+    }
+
+    ArrayList<TopicDTO> dtos = new ArrayList<>();
+    for (Topic t : topics.getItems()) {
+      dtos.add(new TopicDTO(t));
+    }
+    return ResponseEntity.ok()
+        .cacheControl(CacheControl.noCache().cachePrivate())
+        .eTag(topics.getETag())
+        .lastModified(topics.getLastModified())
+        .body(dtos);
+  }
+
+  /**
+   * GET method to autocomplete the name of a topic, so clients do not need the whole list.
+   * The topics whose name starts with the prefix come first, then those with a word that does.
+   *
+   * @param prefix the start of the name, ignoring case and accents (optional)
+   * @param limit the maximum number of topics to return (optional)
+   * @return the matching topics
+   */
+  @GetMapping({"/autocomplete", "/autocomplete/"})
+  @PreAuthorize("hasAnyAuthority('User', 'Moderator', 'Owner')")
+  public ResponseEntity<List<TopicDTO>> autocomplete(
+      @RequestParam(required = false) String prefix,
+      @RequestParam(required = false) Integer limit) {
+    List<Topic> matches =
+        topicService.autocompleteTopics(prefix, limit == null ? DEFAULT_AUTOCOMPLETE_LIMIT : limit);
+
+    ArrayList<TopicDTO> dtos = new ArrayList<>();
+    for (Topic t : matches) {
+      dtos.add(new TopicDTO(t));
     }
-    return new ResponseEntity<List<TopicDTO>>(topics, HttpStatus.OK);
+    return ResponseEntity.status(HttpStatus.OK).body(dtos);
   }
 }
@@ -1,10 +1,15 @@
 package ca.mcgill.purposeful.dao;
 
+import ca.mcgill.purposeful.dto.IdeaSummaryDTO;
 import ca.mcgill.purposeful.model.CollaborationRequest;
 import ca.mcgill.purposeful.model.Idea;
 import ca.mcgill.purposeful.model.RegularUser;
+import java.util.Date;
 import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
 /** Repository for CollaborationRequest */
 public interface CollaborationRequestRepository
@@ -35,4 +40,45 @@ public interface CollaborationRequestRepository
    * @return a list of all CollaborationRequests
    */
   List<CollaborationRequest> findCollaborationRequestsByIdea(Idea idea);
+
+  /**
+   * Find the public ideas a regular user sent a collaboration request for, from newest to oldest.
+   * Only the paging of the pageable is used, the order is always (date, id) descending.
+   *
+   * @param requesterId - the id of the regular user who sent the requests
+   * @param pageable - the page to return, or unpaged for all of them
+   * @return the requested public ideas, from newest to oldest
+   */
+  @Query(
+      "SELECT i FROM CollaborationRequest r JOIN r.idea i JOIN FETCH i.iconUrl"
+          + " WHERE r.requester.id = :requesterId AND i.isPrivate = false"
+          + " ORDER BY i.date DESC, i.id DESC")
+  List<Idea> findRequestedPublicIdeasByRequesterId(
+      @Param("requesterId") String requesterId, Pageable pageable);
+
+  /**
+   * Find the summaries of the public ideas a regular user sent a collaboration request for, from
+   * newest to oldest, without loading the ideas. Only the paging of the pageable is used.
+   *
+   * @param requesterId - the id of the regular user who sent the requests
+   * @param pageable - the page to return, or unpaged for all of them
+   * @return the summaries of the requested public ideas, without their domains, topics and
+   *     technologies, from newest to oldest
+   */
+  @Query(
+      IdeaRepository.IDEA_SUMMARY_SELECT
+          + " FROM CollaborationRequest r JOIN r.idea i JOIN i.iconUrl ic"
+          + " WHERE r.requester.id = :requesterId AND i.isPrivate = false"
+          + " ORDER BY i.date DESC, i.id DESC")
+  List<IdeaSummaryDTO> findRequestedPublicIdeaSummariesByRequesterId(
+      @Param("requesterId") String requesterId, Pageable pageable);
+
+  /**
+   * Find the idea and the date of every CollaborationRequest sent since a date
+   *
+   * @param since - the date from which to find the CollaborationRequests
+   * @return the (idea id, date) pairs of the CollaborationRequests
+   */
+  @Query("SELECT r.idea.id, r.date FROM CollaborationRequest r WHERE r.date >= :since")
+  List<Object[]> findIdeaIdsAndDatesSince(@Param("since") Date since);
 }
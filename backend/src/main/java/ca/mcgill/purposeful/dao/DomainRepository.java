@@ -1,6 +1,8 @@
 package ca.mcgill.purposeful.dao;
 
 import ca.mcgill.purposeful.model.Domain;
+import java.util.Collection;
+import java.util.List;
 import org.springframework.data.repository.CrudRepository;
 
 /** Repository for Domain */
@@ -21,4 +23,12 @@ public interface DomainRepository extends CrudRepository<Domain, Integer> {
    * @return the Domain with the given name
    */
   Domain findDomainByName(String name);
+
+  /**
+   * Find all the domains with the given ids, in a single query
+   *
+   * @param ids the ids of the domains
+   * @return the domains that exist, in no particular order
+   */
+  List<Domain> findDomainsByIdIn(Collection<String> ids);
 }
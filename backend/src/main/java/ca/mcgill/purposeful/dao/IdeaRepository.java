@@ -1,19 +1,124 @@
 package ca.mcgill.purposeful.dao;
 
+import ca.mcgill.purposeful.dto.IdeaSummaryDTO;
 import ca.mcgill.purposeful.model.Idea;
+import ca.mcgill.purposeful.model.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
 /** Repository for Idea */
 public interface IdeaRepository extends CrudRepository<Idea, Integer> {
 
+  /** Criteria on the idea i: public, with 1 of the given domains, topics and techs */
+  String PUBLIC_CRITERIA =
+      " WHERE i.isPrivate = false"
+          + " AND (:filterDomains = false OR EXISTS (SELECT d.id FROM Idea i2 JOIN i2.domains d"
+          + " WHERE i2.id = i.id AND d.name IN :domainNames))"
+          + " AND (:filterTopics = false OR EXISTS (SELECT t.id FROM Idea i3 JOIN i3.topics t"
+          + " WHERE i3.id = i.id AND t.name IN :topicNames))"
+          + " AND (:filterTechs = false OR EXISTS (SELECT te.id FROM Idea i4 JOIN i4.techs te"
+          + " WHERE i4.id = i.id AND te.name IN :techNames))";
+
+  /** Public ideas having 1 of the given domains, 1 of the given topics and 1 of the given techs */
+  String PUBLIC_IDEAS_BY_CRITERIA = "SELECT i FROM Idea i" + PUBLIC_CRITERIA;
+
+  /** The summaries of the ideas i with icon ic, for list views (see IdeaSummaryDTO) */
+  String IDEA_SUMMARY_SELECT =
+      "SELECT new ca.mcgill.purposeful.dto.IdeaSummaryDTO("
+          + "i.id, i.title, i.purpose, i.date, ic.URL, i.highFiveCount)";
+
+  /* The same filters on the idea i, for native queries */
+
+  String PUBLIC_IDEAS_SQL_SEARCH =
+      " WHERE i.is_private = false"
+          + " AND (:searching = false OR i.search_vector @@ to_tsquery('english', :query))";
+
+  String DOMAIN_NAMES_SQL_FILTER =
+      " AND (:filterDomains = false OR EXISTS (SELECT 1 FROM idea_domain ido"
+          + " JOIN domain d ON d.id = ido.url_id WHERE ido.idea_id = i.id"
+          + " AND d.name IN :domainNames))";
+
+  String TOPIC_NAMES_SQL_FILTER =
+      " AND (:filterTopics = false OR EXISTS (SELECT 1 FROM idea_topic it"
+          + " JOIN topic t ON t.id = it.topic_id WHERE it.idea_id = i.id"
+          + " AND t.name IN :topicNames))";
+
+  String TECH_NAMES_SQL_FILTER =
+      " AND (:filterTechs = false OR EXISTS (SELECT 1 FROM idea_technology ite"
+          + " JOIN technology te ON te.id = ite.technology_id WHERE ite.idea_id = i.id"
+          + " AND te.name IN :techNames))";
+
   /**
-   * Find an Idea by id
+   * Find all ideas, with what is needed to list them
+   *
+   * @return all the ideas
+   */
+  @Override
+  @EntityGraph("Idea.card")
+  Iterable<Idea> findAll();
+
+  /**
+   * Find an Idea by id, with its icon, owner and supporting images. Its domains, topics and
+   * technologies are each loaded by a separate query when first used.
    *
    * @param id - the id of the Idea
    * @return the Idea with the given id
    */
+  @EntityGraph("Idea.detail")
   Idea findIdeaById(String id);
 
+  /**
+   * Find the Ideas with the given ids, with what is needed to list them. The order is not kept.
+   *
+   * @param ids - the ids of the Ideas
+   * @return the Ideas with the given ids that exist
+   */
+  @EntityGraph("Idea.card")
+  List<Idea> findIdeasByIdIn(Collection<String> ids);
+
+  /**
+   * Find the Ideas with the given ids, with what is needed to list them, in the order of the ids
+   * (e.g. ids ranked by an in memory view of the ideas)
+   *
+   * @param ids - the ids of the Ideas
+   * @return the Ideas with the given ids that still exist, in the order of the ids
+   */
+  default List<Idea> findIdeasByIdInOrder(List<String> ids) {
+    if (ids.isEmpty()) {
+      return new ArrayList<>();
+    }
+    Map<String, Idea> ideasById = new HashMap<>();
+    for (Idea idea : findIdeasByIdIn(ids)) {
+      ideasById.put(idea.getId(), idea);
+    }
+    List<Idea> ideas = new ArrayList<>();
+    for (String id : ids) {
+      if (ideasById.containsKey(id)) {
+        ideas.add(ideasById.get(id));
+      }
+    }
+    return ideas;
+  }
+
+  /**
+   * Find an Idea by id, with only its owner. Meant for authorization checks.
+   *
+   * @param id - the id of the Idea
+   * @return the Idea with the given id
+   */
+  @EntityGraph("Idea.owner")
+  Idea findIdeaWithOwnerById(String id);
+
   /**
    * Delete an Idea by id
    *
@@ -21,4 +126,338 @@ public interface IdeaRepository extends CrudRepository<Idea, Integer> {
    * @return the Idea with the given id
    */
   String deleteById(String id);
+
+  /**
+   * Find all public ideas that have at least 1 of the given domains, 1 of the given topics and 1 of
+   * the given technologies, sorted from newest to oldest. A filter whose flag is false is ignored.
+   *
+   * @param filterDomains - whether to filter on the domain names
+   * @param domainNames - the names of the domains the idea must have one of
+   * @param filterTopics - whether to filter on the topic names
+   * @param topicNames - the names of the topics the idea must have one of
+   * @param filterTechs - whether to filter on the technology names
+   * @param techNames - the names of the technologies the idea must have one of
+   * @return the matching public ideas, from newest to oldest
+   */
+  @EntityGraph("Idea.card")
+  @Query(PUBLIC_IDEAS_BY_CRITERIA + " ORDER BY i.date DESC, i.id DESC")
+  List<Idea> findPublicIdeasByCriteria(
+      @Param("filterDomains") boolean filterDomains,
+      @Param("domainNames") Collection<String> domainNames,
+      @Param("filterTopics") boolean filterTopics,
+      @Param("topicNames") Collection<String> topicNames,
+      @Param("filterTechs") boolean filterTechs,
+      @Param("techNames") Collection<String> techNames);
+
+  /**
+   * Find the first page of the public ideas matching the criteria, from newest to oldest. Only the
+   * page size of the pageable is used, the order is always (date, id) descending.
+   *
+   * @param filterDomains - whether to filter on the domain names
+   * @param domainNames - the names of the domains the idea must have one of
+   * @param filterTopics - whether to filter on the topic names
+   * @param topicNames - the names of the topics the idea must have one of
+   * @param filterTechs - whether to filter on the technology names
+   * @param techNames - the names of the technologies the idea must have one of
+   * @param pageable - the size of the page to return
+   * @return the first page of matching public ideas, from newest to oldest
+   */
+  @EntityGraph("Idea.card")
+  @Query(PUBLIC_IDEAS_BY_CRITERIA + " ORDER BY i.date DESC, i.id DESC")
+  List<Idea> findPublicIdeasByCriteria(
+      @Param("filterDomains") boolean filterDomains,
+      @Param("domainNames") Collection<String> domainNames,
+      @Param("filterTopics") boolean filterTopics,
+      @Param("topicNames") Collection<String> topicNames,
+      @Param("filterTechs") boolean filterTechs,
+      @Param("techNames") Collection<String> techNames,
+      Pageable pageable);
+
+  /**
+   * Find the summaries of the public ideas matching the criteria, from newest to oldest, without
+   * loading the ideas. Only the paging of the pageable is used, the order is always (date, id)
+   * descending.
+   *
+   * @param filterDomains - whether to filter on the domain names
+   * @param domainNames - the names of the domains the idea must have one of
+   * @param filterTopics - whether to filter on the topic names
+   * @param topicNames - the names of the topics the idea must have one of
+   * @param filterTechs - whether to filter on the technology names
+   * @param techNames - the names of the technologies the idea must have one of
+   * @param pageable - the page to return, or unpaged for all of them
+   * @return the summaries of the matching public ideas, without their domains, topics and
+   *     technologies, from newest to oldest
+   */
+  @Query(
+      IDEA_SUMMARY_SELECT
+          + " FROM Idea i JOIN i.iconUrl ic"
+          + PUBLIC_CRITERIA
+          + " ORDER BY i.date DESC, i.id DESC")
+  List<IdeaSummaryDTO> findPublicIdeaSummariesByCriteria(
+      @Param("filterDomains") boolean filterDomains,
+      @Param("domainNames") Collection<String> domainNames,
+      @Param("filterTopics") boolean filterTopics,
+      @Param("topicNames") Collection<String> topicNames,
+      @Param("filterTechs") boolean filterTechs,
+      @Param("techNames") Collection<String> techNames,
+      Pageable pageable);
+
+  /**
+   * Find the page of public ideas matching the criteria that comes right after the idea with the
+   * given date and id, from newest to oldest. Seeking on (date, id) instead of skipping an offset
+   * keeps the cost of a page the same however deep it is.
+   *
+   * @param filterDomains - whether to filter on the domain names
+   * @param domainNames - the names of the domains the idea must have one of
+   * @param filterTopics - whether to filter on the topic names
+   * @param topicNames - the names of the topics the idea must have one of
+   * @param filterTechs - whether to filter on the technology names
+   * @param techNames - the names of the technologies the idea must have one of
+   * @param cursorDate - the date of the last idea of the previous page
+   * @param cursorId - the id of the last idea of the previous page
+   * @param pageable - the size of the page to return
+   * @return the next page of matching public ideas, from newest to oldest
+   */
+  @EntityGraph("Idea.card")
+  @Query(
+      PUBLIC_IDEAS_BY_CRITERIA
+          + " AND (i.date < :cursorDate OR (i.date = :cursorDate AND i.id < :cursorId))"
+          + " ORDER BY i.date DESC, i.id DESC")
+  List<Idea> findPublicIdeasByCriteriaAfter(
+      @Param("filterDomains") boolean filterDomains,
+      @Param("domainNames") Collection<String> domainNames,
+      @Param("filterTopics") boolean filterTopics,
+      @Param("topicNames") Collection<String> topicNames,
+      @Param("filterTechs") boolean filterTechs,
+      @Param("techNames") Collection<String> techNames,
+      @Param("cursorDate") Date cursorDate,
+      @Param("cursorId") String cursorId,
+      Pageable pageable);
+
+  /**
+   * Find which of the given ideas are public and match the criteria, without loading them (e.g. to
+   * filter the trending ideas). A filter whose flag is false is ignored.
+   *
+   * @param filterDomains - whether to filter on the domain names
+   * @param domainNames - the names of the domains the idea must have one of
+   * @param filterTopics - whether to filter on the topic names
+   * @param topicNames - the names of the topics the idea must have one of
+   * @param filterTechs - whether to filter on the technology names
+   * @param techNames - the names of the technologies the idea must have one of
+   * @param ids - the ids of the ideas to look at
+   * @return the ids of the given ideas that are public and match, in no particular order
+   */
+  @Query("SELECT i.id FROM Idea i" + PUBLIC_CRITERIA + " AND i.id IN :ids")
+  List<String> findPublicIdeaIdsByCriteriaAndIdIn(
+      @Param("filterDomains") boolean filterDomains,
+      @Param("domainNames") Collection<String> domainNames,
+      @Param("filterTopics") boolean filterTopics,
+      @Param("topicNames") Collection<String> topicNames,
+      @Param("filterTechs") boolean filterTechs,
+      @Param("techNames") Collection<String> techNames,
+      @Param("ids") Collection<String> ids);
+
+  /**
+   * Find the ids of a page of the public ideas whose title, purpose or description match a full
+   * text query and that match the criteria, from the most to the least relevant. The query is
+   * answered by the GIN index on the search_vector column (see DatabaseIndexConfiguration), the
+   * title weighing more than the purpose, which weighs more than the description. A filter whose
+   * flag is false is ignored, but its names cannot be empty.
+   *
+   * @param query - the text query, in the to_tsquery syntax (e.g. {@code solar:* & pan:*})
+   * @param filterDomains - whether to filter on the domain names
+   * @param domainNames - the names of the domains the idea must have one of
+   * @param filterTopics - whether to filter on the topic names
+   * @param topicNames - the names of the topics the idea must have one of
+   * @param filterTechs - whether to filter on the technology names
+   * @param techNames - the names of the technologies the idea must have one of
+   * @param limit - the maximum number of ids to return
+   * @param offset - the number of matching ideas to skip
+   * @return the ids of the matching public ideas, from the most to the least relevant
+   */
+  @Query(
+      value =
+          "SELECT i.id FROM idea i, to_tsquery('english', :query) q"
+              + " WHERE i.search_vector @@ q AND i.is_private = false"
+              + DOMAIN_NAMES_SQL_FILTER
+              + TOPIC_NAMES_SQL_FILTER
+              + TECH_NAMES_SQL_FILTER
+              + " ORDER BY ts_rank_cd(i.search_vector, q) DESC, i.date DESC, i.id DESC"
+              + " LIMIT :limit OFFSET :offset",
+      nativeQuery = true)
+  List<String> searchPublicIdeaIds(
+      @Param("query") String query,
+      @Param("filterDomains") boolean filterDomains,
+      @Param("domainNames") Collection<String> domainNames,
+      @Param("filterTopics") boolean filterTopics,
+      @Param("topicNames") Collection<String> topicNames,
+      @Param("filterTechs") boolean filterTechs,
+      @Param("techNames") Collection<String> techNames,
+      @Param("limit") int limit,
+      @Param("offset") int offset);
+
+  /**
+   * Count the public ideas matching the criteria (and the text query when searching) by domain
+   * name, topic name and technology name, in a single query. The counts of a kind ignore the
+   * filter on that kind, so they are the number of ideas picking that name would add: the
+   * domain counts are filtered by the topics and technologies only, and so on. A filter whose
+   * flag is false is ignored, but its names cannot be empty.
+   *
+   * @param searching - whether to filter on the text query
+   * @param query - the text query, in the to_tsquery syntax (ignored when not searching)
+   * @param filterDomains - whether to filter on the domain names
+   * @param domainNames - the names of the domains the idea must have one of
+   * @param filterTopics - whether to filter on the topic names
+   * @param topicNames - the names of the topics the idea must have one of
+   * @param filterTechs - whether to filter on the technology names
+   * @param techNames - the names of the technologies the idea must have one of
+   * @return rows of the kind ("domain", "topic" or "technology"), the name and the number of
+   *     ideas, only for the names that have ideas
+   */
+  @Query(
+      value =
+          "SELECT 'domain', d.name, COUNT(*) FROM idea i"
+              + " JOIN idea_domain fd ON fd.idea_id = i.id JOIN domain d ON d.id = fd.url_id"
+              + PUBLIC_IDEAS_SQL_SEARCH
+              + TOPIC_NAMES_SQL_FILTER
+              + TECH_NAMES_SQL_FILTER
+              + " GROUP BY d.name"
+              + " UNION ALL SELECT 'topic', t.name, COUNT(*) FROM idea i"
+              + " JOIN idea_topic ft ON ft.idea_id = i.id JOIN topic t ON t.id = ft.topic_id"
+              + PUBLIC_IDEAS_SQL_SEARCH
+              + DOMAIN_NAMES_SQL_FILTER
+              + TECH_NAMES_SQL_FILTER
+              + " GROUP BY t.name"
+              + " UNION ALL SELECT 'technology', te.name, COUNT(*) FROM idea i"
+              + " JOIN idea_technology fte ON fte.idea_id = i.id"
+              + " JOIN technology te ON te.id = fte.technology_id"
+              + PUBLIC_IDEAS_SQL_SEARCH
+              + DOMAIN_NAMES_SQL_FILTER
+              + TOPIC_NAMES_SQL_FILTER
+              + " GROUP BY te.name",
+      nativeQuery = true)
+  List<Object[]> countPublicIdeasByFacet(
+      @Param("searching") boolean searching,
+      @Param("query") String query,
+      @Param("filterDomains") boolean filterDomains,
+      @Param("domainNames") Collection<String> domainNames,
+      @Param("filterTopics") boolean filterTopics,
+      @Param("topicNames") Collection<String> topicNames,
+      @Param("filterTechs") boolean filterTechs,
+      @Param("techNames") Collection<String> techNames);
+
+  /**
+   * Find the ideas created by the user with the given email, ignoring case, from newest to oldest.
+   * Only the paging of the pageable is used, the order is always (date, id) descending.
+   *
+   * @param email - the email of the creator
+   * @param pageable - the page to return, or unpaged for all of them
+   * @return the ideas of the user, from newest to oldest
+   */
+  @EntityGraph("Idea.card")
+  @Query(
+      "SELECT i FROM Idea i JOIN i.user u JOIN u.appUser a WHERE lower(a.email) = lower(:email)"
+          + " ORDER BY i.date DESC, i.id DESC")
+  List<Idea> findIdeasByOwnerEmail(@Param("email") String email, Pageable pageable);
+
+  /**
+   * Find the summaries of the ideas created by the user with the given email, ignoring case, from
+   * newest to oldest, without loading the ideas. Only the paging of the pageable is used.
+   *
+   * @param email - the email of the creator
+   * @param pageable - the page to return, or unpaged for all of them
+   * @return the summaries of the ideas of the user, without their domains, topics and
+   *     technologies, from newest to oldest
+   */
+  @Query(
+      IDEA_SUMMARY_SELECT
+          + " FROM Idea i JOIN i.iconUrl ic JOIN i.user u JOIN u.appUser a"
+          + " WHERE lower(a.email) = lower(:email) ORDER BY i.date DESC, i.id DESC")
+  List<IdeaSummaryDTO> findIdeaSummariesByOwnerEmail(
+      @Param("email") String email, Pageable pageable);
+
+  /**
+   * Find the names of the domains, topics and technologies of the ideas with the given ids, in a
+   * single query
+   *
+   * @param ideaIds - the ids of the ideas
+   * @return rows of the idea id, the kind ("domain", "topic" or "technology") and the name
+   */
+  @Query(
+      value =
+          "SELECT ido.idea_id, 'domain', d.name FROM idea_domain ido"
+              + " JOIN domain d ON d.id = ido.url_id WHERE ido.idea_id IN :ideaIds"
+              + " UNION ALL SELECT it.idea_id, 'topic', t.name FROM idea_topic it"
+              + " JOIN topic t ON t.id = it.topic_id WHERE it.idea_id IN :ideaIds"
+              + " UNION ALL SELECT ite.idea_id, 'technology', te.name FROM idea_technology ite"
+              + " JOIN technology te ON te.id = ite.technology_id WHERE ite.idea_id IN :ideaIds",
+      nativeQuery = true)
+  List<Object[]> findTaxonomyNamesByIdeaIdIn(@Param("ideaIds") Collection<String> ideaIds);
+
+  /**
+   * Find the newest public ideas of other users that have at least 1 of the given domains, topics
+   * or technologies, as candidates to recommend to a user. Only the page size of the pageable is
+   * used, the order is always (date, id) descending.
+   *
+   * @param userId - the id of the user the ideas are recommended to, whose ideas are left out
+   * @param domainIds - the ids of the domains the idea can have
+   * @param topicIds - the ids of the topics the idea can have
+   * @param techIds - the ids of the technologies the idea can have
+   * @param pageable - the maximum number of ideas to return
+   * @return the newest related public ideas
+   */
+  @EntityGraph("Idea.card")
+  @Query(
+      "SELECT i FROM Idea i WHERE i.isPrivate = false AND i.user.id <> :userId"
+          + " AND (EXISTS (SELECT d.id FROM Idea i2 JOIN i2.domains d"
+          + " WHERE i2.id = i.id AND d.id IN :domainIds)"
+          + " OR EXISTS (SELECT t.id FROM Idea i3 JOIN i3.topics t"
+          + " WHERE i3.id = i.id AND t.id IN :topicIds)"
+          + " OR EXISTS (SELECT te.id FROM Idea i4 JOIN i4.techs te"
+          + " WHERE i4.id = i.id AND te.id IN :techIds))"
+          + " ORDER BY i.date DESC, i.id DESC")
+  List<Idea> findPublicIdeasRelatedTo(
+      @Param("userId") String userId,
+      @Param("domainIds") Collection<String> domainIds,
+      @Param("topicIds") Collection<String> topicIds,
+      @Param("techIds") Collection<String> techIds,
+      Pageable pageable);
+
+  /**
+   * Make the ideas that have one of the given icons use another icon instead. The ideas loaded
+   * in the persistence context are detached, since the statement bypasses them.
+   *
+   * @param icon - the icon to use
+   * @param replacedIcons - the icons to replace
+   * @return the number of modified ideas
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("UPDATE Idea i SET i.iconUrl = :icon WHERE i.iconUrl IN :replacedIcons")
+  int replaceIcons(@Param("icon") URL icon, @Param("replacedIcons") Collection<URL> replacedIcons);
+
+  /**
+   * Add to the number of high fives of an idea, in a single statement so that concurrent reactions
+   * are all counted
+   *
+   * @param id - the id of the idea
+   * @param delta - the number of high fives to add (negative to remove some)
+   * @return the number of modified ideas
+   */
+  @Modifying
+  @Query("UPDATE Idea i SET i.highFiveCount = i.highFiveCount + :delta WHERE i.id = :id")
+  int addHighFives(@Param("id") String id, @Param("delta") int delta);
+
+  /**
+   * Set the number of high fives of every idea to its number of reactions, where they differ
+   *
+   * @return the number of modified ideas
+   */
+  @Modifying
+  @Query(
+      value =
+          "UPDATE idea i SET high_five_count = (SELECT count(*) FROM reaction r WHERE r.idea_id ="
+              + " i.id) WHERE high_five_count <> (SELECT count(*) FROM reaction r WHERE r.idea_id"
+              + " = i.id)",
+      nativeQuery = true)
+  int recountHighFives();
 }
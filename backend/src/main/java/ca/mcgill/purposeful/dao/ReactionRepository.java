@@ -1,8 +1,17 @@
 package ca.mcgill.purposeful.dao;
 
+import ca.mcgill.purposeful.model.Idea;
 import ca.mcgill.purposeful.model.Reaction;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
 /** Repository for Reaction */
 public interface ReactionRepository extends CrudRepository<Reaction, Integer> {
@@ -28,9 +37,33 @@ public interface ReactionRepository extends CrudRepository<Reaction, Integer> {
    * Delete a Reaction by id
    *
    * @param id - the id of the Reaction
-   * @return the deleted Reaction
+   * @return the number of deleted Reactions (0 or 1)
    */
-  String deleteReactionById(String id);
+  @Modifying
+  @Query("DELETE FROM Reaction r WHERE r.id = :id")
+  int deleteReactionById(@Param("id") String id);
+
+  /**
+   * Delete all the Reactions to an idea, in a single statement
+   *
+   * @param idea_id - the id of the idea
+   * @return the (idea id, date) of each deleted Reaction
+   */
+  @Query(
+      value = "DELETE FROM reaction WHERE idea_id = :ideaId RETURNING idea_id, date",
+      nativeQuery = true)
+  List<Object[]> deleteReactionsByIdea(@Param("ideaId") String idea_id);
+
+  /**
+   * Delete all the Reactions of a user, in a single statement
+   *
+   * @param user_id - the id of the user
+   * @return the (idea id, date) of each deleted Reaction
+   */
+  @Query(
+      value = "DELETE FROM reaction WHERE user_id = :userId RETURNING idea_id, date",
+      nativeQuery = true)
+  List<Object[]> deleteReactionsByUser(@Param("userId") String user_id);
 
   /**
    * Find all Reactions by idea_id
@@ -47,4 +80,87 @@ public interface ReactionRepository extends CrudRepository<Reaction, Integer> {
    * @return a list of all Reactions with the given user_id
    */
   ArrayList<Reaction> findAllByRegularUser_Id(String user_id);
+
+  /**
+   * Find which of the given ideas a user reacted to, in a single query using the unique index on
+   * (idea_id, user_id)
+   *
+   * @param user_id - the id of the user
+   * @param idea_ids - the ids of the ideas
+   * @return the ids of the ideas among idea_ids that the user reacted to
+   */
+  @Query(
+      "SELECT r.idea.id FROM Reaction r WHERE r.regularUser.id = :userId AND r.idea.id IN :ideaIds")
+  Set<String> findReactedIdeaIds(
+      @Param("userId") String user_id, @Param("ideaIds") Collection<String> idea_ids);
+
+  /**
+   * Find the ideas a user reacted to, from the most to the least recent reaction
+   *
+   * @param user_id - the id of the user
+   * @param pageable - the maximum number of ideas to return
+   * @return the ideas the user reacted to
+   */
+  @Query("SELECT r.idea FROM Reaction r WHERE r.regularUser.id = :userId ORDER BY r.date DESC")
+  List<Idea> findReactedIdeas(@Param("userId") String user_id, Pageable pageable);
+
+  /**
+   * Find the idea and the date of every Reaction made since a date
+   *
+   * @param since - the date from which to find the Reactions
+   * @return the (idea id, date) pairs of the Reactions
+   */
+  @Query("SELECT r.idea.id, r.date FROM Reaction r WHERE r.date >= :since")
+  List<Object[]> findIdeaIdsAndDatesSince(@Param("since") Date since);
+
+  /**
+   * Delete the Reaction of a user to an idea, if there is one
+   *
+   * @param idea_id - the id of the idea
+   * @param user_id - the id of the user
+   * @return the number of deleted Reactions (0 or 1)
+   */
+  @Modifying
+  @Query("DELETE FROM Reaction r WHERE r.idea.id = :ideaId AND r.regularUser.id = :userId")
+  int deleteReactionByIdeaAndUser(
+      @Param("ideaId") String idea_id, @Param("userId") String user_id);
+
+  /**
+   * Delete the Reaction of a user to an idea, if there is one, and return its date
+   *
+   * @param idea_id - the id of the idea
+   * @param user_id - the id of the user
+   * @return the date of the deleted Reaction (empty if there was none)
+   */
+  @Query(
+      value =
+          "DELETE FROM reaction WHERE idea_id = :ideaId AND user_id = :userId RETURNING date",
+      nativeQuery = true)
+  List<Date> deleteReactionByIdeaAndUserReturningDate(
+      @Param("ideaId") String idea_id, @Param("userId") String user_id);
+
+  /**
+   * Insert the Reaction of a user to an idea, unless there already is one (see the unique index
+   * reaction_idea_user_idx)
+   *
+   * @param id - the id of the new Reaction
+   * @param reactionType - the ordinal of the type of the Reaction
+   * @param date - the date of the Reaction
+   * @param idea_id - the id of the idea
+   * @param user_id - the id of the user
+   * @return the number of inserted Reactions (0 or 1)
+   */
+  @Modifying
+  @Query(
+      value =
+          "INSERT INTO reaction (id, reaction_type, date, idea_id, user_id)"
+              + " VALUES (:id, :reactionType, :date, :ideaId, :userId)"
+              + " ON CONFLICT (idea_id, user_id) DO NOTHING",
+      nativeQuery = true)
+  int insertReactionIfAbsent(
+      @Param("id") String id,
+      @Param("reactionType") int reactionType,
+      @Param("date") Date date,
+      @Param("ideaId") String idea_id,
+      @Param("userId") String user_id);
 }
@@ -1,17 +1,19 @@
 package ca.mcgill.purposeful.dao;
 
 import ca.mcgill.purposeful.model.RegularUser;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.repository.CrudRepository;
 
 /** Repository for RegularUser */
 public interface RegularUserRepository extends CrudRepository<RegularUser, Integer> {
 
   /**
-   * Find a regular user by id
+   * Find a regular user by id, along with its domains and interests
    *
    * @param id the id of the regular user
    * @return the regular user
    */
+  @EntityGraph(attributePaths = {"domains", "interests"})
   RegularUser findRegularUserById(String id);
 
   /**
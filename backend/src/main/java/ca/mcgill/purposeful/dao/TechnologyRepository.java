@@ -1,6 +1,8 @@
 package ca.mcgill.purposeful.dao;
 
 import ca.mcgill.purposeful.model.Technology;
+import java.util.Collection;
+import java.util.List;
 import org.springframework.data.repository.CrudRepository;
 
 /** Repository for Technology */
@@ -21,5 +23,12 @@ public interface TechnologyRepository extends CrudRepository<Technology, Integer
    * @return the technology
    */
   Technology findTechnologyByName(String name);
-  ;
+
+  /**
+   * Find all the technologies with the given ids, in a single query
+   *
+   * @param ids the ids of the technologies
+   * @return the technologies that exist, in no particular order
+   */
+  List<Technology> findTechnologiesByIdIn(Collection<String> ids);
 }
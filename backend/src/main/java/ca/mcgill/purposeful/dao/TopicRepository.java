@@ -1,6 +1,8 @@
 package ca.mcgill.purposeful.dao;
 
 import ca.mcgill.purposeful.model.Topic;
+import java.util.Collection;
+import java.util.List;
 import org.springframework.data.repository.CrudRepository;
 
 /** Repository for Topic */
@@ -21,4 +23,12 @@ public interface TopicRepository extends CrudRepository<Topic, Integer> {
    * @return the topic
    */
   Topic findTopicByName(String name);
+
+  /**
+   * Find all the topics with the given ids, in a single query
+   *
+   * @param ids the ids of the topics
+   * @return the topics that exist, in no particular order
+   */
+  List<Topic> findTopicsByIdIn(Collection<String> ids);
 }
@@ -1,8 +1,14 @@
 package ca.mcgill.purposeful.dao;
 
 import ca.mcgill.purposeful.model.URL;
+import jakarta.transaction.Transactional;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
 /** Repository for URL */
 public interface URLRepository extends CrudRepository<URL, Integer> {
@@ -22,4 +28,103 @@ public interface URLRepository extends CrudRepository<URL, Integer> {
    * @return the URL
    */
   ArrayList<URL> findURLByURL(String URL);
+
+  /**
+   * Find all the URLs with the given ids, in a single query
+   *
+   * @param ids the ids of the URLs
+   * @return the URLs that exist, in no particular order
+   */
+  List<URL> findURLsByIdIn(Collection<String> ids);
+
+  /**
+   * Find an icon by the hash of its normalized URL, using the unique index on the hash
+   *
+   * @param iconHash the hash of the normalized URL
+   * @return the icon, or null if there is none
+   */
+  URL findURLByIconHash(String iconHash);
+
+  /**
+   * Find all the icons with one of the given hashes, in a single query
+   *
+   * @param iconHashes the hashes of the normalized URLs
+   * @return the icons that exist, in no particular order
+   */
+  List<URL> findURLsByIconHashIn(Collection<String> iconHashes);
+
+  /**
+   * Insert an icon unless there already is one with the same hash. Concurrent inserts of the same
+   * icon wait for each other, and only the first one is kept.
+   *
+   * @param id the id of the new icon
+   * @param url the URL of the icon
+   * @param iconHash the hash of the normalized URL
+   * @return 1 if the icon was inserted, 0 if there already was one
+   */
+  @Modifying
+  @Transactional
+  @Query(
+      value =
+          "INSERT INTO url (id, url, preset_icon, icon_hash) VALUES (:id, :url, false, :iconHash)"
+              + " ON CONFLICT (icon_hash) DO NOTHING",
+      nativeQuery = true)
+  int insertIconIfAbsent(
+      @Param("id") String id, @Param("url") String url, @Param("iconHash") String iconHash);
+
+  /**
+   * Find the icons that have no hash yet (created before icons were stored once per hash). URLs
+   * that are also the supporting image of an idea are left out.
+   *
+   * @return the icons without a hash, ordered by id
+   */
+  @Query(
+      "SELECT u FROM URL u WHERE u.iconHash IS NULL"
+          + " AND (u.presetIcon = true OR EXISTS (SELECT i.id FROM Idea i WHERE i.iconUrl = u))"
+          + " AND NOT EXISTS (SELECT i.id FROM Idea i JOIN i.supportingImageUrls s WHERE s = u)"
+          + " ORDER BY u.id")
+  List<URL> findIconsWithoutHash();
+
+  /**
+   * Give an icon its hash. The URLs loaded in the persistence context are detached, since the
+   * statement bypasses them.
+   *
+   * @param id the id of the icon
+   * @param iconHash the hash of the normalized URL
+   * @param presetIcon whether the icon is a preset icon
+   * @return 1 if the icon was updated, 0 if it does not exist
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Transactional
+  @Query("UPDATE URL u SET u.iconHash = :iconHash, u.presetIcon = :presetIcon WHERE u.id = :id")
+  int updateIcon(
+      @Param("id") String id,
+      @Param("iconHash") String iconHash,
+      @Param("presetIcon") boolean presetIcon);
+
+  /**
+   * Delete the URLs with the given ids, in a single statement. The URLs loaded in the persistence
+   * context are detached, since the statement bypasses them.
+   *
+   * @param ids the ids of the URLs
+   * @return the number of deleted URLs
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Transactional
+  @Query("DELETE FROM URL u WHERE u.id IN :ids")
+  int deleteURLsByIdIn(@Param("ids") Collection<String> ids);
+
+  /**
+   * Delete the URLs that are neither a preset icon, the icon of an idea nor a supporting image of
+   * an idea (e.g. left behind by an idea that failed to be created or was modified)
+   *
+   * @return the number of deleted URLs
+   */
+  @Modifying
+  @Transactional
+  @Query(
+      "DELETE FROM URL u WHERE u.presetIcon = false"
+          + " AND NOT EXISTS (SELECT i.id FROM Idea i WHERE i.iconUrl = u)"
+          + " AND NOT EXISTS (SELECT i.id FROM Idea i JOIN i.supportingImageUrls s WHERE s = u)")
+  int deleteUnreferencedURLs();
 }
@@ -0,0 +1,108 @@
+package ca.mcgill.purposeful.dto;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The number of ideas each domain, topic and technology would return if it was picked in the
+ * filter, the other filters staying the same. Only the names with at least one idea are listed,
+ * from the most to the least ideas.
+ */
+public class FacetCountsDTO {
+
+  private Map<String, Long> domains;
+  private Map<String, Long> topics;
+  private Map<String, Long> technologies;
+
+  /** Default constructor */
+  public FacetCountsDTO() {}
+
+  /**
+   * Constructor, ordering the counts from highest to lowest, then by name
+   *
+   * @param domains The number of ideas of each domain name
+   * @param topics The number of ideas of each topic name
+   * @param technologies The number of ideas of each technology name
+   */
+  public FacetCountsDTO(
+      Map<String, Long> domains, Map<String, Long> topics, Map<String, Long> technologies) {
+    this.domains = sorted(domains);
+    this.topics = sorted(topics);
+    this.technologies = sorted(technologies);
+  }
+
+  /**
+   * Get the number of ideas of each domain name
+   *
+   * @return Domain counts
+   */
+  public Map<String, Long> getDomains() {
+    return domains;
+  }
+
+  /**
+   * Set the number of ideas of each domain name
+   *
+   * @param domains Domain counts
+   */
+  public void setDomains(Map<String, Long> domains) {
+    this.domains = domains;
+  }
+
+  /**
+   * Get the number of ideas of each topic name
+   *
+   * @return Topic counts
+   */
+  public Map<String, Long> getTopics() {
+    return topics;
+  }
+
+  /**
+   * Set the number of ideas of each topic name
+   *
+   * @param topics Topic counts
+   */
+  public void setTopics(Map<String, Long> topics) {
+    this.topics = topics;
+  }
+
+  /**
+   * Get the number of ideas of each technology name
+   *
+   * @return Technology counts
+   */
+  public Map<String, Long> getTechnologies() {
+    return technologies;
+  }
+
+  /**
+   * Set the number of ideas of each technology name
+   *
+   * @param technologies Technology counts
+   */
+  public void setTechnologies(Map<String, Long> technologies) {
+    this.technologies = technologies;
+  }
+
+  /**
+   * Order counts from highest to lowest, then by name
+   *
+   * @param counts The counts
+   * @return The counts in order
+   */
+  private static Map<String, Long> sorted(Map<String, Long> counts) {
+    List<Map.Entry<String, Long>> entries = new ArrayList<>(counts.entrySet());
+    entries.sort(
+        Map.Entry.<String, Long>comparingByValue()
+            .reversed()
+            .thenComparing(Map.Entry.comparingByKey()));
+    Map<String, Long> sorted = new LinkedHashMap<>();
+    for (Map.Entry<String, Long> entry : entries) {
+      sorted.put(entry.getKey(), entry.getValue());
+    }
+    return sorted;
+  }
+}
@@ -27,6 +27,8 @@ public class IdeaDTO {
   private Set<TopicDTO> topics;
   private List<URLDTO> imgUrls;
   private URLDTO iconUrl;
+  private int highFiveCount;
+  private boolean reactedByMe;
 
   /** Default constructor for IdeaDTO */
   public IdeaDTO() {}
@@ -51,6 +53,7 @@ public class IdeaDTO {
     this.imgUrls =
         idea.getSupportingImageUrls().stream().map(URLDTO::new).collect(Collectors.toList());
     this.iconUrl = new URLDTO(idea.getIconUrl());
+    this.highFiveCount = idea.getHighFiveCount();
   }
 
   /**
@@ -216,6 +219,24 @@ public class IdeaDTO {
     return iconUrl;
   }
 
+  /**
+   * Gets the number of high fives of the idea
+   *
+   * @return The number of high fives of the idea
+   */
+  public int getHighFiveCount() {
+    return highFiveCount;
+  }
+
+  /**
+   * Gets whether the user who requested the idea high-fived it
+   *
+   * @return Whether the current user high-fived the idea
+   */
+  public boolean getReactedByMe() {
+    return reactedByMe;
+  }
+
   /**
    * Converts a list of Idea objects to a list of IdeaDTO objects
    *
@@ -233,4 +254,20 @@ public class IdeaDTO {
 
     return dtoList;
   }
+
+  /**
+   * Converts a list of Idea objects to a list of IdeaDTO objects, flagging the ones the current
+   * user high-fived
+   *
+   * @param ideas The ideas to convert
+   * @param reactedIdeaIds The ids of the ideas the current user high-fived
+   * @return The converted list
+   */
+  public static ArrayList<IdeaDTO> convertToDto(List<Idea> ideas, Set<String> reactedIdeaIds) {
+    ArrayList<IdeaDTO> dtoList = convertToDto(ideas);
+    for (IdeaDTO dto : dtoList) {
+      dto.reactedByMe = reactedIdeaIds.contains(dto.id);
+    }
+    return dtoList;
+  }
 }
@@ -0,0 +1,79 @@
+package ca.mcgill.purposeful.dto;
+
+/** The result of importing one idea of a bulk import, either the id of the idea or an error */
+public class IdeaImportResultDTO {
+
+  private int index;
+  private String ideaId;
+  private String error;
+
+  /** Default constructor */
+  public IdeaImportResultDTO() {}
+
+  /**
+   * Constructor
+   *
+   * @param index The position of the idea in the imported list, starting at 0
+   * @param ideaId The id of the created idea (null if it could not be created)
+   * @param error Why the idea could not be created (null if it was created)
+   */
+  public IdeaImportResultDTO(int index, String ideaId, String error) {
+    this.index = index;
+    this.ideaId = ideaId;
+    this.error = error;
+  }
+
+  /**
+   * Get the position of the idea in the imported list, starting at 0
+   *
+   * @return Index
+   */
+  public int getIndex() {
+    return index;
+  }
+
+  /**
+   * Set the position of the idea in the imported list
+   *
+   * @param index Index
+   */
+  public void setIndex(int index) {
+    this.index = index;
+  }
+
+  /**
+   * Get the id of the created idea (null if it could not be created)
+   *
+   * @return Idea id
+   */
+  public String getIdeaId() {
+    return ideaId;
+  }
+
+  /**
+   * Set the id of the created idea
+   *
+   * @param ideaId Idea id
+   */
+  public void setIdeaId(String ideaId) {
+    this.ideaId = ideaId;
+  }
+
+  /**
+   * Get why the idea could not be created (null if it was created)
+   *
+   * @return Error message
+   */
+  public String getError() {
+    return error;
+  }
+
+  /**
+   * Set why the idea could not be created
+   *
+   * @param error Error message
+   */
+  public void setError(String error) {
+    this.error = error;
+  }
+}
@@ -0,0 +1,96 @@
+package ca.mcgill.purposeful.dto;
+
+import java.util.List;
+
+/**
+ * A page of browsed ideas along with the cursor to send back to get the next page
+ *
+ * @author Wassim Jabbour
+ */
+public class IdeaPageDTO {
+
+  private List<IdeaDTO> ideas;
+  private String nextCursor;
+  private FacetCountsDTO facets;
+
+  /** Default constructor */
+  public IdeaPageDTO() {}
+
+  /**
+   * Constructor
+   *
+   * @param ideas The ideas of the page
+   * @param nextCursor The cursor of the next page (null if this is the last page)
+   */
+  public IdeaPageDTO(List<IdeaDTO> ideas, String nextCursor) {
+    this.ideas = ideas;
+    this.nextCursor = nextCursor;
+  }
+
+  /**
+   * Constructor
+   *
+   * @param ideas The ideas of the page
+   * @param nextCursor The cursor of the next page (null if this is the last page)
+   * @param facets The facet counts of the filter (null if they were not requested)
+   */
+  public IdeaPageDTO(List<IdeaDTO> ideas, String nextCursor, FacetCountsDTO facets) {
+    this.ideas = ideas;
+    this.nextCursor = nextCursor;
+    this.facets = facets;
+  }
+
+  /**
+   * Get the ideas of the page
+   *
+   * @return Ideas
+   */
+  public List<IdeaDTO> getIdeas() {
+    return ideas;
+  }
+
+  /**
+   * Set the ideas of the page
+   *
+   * @param ideas Ideas
+   */
+  public void setIdeas(List<IdeaDTO> ideas) {
+    this.ideas = ideas;
+  }
+
+  /**
+   * Get the cursor of the next page (null if this is the last page)
+   *
+   * @return Next cursor
+   */
+  public String getNextCursor() {
+    return nextCursor;
+  }
+
+  /**
+   * Set the cursor of the next page
+   *
+   * @param nextCursor Next cursor
+   */
+  public void setNextCursor(String nextCursor) {
+    this.nextCursor = nextCursor;
+  }
+
+  /**
+   * Get the number of ideas of each domain, topic and technology (null if they were not requested)
+   *
+   * @return Facet counts
+   */
+  public FacetCountsDTO getFacets() {
+    return facets;
+  }
+
+  /**
+   * Set the number of ideas of each domain, topic and technology
+   *
+   * @param facets Facet counts
+   */
+  public void setFacets(FacetCountsDTO facets) {
+    this.facets = facets;
+  }
+}
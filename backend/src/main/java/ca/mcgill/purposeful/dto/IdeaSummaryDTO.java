@@ -0,0 +1,178 @@
+package ca.mcgill.purposeful.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import java.util.Date;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * What a list of ideas shows, without the description and supporting images of {@link IdeaDTO}.
+ * The columns are selected straight into this class by the summary queries of the repositories,
+ * then the names of the domains, topics and technologies of a whole list are added with a single
+ * query, so no Idea entity is built.
+ */
+public class IdeaSummaryDTO {
+
+  private String id;
+  private String title;
+  private String purpose;
+
+  @JsonFormat(pattern = "yyyy-MM-dd")
+  private Date date;
+
+  private String iconUrl;
+  private int highFiveCount;
+  private boolean reactedByMe;
+  private Set<String> domains = new TreeSet<>();
+  private Set<String> topics = new TreeSet<>();
+  private Set<String> techs = new TreeSet<>();
+
+  /** Default constructor */
+  public IdeaSummaryDTO() {}
+
+  /**
+   * Constructor, called by the summary queries
+   *
+   * @param id The id of the idea
+   * @param title The title of the idea
+   * @param purpose The purpose of the idea
+   * @param date The date of the idea
+   * @param iconUrl The URL of the icon of the idea
+   * @param highFiveCount The number of high fives of the idea
+   */
+  public IdeaSummaryDTO(
+      String id, String title, String purpose, Date date, String iconUrl, int highFiveCount) {
+    this.id = id;
+    this.title = title;
+    this.purpose = purpose;
+    this.date = date;
+    this.iconUrl = iconUrl;
+    this.highFiveCount = highFiveCount;
+  }
+
+  /**
+   * Gets the id of the idea
+   *
+   * @return The id of the idea
+   */
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * Gets the title of the idea
+   *
+   * @return The title of the idea
+   */
+  public String getTitle() {
+    return title;
+  }
+
+  /**
+   * Gets the purpose of the idea
+   *
+   * @return The purpose of the idea
+   */
+  public String getPurpose() {
+    return purpose;
+  }
+
+  /**
+   * Gets the date of the idea
+   *
+   * @return The date of the idea
+   */
+  public Date getDate() {
+    return date;
+  }
+
+  /**
+   * Gets the URL of the icon of the idea
+   *
+   * @return The URL of the icon
+   */
+  public String getIconUrl() {
+    return iconUrl;
+  }
+
+  /**
+   * Gets the number of high fives of the idea
+   *
+   * @return The number of high fives
+   */
+  public int getHighFiveCount() {
+    return highFiveCount;
+  }
+
+  /**
+   * Gets whether the user who requested the idea high-fived it
+   *
+   * @return Whether the user high-fived the idea
+   */
+  public boolean getReactedByMe() {
+    return reactedByMe;
+  }
+
+  /**
+   * Sets whether the user who requested the idea high-fived it
+   *
+   * @param reactedByMe Whether the user high-fived the idea
+   */
+  public void setReactedByMe(boolean reactedByMe) {
+    this.reactedByMe = reactedByMe;
+  }
+
+  /**
+   * Gets the names of the domains of the idea, in alphabetical order
+   *
+   * @return The names of the domains
+   */
+  public Set<String> getDomains() {
+    return domains;
+  }
+
+  /**
+   * Sets the names of the domains of the idea
+   *
+   * @param domains The names of the domains
+   */
+  public void setDomains(Set<String> domains) {
+    this.domains = domains;
+  }
+
+  /**
+   * Gets the names of the topics of the idea, in alphabetical order
+   *
+   * @return The names of the topics
+   */
+  public Set<String> getTopics() {
+    return topics;
+  }
+
+  /**
+   * Sets the names of the topics of the idea
+   *
+   * @param topics The names of the topics
+   */
+  public void setTopics(Set<String> topics) {
+    this.topics = topics;
+  }
+
+  /**
+   * Gets the names of the technologies of the idea, in alphabetical order
+   *
+   * @return The names of the technologies
+   */
+  public Set<String> getTechs() {
+    return techs;
+  }
+
+  /**
+   * Sets the names of the technologies of the idea
+   *
+   * @param techs The names of the technologies
+   */
+  public void setTechs(Set<String> techs) {
+    this.techs = techs;
+  }
+}
@@ -12,6 +12,11 @@ public class SearchFilterDTO {
   private List<String> domains;
   private List<String> topics;
   private List<String> technologies;
+  private Integer pageSize;
+  private String cursor;
+  private String sort;
+  private String search;
+  private Boolean facets;
 
   /** Default constructor */
   public SearchFilterDTO() {}
@@ -82,4 +87,95 @@ public class SearchFilterDTO {
   public void setTechnologies(ArrayList<String> technologies) {
     this.technologies = technologies;
   }
+
+  /**
+   * Get the page size (null when browsing without pagination)
+   *
+   * @return Page size
+   */
+  public Integer getPageSize() {
+    return pageSize;
+  }
+
+  /**
+   * Set the page size
+   *
+   * @param pageSize Page size
+   */
+  public void setPageSize(Integer pageSize) {
+    this.pageSize = pageSize;
+  }
+
+  /**
+   * Get the cursor returned with the previous page (null for the first page)
+   *
+   * @return Cursor
+   */
+  public String getCursor() {
+    return cursor;
+  }
+
+  /**
+   * Set the cursor returned with the previous page
+   *
+   * @param cursor Cursor
+   */
+  public void setCursor(String cursor) {
+    this.cursor = cursor;
+  }
+
+  /**
+   * Get how the ideas are sorted, "newest", "trending" or "relevance" when searching (null for
+   * newest, or relevance when searching)
+   *
+   * @return Sort mode
+   */
+  public String getSort() {
+    return sort;
+  }
+
+  /**
+   * Set how the ideas are sorted
+   *
+   * @param sort Sort mode
+   */
+  public void setSort(String sort) {
+    this.sort = sort;
+  }
+
+  /**
+   * Get the words the title, purpose or description of the ideas must contain (null for all ideas)
+   *
+   * @return Search text
+   */
+  public String getSearch() {
+    return search;
+  }
+
+  /**
+   * Set the words the title, purpose or description of the ideas must contain
+   *
+   * @param search Search text
+   */
+  public void setSearch(String search) {
+    this.search = search;
+  }
+
+  /**
+   * Get whether to return the number of ideas of each domain, topic and technology (null for no)
+   *
+   * @return Whether to return the facet counts
+   */
+  public Boolean getFacets() {
+    return facets;
+  }
+
+  /**
+   * Set whether to return the number of ideas of each domain, topic and technology
+   *
+   * @param facets Whether to return the facet counts
+   */
+  public void setFacets(Boolean facets) {
+    this.facets = facets;
+  }
 }
@@ -0,0 +1,32 @@
+package ca.mcgill.purposeful.exception;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Answers the Global Exceptions thrown by the security filters, like a busy password encoder during
+ * a login, the same way {@link GlobalExceptionHandler} answers the ones of the controllers
+ */
+public class GlobalExceptionFilter extends OncePerRequestFilter {
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    try {
+      filterChain.doFilter(request, response);
+    } catch (GlobalException ex) {
+      if (response.isCommitted()) {
+        throw ex;
+      }
+      response.setStatus(ex.getStatus().value());
+      response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+      response.getWriter().write(ex.getMessage());
+    }
+  }
+}
@@ -5,9 +5,12 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToOne;
+import jakarta.persistence.Table;
+import java.util.Date;
 import org.hibernate.annotations.GenericGenerator;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
@@ -17,6 +20,12 @@ import org.hibernate.annotations.OnDeleteAction;
  * the database
  */
 @Entity
+@Table(
+    indexes = {
+      @Index(
+          name = "collaboration_request_requester_idea_idx",
+          columnList = "requester_id, idea_id")
+    })
 public class CollaborationRequest {
 
   // ------------------------
@@ -34,6 +43,10 @@ public class CollaborationRequest {
   @Column(nullable = false)
   private String message;
 
+  // Null for the requests sent before their date was recorded
+  @Column(nullable = true)
+  private Date date;
+
   // ------------------------
   // CollaborationRequest Associations
   // ------------------------
@@ -113,6 +126,22 @@ public class CollaborationRequest {
     this.message = message;
   }
 
+  /**
+   * Returns the date the CollaborationRequest was sent
+   * @return the date of the CollaborationRequest (null if it was not recorded)
+   */
+  public Date getDate() {
+    return date;
+  }
+
+  /**
+   * Sets the date the CollaborationRequest was sent
+   * @param date the date of the CollaborationRequest
+   */
+  public void setDate(Date date) {
+    this.date = date;
+  }
+
   /**
    * Returns the requester of the CollaborationRequest
    * @return the requester of the CollaborationRequest
@@ -6,18 +6,45 @@ import java.util.List;
 import java.util.Set;
 // import java.sql.Date;
 // import java.sql.Time;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.GenericGenerator;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 
-/** The Idea class, the model for all ideas in the database */
+/**
+ * The Idea class, the model for all ideas in the database. Every association is lazy, each query
+ * picks what it needs through one of the entity graphs below:
+ *
+ * <ul>
+ *   <li>Idea.card: what a list of ideas shows, the collections are then loaded in batches
+ *   <li>Idea.detail: the icon, the owner and the supporting images, for a single idea. The
+ *       domains, topics and technologies are left to their own batch query each: joining several
+ *       collections in one query would return one row per combination of their elements.
+ *   <li>Idea.owner: only the owner, for authorization checks
+ * </ul>
+ */
 @Entity
+@NamedEntityGraph(name = "Idea.card", attributeNodes = @NamedAttributeNode("iconUrl"))
+@NamedEntityGraph(
+    name = "Idea.detail",
+    attributeNodes = {
+      @NamedAttributeNode("iconUrl"),
+      @NamedAttributeNode("supportingImageUrls"),
+      @NamedAttributeNode("user")
+    })
+@NamedEntityGraph(name = "Idea.owner", attributeNodes = @NamedAttributeNode("user"))
+@Table(
+    indexes = {
+      @Index(name = "idea_date_id_idx", columnList = "date DESC, id DESC"),
+      @Index(name = "idea_user_id_date_idx", columnList = "user_id, date DESC, id DESC")
+    })
 public class Idea {
 
   // ------------------------
   // Idea Attributes
   // ------------------------
 
+  // Generated before the insert rather than by the database, so that inserts can be batched
   @Id
   @GeneratedValue(generator = "uuid")
   @GenericGenerator(name = "uuid", strategy = "uuid2")
@@ -46,40 +73,48 @@ public class Idea {
   @Column(nullable = false)
   private boolean isPrivate;
 
+  // Number of high fives, only changed with atomic updates (see IdeaRepository.addHighFives)
+  @Column(nullable = false, columnDefinition = "integer default 0")
+  private int highFiveCount;
+
   // ------------------------
   // Idea Associations
   // ------------------------
 
-  @ManyToMany(fetch = FetchType.EAGER)
+  @ManyToMany(fetch = FetchType.LAZY)
+  @BatchSize(size = 100)
   @JoinTable(
       name = "idea_domain",
       joinColumns = @JoinColumn(name = "idea_id"),
       inverseJoinColumns = @JoinColumn(name = "url_id"))
   private Set<Domain> domains;
 
-  @ManyToMany(fetch = FetchType.EAGER)
+  @ManyToMany(fetch = FetchType.LAZY)
+  @BatchSize(size = 100)
   @JoinTable(
       name = "idea_topic",
       joinColumns = @JoinColumn(name = "idea_id"),
       inverseJoinColumns = @JoinColumn(name = "topic_id"))
   private Set<Topic> topics;
 
-  @ManyToMany(fetch = FetchType.EAGER)
+  @ManyToMany(fetch = FetchType.LAZY)
+  @BatchSize(size = 100)
   @JoinTable(
       name = "idea_technology",
       joinColumns = @JoinColumn(name = "idea_id"),
       inverseJoinColumns = @JoinColumn(name = "technology_id"))
   private Set<Technology> techs;
 
-  @ManyToOne(fetch = FetchType.EAGER, optional = false)
+  @ManyToOne(fetch = FetchType.LAZY, optional = false)
   @JoinColumn(name = "icon_url_id", nullable = false)
   private URL iconUrl;
 
-  @OneToMany(fetch = FetchType.EAGER, cascade = CascadeType.REMOVE)
+  @OneToMany(fetch = FetchType.LAZY, cascade = CascadeType.REMOVE)
+  @BatchSize(size = 100)
   @JoinColumn(name = "supported_idea_id", nullable = true)
   private List<URL> supportingImageUrls;
 
-  @ManyToOne(fetch = FetchType.EAGER, optional = false)
+  @ManyToOne(fetch = FetchType.LAZY, optional = false)
   @OnDelete(action = OnDeleteAction.CASCADE)
   @JoinColumn(name = "user_id", nullable = false)
   private RegularUser user;
@@ -246,6 +281,24 @@ public class Idea {
     isPrivate = aPrivate;
   }
 
+  /**
+   * Getter method for the highFiveCount attribute
+   *
+   * @return the number of high fives the idea received
+   */
+  public int getHighFiveCount() {
+    return highFiveCount;
+  }
+
+  /**
+   * Setter method for the highFiveCount attribute
+   *
+   * @param highFiveCount the number of high fives the idea received
+   */
+  public void setHighFiveCount(int highFiveCount) {
+    this.highFiveCount = highFiveCount;
+  }
+
   /**
    * Get Domains of the idea
    *
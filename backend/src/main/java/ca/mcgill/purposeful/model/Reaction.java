@@ -6,7 +6,10 @@ import org.hibernate.annotations.GenericGenerator;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 
-/** The Reaction class, the model for all reactions in the database */
+/**
+ * The Reaction class, the model for all reactions in the database. A user reacts at most once to
+ * an idea, which the unique index reaction_idea_user_idx enforces (see DatabaseIndexConfiguration).
+ */
 @Entity
 public class Reaction {
 
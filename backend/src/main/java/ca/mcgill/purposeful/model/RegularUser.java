@@ -2,6 +2,7 @@ package ca.mcgill.purposeful.model;
 
 import jakarta.persistence.*;
 import java.util.Set;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 
@@ -20,7 +21,8 @@ public class RegularUser extends Role {
   // RegularUser Associations
   // ------------------------
 
-  @ManyToMany(fetch = FetchType.EAGER)
+  @ManyToMany(fetch = FetchType.LAZY)
+  @BatchSize(size = 100)
   @JoinTable(
       name = "regular_user_domain",
       joinColumns = @JoinColumn(name = "app_user_id"),
@@ -28,7 +30,8 @@ public class RegularUser extends Role {
   private Set<Domain> domains;
 
   // Interests are minimum 2 (2..*). This is enforced in the controller
-  @ManyToMany(fetch = FetchType.EAGER)
+  @ManyToMany(fetch = FetchType.LAZY)
+  @BatchSize(size = 100)
   @JoinTable(
       name = "regular_user_topic",
       joinColumns = @JoinColumn(name = "app_user_id"),
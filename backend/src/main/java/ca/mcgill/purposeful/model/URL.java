@@ -14,6 +14,7 @@ public class URL {
   // URL Attributes
   // ------------------------
 
+  // Generated before the insert rather than by the database, so that inserts can be batched
   @Id
   @GeneratedValue(generator = "uuid")
   @GenericGenerator(name = "uuid", strategy = "uuid2")
@@ -25,6 +26,10 @@ public class URL {
   @Column(nullable = false)
   private boolean presetIcon;
 
+  // Hash of the normalized URL, only set for icons, which are stored once per hash (the unique
+  // index is created by DatabaseIndexConfiguration)
+  private String iconHash;
+
   // ------------------------
   // URL Constructor
   // ------------------------
@@ -89,4 +94,22 @@ public class URL {
   public void setPresetIcon(boolean presetIcon) {
     this.presetIcon = presetIcon;
   }
+
+  /**
+   * Getter method for the iconHash attribute
+   *
+   * @return the hash of the normalized URL if this is an icon, null otherwise
+   */
+  public String getIconHash() {
+    return iconHash;
+  }
+
+  /**
+   * Setter method for the iconHash attribute
+   *
+   * @param iconHash the hash of the normalized URL, null if this is not an icon
+   */
+  public void setIconHash(String iconHash) {
+    this.iconHash = iconHash;
+  }
 }
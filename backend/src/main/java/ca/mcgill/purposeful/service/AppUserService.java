@@ -15,6 +15,7 @@ import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -22,7 +23,7 @@ import org.springframework.stereotype.Service;
 
 /** The AppUserService class, the business logic for managing AppUsers */
 @Service
-public class AppUserService implements UserDetailsService {
+public class AppUserService implements UserDetailsService, UserDetailsPasswordService {
 
   @Autowired AppUserRepository appUserRepository;
 
@@ -197,6 +198,26 @@ public class AppUserService implements UserDetailsService {
     return new SecurityUser(appUser);
   }
 
+  /**
+   * Method for spring to store the password of a user hashed again, once they log in successfully
+   * with a password hashed with a lower cost than the current one
+   *
+   * @param user the user who logged in
+   * @param newPassword the password of the user, hashed with the current cost
+   * @return the user with the new hash
+   */
+  @Override
+  @Transactional
+  public UserDetails updatePassword(UserDetails user, String newPassword) {
+    AppUser appUser = appUserRepository.findAppUserByEmail(user.getUsername());
+    if (appUser == null) {
+      throw new UsernameNotFoundException("User not found");
+    }
+    appUser.setPassword(newPassword);
+    appUserRepository.save(appUser);
+    return new SecurityUser(appUser);
+  }
+
   /**
    * Modify the first name and last name of a user
    *
@@ -7,8 +7,10 @@ import ca.mcgill.purposeful.model.CollaborationRequest;
 import ca.mcgill.purposeful.model.Idea;
 import ca.mcgill.purposeful.model.RegularUser;
 import jakarta.transaction.Transactional;
+import java.util.Date;
 import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
@@ -34,6 +36,10 @@ public class CollaborationRequestService {
 
   @Autowired IdeaService ideaService;
 
+  // Publishes the changes of the interests of the users and of the trending activity (see
+  // InterestsChangedEvent and TrendingActivityEvent)
+  @Autowired ApplicationEventPublisher eventPublisher;
+
   /*
    * Service methods
    */
@@ -91,9 +97,14 @@ public class CollaborationRequestService {
     collabReq.setMessage(message);
     collabReq.setAdditionalContact(additionalContact);
     collabReq.setRequester(requester);
+    collabReq.setDate(new Date());
 
     // Save the collaboration request and return it
-    return collaborationRequestRepository.save(collabReq);
+    CollaborationRequest saved = collaborationRequestRepository.save(collabReq);
+    eventPublisher.publishEvent(
+        TrendingActivityEvent.collaborationRequest(ideaId, collabReq.getDate()));
+    eventPublisher.publishEvent(new InterestsChangedEvent(requester.getId()));
+    return saved;
   }
 
   /**
@@ -3,9 +3,18 @@ package ca.mcgill.purposeful.service;
 import ca.mcgill.purposeful.dao.DomainRepository;
 import ca.mcgill.purposeful.exception.GlobalException;
 import ca.mcgill.purposeful.model.Domain;
+import ca.mcgill.purposeful.util.ReferenceListCache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
@@ -19,6 +28,20 @@ public class DomainService {
 
   @Autowired DomainRepository domainRepository;
 
+  // Looks up the domains linked to ideas, without loading them
+  @PersistenceContext EntityManager entityManager;
+
+  /*
+   * Cache of the list of domains, served by the controller and used to validate ideas
+   */
+
+  /** How long the list is served from memory before being loaded again */
+  @Value("${purposeful.reference-cache.ttl-seconds:300}")
+  long cacheTimeToLiveSeconds;
+
+  private final ReferenceListCache<Domain> cache =
+      new ReferenceListCache<>(Domain::getId, Domain::getName, DomainService::copyOf);
+
   /**
    * Method to retrieve all existing domains from the database.
    *
@@ -27,6 +50,100 @@ public class DomainService {
    */
   @Transactional
   public List<Domain> getAllDomains() {
+    return getDomainList().getItems();
+  }
+
+  /**
+   * Get the cached list of all domains, loading it from the database if needed
+   *
+   * @return the cached list of domains, with its ETag and last modification date
+   */
+  @Transactional
+  public ReferenceListCache.Snapshot<Domain> getDomainList() {
+    return cache.get(this::loadDomains, Duration.ofSeconds(cacheTimeToLiveSeconds));
+  }
+
+  /**
+   * Get a domain by id, checking that it exists against the cached list when it is there
+   *
+   * @param id the id of the domain
+   * @return a reference to the domain, managed by the current transaction, or null if it does not
+   *     exist
+   */
+  @Transactional
+  public Domain getDomainById(String id) {
+    if (getDomainList().contains(id)) {
+      return entityManager.getReference(Domain.class, id);
+    }
+    // It may have been created after the list was loaded
+    Domain domain = domainRepository.findDomainById(id);
+    if (domain != null) {
+      invalidateDomains();
+    }
+    return domain;
+  }
+
+  /**
+   * Get the domains with the given ids. Those that are not in the cached list are looked up in a
+   * single query.
+   *
+   * @param ids the ids of the domains
+   * @return references to the domains that exist, managed by the current transaction, in no
+   *     particular order
+   */
+  @Transactional
+  public List<Domain> getDomainsByIds(Collection<String> ids) {
+    ReferenceListCache.Snapshot<Domain> list = getDomainList();
+    List<Domain> found = new ArrayList<>();
+    Set<String> missing = new HashSet<>();
+    for (String id : ids) {
+      if (list.contains(id)) {
+        found.add(entityManager.getReference(Domain.class, id));
+      } else {
+        missing.add(id);
+      }
+    }
+    if (!missing.isEmpty()) {
+      // Some may have been created after the list was loaded
+      List<Domain> loaded = domainRepository.findDomainsByIdIn(missing);
+      if (!loaded.isEmpty()) {
+        found.addAll(loaded);
+        invalidateDomains();
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Autocomplete the name of a domain: get the domains whose name, or a word of their name,
+   * starts with a prefix. Answered from the index of the cached list, without a query.
+   *
+   * @param prefix the start of the name, ignoring case and accents
+   * @param limit the maximum number of domains to return
+   * @return the matching domains, those whose name starts with the prefix first
+   * @throws GlobalException if the limit is not between 1 and the maximum number of matches
+   */
+  @Transactional
+  public List<Domain> autocompleteDomains(String prefix, int limit) {
+    if (limit < 1 || limit > ReferenceListCache.MAX_MATCHES) {
+      throw new GlobalException(
+          HttpStatus.BAD_REQUEST,
+          "The number of domains must be between 1 and " + ReferenceListCache.MAX_MATCHES + ".");
+    }
+    return getDomainList().findByPrefix(prefix, limit);
+  }
+
+  /** Make the next read load the list of domains from the database again */
+  public void invalidateDomains() {
+    cache.invalidate();
+  }
+
+  /**
+   * Load the list of domains from the database
+   *
+   * @return the domains in the database
+   */
+  private List<Domain> loadDomains() {
 
     List<Domain> domains = (List<Domain>) domainRepository.findAll();
 
@@ -36,4 +153,17 @@ public class DomainService {
 
     return domains;
   }
+
+  /**
+   * Copy a domain, so that the cached one is never managed by a persistence context
+   *
+   * @param domain the domain
+   * @return the copy
+   */
+  private static Domain copyOf(Domain domain) {
+    Domain copy = new Domain();
+    copy.setId(domain.getId());
+    copy.setName(domain.getName());
+    return copy;
+  }
 }
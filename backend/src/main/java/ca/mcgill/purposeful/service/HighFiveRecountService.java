@@ -0,0 +1,43 @@
+package ca.mcgill.purposeful.service;
+
+import ca.mcgill.purposeful.dao.IdeaRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * One-off job setting the number of high fives of every idea to its number of reactions, to count
+ * the reactions made before the ideas kept their number of high fives, or to repair the counts
+ * after reactions were deleted directly in the database.
+ *
+ * <p>The job is only created when purposeful.high-five-recount.enabled is true, and runs on
+ * startup. The services keep the counts exact otherwise, so it is not needed on every startup.
+ */
+@Service
+@ConditionalOnProperty(name = "purposeful.high-five-recount.enabled", havingValue = "true")
+public class HighFiveRecountService {
+
+  /*
+   * CRUD repos
+   */
+
+  @Autowired IdeaRepository ideaRepository;
+
+  /*
+   * Service functions
+   */
+
+  /**
+   * Set the number of high fives of every idea to its number of reactions
+   *
+   * @return the number of ideas whose count was wrong
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Transactional
+  public int recountHighFives() {
+    return ideaRepository.recountHighFives();
+  }
+}
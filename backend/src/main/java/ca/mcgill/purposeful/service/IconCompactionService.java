@@ -0,0 +1,84 @@
+package ca.mcgill.purposeful.service;
+
+import ca.mcgill.purposeful.dao.IdeaRepository;
+import ca.mcgill.purposeful.dao.URLRepository;
+import ca.mcgill.purposeful.model.URL;
+import ca.mcgill.purposeful.util.IconHash;
+import jakarta.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * One-off job giving their hash to the icons created before icons were stored once per hash. The
+ * icons that point to the same normalized URL are merged: a single one is kept, the ideas using the
+ * others are made to use it, and the others are deleted.
+ *
+ * <p>The job is only created when purposeful.icon-compaction.enabled is true, and runs on startup.
+ * Running it again does nothing, since every icon then has a hash. Once the icons are read, every
+ * change is a single statement that clears the persistence context, so no loaded entity is left
+ * stale or flushed over the statements.
+ */
+@Service
+@ConditionalOnProperty(name = "purposeful.icon-compaction.enabled", havingValue = "true")
+public class IconCompactionService {
+
+  /*
+   * CRUD repos
+   */
+
+  @Autowired URLRepository urlRepository;
+
+  @Autowired IdeaRepository ideaRepository;
+
+  /*
+   * Service functions
+   */
+
+  /** Give every icon its hash, merging the icons that have the same one */
+  @EventListener(ApplicationReadyEvent.class)
+  @Transactional
+  public void compactIcons() {
+    List<URL> iconsWithoutHash = urlRepository.findIconsWithoutHash();
+    if (iconsWithoutHash.isEmpty()) {
+      return;
+    }
+
+    Map<String, List<URL>> iconsByHash = new LinkedHashMap<>();
+    for (URL icon : iconsWithoutHash) {
+      iconsByHash.computeIfAbsent(IconHash.of(icon.getURL()), hash -> new ArrayList<>()).add(icon);
+    }
+    // Icons created since then already have their hash, they are kept
+    Map<String, URL> hashedIcons = new HashMap<>();
+    for (URL icon : urlRepository.findURLsByIconHashIn(iconsByHash.keySet())) {
+      hashedIcons.put(icon.getIconHash(), icon);
+    }
+
+    for (Map.Entry<String, List<URL>> entry : iconsByHash.entrySet()) {
+      List<URL> duplicates = new ArrayList<>(entry.getValue());
+      URL kept = hashedIcons.get(entry.getKey());
+      if (kept == null) {
+        kept = duplicates.remove(0);
+      }
+      boolean presetIcon = kept.isPresetIcon();
+      List<String> duplicateIds = new ArrayList<>();
+      for (URL duplicate : duplicates) {
+        presetIcon |= duplicate.isPresetIcon();
+        duplicateIds.add(duplicate.getId());
+      }
+      urlRepository.updateIcon(kept.getId(), entry.getKey(), presetIcon);
+      if (duplicates.isEmpty()) {
+        continue;
+      }
+      ideaRepository.replaceIcons(kept, duplicates);
+      urlRepository.deleteURLsByIdIn(duplicateIds);
+    }
+  }
+}
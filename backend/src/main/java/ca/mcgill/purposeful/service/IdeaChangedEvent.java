@@ -0,0 +1,178 @@
+package ca.mcgill.purposeful.service;
+
+import ca.mcgill.purposeful.model.Domain;
+import ca.mcgill.purposeful.model.Idea;
+import ca.mcgill.purposeful.model.Technology;
+import ca.mcgill.purposeful.model.Topic;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Published by the services when an idea is created, modified or removed. It holds what the
+ * in memory views of the ideas need, read while the transaction is still open, so that they are
+ * updated once it commits (with a @TransactionalEventListener) and never see a change that was
+ * rolled back.
+ */
+public class IdeaChangedEvent {
+
+  private final String ideaId;
+  private final boolean removed;
+  private final boolean isPrivate;
+  private final String ownerId;
+  private final Date date;
+
+  // Names by id
+  private final Map<String, String> domains;
+  private final Map<String, String> topics;
+  private final Map<String, String> techs;
+
+  private IdeaChangedEvent(
+      String ideaId,
+      boolean removed,
+      boolean isPrivate,
+      String ownerId,
+      Date date,
+      Map<String, String> domains,
+      Map<String, String> topics,
+      Map<String, String> techs) {
+    this.ideaId = ideaId;
+    this.removed = removed;
+    this.isPrivate = isPrivate;
+    this.ownerId = ownerId;
+    this.date = date;
+    this.domains = domains;
+    this.topics = topics;
+    this.techs = techs;
+  }
+
+  /**
+   * Describe a created or modified idea, reading its domains, topics and technologies now
+   *
+   * @param idea The saved idea
+   * @return The event
+   */
+  public static IdeaChangedEvent saved(Idea idea) {
+    return new IdeaChangedEvent(
+        idea.getId(),
+        false,
+        idea.isPrivate(),
+        idea.getUser() == null ? null : idea.getUser().getId(),
+        idea.getDate(),
+        namesById(idea.getDomains(), Domain::getId, Domain::getName),
+        namesById(idea.getTopics(), Topic::getId, Topic::getName),
+        namesById(idea.getTechs(), Technology::getId, Technology::getName));
+  }
+
+  /**
+   * Describe a removed idea
+   *
+   * @param ideaId The id of the removed idea
+   * @return The event
+   */
+  public static IdeaChangedEvent removed(String ideaId) {
+    return new IdeaChangedEvent(
+        ideaId,
+        true,
+        false,
+        null,
+        null,
+        Collections.emptyMap(),
+        Collections.emptyMap(),
+        Collections.emptyMap());
+  }
+
+  /**
+   * Get the id of the idea
+   *
+   * @return the id of the idea
+   */
+  public String getIdeaId() {
+    return ideaId;
+  }
+
+  /**
+   * Check if the idea was removed, in which case nothing else is known about it
+   *
+   * @return true if the idea was removed
+   */
+  public boolean isRemoved() {
+    return removed;
+  }
+
+  /**
+   * Check if the idea is private
+   *
+   * @return true if the idea is private
+   */
+  public boolean isPrivate() {
+    return isPrivate;
+  }
+
+  /**
+   * Get the id of the regular user who owns the idea
+   *
+   * @return the id of the owner (null if the idea was removed)
+   */
+  public String getOwnerId() {
+    return ownerId;
+  }
+
+  /**
+   * Get the date of the idea
+   *
+   * @return the date of the idea (null if the idea was removed)
+   */
+  public Date getDate() {
+    return date;
+  }
+
+  /**
+   * Get the domains of the idea
+   *
+   * @return the names of the domains by id
+   */
+  public Map<String, String> getDomains() {
+    return domains;
+  }
+
+  /**
+   * Get the topics of the idea
+   *
+   * @return the names of the topics by id
+   */
+  public Map<String, String> getTopics() {
+    return topics;
+  }
+
+  /**
+   * Get the technologies of the idea
+   *
+   * @return the names of the technologies by id
+   */
+  public Map<String, String> getTechs() {
+    return techs;
+  }
+
+  /**
+   * Map domains, topics or technologies to their names by id
+   *
+   * @param items The domains, topics or technologies (can be null)
+   * @param idOf Gets the id of an item
+   * @param nameOf Gets the name of an item
+   * @return The names by id, in the order of the items
+   */
+  private static <T> Map<String, String> namesById(
+      Collection<T> items, Function<T, String> idOf, Function<T, String> nameOf) {
+    Map<String, String> names = new LinkedHashMap<>();
+    if (items != null) {
+      for (T item : items) {
+        names.put(idOf.apply(item), nameOf.apply(item));
+      }
+    }
+    return Collections.unmodifiableMap(names);
+  }
+}
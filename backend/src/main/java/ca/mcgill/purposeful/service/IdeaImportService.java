@@ -0,0 +1,409 @@
+package ca.mcgill.purposeful.service;
+
+import ca.mcgill.purposeful.dao.IdeaRepository;
+import ca.mcgill.purposeful.dao.RegularUserRepository;
+import ca.mcgill.purposeful.dao.URLRepository;
+import ca.mcgill.purposeful.dto.IdeaImportResultDTO;
+import ca.mcgill.purposeful.dto.IdeaRequestDTO;
+import ca.mcgill.purposeful.exception.GlobalException;
+import ca.mcgill.purposeful.model.*;
+import ca.mcgill.purposeful.util.IconHash;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service functions to create many ideas at once (e.g. migrations, imports from partners). The
+ * ideas are read one at a time and handled in chunks: the domains, topics, technologies and icons
+ * of a chunk are looked up together, then its URLs and ideas are saved in a single transaction,
+ * which Hibernate sends as batched inserts (see hibernate.jdbc.batch_size).
+ *
+ * <p>An idea that fails validation or cannot be read is reported and skipped without affecting the
+ * others. If a chunk cannot be saved, none of its ideas are, and they are all reported.
+ */
+@Service
+public class IdeaImportService {
+
+  /** The number of ideas saved per transaction, the same as the JDBC batch size */
+  public static final int CHUNK_SIZE = 50;
+
+  /** The number of unreadable ideas in a row after which the rest of the ideas are not read */
+  public static final int MAX_UNREADABLE_IN_A_ROW = 10;
+
+  // Stands for an idea that could not be read, in its place in the chunk
+  private static final IdeaRequestDTO UNREADABLE = new IdeaRequestDTO();
+
+  /*
+   * CRUD repos
+   */
+
+  @Autowired IdeaRepository ideaRepository;
+
+  @Autowired URLRepository urlRepository;
+
+  @Autowired RegularUserRepository regularUserRepository;
+
+  /*
+   * Services
+   */
+
+  @Autowired DomainService domainService;
+
+  @Autowired TopicService topicService;
+
+  @Autowired TechnologyService technologyService;
+
+  @Autowired PlatformTransactionManager transactionManager;
+
+  @Autowired ApplicationEventPublisher eventPublisher;
+
+  /*
+   * Service functions
+   */
+
+  /**
+   * Create the given ideas for a user, chunk by chunk. Ideas are dated now like created ideas,
+   * whatever date they are sent with, so that they cannot be placed anywhere in the newest or
+   * trending ideas.
+   *
+   * <p>An idea that cannot be read is reported and the next ones are still read, as long as the
+   * reader can skip it (e.g. a Jackson MappingIterator skips an idea with a field of the wrong
+   * type). If the reader fails for good, or too many ideas in a row cannot be read, the rest of the
+   * ideas are reported as a whole.
+   *
+   * @param ideas The ideas to create, read one at a time
+   * @param email The email of the user creating the ideas
+   * @return The result of each idea, in the order they were read
+   * @throws GlobalException if the user does not exist
+   */
+  public List<IdeaImportResultDTO> importIdeas(Iterator<IdeaRequestDTO> ideas, String email) {
+    RegularUser user = regularUserRepository.findRegularUserByAppUserEmail(email);
+    if (user == null) {
+      throw new GlobalException(HttpStatus.BAD_REQUEST, "This account does not exist.");
+    }
+
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    List<IdeaImportResultDTO> results = new ArrayList<>();
+    List<IdeaRequestDTO> chunk = new ArrayList<>(CHUNK_SIZE);
+    boolean unreadable = false;
+    int unreadableInARow = 0;
+    while (!unreadable) {
+      try {
+        if (!ideas.hasNext()) {
+          break;
+        }
+      } catch (RuntimeException e) {
+        // The rest of the ideas cannot be read, the ones read so far are still created
+        unreadable = true;
+        break;
+      }
+      try {
+        chunk.add(ideas.next());
+        unreadableInARow = 0;
+      } catch (RuntimeException e) {
+        chunk.add(UNREADABLE);
+        unreadable = ++unreadableInARow == MAX_UNREADABLE_IN_A_ROW;
+      }
+      if (chunk.size() == CHUNK_SIZE) {
+        results.addAll(importChunk(chunk, results.size(), user, transactionTemplate));
+        chunk.clear();
+      }
+    }
+    results.addAll(importChunk(chunk, results.size(), user, transactionTemplate));
+    if (unreadable) {
+      results.add(
+          new IdeaImportResultDTO(results.size(), null, "The rest of the ideas could not be read"));
+    }
+    return results;
+  }
+
+  /*
+   * Helper functions
+   */
+
+  /**
+   * Validate a chunk of ideas and save the valid ones in a single transaction
+   *
+   * @param chunk The ideas of the chunk
+   * @param firstIndex The index of the first idea of the chunk
+   * @param user The user creating the ideas
+   * @param transactionTemplate To run the transaction of the chunk
+   * @return The result of each idea of the chunk, in order
+   */
+  private List<IdeaImportResultDTO> importChunk(
+      List<IdeaRequestDTO> chunk,
+      int firstIndex,
+      RegularUser user,
+      TransactionTemplate transactionTemplate) {
+    if (chunk.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    List<IdeaImportResultDTO> results = new ArrayList<>();
+    List<Idea> ideas = new ArrayList<>();
+    try {
+      // The domains, topics and technologies are linked by reference, so they are looked up in
+      // the transaction saving the ideas
+      transactionTemplate.executeWithoutResult(
+          status -> validateAndSave(chunk, firstIndex, user, results, ideas));
+    } catch (RuntimeException e) {
+      for (IdeaImportResultDTO result : results) {
+        if (result.getError() == null) {
+          result.setError("The idea could not be saved");
+        }
+      }
+      for (int i = results.size(); i < chunk.size(); i++) {
+        results.add(new IdeaImportResultDTO(firstIndex + i, null, "The idea could not be saved"));
+      }
+      return results;
+    }
+
+    // The valid ideas are in the same order as the results without an error
+    Iterator<Idea> saved = ideas.iterator();
+    for (IdeaImportResultDTO result : results) {
+      if (result.getError() == null) {
+        result.setIdeaId(saved.next().getId());
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Validate the ideas of a chunk and save the valid ones, in the transaction of the chunk
+   *
+   * @param chunk The ideas of the chunk
+   * @param firstIndex The index of the first idea of the chunk
+   * @param user The user creating the ideas
+   * @param results The result of each idea of the chunk, added in order
+   * @param ideas The valid ideas, added in order
+   */
+  private void validateAndSave(
+      List<IdeaRequestDTO> chunk,
+      int firstIndex,
+      RegularUser user,
+      List<IdeaImportResultDTO> results,
+      List<Idea> ideas) {
+    // Look up everything the chunk links to at once
+    Map<String, Domain> domains =
+        byId(
+            domainService.getDomainsByIds(idsOf(chunk, IdeaRequestDTO::getDomainIds)),
+            Domain::getId);
+    Map<String, Topic> topics =
+        byId(topicService.getTopicsByIds(idsOf(chunk, IdeaRequestDTO::getTopicIds)), Topic::getId);
+    Map<String, Technology> techs =
+        byId(
+            technologyService.getTechsByIds(idsOf(chunk, IdeaRequestDTO::getTechIds)),
+            Technology::getId);
+    Set<String> iconHashes = new HashSet<>();
+    for (IdeaRequestDTO ideaDTO : chunk) {
+      if (ideaDTO != null && ideaDTO.getIconUrl() != null && !ideaDTO.getIconUrl().isEmpty()) {
+        iconHashes.add(IconHash.of(ideaDTO.getIconUrl()));
+      }
+    }
+    // An icon can belong to many ideas, existing ones are reused
+    Map<String, URL> icons = new HashMap<>();
+    if (!iconHashes.isEmpty()) {
+      icons.putAll(byId(urlRepository.findURLsByIconHashIn(iconHashes), URL::getIconHash));
+    }
+
+    List<URL> newUrls = new ArrayList<>();
+    Map<String, URL> newIcons = new HashMap<>();
+    for (int i = 0; i < chunk.size(); i++) {
+      if (chunk.get(i) == UNREADABLE) {
+        results.add(new IdeaImportResultDTO(firstIndex + i, null, "The idea could not be read"));
+        continue;
+      }
+      try {
+        Idea idea = toIdea(chunk.get(i), user, domains, topics, techs, icons, newIcons, newUrls);
+        ideas.add(idea);
+        results.add(new IdeaImportResultDTO(firstIndex + i, null, null));
+      } catch (GlobalException e) {
+        results.add(new IdeaImportResultDTO(firstIndex + i, null, e.getMessage()));
+      }
+    }
+    if (ideas.isEmpty()) {
+      return;
+    }
+
+    saveIcons(newIcons, ideas);
+    urlRepository.saveAll(newUrls);
+    ideaRepository.saveAll(ideas);
+    for (Idea idea : ideas) {
+      eventPublisher.publishEvent(IdeaChangedEvent.saved(idea));
+    }
+  }
+
+  /**
+   * Insert the new icons of a chunk, unless a concurrent request inserted them first, and link the
+   * ideas to the saved icons
+   *
+   * @param newIcons The new icons of the chunk by hash, not saved yet
+   * @param ideas The ideas of the chunk
+   */
+  private void saveIcons(Map<String, URL> newIcons, List<Idea> ideas) {
+    if (newIcons.isEmpty()) {
+      return;
+    }
+    for (URL icon : newIcons.values()) {
+      urlRepository.insertIconIfAbsent(
+          UUID.randomUUID().toString(), icon.getURL(), icon.getIconHash());
+    }
+    Map<String, URL> savedIcons =
+        byId(urlRepository.findURLsByIconHashIn(newIcons.keySet()), URL::getIconHash);
+    for (Idea idea : ideas) {
+      URL savedIcon = savedIcons.get(idea.getIconUrl().getIconHash());
+      if (savedIcon != null) {
+        idea.setIconUrl(savedIcon);
+      }
+    }
+  }
+
+  /**
+   * Validate an idea with the same rules as a created idea, and build it. Its URLs are only built
+   * once it is valid, so that an invalid idea leaves no URL behind.
+   *
+   * @param ideaDTO The idea to validate
+   * @param user The user creating the idea
+   * @param domains The domains of the chunk by id
+   * @param topics The topics of the chunk by id
+   * @param techs The technologies of the chunk by id
+   * @param icons The existing icons of the chunk by hash
+   * @param newIcons The new icons of the chunk by hash, the new icon of the idea is added to it
+   * @param newUrls The supporting images to save with the chunk, those of the idea are added to it
+   * @return The idea, not saved yet
+   * @throws GlobalException if the idea is not valid
+   */
+  private static Idea toIdea(
+      IdeaRequestDTO ideaDTO,
+      RegularUser user,
+      Map<String, Domain> domains,
+      Map<String, Topic> topics,
+      Map<String, Technology> techs,
+      Map<String, URL> icons,
+      Map<String, URL> newIcons,
+      List<URL> newUrls) {
+    if (ideaDTO == null) {
+      throw new GlobalException(HttpStatus.BAD_REQUEST, "ideaDTO is null.");
+    }
+    IdeaService.checkNewIdeaFields(
+        ideaDTO.getTitle(),
+        ideaDTO.getPurpose(),
+        ideaDTO.getDescription(),
+        ideaDTO.getDomainIds(),
+        ideaDTO.getTopicIds(),
+        ideaDTO.getIconUrl());
+    Set<Domain> ideaDomains = resolve(ideaDTO.getDomainIds(), domains, "domains");
+    Set<Technology> ideaTechs = resolve(ideaDTO.getTechIds(), techs, "technologies");
+    Set<Topic> ideaTopics = resolve(ideaDTO.getTopicIds(), topics, "topics");
+
+    String iconHash = IconHash.of(ideaDTO.getIconUrl());
+    URL iconUrl = icons.get(iconHash);
+    if (iconUrl == null) {
+      iconUrl = newIcons.get(iconHash);
+    }
+    if (iconUrl == null) {
+      iconUrl = newUrl(ideaDTO.getIconUrl());
+      iconUrl.setIconHash(iconHash);
+      newIcons.put(iconHash, iconUrl);
+    }
+    // A supporting image only belongs to one idea, so they are all new
+    List<URL> imgUrls = new ArrayList<>();
+    if (ideaDTO.getImgUrls() != null) {
+      for (String url : ideaDTO.getImgUrls()) {
+        if (url != null) {
+          imgUrls.add(newUrl(url));
+        }
+      }
+    }
+    newUrls.addAll(imgUrls);
+
+    Idea idea = new Idea();
+    idea.setDate(Date.from(Instant.now()));
+    idea.setTitle(ideaDTO.getTitle());
+    idea.setPurpose(ideaDTO.getPurpose());
+    idea.setDescription(ideaDTO.getDescription());
+    idea.setPaid(ideaDTO.getIsPaid());
+    idea.setInProgress(ideaDTO.getInProgress());
+    idea.setPrivate(ideaDTO.getIsPrivate());
+    idea.setDomains(ideaDomains);
+    idea.setTechs(ideaTechs);
+    idea.setTopics(ideaTopics);
+    idea.setIconUrl(iconUrl);
+    idea.setSupportingImageUrls(imgUrls);
+    idea.setUser(user);
+    return idea;
+  }
+
+  /**
+   * Get the objects an idea links to, all of which must exist
+   *
+   * @param ids The ids of the objects (null if none)
+   * @param objectsById The objects of the chunk by id
+   * @param type The type of the objects, for the error message
+   * @return The objects
+   * @throws GlobalException if an object does not exist
+   */
+  private static <T> Set<T> resolve(List<String> ids, Map<String, T> objectsById, String type) {
+    Set<T> objects = new HashSet<>();
+    if (ids == null) {
+      return objects;
+    }
+    IdeaService.checkAllExist(ids, objectsById.keySet(), type);
+    for (String id : ids) {
+      objects.add(objectsById.get(id));
+    }
+    return objects;
+  }
+
+  /**
+   * Get all the ids a chunk of ideas links to
+   *
+   * @param chunk The ideas of the chunk
+   * @param idsOfIdea Gets the ids of an idea
+   * @return The ids, without duplicates
+   */
+  private static Set<String> idsOf(
+      List<IdeaRequestDTO> chunk, Function<IdeaRequestDTO, List<String>> idsOfIdea) {
+    Set<String> ids = new HashSet<>();
+    for (IdeaRequestDTO ideaDTO : chunk) {
+      if (ideaDTO != null && idsOfIdea.apply(ideaDTO) != null) {
+        idsOfIdea.apply(ideaDTO).stream().filter(Objects::nonNull).forEach(ids::add);
+      }
+    }
+    return ids;
+  }
+
+  /**
+   * Map objects by their id (or another unique key)
+   *
+   * @param objects The objects
+   * @param idOf Gets the id of an object
+   * @return The objects by id
+   */
+  private static <T> Map<String, T> byId(Collection<T> objects, Function<T, String> idOf) {
+    Map<String, T> objectsById = new HashMap<>();
+    for (T object : objects) {
+      objectsById.put(idOf.apply(object), object);
+    }
+    return objectsById;
+  }
+
+  /**
+   * Create a URL that is not a preset icon, without saving it
+   *
+   * @param url The URL
+   * @return The URL object
+   */
+  private static URL newUrl(String url) {
+    URL newUrl = new URL();
+    newUrl.setURL(url);
+    newUrl.setPresetIcon(false);
+    return newUrl;
+  }
+}
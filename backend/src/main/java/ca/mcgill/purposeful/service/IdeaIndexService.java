@@ -0,0 +1,486 @@
+package ca.mcgill.purposeful.service;
+
+import ca.mcgill.purposeful.dao.IdeaRepository;
+import ca.mcgill.purposeful.dto.FacetCountsDTO;
+import ca.mcgill.purposeful.model.Idea;
+import ca.mcgill.purposeful.util.IdeaCursor;
+import jakarta.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * In memory inverted index of the public ideas by domain, topic and technology. Every public idea
+ * gets an ordinal, and every domain, topic and technology id maps to the bitset of the ordinals of
+ * the ideas that have it. A browse query is then answered with bitset unions and intersections,
+ * and only the ideas of the returned page are loaded from the database.
+ *
+ * <p>The index is optional, it is only created when purposeful.idea-index.enabled is true. It is
+ * built on startup and kept current by the {@link IdeaChangedEvent} of the created, modified and
+ * removed ideas, once their transaction commits, and by the {@link ReferenceDataListener} for the
+ * renamed domains, topics and technologies. A modified idea keeps its ordinal and the ordinals of
+ * the removed ideas are given to the next added ones, so the index does not grow with the edits.
+ */
+@Service
+@ConditionalOnProperty(name = "purposeful.idea-index.enabled", havingValue = "true")
+public class IdeaIndexService {
+
+  /*
+   * CRUD repos
+   */
+
+  @Autowired IdeaRepository ideaRepository;
+
+  /*
+   * Index state, guarded by the lock
+   */
+
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+  // The id and date of the idea with each ordinal, the id is null while the ordinal is free
+  private final List<String> ids = new ArrayList<>();
+  private final List<Long> dates = new ArrayList<>();
+  private final Map<String, Integer> ordinals = new HashMap<>();
+
+  // The ordinals of the ideas currently in the index, the others below ids.size() are free
+  private final BitSet indexed = new BitSet();
+
+  private final Map<String, BitSet> ideasByDomainId = new HashMap<>();
+  private final Map<String, BitSet> ideasByTopicId = new HashMap<>();
+  private final Map<String, BitSet> ideasByTechId = new HashMap<>();
+
+  // Browse queries filter by name, the index by id
+  private final Map<String, String> domainIdsByName = new HashMap<>();
+  private final Map<String, String> topicIdsByName = new HashMap<>();
+  private final Map<String, String> techIdsByName = new HashMap<>();
+
+  // The changes committed while the index is rebuilt, null when it is not rebuilding
+  private List<IdeaChangedEvent> changesDuringRebuild;
+
+  private volatile boolean ready = false;
+
+  /*
+   * Service functions
+   */
+
+  /**
+   * Build the index from all the public ideas in the database. Called on startup. The ideas are
+   * read without holding the lock, so the changes committed meanwhile are recorded and applied
+   * again on the new index.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Transactional
+  public synchronized void rebuild() {
+    lock.writeLock().lock();
+    try {
+      changesDuringRebuild = new ArrayList<>();
+    } finally {
+      lock.writeLock().unlock();
+    }
+
+    List<IdeaChangedEvent> ideas = new ArrayList<>();
+    try {
+      for (Idea idea :
+          ideaRepository.findPublicIdeasByCriteria(
+              false, List.of(), false, List.of(), false, List.of())) {
+        ideas.add(IdeaChangedEvent.saved(idea));
+      }
+    } catch (RuntimeException e) {
+      lock.writeLock().lock();
+      try {
+        changesDuringRebuild = null;
+      } finally {
+        lock.writeLock().unlock();
+      }
+      throw e;
+    }
+
+    lock.writeLock().lock();
+    try {
+      ids.clear();
+      dates.clear();
+      ordinals.clear();
+      indexed.clear();
+      ideasByDomainId.clear();
+      ideasByTopicId.clear();
+      ideasByTechId.clear();
+      domainIdsByName.clear();
+      topicIdsByName.clear();
+      techIdsByName.clear();
+      for (IdeaChangedEvent idea : ideas) {
+        add(idea);
+      }
+      // The ideas read may or may not include these changes, applying them again is harmless
+      for (IdeaChangedEvent change : changesDuringRebuild) {
+        apply(change);
+      }
+      changesDuringRebuild = null;
+      ready = true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Whether the index was built and can answer queries
+   *
+   * @return true if the index is ready
+   */
+  public boolean isReady() {
+    return ready;
+  }
+
+  /**
+   * Index a created or modified idea, or take a removed or private one out of the index, once the
+   * transaction that changed it commits
+   *
+   * @param change The change of the idea
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onIdeaChanged(IdeaChangedEvent change) {
+    lock.writeLock().lock();
+    try {
+      apply(change);
+      if (changesDuringRebuild != null) {
+        changesDuringRebuild.add(change);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Map the new name of a domain to its id, once the transaction that renamed it commits
+   *
+   * @param domainId The id of the domain
+   * @param name The name of the domain, null if it was removed
+   */
+  public void renameDomain(String domainId, String name) {
+    lock.writeLock().lock();
+    try {
+      rename(domainId, name, domainIdsByName);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Map the new name of a topic to its id, once the transaction that renamed it commits
+   *
+   * @param topicId The id of the topic
+   * @param name The name of the topic, null if it was removed
+   */
+  public void renameTopic(String topicId, String name) {
+    lock.writeLock().lock();
+    try {
+      rename(topicId, name, topicIdsByName);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Map the new name of a technology to its id, once the transaction that renamed it commits
+   *
+   * @param techId The id of the technology
+   * @param name The name of the technology, null if it was removed
+   */
+  public void renameTech(String techId, String name) {
+    lock.writeLock().lock();
+    try {
+      rename(techId, name, techIdsByName);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Find the ids of a page of public ideas that have at least 1 of the given domains, 1 of the
+   * given topics and 1 of the given technologies, from newest to oldest. A null list means no
+   * filter.
+   *
+   * @param domainNames The names of the domains the idea must have one of (null if no filter)
+   * @param topicNames The names of the topics the idea must have one of (null if no filter)
+   * @param techNames The names of the technologies the idea must have one of (null if no filter)
+   * @param after The cursor of the previous page (null for the first page)
+   * @param pageSize The maximum number of ids to return
+   * @return The ids of the ideas of the page, from newest to oldest
+   */
+  public List<String> findPageIds(
+      List<String> domainNames,
+      List<String> topicNames,
+      List<String> techNames,
+      IdeaCursor after,
+      int pageSize) {
+    lock.readLock().lock();
+    try {
+      BitSet matches = (BitSet) indexed.clone();
+      if (domainNames != null) {
+        matches.and(union(domainNames, domainIdsByName, ideasByDomainId));
+      }
+      if (topicNames != null) {
+        matches.and(union(topicNames, topicIdsByName, ideasByTopicId));
+      }
+      if (techNames != null) {
+        matches.and(union(techNames, techIdsByName, ideasByTechId));
+      }
+
+      // Keep the newest ideas that come after the cursor, the oldest kept one being on top
+      Comparator<Integer> newestFirst = newestFirst();
+      PriorityQueue<Integer> page = new PriorityQueue<>(pageSize + 1, newestFirst.reversed());
+      for (int ordinal = matches.nextSetBit(0);
+          ordinal >= 0;
+          ordinal = matches.nextSetBit(ordinal + 1)) {
+        if (after != null && !isAfter(ordinal, after)) {
+          continue;
+        }
+        page.add(ordinal);
+        if (page.size() > pageSize) {
+          page.poll();
+        }
+      }
+
+      List<Integer> sorted = new ArrayList<>(page);
+      sorted.sort(newestFirst);
+      List<String> pageIds = new ArrayList<>();
+      for (int ordinal : sorted) {
+        pageIds.add(ids.get(ordinal));
+      }
+      return pageIds;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Count the public ideas matching the filters by domain name, topic name and technology name.
+   * The counts of a kind ignore the filter on that kind (like {@link
+   * IdeaRepository#countPublicIdeasByFacet}), so each count is the cardinality of the bitset of
+   * the name intersected with the ideas matching the other filters.
+   *
+   * @param domainNames The names of the domains the idea must have one of (null if no filter)
+   * @param topicNames The names of the topics the idea must have one of (null if no filter)
+   * @param techNames The names of the technologies the idea must have one of (null if no filter)
+   * @return The number of ideas of each name that has ideas
+   */
+  public FacetCountsDTO countFacets(
+      List<String> domainNames, List<String> topicNames, List<String> techNames) {
+    lock.readLock().lock();
+    try {
+      BitSet byDomains =
+          domainNames == null ? indexed : union(domainNames, domainIdsByName, ideasByDomainId);
+      BitSet byTopics =
+          topicNames == null ? indexed : union(topicNames, topicIdsByName, ideasByTopicId);
+      BitSet byTechs = techNames == null ? indexed : union(techNames, techIdsByName, ideasByTechId);
+
+      return new FacetCountsDTO(
+          count(domainIdsByName, ideasByDomainId, intersection(byTopics, byTechs)),
+          count(topicIdsByName, ideasByTopicId, intersection(byDomains, byTechs)),
+          count(techIdsByName, ideasByTechId, intersection(byDomains, byTopics)));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /*
+   * Helper functions, to be called with the write lock held (or the read lock for the queries)
+   */
+
+  /**
+   * Take the idea out of the index, then add it back with the same ordinal unless it was removed or
+   * made private
+   *
+   * @param change The change of the idea
+   */
+  private void apply(IdeaChangedEvent change) {
+    Integer ordinal = removeOrdinal(change.getIdeaId());
+    if (!change.isRemoved() && !change.isPrivate()) {
+      add(change, ordinal);
+    }
+  }
+
+  /**
+   * Give the idea a free ordinal and add it to the bitsets of its domains, topics and technologies
+   *
+   * @param idea The idea to add
+   */
+  private void add(IdeaChangedEvent idea) {
+    add(idea, null);
+  }
+
+  /**
+   * Give the idea an ordinal and add it to the bitsets of its domains, topics and technologies
+   *
+   * @param idea The idea to add
+   * @param freeOrdinal The free ordinal to give it, null to take the first free one
+   */
+  private void add(IdeaChangedEvent idea, Integer freeOrdinal) {
+    int ordinal = freeOrdinal != null ? freeOrdinal : indexed.nextClearBit(0);
+    if (ordinal == ids.size()) {
+      ids.add(idea.getIdeaId());
+      dates.add(idea.getDate().getTime());
+    } else {
+      ids.set(ordinal, idea.getIdeaId());
+      dates.set(ordinal, idea.getDate().getTime());
+    }
+    ordinals.put(idea.getIdeaId(), ordinal);
+    indexed.set(ordinal);
+
+    addToBitsets(ordinal, idea.getDomains(), domainIdsByName, ideasByDomainId);
+    addToBitsets(ordinal, idea.getTopics(), topicIdsByName, ideasByTopicId);
+    addToBitsets(ordinal, idea.getTechs(), techIdsByName, ideasByTechId);
+  }
+
+  /**
+   * Add an idea to the bitsets of its domains, topics or technologies
+   *
+   * @param ordinal The ordinal of the idea
+   * @param namesById The names of its domains, topics or technologies by id
+   * @param idsByName The id of each name, completed with the names of the idea
+   * @param ideasById The ideas of each id
+   */
+  private static void addToBitsets(
+      int ordinal,
+      Map<String, String> namesById,
+      Map<String, String> idsByName,
+      Map<String, BitSet> ideasById) {
+    for (Map.Entry<String, String> item : namesById.entrySet()) {
+      if (!item.getKey().equals(idsByName.get(item.getValue()))) {
+        // A new name, or the idea was read after its domain, topic or technology was renamed
+        rename(item.getKey(), item.getValue(), idsByName);
+      }
+      ideasById.computeIfAbsent(item.getKey(), id -> new BitSet()).set(ordinal);
+    }
+  }
+
+  /**
+   * Map a name to its id in place of the previous name of the id
+   *
+   * @param id The id of the domain, topic or technology
+   * @param name Its name, null to only forget the previous one
+   * @param idsByName The id of each name
+   */
+  private static void rename(String id, String name, Map<String, String> idsByName) {
+    idsByName.values().removeIf(id::equals);
+    if (name != null) {
+      idsByName.put(name, id);
+    }
+  }
+
+  /**
+   * Take the idea with the given id out of every bitset, if it is indexed, and free its ordinal
+   *
+   * @param ideaId The id of the idea
+   * @return The freed ordinal, null if the idea was not indexed
+   */
+  private Integer removeOrdinal(String ideaId) {
+    Integer ordinal = ordinals.remove(ideaId);
+    if (ordinal == null) {
+      return null;
+    }
+    ids.set(ordinal, null);
+    indexed.clear(ordinal);
+    ideasByDomainId.values().forEach(ideas -> ideas.clear(ordinal));
+    ideasByTopicId.values().forEach(ideas -> ideas.clear(ordinal));
+    ideasByTechId.values().forEach(ideas -> ideas.clear(ordinal));
+    return ordinal;
+  }
+
+  /**
+   * Get the ideas that have at least one of the given names
+   *
+   * @param names The names of the domains, topics or technologies
+   * @param idsByName The id of each name
+   * @param ideasById The ideas of each id
+   * @return The union of the ideas of all the names
+   */
+  private static BitSet union(
+      List<String> names, Map<String, String> idsByName, Map<String, BitSet> ideasById) {
+    BitSet ideas = new BitSet();
+    for (String name : names) {
+      String id = idsByName.get(name);
+      if (id != null && ideasById.containsKey(id)) {
+        ideas.or(ideasById.get(id));
+      }
+    }
+    return ideas;
+  }
+
+  /**
+   * Get the indexed ideas that are in both sets
+   *
+   * @param first The first set of ideas
+   * @param second The second set of ideas
+   * @return The intersection of the indexed ideas and both sets
+   */
+  private BitSet intersection(BitSet first, BitSet second) {
+    BitSet ideas = (BitSet) indexed.clone();
+    ideas.and(first);
+    ideas.and(second);
+    return ideas;
+  }
+
+  /**
+   * Count the ideas of each name among the given ones
+   *
+   * @param idsByName The id of each name
+   * @param ideasById The ideas of each id
+   * @param among The ideas to count
+   * @return The number of ideas of each name that has some
+   */
+  private static Map<String, Long> count(
+      Map<String, String> idsByName, Map<String, BitSet> ideasById, BitSet among) {
+    Map<String, Long> counts = new HashMap<>();
+    BitSet ideas = new BitSet();
+    for (Map.Entry<String, String> name : idsByName.entrySet()) {
+      BitSet ideasOfName = ideasById.get(name.getValue());
+      if (ideasOfName == null) {
+        continue;
+      }
+      ideas.clear();
+      ideas.or(ideasOfName);
+      ideas.and(among);
+      int count = ideas.cardinality();
+      if (count > 0) {
+        counts.put(name.getKey(), (long) count);
+      }
+    }
+    return counts;
+  }
+
+  /**
+   * Order ordinals by (date, id) descending, the same order as the database queries
+   *
+   * @return The comparator
+   */
+  private Comparator<Integer> newestFirst() {
+    return Comparator.<Integer, Long>comparing(dates::get)
+        .thenComparing(ids::get)
+        .reversed();
+  }
+
+  /**
+   * Check if an idea comes after the cursor in the (date, id) descending order
+   *
+   * @param ordinal The ordinal of the idea
+   * @param after The cursor
+   * @return true if the idea comes after the cursor
+   */
+  private boolean isAfter(int ordinal, IdeaCursor after) {
+    long date = dates.get(ordinal);
+    long cursorDate = after.getDate().getTime();
+    return date < cursorDate
+        || (date == cursorDate && ids.get(ordinal).compareTo(after.getId()) < 0);
+  }
+}
@@ -1,12 +1,19 @@
 package ca.mcgill.purposeful.service;
 
 import ca.mcgill.purposeful.dao.*;
+import ca.mcgill.purposeful.dto.FacetCountsDTO;
+import ca.mcgill.purposeful.dto.IdeaSummaryDTO;
 import ca.mcgill.purposeful.exception.GlobalException;
 import ca.mcgill.purposeful.model.*;
+import ca.mcgill.purposeful.util.IconHash;
+import ca.mcgill.purposeful.util.IdeaCursor;
 import jakarta.transaction.Transactional;
 import java.time.Instant;
 import java.util.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
@@ -14,6 +21,27 @@ import org.springframework.stereotype.Service;
 @Service
 public class IdeaService {
 
+  /** The maximum number of ideas that can be requested in a single page */
+  public static final int MAX_PAGE_SIZE = 100;
+
+  /** The maximum number of trending ideas that can be browsed */
+  public static final int MAX_TRENDING_IDEAS = 1000;
+
+  /** The number of most trending ideas that the filtered trending ideas are taken from */
+  private static final int TRENDING_CANDIDATES = MAX_TRENDING_IDEAS * 4;
+
+  /** The maximum number of search results that can be browsed */
+  public static final int MAX_SEARCH_RESULTS = 1000;
+
+  /** The maximum number of words of a search */
+  public static final int MAX_SEARCH_WORDS = 10;
+
+  /**
+   * The number of ideas whose domain, topic and technology names are looked up by one query. Their
+   * ids are bound once per kind, which stays far from the 32767 parameters PostgreSQL accepts.
+   */
+  private static final int TAXONOMY_NAMES_BATCH_SIZE = 1000;
+
   /*
    * CRUD repos
    */
@@ -32,6 +60,29 @@ public class IdeaService {
 
   @Autowired CollaborationRequestRepository collaborationRequestRepository;
 
+  /*
+   * Services, caching the domains, topics and technologies
+   */
+
+  @Autowired DomainService domainService;
+
+  @Autowired TopicService topicService;
+
+  @Autowired TechnologyService technologyService;
+
+  @Autowired TrendingService trendingService;
+
+  // Publishes the changes of the ideas to the in memory views of them (see IdeaChangedEvent)
+  @Autowired ApplicationEventPublisher eventPublisher;
+
+  /*
+   * Optional services
+   */
+
+  // Only present when the in memory index is enabled
+  @Autowired(required = false)
+  IdeaIndexService ideaIndexService;
+
   /*
    * Service functions
    */
@@ -61,13 +112,36 @@ public class IdeaService {
     return idea;
   }
 
-  // TODO: For in a future sprint, we will implement a recommendations engine to
-  // sort the ideas!
+  /**
+   * Get an idea by its UUID, loading only its owner. Cheaper than {@link #getIdeaById(String)} when
+   * all that is needed is to check who the idea belongs to.
+   *
+   * @param uuid UUID of the idea
+   * @return The {@link Idea} with the given UUID
+   */
+  @Transactional
+  public Idea getIdeaWithOwnerById(String uuid) {
+
+    if (uuid == null || uuid.isEmpty()) {
+      throw new GlobalException(
+          HttpStatus.BAD_REQUEST, "Please enter a valid UUID. UUID cannot be empty.");
+    }
+
+    Idea idea = ideaRepository.findIdeaWithOwnerById(uuid);
+
+    if (idea == null) {
+      throw new GlobalException(
+          HttpStatus.BAD_REQUEST, "Idea with UUID " + uuid + " does not exist.");
+    }
+
+    return idea;
+  }
 
   /**
    * Get all ideas with a set of domain names, topic names, and technology names. For now, we can
    * just return all ideas upon a (null, null, null) call. Currently just sorts from newest to
-   * oldest.
+   * oldest. The privacy check, the name matching and the sorting are all done by the database so
+   * that only the matching ideas are loaded.
    *
    * @param domainNames The list of domain names that the idea must have one of (null if no filter)
    * @param topicNames The list of topic names that the idea must have one of (null if no filter)
@@ -80,103 +154,353 @@ public class IdeaService {
   public List<Idea> getIdeasByAllCriteria(
       List<String> domainNames, List<String> topicNames, List<String> techNames) {
 
-    // Retrieve all ideas
-    Iterable<Idea> allIdeas = ideaRepository.findAll();
+    // Retrieve the public ideas matching all criteria, from newest to oldest
+    // A null list means there is no filter on that criteria
+    List<Idea> filteredIdeas =
+        ideaRepository.findPublicIdeasByCriteria(
+            domainNames != null,
+            emptyIfNull(domainNames),
+            topicNames != null,
+            emptyIfNull(topicNames),
+            techNames != null,
+            emptyIfNull(techNames));
 
-    // Check whether the request was successfull
-    if (allIdeas == null) {
-      throw new GlobalException(HttpStatus.INTERNAL_SERVER_ERROR, "Could not retrieve ideas.");
+    // Check whether any ideas match the criteria
+    if (filteredIdeas == null || filteredIdeas.isEmpty()) {
+      throw new GlobalException(
+          HttpStatus.NOT_FOUND,
+          "No ideas match the given criteria. Please try again with different criteria.");
     }
 
-    // Convert the iterable object to a list
-    List<Idea> allIdeasList = new ArrayList<>();
-    allIdeas.forEach(allIdeasList::add);
+    // Return the list of ideas otherwise
+    return filteredIdeas;
+  }
 
-    // Filter out private ideas from the list of all ideas
-    for (Idea idea : allIdeas) {
-      if (idea.isPrivate()) {
-        allIdeasList.remove(idea);
-      }
+  /**
+   * Get a page of the ideas matching a set of domain names, topic names, and technology names,
+   * sorted from newest to oldest. Pages are chained with a cursor holding the (date, id) of the
+   * last idea of the previous page, so the database seeks directly to the next page instead of
+   * skipping all the previous ones.
+   *
+   * @param domainNames The list of domain names that the idea must have one of (null if no filter)
+   * @param topicNames The list of topic names that the idea must have one of (null if no filter)
+   * @param techNames The list of technology names that the idea must have one of (null if no
+   *     filter)
+   * @param pageSize The maximum number of ideas to return
+   * @param cursor The cursor returned with the previous page (null for the first page)
+   * @return The page of ideas that match all the criteria
+   * @author Wassim Jabbour
+   */
+  @Transactional
+  public List<Idea> getIdeasPageByAllCriteria(
+      List<String> domainNames,
+      List<String> topicNames,
+      List<String> techNames,
+      int pageSize,
+      String cursor) {
+
+    if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+      throw new GlobalException(
+          HttpStatus.BAD_REQUEST, "The page size must be between 1 and " + MAX_PAGE_SIZE + ".");
+    }
+    IdeaCursor after = cursor == null || cursor.isEmpty() ? null : IdeaCursor.decode(cursor);
+
+    List<Idea> page;
+    if (ideaIndexService != null && ideaIndexService.isReady()) {
+      page =
+          ideaRepository.findIdeasByIdInOrder(
+              ideaIndexService.findPageIds(domainNames, topicNames, techNames, after, pageSize));
+    } else if (after == null) {
+      page =
+          ideaRepository.findPublicIdeasByCriteria(
+              domainNames != null,
+              emptyIfNull(domainNames),
+              topicNames != null,
+              emptyIfNull(topicNames),
+              techNames != null,
+              emptyIfNull(techNames),
+              PageRequest.of(0, pageSize));
+    } else {
+      page =
+          ideaRepository.findPublicIdeasByCriteriaAfter(
+              domainNames != null,
+              emptyIfNull(domainNames),
+              topicNames != null,
+              emptyIfNull(topicNames),
+              techNames != null,
+              emptyIfNull(techNames),
+              after.getDate(),
+              after.getId(),
+              PageRequest.of(0, pageSize));
     }
 
-    // Create a list to hold the filtered ideas
-    List<Idea> filteredIdeas = new ArrayList<>();
-
-    // Filter by all criteria
-    for (Idea idea : allIdeasList) {
-
-      // 1) Check whether the idea contains 1 of the required domains
-      // We do this by checking if the required domain list contains at least 1 of the
-      // idea's
-      // domains
-      // The following boolean will be set to true if the required domain list
-      // contains at least 1
-      // domain of our idea
-      boolean contains = false;
-      if (domainNames == null) { // No criteria based on domain
-        contains = true;
-      } else {
-        for (Domain ideaDomain : idea.getDomains()) {
-          // If null, no requirement on domain, so we skip this check
-          if (domainNames.contains(ideaDomain.getName())) {
-            contains = true;
-            break;
-          }
-        }
-      }
-      if (!contains) {
-        continue; // Skip the other checks if the idea does not contain the required domain
-      }
+    // An empty first page means nothing matches, an empty later page just means we reached the end
+    if (after == null && (page == null || page.isEmpty())) {
+      throw new GlobalException(
+          HttpStatus.NOT_FOUND,
+          "No ideas match the given criteria. Please try again with different criteria.");
+    }
+    return page;
+  }
 
-      // 2) Check whether the idea contains 1 of the required topics
-      contains = false; // Variable reuse
-      if (topicNames == null) { // No filter on topic name
-        contains = true;
-      } else {
-        for (Topic ideaTopic : idea.getTopics()) {
-          if (topicNames.contains(ideaTopic.getName())) {
-            contains = true;
-            break;
-          }
-        }
-      }
-      if (!contains) {
-        continue; // Skip the other checks if the idea does not contain the required topic
-      }
+  /**
+   * Get a page of the public ideas matching a set of domain names, topic names, and technology
+   * names, from the most to the least trending (see {@link TrendingService}). Only the ideas with
+   * recent activity are trending. Since the order changes over time, pages are chained with a
+   * cursor holding the number of ideas already returned.
+   *
+   * <p>The ids of the most trending ideas are taken from the trending heap and filtered by the
+   * database with the same criteria as browsing, without loading the ideas. Only the ideas of the
+   * page are loaded.
+   *
+   * @param domainNames The list of domain names that the idea must have one of (null if no filter)
+   * @param topicNames The list of topic names that the idea must have one of (null if no filter)
+   * @param techNames The list of technology names that the idea must have one of (null if no
+   *     filter)
+   * @param pageSize The maximum number of ideas to return
+   * @param cursor The cursor returned with the previous page (null for the first page)
+   * @return The page of trending ideas that match all the criteria
+   */
+  @Transactional
+  public List<Idea> getTrendingIdeasPage(
+      List<String> domainNames,
+      List<String> topicNames,
+      List<String> techNames,
+      int pageSize,
+      String cursor) {
+
+    if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+      throw new GlobalException(
+          HttpStatus.BAD_REQUEST, "The page size must be between 1 and " + MAX_PAGE_SIZE + ".");
+    }
+    int offset = decodeOffsetCursor(cursor);
+    int wanted = Math.min(offset + pageSize, MAX_TRENDING_IDEAS);
+    if (offset >= wanted) {
+      return new ArrayList<>();
+    }
 
-      // 3) Check whether the idea contains 1 of the required technologies
-      contains = false; // Variable reuse
-      if (techNames == null) { // No filter on tech name
-        contains = true;
-      } else {
-        for (Technology ideaTech : idea.getTechs()) {
-          if (techNames.contains(ideaTech.getName())) {
-            contains = true;
-            break;
-          }
+    List<String> candidates = trendingService.getTopIdeaIds(TRENDING_CANDIDATES);
+    List<String> matching = new ArrayList<>();
+    if (!candidates.isEmpty()) {
+      Set<String> matchingIds =
+          new HashSet<>(
+              ideaRepository.findPublicIdeaIdsByCriteriaAndIdIn(
+                  domainNames != null,
+                  emptyIfNull(domainNames),
+                  topicNames != null,
+                  emptyIfNull(topicNames),
+                  techNames != null,
+                  emptyIfNull(techNames),
+                  candidates));
+      // Keep the trending order
+      for (String id : candidates) {
+        if (matchingIds.contains(id)) {
+          matching.add(id);
         }
       }
-      if (!contains) {
-        continue; // Skip the other checks if the idea does not contain the required technology
-      }
-
-      // If we reach this point, the idea matches all the criteria
-      filteredIdeas.add(idea);
     }
 
-    // Check whether any ideas match the criteria
-    if (filteredIdeas.isEmpty()) {
+    List<Idea> page =
+        ideaRepository.findIdeasByIdInOrder(
+            matching.subList(Math.min(offset, matching.size()), Math.min(wanted, matching.size())));
+
+    // An empty first page means nothing matches, an empty later page just means we reached the end
+    if (offset == 0 && page.isEmpty()) {
       throw new GlobalException(
           HttpStatus.NOT_FOUND,
           "No ideas match the given criteria. Please try again with different criteria.");
     }
+    return page;
+  }
 
-    // Sort the ideas from newest to oldest
-    // We flip the order so that the newest (bigger date) comes first
-    filteredIdeas.sort((idea1, idea2) -> idea2.getDate().compareTo(idea1.getDate()));
+  /**
+   * Search the public ideas whose title, purpose or description contain all the words of a text,
+   * each word also matching the words it is the start of (e.g. "sol pan" finds "Solar panels").
+   * Ideas are also filtered by a set of domain names, topic names and technology names, and sorted
+   * from the most to the least relevant, a word in the title counting more than one in the purpose
+   * or description. Like trending ideas, pages are chained with a cursor holding the number of
+   * ideas already returned.
+   *
+   * <p>The search is done by the database with a full text index (see {@link
+   * IdeaRepository#searchPublicIdeaIds}), then only the ideas of the page are loaded.
+   *
+   * @param text The text to search for
+   * @param domainNames The list of domain names that the idea must have one of (null if no filter)
+   * @param topicNames The list of topic names that the idea must have one of (null if no filter)
+   * @param techNames The list of technology names that the idea must have one of (null if no
+   *     filter)
+   * @param pageSize The maximum number of ideas to return
+   * @param cursor The cursor returned with the previous page (null for the first page)
+   * @return The page of ideas that match the text and all the criteria
+   */
+  @Transactional
+  public List<Idea> searchIdeasPage(
+      String text,
+      List<String> domainNames,
+      List<String> topicNames,
+      List<String> techNames,
+      int pageSize,
+      String cursor) {
+
+    if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+      throw new GlobalException(
+          HttpStatus.BAD_REQUEST, "The page size must be between 1 and " + MAX_PAGE_SIZE + ".");
+    }
+    String query = toPrefixQuery(text);
+    int offset = decodeOffsetCursor(cursor);
+    int limit = Math.min(pageSize, MAX_SEARCH_RESULTS - offset);
+    if (limit <= 0) {
+      return new ArrayList<>();
+    }
 
-    // Return the list of ideas otherwise
-    return filteredIdeas;
+    List<Idea> page =
+        ideaRepository.findIdeasByIdInOrder(
+            ideaRepository.searchPublicIdeaIds(
+                query,
+                domainNames != null,
+                noneIfEmpty(domainNames),
+                topicNames != null,
+                noneIfEmpty(topicNames),
+                techNames != null,
+                noneIfEmpty(techNames),
+                limit,
+                offset));
+
+    // An empty first page means nothing matches, an empty later page just means we reached the end
+    if (offset == 0 && page.isEmpty()) {
+      throw new GlobalException(
+          HttpStatus.NOT_FOUND,
+          "No ideas match the given search. Please try again with different words or criteria.");
+    }
+    return page;
+  }
+
+  /**
+   * Count the public ideas matching a search text and a set of domain names, topic names, and
+   * technology names by domain, topic and technology, so the filter can show how many ideas
+   * picking each of them would return. The counts of a kind ignore the filter on that kind, since
+   * picking another name of the same kind adds ideas rather than narrowing them down.
+   *
+   * <p>The counts come from the in memory index when it is enabled and there is no search text,
+   * otherwise from a single aggregate query.
+   *
+   * @param text The text to search for (null or blank if no search)
+   * @param domainNames The list of domain names that the idea must have one of (null if no filter)
+   * @param topicNames The list of topic names that the idea must have one of (null if no filter)
+   * @param techNames The list of technology names that the idea must have one of (null if no
+   *     filter)
+   * @return The number of ideas of each domain, topic and technology name that has ideas
+   */
+  @Transactional
+  public FacetCountsDTO getFacetCounts(
+      String text, List<String> domainNames, List<String> topicNames, List<String> techNames) {
+    boolean searching = text != null && !text.isBlank();
+    if (!searching && ideaIndexService != null && ideaIndexService.isReady()) {
+      return ideaIndexService.countFacets(domainNames, topicNames, techNames);
+    }
+
+    Map<String, Long> domains = new HashMap<>();
+    Map<String, Long> topics = new HashMap<>();
+    Map<String, Long> techs = new HashMap<>();
+    for (Object[] row :
+        ideaRepository.countPublicIdeasByFacet(
+            searching,
+            searching ? toPrefixQuery(text) : "",
+            domainNames != null,
+            noneIfEmpty(domainNames),
+            topicNames != null,
+            noneIfEmpty(topicNames),
+            techNames != null,
+            noneIfEmpty(techNames))) {
+      Map<String, Long> counts =
+          row[0].equals("domain") ? domains : row[0].equals("topic") ? topics : techs;
+      counts.put((String) row[1], ((Number) row[2]).longValue());
+    }
+    return new FacetCountsDTO(domains, topics, techs);
+  }
+
+  /**
+   * Get the cursor of the trending or search page after a given one
+   *
+   * @param cursor The cursor of the page (null for the first page)
+   * @param pageSize The number of ideas in the page
+   * @return The cursor of the next page
+   */
+  public static String nextOffsetCursor(String cursor, int pageSize) {
+    return Integer.toString(decodeOffsetCursor(cursor) + pageSize);
+  }
+
+  /**
+   * Get the number of ideas already returned from a trending or search cursor
+   *
+   * @param cursor The cursor (null for the first page)
+   * @return The number of ideas returned before the page
+   * @throws GlobalException if the cursor is not a number of ideas
+   */
+  private static int decodeOffsetCursor(String cursor) {
+    if (cursor == null || cursor.isEmpty()) {
+      return 0;
+    }
+    try {
+      int offset = Integer.parseInt(cursor);
+      if (offset >= 0) {
+        return offset;
+      }
+    } catch (NumberFormatException e) {
+      // Handled below
+    }
+    throw new GlobalException(HttpStatus.BAD_REQUEST, "The page cursor is invalid.");
+  }
+
+  /**
+   * Turn a search text into a full text query matching the ideas that have all of its words, each
+   * word also matching the words it is the start of. Only letters and digits are kept, so the text
+   * cannot change the syntax of the query.
+   *
+   * @param text The text to search for
+   * @return The query, in the to_tsquery syntax
+   * @throws GlobalException if the text has no word or too many words
+   */
+  static String toPrefixQuery(String text) {
+    List<String> terms = new ArrayList<>();
+    if (text != null) {
+      for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+        if (!word.isEmpty()) {
+          terms.add(word + ":*");
+        }
+      }
+    }
+    if (terms.isEmpty()) {
+      throw new GlobalException(
+          HttpStatus.BAD_REQUEST, "The search must contain at least one letter or digit.");
+    }
+    if (terms.size() > MAX_SEARCH_WORDS) {
+      throw new GlobalException(
+          HttpStatus.BAD_REQUEST,
+          "The search cannot have more than " + MAX_SEARCH_WORDS + " words.");
+    }
+    return String.join(" & ", terms);
+  }
+
+  /**
+   * Replace a null or empty filter list by one that matches no name, since an empty IN list is not
+   * valid SQL in native queries (the filter flag tells whether the list is used at all)
+   *
+   * @param names The list of names (can be null)
+   * @return The list of names, or a list with a name that nothing has if it was null or empty
+   */
+  private static List<String> noneIfEmpty(List<String> names) {
+    return names == null || names.isEmpty() ? List.of("") : names;
+  }
+
+  /**
+   * Replace a null filter list by an empty one, since query parameters cannot be null
+   *
+   * @param names The list of names (can be null)
+   * @return The list of names, or an empty list if it was null
+   */
+  private static List<String> emptyIfNull(List<String> names) {
+    return names == null ? Collections.emptyList() : names;
   }
 
   /**
@@ -212,31 +536,13 @@ public class IdeaService {
       String iconUrlId,
       String regularUsername) {
     // Check parameters are not empty
-    checkEmptyAttributeViolation(title);
-    if (title.length() > 100) {
-      throw new GlobalException(HttpStatus.BAD_REQUEST, "Idea titles cannot exceed 100 characters");
-    }
-    checkEmptyAttributeViolation(description);
-    checkEmptyAttributeViolation(purpose);
+    checkNewIdeaFields(title, purpose, description, domainIds, topicIds, iconUrlId);
 
     // Check to see if all given objects exist
-    if (domainIds.size() == 0
-        || domainIds == null
-        || (domainIds.size() == 1 && (domainIds.get(0) == null || domainIds.get(0).isEmpty()))) {
-      throw new GlobalException(HttpStatus.BAD_REQUEST, "You must specify at least 1 domain");
-    }
     Set<Domain> domains = checkDomains(domainIds);
     Set<Technology> techs = checkTechs(techIds);
-    if (topicIds == null
-        || topicIds.size() == 0
-        || (topicIds.size() == 1 && (topicIds.get(0) == null || topicIds.get(0).isEmpty()))) {
-      throw new GlobalException(HttpStatus.BAD_REQUEST, "You must specify at least 1 topic");
-    }
     Set<Topic> topics = checkTopics(topicIds);
     List<URL> imgUrls = checkImgURLS(imgUrlIds);
-    if (iconUrlId == null || iconUrlId.isEmpty()) {
-      throw new GlobalException(HttpStatus.BAD_REQUEST, "An idea icon is required");
-    }
     URL iconUrl = checkURL(iconUrlId);
     RegularUser user = regularUserRepository.findRegularUserByAppUserEmail(regularUsername);
     Idea idea = new Idea();
@@ -256,10 +562,61 @@ public class IdeaService {
 
     // Save to repository
     ideaRepository.save(idea);
+    eventPublisher.publishEvent(IdeaChangedEvent.saved(idea));
 
     return idea;
   }
 
+  /**
+   * Create an idea along with the URLs of its supporting images and icon, in a single transaction.
+   * If the idea cannot be created, none of its URLs are saved.
+   *
+   * @param title Title of the idea
+   * @param purpose Purpose of the idea
+   * @param description Description of the idea
+   * @param isPaid Whether the idea is paid or not
+   * @param inProgress Whether the idea is in progress or not
+   * @param isPrivate Whether the idea is private or not
+   * @param domainIds List of domain ids
+   * @param techIds List of technology ids
+   * @param topicIds List of topic ids
+   * @param imgUrls List of supporting image urls (null if none)
+   * @param iconUrl Icon url, reused if another idea already has it
+   * @param regularUsername Username of the user creating the idea
+   * @return The newly created Idea
+   */
+  @Transactional
+  public Idea createIdeaWithURLs(
+      String title,
+      String purpose,
+      String description,
+      boolean isPaid,
+      boolean inProgress,
+      boolean isPrivate,
+      List<String> domainIds,
+      List<String> techIds,
+      List<String> topicIds,
+      List<String> imgUrls,
+      String iconUrl,
+      String regularUsername) {
+    // These calls are made within the transaction of this method
+    List<String> imgUrlIds = imgUrls == null ? null : createSupportingURLS(imgUrls);
+    String iconUrlId = iconUrl == null ? null : createIconURL(iconUrl);
+    return createIdea(
+        title,
+        purpose,
+        description,
+        isPaid,
+        inProgress,
+        isPrivate,
+        domainIds,
+        techIds,
+        topicIds,
+        imgUrlIds,
+        iconUrlId,
+        regularUsername);
+  }
+
   /**
    * Modify an idea based on id
    *
@@ -348,9 +705,61 @@ public class IdeaService {
 
     // Save updated idea in the repository
     ideaRepository.save(idea);
+    eventPublisher.publishEvent(IdeaChangedEvent.saved(idea));
     return idea;
   }
 
+  /**
+   * Modify an idea along with the URLs of its supporting images and icon, in a single transaction.
+   * If the idea cannot be modified, none of its new URLs are saved.
+   *
+   * @param id id
+   * @param title title
+   * @param purpose purpose
+   * @param descriptions description
+   * @param isPaid paid or not paid idea
+   * @param inProgress status of progress
+   * @param isPrivate privacy of idea
+   * @param domainIds domain Ids of domains
+   * @param techIds tech Ids of idea
+   * @param topicIds topic Ids of idea
+   * @param imgUrls supporting image urls of idea (null to keep the current ones)
+   * @param iconUrl icon url of idea, reused if another idea already has it
+   * @return the modified idea
+   * @throws GlobalException if necessary field are left empty or if an object does not exist
+   */
+  @Transactional
+  public Idea modifyIdeaWithURLs(
+      String id,
+      String title,
+      String purpose,
+      String descriptions,
+      boolean isPaid,
+      boolean inProgress,
+      boolean isPrivate,
+      List<String> domainIds,
+      List<String> techIds,
+      List<String> topicIds,
+      List<String> imgUrls,
+      String iconUrl) {
+    // These calls are made within the transaction of this method
+    List<String> imgUrlIds = imgUrls == null ? null : createSupportingURLS(imgUrls);
+    String iconUrlId = iconUrl == null ? null : createIconURL(iconUrl);
+    return modifyIdea(
+        id,
+        title,
+        purpose,
+        descriptions,
+        isPaid,
+        inProgress,
+        isPrivate,
+        domainIds,
+        techIds,
+        topicIds,
+        imgUrlIds,
+        iconUrlId);
+  }
+
   /**
    * Check to make sure a necessary field is not empty
    *
@@ -375,18 +784,10 @@ public class IdeaService {
    * @author Ramin Akhavan
    */
   public Set<Domain> checkDomains(List<String> domainIds) {
-    Domain domain = null;
     Set<Domain> domains = new HashSet<Domain>();
     if (domainIds != null) {
-      for (String id : domainIds) {
-        domain = domainRepository.findDomainById(id);
-        if (domain == null) {
-          throw new GlobalException(
-              HttpStatus.BAD_REQUEST,
-              "You are attempting to link your idea to an object that does not exist");
-        }
-        domains.add(domain);
-      }
+      domains.addAll(domainService.getDomainsByIds(domainIds));
+      checkAllExist(domainIds, domains.stream().map(Domain::getId).toList(), "domains");
     }
     return domains;
   }
@@ -400,18 +801,10 @@ public class IdeaService {
    * @author Ramin Akhavan
    */
   public Set<Technology> checkTechs(List<String> techIds) {
-    Technology tech = null;
     Set<Technology> techs = new HashSet<Technology>();
     if (techIds != null) {
-      for (String id : techIds) {
-        tech = technologyRepository.findTechnologyById(id);
-        if (tech == null) {
-          throw new GlobalException(
-              HttpStatus.BAD_REQUEST,
-              "You are attempting to link your idea to an object that does not exist");
-        }
-        techs.add(tech);
-      }
+      techs.addAll(technologyService.getTechsByIds(techIds));
+      checkAllExist(techIds, techs.stream().map(Technology::getId).toList(), "technologies");
     }
     return techs;
   }
@@ -425,18 +818,10 @@ public class IdeaService {
    * @author Ramin Akhavan
    */
   public Set<Topic> checkTopics(List<String> topicIds) {
-    Topic topic = null;
     Set<Topic> topics = new HashSet<Topic>();
     if (topicIds != null) {
-      for (String id : topicIds) {
-        topic = topicRepository.findTopicById(id);
-        if (topic == null) {
-          throw new GlobalException(
-              HttpStatus.BAD_REQUEST,
-              "You are attempting to link your idea to an object that does not exist");
-        }
-        topics.add(topic);
-      }
+      topics.addAll(topicService.getTopicsByIds(topicIds));
+      checkAllExist(topicIds, topics.stream().map(Topic::getId).toList(), "topics");
     }
     return topics;
   }
@@ -452,16 +837,107 @@ public class IdeaService {
   public List<URL> checkImgURLS(List<String> imgUrlIds) {
     List<URL> urls = new ArrayList<URL>();
     if (imgUrlIds != null) {
-      for (String id : imgUrlIds) {
-        URL urlCheck = checkURL(id);
-        if (urlCheck != null) {
-          urls.add(urlCheck);
-        }
+      // Null ids are skipped
+      List<String> ids = imgUrlIds.stream().filter(Objects::nonNull).toList();
+      if (ids.isEmpty()) {
+        return urls;
+      }
+      Map<String, URL> urlsById = new HashMap<>();
+      for (URL url : urlRepository.findURLsByIdIn(ids)) {
+        urlsById.put(url.getId(), url);
+      }
+      checkAllExist(ids, urlsById.keySet(), "images");
+
+      // Keep the order the images were given in
+      for (String id : ids) {
+        urls.add(urlsById.get(id));
       }
     }
     return urls;
   }
 
+  /**
+   * Check the fields a new idea must have, whether it is created on its own or imported: a title of
+   * at most 100 characters, a purpose, a description, at least 1 domain, at least 1 topic and an
+   * icon. Whether the domains, topics and technologies exist is checked separately.
+   *
+   * @param title the title of the idea
+   * @param purpose the purpose of the idea
+   * @param description the description of the idea
+   * @param domainIds the ids of the domains of the idea
+   * @param topicIds the ids of the topics of the idea
+   * @param icon the icon of the idea (its URL, or the id of its URL)
+   * @throws GlobalException if a field is missing or too long
+   */
+  static void checkNewIdeaFields(
+      String title,
+      String purpose,
+      String description,
+      List<String> domainIds,
+      List<String> topicIds,
+      String icon) {
+    if (isEmpty(title) || isEmpty(description) || isEmpty(purpose)) {
+      throw new GlobalException(HttpStatus.BAD_REQUEST, "Necessary fields have been left empty");
+    }
+    if (title.length() > 100) {
+      throw new GlobalException(HttpStatus.BAD_REQUEST, "Idea titles cannot exceed 100 characters");
+    }
+    if (hasNoIds(domainIds)) {
+      throw new GlobalException(HttpStatus.BAD_REQUEST, "You must specify at least 1 domain");
+    }
+    if (hasNoIds(topicIds)) {
+      throw new GlobalException(HttpStatus.BAD_REQUEST, "You must specify at least 1 topic");
+    }
+    if (isEmpty(icon)) {
+      throw new GlobalException(HttpStatus.BAD_REQUEST, "An idea icon is required");
+    }
+  }
+
+  /**
+   * Check if a value is missing or empty
+   *
+   * @param value the value
+   * @return true if there is no value
+   */
+  private static boolean isEmpty(String value) {
+    return value == null || value.isEmpty();
+  }
+
+  /**
+   * Check if a list of ids is missing, empty, or only holds an empty id
+   *
+   * @param ids the ids
+   * @return true if there is no id
+   */
+  private static boolean hasNoIds(List<String> ids) {
+    return ids == null
+        || ids.isEmpty()
+        || (ids.size() == 1 && (ids.get(0) == null || ids.get(0).isEmpty()));
+  }
+
+  /**
+   * Check that every requested id was found, listing all the missing ones otherwise
+   *
+   * @param requestedIds the ids the idea should be linked to
+   * @param foundIds the ids that were found in the database
+   * @param type the type of the objects, for the error message
+   * @throws GlobalException if an object does not exist
+   */
+  static void checkAllExist(
+      Collection<String> requestedIds, Collection<String> foundIds, String type) {
+    Set<String> missingIds = new LinkedHashSet<>(requestedIds);
+    missingIds.removeAll(new HashSet<>(foundIds));
+    if (!missingIds.isEmpty()) {
+      throw new GlobalException(
+          HttpStatus.BAD_REQUEST,
+          "You are attempting to link your idea to an object that does not exist ("
+              + type
+              + ": "
+              + String.join(", ", missingIds)
+              + ")");
+    }
+  }
+
   /**
    * Check to make sure a url exists
    *
@@ -492,10 +968,11 @@ public class IdeaService {
   @Transactional
   public void removeIdeaById(String uuid) {
     // validate idea by getting it
-    this.getIdeaById(uuid);
+    this.getIdeaWithOwnerById(uuid);
 
     // remove idea
     ideaRepository.deleteById(uuid);
+    eventPublisher.publishEvent(IdeaChangedEvent.removed(uuid));
   }
 
   /**
@@ -507,21 +984,33 @@ public class IdeaService {
    * @author Ramin Akhavan
    */
   public List<Idea> getCreatedIdeas(String email) {
+    validateCreatorEmail(email);
+    return ideaRepository.findIdeasByOwnerEmail(email, Pageable.unpaged());
+  }
 
+  /**
+   * Get one page of a user's created ideas, from newest to oldest
+   *
+   * @param email Email of the user to retrieve the ideas for
+   * @param page The index of the page, starting at 0
+   * @param pageSize The number of ideas in a page
+   * @return The page of ideas created by the user
+   */
+  public List<Idea> getCreatedIdeas(String email, int page, int pageSize) {
+    validateCreatorEmail(email);
+    return ideaRepository.findIdeasByOwnerEmail(email, pageRequest(page, pageSize));
+  }
+
+  /**
+   * Check the email used to look up created ideas is not empty
+   *
+   * @param email The email to check
+   */
+  private static void validateCreatorEmail(String email) {
     if (email == null || email.isEmpty()) {
       throw new GlobalException(
           HttpStatus.BAD_REQUEST, "Please enter a valid email. Email cannot be left empty");
     }
-
-    List<Idea> createdIdeas = new ArrayList<>();
-    for (Idea idea : ideaRepository.findAll()) {
-      String ideaEmail = idea.getUser().getAppUser().getEmail();
-      if (ideaEmail.equalsIgnoreCase(email)) {
-        createdIdeas.add(idea);
-      }
-    }
-
-    return createdIdeas;
   }
 
   /**
@@ -533,6 +1022,159 @@ public class IdeaService {
    */
   @Transactional
   public List<Idea> getIdeasByCollaborationRequest(String email) {
+    RegularUser user = getRequester(email);
+
+    // Private ideas are left out in case the user expressed interest in an idea that was turned
+    // private later on
+    return collaborationRequestRepository.findRequestedPublicIdeasByRequesterId(
+        user.getId(), Pageable.unpaged());
+  }
+
+  /**
+   * Retrieve one page of the ideas that a user expressed interest in, from newest to oldest
+   *
+   * @param email Email of the user to retrieve the ideas for
+   * @param page The index of the page, starting at 0
+   * @param pageSize The number of ideas in a page
+   * @return The page of ideas that the user expressed interest in
+   */
+  @Transactional
+  public List<Idea> getIdeasByCollaborationRequest(String email, int page, int pageSize) {
+    Pageable pageable = pageRequest(page, pageSize);
+
+    RegularUser user = getRequester(email);
+
+    return collaborationRequestRepository.findRequestedPublicIdeasByRequesterId(
+        user.getId(), pageable);
+  }
+
+  /**
+   * Get a page of the summaries of the public ideas matching a set of domain names, topic names,
+   * and technology names, from newest to oldest. Like {@link #getIdeasByAllCriteria}, but only what
+   * a list shows is selected, without loading the ideas.
+   *
+   * @param domainNames The list of domain names that the idea must have one of (null if no filter)
+   * @param topicNames The list of topic names that the idea must have one of (null if no filter)
+   * @param techNames The list of technology names that the idea must have one of (null if no
+   *     filter)
+   * @param pageable The page to return (see {@link #pageRequest})
+   * @return The summaries of the page of ideas that match all the criteria
+   */
+  @Transactional
+  public List<IdeaSummaryDTO> getIdeaSummariesByAllCriteria(
+      List<String> domainNames,
+      List<String> topicNames,
+      List<String> techNames,
+      Pageable pageable) {
+    List<IdeaSummaryDTO> summaries =
+        ideaRepository.findPublicIdeaSummariesByCriteria(
+            domainNames != null,
+            emptyIfNull(domainNames),
+            topicNames != null,
+            emptyIfNull(topicNames),
+            techNames != null,
+            emptyIfNull(techNames),
+            pageable);
+
+    // An empty first page means nothing matches, an empty later page just means we reached the end
+    if (summaries.isEmpty() && pageable.getPageNumber() == 0) {
+      throw new GlobalException(
+          HttpStatus.NOT_FOUND,
+          "No ideas match the given criteria. Please try again with different criteria.");
+    }
+    return addTaxonomyNames(summaries);
+  }
+
+  /**
+   * Get the summaries of a user's created ideas, from newest to oldest, without loading the ideas
+   *
+   * @param email Email of the user to retrieve the ideas for
+   * @param pageable The page to return (see {@link #pageRequest}), or unpaged for all of them
+   * @return The summaries of the ideas created by the user
+   */
+  @Transactional
+  public List<IdeaSummaryDTO> getCreatedIdeaSummaries(String email, Pageable pageable) {
+    validateCreatorEmail(email);
+    return addTaxonomyNames(ideaRepository.findIdeaSummariesByOwnerEmail(email, pageable));
+  }
+
+  /**
+   * Get the summaries of the ideas that a user expressed interest in, from newest to oldest,
+   * without loading the ideas
+   *
+   * @param email Email of the user to retrieve the ideas for
+   * @param pageable The page to return (see {@link #pageRequest}), or unpaged for all of them
+   * @return The summaries of the ideas that the user expressed interest in
+   */
+  @Transactional
+  public List<IdeaSummaryDTO> getIdeaSummariesByCollaborationRequest(
+      String email, Pageable pageable) {
+    RegularUser user = getRequester(email);
+    return addTaxonomyNames(
+        collaborationRequestRepository.findRequestedPublicIdeaSummariesByRequesterId(
+            user.getId(), pageable));
+  }
+
+  /**
+   * Get the request of a page of ideas, checking its index and size
+   *
+   * @param page The index of the page, starting at 0
+   * @param pageSize The number of ideas in a page
+   * @return The page request
+   * @throws GlobalException if the page is negative or the page size is invalid
+   */
+  public static Pageable pageRequest(int page, int pageSize) {
+    if (page < 0) {
+      throw new GlobalException(HttpStatus.BAD_REQUEST, "The page cannot be negative.");
+    }
+    if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+      throw new GlobalException(
+          HttpStatus.BAD_REQUEST, "The page size must be between 1 and " + MAX_PAGE_SIZE + ".");
+    }
+    return PageRequest.of(page, pageSize);
+  }
+
+  /**
+   * Add the names of the domains, topics and technologies of idea summaries, with a single query
+   * for up to {@link #TAXONOMY_NAMES_BATCH_SIZE} of them
+   *
+   * @param summaries The summaries of the ideas
+   * @return The same summaries
+   */
+  private List<IdeaSummaryDTO> addTaxonomyNames(List<IdeaSummaryDTO> summaries) {
+    if (summaries.isEmpty()) {
+      return summaries;
+    }
+    Map<String, IdeaSummaryDTO> summariesById = new HashMap<>();
+    for (IdeaSummaryDTO summary : summaries) {
+      summariesById.put(summary.getId(), summary);
+    }
+    List<String> ids = new ArrayList<>(summariesById.keySet());
+    for (int from = 0; from < ids.size(); from += TAXONOMY_NAMES_BATCH_SIZE) {
+      List<String> batch =
+          ids.subList(from, Math.min(from + TAXONOMY_NAMES_BATCH_SIZE, ids.size()));
+      for (Object[] row : ideaRepository.findTaxonomyNamesByIdeaIdIn(batch)) {
+        IdeaSummaryDTO summary = summariesById.get((String) row[0]);
+        String name = (String) row[2];
+        if (row[1].equals("domain")) {
+          summary.getDomains().add(name);
+        } else if (row[1].equals("topic")) {
+          summary.getTopics().add(name);
+        } else {
+          summary.getTechs().add(name);
+        }
+      }
+    }
+    return summaries;
+  }
+
+  /**
+   * Get the regular user whose collaboration requests are looked up
+   *
+   * @param email Email of the user
+   * @return The regular user with the given email
+   */
+  private RegularUser getRequester(String email) {
     // Input validation
     String error = "";
     if (email == null || email.trim().length() == 0) {
@@ -547,34 +1189,7 @@ public class IdeaService {
     if (user == null) {
       throw new GlobalException(HttpStatus.BAD_REQUEST, "This account does not exist.");
     }
-
-    // Get all Collaboration Requests ever sent
-    Iterable<CollaborationRequest> allRequests = collaborationRequestRepository.findAll();
-
-    // Convert the iterable object to a list
-    List<CollaborationRequest> allRequestsList = new ArrayList<>();
-    allRequests.forEach(allRequestsList::add);
-
-    // Remove collaboration requests that are not linked to given regularUser, compare emails
-    allRequestsList.removeIf(
-        request ->
-            !(request.getRequester().getAppUser().getEmail().equals(user.getAppUser().getEmail())));
-
-    // Get all ideas that were ever requested
-    List<Idea> allRequestedIdeas = new ArrayList<>();
-    for (CollaborationRequest request : allRequestsList) {
-      allRequestedIdeas.add(request.getIdea());
-    }
-
-    // Filter out private ideas from the list of all ideas
-    // In case the user expressed interest in an idea that was turned private later on
-    allRequestedIdeas.removeIf(Idea::isPrivate);
-
-    // Sort the ideas from newest to oldest
-    // We flip the order so that the newest (bigger date) comes first
-    allRequestedIdeas.sort((idea1, idea2) -> idea2.getDate().compareTo(idea1.getDate()));
-
-    return allRequestedIdeas;
+    return user;
   }
 
   /**
@@ -586,13 +1201,17 @@ public class IdeaService {
    */
   @Transactional
   public List<String> createSupportingURLS(List<String> urls) {
-    List<String> urlIds = new ArrayList<String>();
+    List<URL> newUrls = new ArrayList<URL>();
     // make the Urls
     for (String url : urls) {
       URL newUrl = new URL();
       newUrl.setURL(url);
       newUrl.setPresetIcon(false);
-      urlRepository.save(newUrl);
+      newUrls.add(newUrl);
+    }
+    // saved together so that the inserts are batched
+    List<String> urlIds = new ArrayList<String>();
+    for (URL newUrl : urlRepository.saveAll(newUrls)) {
       urlIds.add(newUrl.getId());
     }
     return urlIds;
@@ -600,28 +1219,25 @@ public class IdeaService {
 
   /**
    * @author Shidan Javaheri Method to create a new URL object for an Icon. Since an icon can belong
-   *     to many ideas, this method checks to make sure that no other URL object has the same URL.
+   *     to many ideas, each icon is stored once per hash of its normalized URL: an existing icon is
+   *     looked up through the unique index on the hash, and a new one is inserted unless a
+   *     concurrent request inserted it first.
    * @param url the String URL to be used as an icon for the idea
    * @return urlId, the id of the created object
    */
   @Transactional
   public String createIconURL(String url) {
-    String urlId = "";
     if (url == null || url.isEmpty()) {
       throw new GlobalException(HttpStatus.BAD_REQUEST, "An idea icon is required");
     }
+    String iconHash = IconHash.of(url);
     // check if it already exists
-    ArrayList<URL> urlCheck = urlRepository.findURLByURL(url);
-    if (urlCheck.size() != 0) {
-      urlId = urlCheck.get(0).getId();
-      return urlId;
-    }
-    // otherwise make a new object and save it
-    URL newUrl = new URL();
-    newUrl.setURL(url);
-    newUrl.setPresetIcon(false);
-    urlRepository.save(newUrl);
-    urlId = newUrl.getId();
-    return urlId;
+    URL icon = urlRepository.findURLByIconHash(iconHash);
+    if (icon != null) {
+      return icon.getId();
+    }
+    // otherwise insert it, the icon inserted first wins if another request inserts it too
+    urlRepository.insertIconIfAbsent(UUID.randomUUID().toString(), url, iconHash);
+    return urlRepository.findURLByIconHash(iconHash).getId();
   }
 }
@@ -0,0 +1,29 @@
+package ca.mcgill.purposeful.service;
+
+/**
+ * Published by the services when a regular user high-fives an idea, takes a high five back or
+ * requests to collaborate on an idea, since recommendations are computed from a user's interests.
+ * Handled once the transaction commits (with a @TransactionalEventListener).
+ */
+public class InterestsChangedEvent {
+
+  private final String userId;
+
+  /**
+   * Describe a change of the interests of a regular user
+   *
+   * @param userId The id of the regular user
+   */
+  public InterestsChangedEvent(String userId) {
+    this.userId = userId;
+  }
+
+  /**
+   * Get the id of the regular user
+   *
+   * @return the id of the regular user
+   */
+  public String getUserId() {
+    return userId;
+  }
+}
@@ -0,0 +1,443 @@
+package ca.mcgill.purposeful.service;
+
+import ca.mcgill.purposeful.dao.IdeaRepository;
+import ca.mcgill.purposeful.dao.ReactionRepository;
+import ca.mcgill.purposeful.exception.GlobalException;
+import ca.mcgill.purposeful.model.Reaction;
+import ca.mcgill.purposeful.model.Reaction.ReactionType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Write-behind buffer of the high fives. A toggle only changes the state a user wants for an idea
+ * in memory and returns it, and the buffer is flushed to the database in a single transaction
+ * every purposeful.reaction-buffer.flush-interval-ms. A toggle and its undo made between two
+ * flushes cancel out and are never written, so a burst of high fives on a popular idea costs one
+ * statement per user instead of one transaction per click.
+ *
+ * <p>The buffer is keyed by (idea, user) and split into stripes with a lock each, so toggles on
+ * different ideas do not wait for each other. It is flushed early when it holds more than
+ * purposeful.reaction-buffer.max-size reactions. The toggles are lost if the server stops without
+ * flushing them, unless purposeful.reaction-buffer.journal is the path of a file where they are
+ * also appended and from which they are replayed on startup.
+ *
+ * <p>The buffer is optional, it is only created when purposeful.reaction-buffer.enabled is true.
+ * The reactions and the number of high fives of the ideas are then up to one flush behind.
+ */
+@Service
+@ConditionalOnProperty(name = "purposeful.reaction-buffer.enabled", havingValue = "true")
+public class ReactionBufferService {
+
+  private static final int STRIPES = 16;
+
+  /*
+   * CRUD repos
+   */
+
+  @Autowired ReactionRepository reactionRepository;
+
+  @Autowired IdeaRepository ideaRepository;
+
+  /*
+   * Service functions
+   */
+
+  @Autowired IdeaService ideaService;
+
+  @Autowired TrendingService trendingService;
+
+  @Autowired PlatformTransactionManager transactionManager;
+
+  // Publishes the changes of the interests of the users (see InterestsChangedEvent)
+  @Autowired ApplicationEventPublisher eventPublisher;
+
+  /*
+   * Configuration
+   */
+
+  /** The number of buffered reactions above which the buffer is flushed right away */
+  @Value("${purposeful.reaction-buffer.max-size:10000}")
+  int maxSize;
+
+  /** The file where the buffered reactions are journaled, empty to keep them in memory only */
+  @Value("${purposeful.reaction-buffer.journal:}")
+  String journalPath;
+
+  /*
+   * Buffer state
+   */
+
+  private final Stripe[] stripes = new Stripe[STRIPES];
+
+  // The number of reactions waiting for the next flush
+  private final AtomicInteger size = new AtomicInteger();
+
+  // Only one flush at a time
+  private final ReentrantLock flushLock = new ReentrantLock();
+
+  private ReactionJournal journal;
+
+  /** Constructor */
+  public ReactionBufferService() {
+    for (int i = 0; i < STRIPES; i++) {
+      stripes[i] = new Stripe();
+    }
+  }
+
+  /** Open the journal, if there is one, and buffer the reactions it holds */
+  @PostConstruct
+  public void openJournal() {
+    if (journalPath == null || journalPath.isEmpty()) {
+      return;
+    }
+    journal = new ReactionJournal(Path.of(journalPath));
+    for (ReactionJournal.Entry entry : journal.read()) {
+      // Whether the journaled reactions were flushed is unknown, so they are all written again
+      Pending pending =
+          new Pending(
+              entry.ideaId, entry.userId, entry.reacted, null, entry.reactionType, entry.date);
+      Stripe stripe = stripeOf(pending.key());
+      synchronized (stripe) {
+        if (stripe.pending.put(pending.key(), pending) == null) {
+          size.incrementAndGet();
+        }
+      }
+    }
+  }
+
+  /**
+   * Toggle the reaction of a user to an idea, like {@link ReactionService#react}, in the buffer.
+   * The database is only read the first time a user reacts to an idea between two flushes.
+   *
+   * @param date date of the reaction
+   * @param reactionType type of reaction
+   * @param idea_id id of the idea being reacted to
+   * @param user_id id of the regular user that reacts
+   * @return whether the user now reacts to the idea
+   * @throws GlobalException if the idea does not exist
+   */
+  public boolean toggle(Date date, ReactionType reactionType, String idea_id, String user_id) {
+    String key = idea_id + ":" + user_id;
+    Stripe stripe = stripeOf(key);
+    boolean loaded = false;
+    Reaction stored = null;
+    boolean reacted;
+    // The date of the reaction this toggle removes, if there is one
+    Date reactedOn = null;
+    while (true) {
+      synchronized (stripe) {
+        Pending current = stripe.current(key);
+        if (current != null || loaded) {
+          // A reaction being flushed is treated as persisted, if the flush fails it is restored
+          reacted = current != null ? !current.reacted : stored == null;
+          if (current != null && current.reacted) {
+            reactedOn = current.date;
+          } else if (current == null && stored != null) {
+            reactedOn = stored.getDate();
+          }
+          Boolean before =
+              current == null
+                  ? Boolean.valueOf(stored != null)
+                  : stripe.pending.containsKey(key) ? current.persisted : current.reacted;
+          Pending pending = new Pending(idea_id, user_id, reacted, before, reactionType, date);
+          if (journal != null) {
+            journal.append(pending.toEntry());
+          }
+          if (stripe.pending.put(key, pending) == null) {
+            size.incrementAndGet();
+          }
+          break;
+        }
+      }
+      // Read outside of the lock, another toggle of the same reaction may be buffered meanwhile
+      stored = loadReaction(idea_id, user_id);
+      loaded = true;
+    }
+
+    if (reacted) {
+      trendingService.recordReaction(idea_id, date);
+    } else {
+      trendingService.removeReaction(idea_id, reactedOn != null ? reactedOn : date);
+    }
+
+    if (size.get() > maxSize) {
+      try {
+        flush();
+      } catch (RuntimeException e) {
+        // The reactions stay buffered, the next scheduled flush tries again
+      }
+    }
+    return reacted;
+  }
+
+  /**
+   * Replace the reactions of a user read from the database by the ones in the buffer
+   *
+   * @param user_id id of the regular user
+   * @param idea_ids ids of the ideas
+   * @param reacted ids of the ideas the user reacts to in the database, changed in place
+   */
+  public void applyBuffered(String user_id, Collection<String> idea_ids, Set<String> reacted) {
+    for (String idea_id : idea_ids) {
+      String key = idea_id + ":" + user_id;
+      Stripe stripe = stripeOf(key);
+      synchronized (stripe) {
+        Pending current = stripe.current(key);
+        if (current == null) {
+          continue;
+        }
+        if (current.reacted) {
+          reacted.add(idea_id);
+        } else {
+          reacted.remove(idea_id);
+        }
+      }
+    }
+  }
+
+  /**
+   * Write the buffered reactions to the database in a single transaction. Reactions whose state
+   * did not change since the last flush are skipped. Runs every
+   * purposeful.reaction-buffer.flush-interval-ms milliseconds (1 second by default).
+   */
+  @Scheduled(fixedDelayString = "${purposeful.reaction-buffer.flush-interval-ms:1000}")
+  public void flush() {
+    flushLock.lock();
+    try {
+      if (journal != null) {
+        journal.rotate();
+      }
+      List<Pending> batch = new ArrayList<>();
+      for (Stripe stripe : stripes) {
+        synchronized (stripe) {
+          batch.addAll(stripe.pending.values());
+          stripe.flushing = stripe.pending;
+          stripe.pending = new HashMap<>();
+        }
+      }
+      size.addAndGet(-batch.size());
+
+      try {
+        write(batch);
+      } catch (RuntimeException e) {
+        restore(batch);
+        throw e;
+      }
+
+      for (Stripe stripe : stripes) {
+        synchronized (stripe) {
+          stripe.flushing = Collections.emptyMap();
+        }
+      }
+      if (journal != null) {
+        journal.discardRotated();
+      }
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  /** Flush the reactions journaled before the last shutdown */
+  @EventListener(ApplicationReadyEvent.class)
+  public void flushJournal() {
+    if (journal != null) {
+      flush();
+    }
+  }
+
+  /** Flush the buffer and close the journal on shutdown */
+  @PreDestroy
+  public void close() {
+    flush();
+    if (journal != null) {
+      journal.close();
+    }
+  }
+
+  /*
+   * Helper functions
+   */
+
+  /**
+   * Load the reaction of a user to an idea from the database
+   *
+   * @param idea_id id of the idea
+   * @param user_id id of the regular user
+   * @return the reaction of the user to the idea, null if the user does not react to it
+   * @throws GlobalException if the idea does not exist
+   */
+  private Reaction loadReaction(String idea_id, String user_id) {
+    Reaction reaction = reactionRepository.findReactionByIdea_IdAndRegularUser_Id(idea_id, user_id);
+    if (reaction == null) {
+      // validate idea
+      ideaService.getIdeaById(idea_id);
+    }
+    return reaction;
+  }
+
+  /**
+   * Write reactions in a single transaction. If one of them cannot be written (e.g. its idea was
+   * removed since), they are written one by one and the ones that cannot be written are dropped.
+   * The interests of the users whose reactions were written change once they are committed.
+   *
+   * @param batch The reactions to write
+   */
+  private void write(List<Pending> batch) {
+    List<Pending> changed = new ArrayList<>();
+    for (Pending pending : batch) {
+      if (pending.persisted == null || pending.persisted != pending.reacted) {
+        changed.add(pending);
+      }
+    }
+    if (changed.isEmpty()) {
+      return;
+    }
+
+    Set<String> userIds = new HashSet<>();
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    try {
+      transactionTemplate.executeWithoutResult(status -> apply(changed));
+      for (Pending pending : changed) {
+        userIds.add(pending.userId);
+      }
+    } catch (DataIntegrityViolationException e) {
+      for (Pending pending : changed) {
+        try {
+          transactionTemplate.executeWithoutResult(status -> apply(List.of(pending)));
+          userIds.add(pending.userId);
+        } catch (DataIntegrityViolationException dropped) {
+          // The idea or the user does not exist anymore
+        }
+      }
+    }
+    for (String userId : userIds) {
+      eventPublisher.publishEvent(new InterestsChangedEvent(userId));
+    }
+  }
+
+  /**
+   * Apply reactions to the database, with the same statements as {@link ReactionService#react},
+   * and change the number of high fives of each idea once
+   *
+   * @param reactions The reactions to apply
+   */
+  private void apply(List<Pending> reactions) {
+    Map<String, Integer> highFives = new HashMap<>();
+    for (Pending pending : reactions) {
+      int delta;
+      if (pending.reacted) {
+        delta =
+            reactionRepository.insertReactionIfAbsent(
+                UUID.randomUUID().toString(),
+                pending.reactionType.ordinal(),
+                pending.date,
+                pending.ideaId,
+                pending.userId);
+      } else {
+        delta = -reactionRepository.deleteReactionByIdeaAndUser(pending.ideaId, pending.userId);
+      }
+      highFives.merge(pending.ideaId, delta, Integer::sum);
+    }
+    highFives.forEach(
+        (ideaId, delta) -> {
+          if (delta != 0) {
+            ideaRepository.addHighFives(ideaId, delta);
+          }
+        });
+  }
+
+  /**
+   * Put back the reactions of a failed flush, unless they were toggled again meanwhile
+   *
+   * @param batch The reactions of the failed flush
+   */
+  private void restore(List<Pending> batch) {
+    for (Pending failed : batch) {
+      Stripe stripe = stripeOf(failed.key());
+      synchronized (stripe) {
+        Pending newer = stripe.pending.get(failed.key());
+        if (newer == null) {
+          stripe.pending.put(failed.key(), failed);
+          size.incrementAndGet();
+        } else {
+          // The newer toggle assumed the failed one was persisted
+          stripe.pending.put(failed.key(), newer.withPersisted(failed.persisted));
+        }
+      }
+    }
+    for (Stripe stripe : stripes) {
+      synchronized (stripe) {
+        stripe.flushing = Collections.emptyMap();
+      }
+    }
+  }
+
+  private Stripe stripeOf(String key) {
+    return stripes[Math.floorMod(key.hashCode(), STRIPES)];
+  }
+
+  /** A part of the buffer, guarded by its own monitor */
+  private static class Stripe {
+    // The reactions waiting for the next flush, by idea and user
+    Map<String, Pending> pending = new HashMap<>();
+    // The reactions of the flush in progress
+    Map<String, Pending> flushing = Collections.emptyMap();
+
+    Pending current(String key) {
+      Pending pending = this.pending.get(key);
+      return pending != null ? pending : flushing.get(key);
+    }
+  }
+
+  /** The state a user wants for an idea, and the state in the database (null if unknown) */
+  private static class Pending {
+    final String ideaId;
+    final String userId;
+    final boolean reacted;
+    final Boolean persisted;
+    final ReactionType reactionType;
+    final Date date;
+
+    Pending(
+        String ideaId,
+        String userId,
+        boolean reacted,
+        Boolean persisted,
+        ReactionType reactionType,
+        Date date) {
+      this.ideaId = ideaId;
+      this.userId = userId;
+      this.reacted = reacted;
+      this.persisted = persisted;
+      this.reactionType = reactionType;
+      this.date = date;
+    }
+
+    String key() {
+      return ideaId + ":" + userId;
+    }
+
+    Pending withPersisted(Boolean persisted) {
+      return new Pending(ideaId, userId, reacted, persisted, reactionType, date);
+    }
+
+    ReactionJournal.Entry toEntry() {
+      return new ReactionJournal.Entry(ideaId, userId, reacted, reactionType, date);
+    }
+  }
+}
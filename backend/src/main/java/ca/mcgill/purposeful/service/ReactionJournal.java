@@ -0,0 +1,161 @@
+package ca.mcgill.purposeful.service;
+
+import ca.mcgill.purposeful.model.Reaction.ReactionType;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Append-only file of the reactions buffered by {@link ReactionBufferService}, so the toggles that
+ * were not flushed yet survive a restart. Every line is the state a user wants for an idea, so
+ * replaying a line more than once has no effect.
+ *
+ * <p>Before a flush, the journal is rotated: its lines are moved to a second file, deleted once
+ * the flush is committed, and the toggles made during the flush go to a new journal.
+ */
+class ReactionJournal {
+
+  /** A line of the journal */
+  static class Entry {
+    final String ideaId;
+    final String userId;
+    final boolean reacted;
+    final ReactionType reactionType;
+    final Date date;
+
+    Entry(String ideaId, String userId, boolean reacted, ReactionType reactionType, Date date) {
+      this.ideaId = ideaId;
+      this.userId = userId;
+      this.reacted = reacted;
+      this.reactionType = reactionType;
+      this.date = date;
+    }
+  }
+
+  private final Path path;
+  private final Path rotatedPath;
+  private BufferedWriter writer;
+
+  /**
+   * Open a journal, creating it if needed
+   *
+   * @param path The file of the journal, the rotated lines are kept next to it
+   */
+  ReactionJournal(Path path) {
+    this.path = path;
+    this.rotatedPath = path.resolveSibling(path.getFileName() + ".flushing");
+    try {
+      if (path.getParent() != null) {
+        Files.createDirectories(path.getParent());
+      }
+      this.writer = open();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Read the lines of the rotated file, then of the journal, in the order they were written
+   *
+   * @return The entries of the journal
+   */
+  synchronized List<Entry> read() {
+    List<Entry> entries = new ArrayList<>();
+    try {
+      for (Path file : List.of(rotatedPath, path)) {
+        if (!Files.exists(file)) {
+          continue;
+        }
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+          String[] fields = line.split("\t");
+          // A line cut by a crash is ignored, its toggle was never acknowledged
+          if (fields.length != 5) {
+            continue;
+          }
+          entries.add(
+              new Entry(
+                  fields[0],
+                  fields[1],
+                  Boolean.parseBoolean(fields[2]),
+                  ReactionType.valueOf(fields[3]),
+                  new Date(Long.parseLong(fields[4]))));
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return entries;
+  }
+
+  /**
+   * Append an entry and flush it to the file
+   *
+   * @param entry The state a user wants for an idea
+   */
+  synchronized void append(Entry entry) {
+    try {
+      writer.write(
+          String.join(
+              "\t",
+              entry.ideaId,
+              entry.userId,
+              Boolean.toString(entry.reacted),
+              entry.reactionType.name(),
+              Long.toString(entry.date.getTime())));
+      writer.newLine();
+      writer.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Move the lines of the journal to the rotated file and start a new journal. The lines of a
+   * previous rotation that failed to be flushed are kept.
+   */
+  synchronized void rotate() {
+    try {
+      writer.close();
+      if (Files.exists(rotatedPath)) {
+        Files.write(rotatedPath, Files.readAllBytes(path), StandardOpenOption.APPEND);
+        Files.delete(path);
+      } else {
+        Files.move(path, rotatedPath, StandardCopyOption.ATOMIC_MOVE);
+      }
+      writer = open();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** Delete the rotated lines, once they are flushed to the database */
+  synchronized void discardRotated() {
+    try {
+      Files.deleteIfExists(rotatedPath);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** Close the journal */
+  synchronized void close() {
+    try {
+      writer.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private BufferedWriter open() throws IOException {
+    return Files.newBufferedWriter(
+        path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+  }
+}
@@ -1,5 +1,6 @@
 package ca.mcgill.purposeful.service;
 
+import ca.mcgill.purposeful.dao.IdeaRepository;
 import ca.mcgill.purposeful.dao.ReactionRepository;
 import ca.mcgill.purposeful.dao.RegularUserRepository;
 import ca.mcgill.purposeful.exception.GlobalException;
@@ -9,8 +10,16 @@ import ca.mcgill.purposeful.model.Reaction.ReactionType;
 import ca.mcgill.purposeful.model.RegularUser;
 import jakarta.transaction.Transactional;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
@@ -24,6 +33,7 @@ public class ReactionService {
 
   @Autowired ReactionRepository reactionRepository;
   @Autowired RegularUserRepository regularUserRepository;
+  @Autowired IdeaRepository ideaRepository;
 
   /*
    * Service functions
@@ -31,9 +41,19 @@ public class ReactionService {
 
   @Autowired IdeaService ideaService;
 
+  // Publishes the changes of the interests of the users and of the trending activity (see
+  // InterestsChangedEvent and TrendingActivityEvent)
+  @Autowired ApplicationEventPublisher eventPublisher;
+
+  // Only present when the write-behind buffer of the reactions is enabled
+  @Autowired(required = false)
+  ReactionBufferService reactionBufferService;
+
   /**
    * Method to create a reaction and fill its appropriate attributes if it doesn't exist. The method
-   * will remove an existing reaction if it exists already
+   * will remove an existing reaction if it exists already. The reaction and the number of high
+   * fives of the idea are changed with single statements, so concurrent toggles (e.g. a double
+   * click) can neither create a second reaction nor miscount.
    *
    * @param date date of the reaction post
    * @param reactionType type of reaction
@@ -45,30 +65,59 @@ public class ReactionService {
   public Reaction react(Date date, ReactionType reactionType, String idea_id, String user_id) {
 
     // validate idea and user
-    ideaService.getIdeaById(idea_id);
+    ideaService.getIdeaWithOwnerById(idea_id);
 
     // TODO: replace user_id in the method below by a getter from RegularUserService
     // to check for
     // valid user
 
-    // check if a previous reaction exists
-    Reaction previousReaction =
-        reactionRepository.findReactionByIdea_IdAndRegularUser_Id(idea_id, user_id);
-
     // delete reaction if it exists and return null
-    if (previousReaction != null) {
-      reactionRepository.deleteReactionById(previousReaction.getId());
+    List<Date> removed =
+        reactionRepository.deleteReactionByIdeaAndUserReturningDate(idea_id, user_id);
+    if (!removed.isEmpty()) {
+      ideaRepository.addHighFives(idea_id, -1);
+      // The high five counted in the trending score when it was made
+      eventPublisher.publishEvent(TrendingActivityEvent.highFiveRemoved(idea_id, removed.get(0)));
+      eventPublisher.publishEvent(new InterestsChangedEvent(user_id));
       return null;
     }
     // create reaction if it doesn't exist and return reaction
-    else {
-      Reaction reaction = new Reaction();
-      reaction.setDate(date);
-      reaction.setReactionType(reactionType);
-      reaction.setIdea(ideaService.getIdeaById(idea_id));
-      reaction.setRegularUser(regularUserRepository.findRegularUserById(user_id));
-      return reactionRepository.save(reaction);
+    if (reactionRepository.insertReactionIfAbsent(
+            UUID.randomUUID().toString(), reactionType.ordinal(), date, idea_id, user_id)
+        > 0) {
+      ideaRepository.addHighFives(idea_id, 1);
+      eventPublisher.publishEvent(TrendingActivityEvent.highFive(idea_id, date));
+      eventPublisher.publishEvent(new InterestsChangedEvent(user_id));
     }
+    return reactionRepository.findReactionByIdea_IdAndRegularUser_Id(idea_id, user_id);
+  }
+
+  /**
+   * Find which of the given ideas a user reacted to, with a single query whatever the number of
+   * ideas (e.g. to show the high fives of the current user on a page of ideas). Accounts for the
+   * reactions that are still in the write-behind buffer, if it is enabled.
+   *
+   * @param email email of the user
+   * @param idea_ids ids of the ideas
+   * @return the ids of the ideas among idea_ids that the user reacted to (empty if the user is not
+   *     a regular user)
+   */
+  @Transactional
+  public Set<String> getReactedIdeaIds(String email, Collection<String> idea_ids) {
+    if (idea_ids.isEmpty()) {
+      return new HashSet<>();
+    }
+    RegularUser regularUser = regularUserRepository.findRegularUserByAppUserEmail(email);
+    if (regularUser == null) {
+      return new HashSet<>();
+    }
+
+    Set<String> reacted =
+        new HashSet<>(reactionRepository.findReactedIdeaIds(regularUser.getId(), idea_ids));
+    if (reactionBufferService != null) {
+      reactionBufferService.applyBuffered(regularUser.getId(), idea_ids, reacted);
+    }
+    return reacted;
   }
 
   /**
@@ -170,8 +219,13 @@ public class ReactionService {
   @Transactional
   public void removeReaction(String uuid) {
     // validate reaction
-    this.getReactionById(uuid);
-    reactionRepository.deleteReactionById(uuid);
+    Reaction reaction = this.getReactionById(uuid);
+    // A concurrent removal may have deleted it first, it is then not counted again
+    if (reactionRepository.deleteReactionById(uuid) > 0) {
+      ideaRepository.addHighFives(reaction.getIdea().getId(), -1);
+      eventPublisher.publishEvent(
+          TrendingActivityEvent.highFiveRemoved(reaction.getIdea().getId(), reaction.getDate()));
+    }
   }
 
   /**
@@ -182,9 +236,10 @@ public class ReactionService {
    */
   @Transactional
   public void removeReactionsByIdea(String uuid) {
-    for (Reaction reaction : this.getReactionsByIdea(uuid)) {
-      this.removeReaction(reaction.getId());
-    }
+    // validate idea
+    ideaService.getIdeaById(uuid);
+
+    forgetRemovedReactions(reactionRepository.deleteReactionsByIdea(uuid), "idea_id " + uuid);
   }
 
   /**
@@ -195,8 +250,41 @@ public class ReactionService {
    */
   @Transactional
   public void removeReactionsByRegularUser(String uuid) {
-    for (Reaction reaction : this.getReactionsByRegularUser(uuid)) {
-      this.removeReaction(reaction.getId());
+
+    // TODO: validate regular user with a getRegularUserById method from its service
+    // class
+
+    forgetRemovedReactions(reactionRepository.deleteReactionsByUser(uuid), "user_id " + uuid);
+  }
+
+  /*
+   * Helper functions
+   */
+
+  /**
+   * Take removed reactions out of the number of high fives and the trending scores of their ideas.
+   * Only the reactions the statement deleted are counted, so a concurrent removal of the same
+   * reactions does not count them twice.
+   *
+   * @param removed the (idea id, date) of each removed reaction
+   * @param owner what the reactions were associated with, for the error message
+   * @throws GlobalException if no reaction was removed
+   */
+  private void forgetRemovedReactions(List<Object[]> removed, String owner) {
+    if (removed.isEmpty()) {
+      throw new GlobalException(
+          HttpStatus.NOT_FOUND, "Reactions associated with " + owner + " do not exist.");
+    }
+
+    Map<String, Integer> removedByIdea = new HashMap<>();
+    for (Object[] reaction : removed) {
+      String ideaId = (String) reaction[0];
+      removedByIdea.merge(ideaId, 1, Integer::sum);
+      eventPublisher.publishEvent(
+          TrendingActivityEvent.highFiveRemoved(ideaId, (Date) reaction[1]));
+    }
+    for (Map.Entry<String, Integer> idea : removedByIdea.entrySet()) {
+      ideaRepository.addHighFives(idea.getKey(), -idea.getValue());
     }
   }
 }
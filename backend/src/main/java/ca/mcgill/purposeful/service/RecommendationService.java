@@ -0,0 +1,459 @@
+package ca.mcgill.purposeful.service;
+
+import ca.mcgill.purposeful.dao.CollaborationRequestRepository;
+import ca.mcgill.purposeful.dao.IdeaRepository;
+import ca.mcgill.purposeful.dao.ReactionRepository;
+import ca.mcgill.purposeful.dao.RegularUserRepository;
+import ca.mcgill.purposeful.exception.GlobalException;
+import ca.mcgill.purposeful.model.Domain;
+import ca.mcgill.purposeful.model.Idea;
+import ca.mcgill.purposeful.model.RegularUser;
+import ca.mcgill.purposeful.model.Technology;
+import ca.mcgill.purposeful.model.Topic;
+import jakarta.transaction.Transactional;
+import java.util.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Recommendations of ideas to regular users. A user's interests are weighted by domain, topic and
+ * technology: the domains and topics of their profile, then those of the ideas they recently
+ * high-fived or requested to collaborate on. The candidates are the newest public ideas of other
+ * users sharing at least one of them, and each is scored by the weights of what it has.
+ *
+ * <p>The best purposeful.recommendations.feed-size ideas of a user are computed once and cached
+ * for purposeful.recommendations.ttl-minutes, for at most purposeful.recommendations.max-users
+ * users. In the meantime, saved ideas are scored against every cached feed and inserted where they
+ * belong once their transaction commits (see {@link IdeaChangedEvent}), so new ideas show up
+ * without computing the feeds again. The feed of a user whose interests changed (see {@link
+ * InterestsChangedEvent}) is computed again on their next request.
+ */
+@Service
+public class RecommendationService {
+
+  /** The weight of a domain or topic of the user's profile */
+  static final double PROFILE_WEIGHT = 1;
+
+  /** The weight of what an idea the user requested to collaborate on has */
+  static final double REQUEST_WEIGHT = 1;
+
+  /** The weight of what an idea the user high-fived has */
+  static final double REACTION_WEIGHT = 0.5;
+
+  /** The number of recent high fives and collaboration requests the interests are learned from */
+  static final int HISTORY_SIZE = 50;
+
+  /** The number of newest related ideas scored when computing a feed */
+  static final int CANDIDATES = 500;
+
+  /*
+   * CRUD repos
+   */
+
+  @Autowired IdeaRepository ideaRepository;
+
+  @Autowired RegularUserRepository regularUserRepository;
+
+  @Autowired ReactionRepository reactionRepository;
+
+  @Autowired CollaborationRequestRepository collaborationRequestRepository;
+
+  /*
+   * Configuration
+   */
+
+  /** The number of ideas kept in a feed */
+  @Value("${purposeful.recommendations.feed-size:50}")
+  int feedSize = 50;
+
+  /** How long a feed is served before being computed again */
+  @Value("${purposeful.recommendations.ttl-minutes:30}")
+  long timeToLiveMinutes = 30;
+
+  /** The maximum number of cached feeds, the least recently used ones are dropped */
+  @Value("${purposeful.recommendations.max-users:10000}")
+  int maxUsers = 10000;
+
+  /*
+   * Cached feeds by user email, least recently used first, guarded by their own monitor
+   */
+
+  private final LinkedHashMap<String, Feed> feeds =
+      new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Feed> eldest) {
+          return size() > maxUsers;
+        }
+      };
+
+  // The feeds being computed outside of the lock, with the changes committed meanwhile
+  private final List<Computation> computations = new ArrayList<>();
+
+  /*
+   * Service functions
+   */
+
+  /**
+   * Get the ideas recommended to a user, from the most to the least relevant
+   *
+   * @param email The email of the user
+   * @param count The maximum number of ideas to return
+   * @return The recommended ideas
+   * @throws GlobalException if the user is not a regular user or the count is invalid
+   */
+  @Transactional
+  public List<Idea> getRecommendedIdeas(String email, int count) {
+    if (count < 1 || count > feedSize) {
+      throw new GlobalException(
+          HttpStatus.BAD_REQUEST, "The number of ideas must be between 1 and " + feedSize + ".");
+    }
+
+    long now = System.currentTimeMillis();
+    List<String> ids = null;
+    Computation computation = null;
+    synchronized (feeds) {
+      Feed feed = feeds.get(email);
+      if (feed != null && now - feed.computedAt < timeToLiveMinutes * 60_000) {
+        ids = feed.topIds(count);
+      } else {
+        computation = new Computation();
+        computations.add(computation);
+      }
+    }
+
+    // Computed outside of the lock, the other feeds can be read and updated meanwhile
+    if (ids == null) {
+      Feed feed;
+      try {
+        feed = computeFeed(email, now);
+      } catch (RuntimeException e) {
+        synchronized (feeds) {
+          computations.remove(computation);
+        }
+        throw e;
+      }
+      synchronized (feeds) {
+        computations.remove(computation);
+        // The feed may or may not include these changes, applying them again is harmless
+        for (IdeaChangedEvent change : computation.ideaChanges) {
+          apply(feed, change);
+        }
+        // A feed computed from interests that changed meanwhile is only served once
+        if (!computation.interestsChanged.contains(feed.userId)) {
+          feeds.put(email, feed);
+        }
+        ids = feed.topIds(count);
+      }
+    }
+    return ideaRepository.findIdeasByIdInOrder(ids);
+  }
+
+  /**
+   * Insert a created or modified idea into the cached feeds it belongs to, or take a removed idea
+   * out of the feeds, once the transaction that changed it commits
+   *
+   * @param change The change of the idea
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onIdeaChanged(IdeaChangedEvent change) {
+    synchronized (feeds) {
+      for (Feed feed : feeds.values()) {
+        apply(feed, change);
+      }
+      for (Computation computation : computations) {
+        computation.ideaChanges.add(change);
+      }
+    }
+  }
+
+  /**
+   * Drop the cached feed of a user whose interests changed, so it is computed again on their next
+   * request, once the transaction that changed them commits
+   *
+   * @param change The change of the interests of the user
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onInterestsChanged(InterestsChangedEvent change) {
+    synchronized (feeds) {
+      feeds.values().removeIf(feed -> feed.userId.equals(change.getUserId()));
+      for (Computation computation : computations) {
+        computation.interestsChanged.add(change.getUserId());
+      }
+    }
+  }
+
+  /*
+   * Helper functions
+   */
+
+  /**
+   * Take a changed idea out of a feed, then insert it back where it belongs unless it was removed,
+   * made private or belongs to the user of the feed. To be called with the feeds locked.
+   *
+   * @param feed The feed
+   * @param change The change of the idea
+   */
+  private void apply(Feed feed, IdeaChangedEvent change) {
+    feed.remove(change.getIdeaId());
+    if (!change.isRemoved() && !change.isPrivate() && !feed.userId.equals(change.getOwnerId())) {
+      double score =
+          feed.interests.score(
+              change.getDomains().keySet(),
+              change.getTopics().keySet(),
+              change.getTechs().keySet());
+      feed.offer(new ScoredIdea(change.getIdeaId(), change.getDate(), score), feedSize);
+    }
+  }
+
+  /**
+   * Compute the feed of a user from the database
+   *
+   * @param email The email of the user
+   * @param now The time the feed is computed at
+   * @return The feed of the user
+   * @throws GlobalException if the user is not a regular user
+   */
+  private Feed computeFeed(String email, long now) {
+    RegularUser user = regularUserRepository.findRegularUserByAppUserEmail(email);
+    if (user == null) {
+      throw new GlobalException(HttpStatus.BAD_REQUEST, "This account does not exist.");
+    }
+
+    Interests interests = new Interests();
+    if (user.getDomains() != null) {
+      for (Domain domain : user.getDomains()) {
+        interests.domains.merge(domain.getId(), PROFILE_WEIGHT, Double::sum);
+      }
+    }
+    if (user.getInterests() != null) {
+      for (Topic topic : user.getInterests()) {
+        interests.topics.merge(topic.getId(), PROFILE_WEIGHT, Double::sum);
+      }
+    }
+    PageRequest history = PageRequest.of(0, HISTORY_SIZE);
+    for (Idea idea : reactionRepository.findReactedIdeas(user.getId(), history)) {
+      interests.add(idea, REACTION_WEIGHT);
+    }
+    for (Idea idea :
+        collaborationRequestRepository.findRequestedPublicIdeasByRequesterId(
+            user.getId(), history)) {
+      interests.add(idea, REQUEST_WEIGHT);
+    }
+
+    Feed feed = new Feed(user.getId(), interests, now);
+    if (interests.isEmpty()) {
+      return feed;
+    }
+    List<Idea> candidates =
+        ideaRepository.findPublicIdeasRelatedTo(
+            user.getId(),
+            idsOrNone(interests.domains.keySet()),
+            idsOrNone(interests.topics.keySet()),
+            idsOrNone(interests.techs.keySet()),
+            PageRequest.of(0, CANDIDATES));
+    if (candidates.isEmpty()) {
+      return feed;
+    }
+
+    // Ideas the user already high-fived are not recommended, however old the high five
+    List<String> candidateIds = new ArrayList<>();
+    for (Idea idea : candidates) {
+      candidateIds.add(idea.getId());
+    }
+    Set<String> reacted = reactionRepository.findReactedIdeaIds(user.getId(), candidateIds);
+
+    // Keep the best ideas, the worst kept one being on top
+    PriorityQueue<ScoredIdea> best =
+        new PriorityQueue<>(feedSize + 1, ScoredIdea.BEST_FIRST.reversed());
+    for (Idea idea : candidates) {
+      if (reacted.contains(idea.getId())) {
+        continue;
+      }
+      best.add(new ScoredIdea(idea.getId(), idea.getDate(), interests.score(idea)));
+      if (best.size() > feedSize) {
+        best.poll();
+      }
+    }
+    feed.ideas.addAll(best);
+    feed.ideas.sort(ScoredIdea.BEST_FIRST);
+    return feed;
+  }
+
+  /**
+   * Replace an empty collection of ids by one matching no entity, since an empty IN list is not
+   * valid SQL
+   *
+   * @param ids The ids
+   * @return The ids, or a single id that no entity has
+   */
+  private static Collection<String> idsOrNone(Collection<String> ids) {
+    return ids.isEmpty() ? List.of("") : ids;
+  }
+
+  /** The weights of the domains, topics and technologies a user is interested in, by id */
+  static class Interests {
+    final Map<String, Double> domains = new HashMap<>();
+    final Map<String, Double> topics = new HashMap<>();
+    final Map<String, Double> techs = new HashMap<>();
+
+    /**
+     * Add the domains, topics and technologies of an idea
+     *
+     * @param idea The idea
+     * @param weight The weight to add to each of them
+     */
+    void add(Idea idea, double weight) {
+      if (idea.getDomains() != null) {
+        for (Domain domain : idea.getDomains()) {
+          domains.merge(domain.getId(), weight, Double::sum);
+        }
+      }
+      if (idea.getTopics() != null) {
+        for (Topic topic : idea.getTopics()) {
+          topics.merge(topic.getId(), weight, Double::sum);
+        }
+      }
+      if (idea.getTechs() != null) {
+        for (Technology tech : idea.getTechs()) {
+          techs.merge(tech.getId(), weight, Double::sum);
+        }
+      }
+    }
+
+    /**
+     * Score an idea (see {@link #score(Collection, Collection, Collection)})
+     *
+     * @param idea The idea
+     * @return The score of the idea (0 if it shares nothing with the interests)
+     */
+    double score(Idea idea) {
+      IdeaChangedEvent described = IdeaChangedEvent.saved(idea);
+      return score(
+          described.getDomains().keySet(),
+          described.getTopics().keySet(),
+          described.getTechs().keySet());
+    }
+
+    /**
+     * Score an idea: the sum of the weights of what it has, divided by the square root of how many
+     * things it has so that ideas listing every domain do not win
+     *
+     * @param domainIds The ids of the domains of the idea
+     * @param topicIds The ids of the topics of the idea
+     * @param techIds The ids of the technologies of the idea
+     * @return The score of the idea (0 if it shares nothing with the interests)
+     */
+    double score(
+        Collection<String> domainIds, Collection<String> topicIds, Collection<String> techIds) {
+      double score = 0;
+      for (String id : domainIds) {
+        score += domains.getOrDefault(id, 0.0);
+      }
+      for (String id : topicIds) {
+        score += topics.getOrDefault(id, 0.0);
+      }
+      for (String id : techIds) {
+        score += techs.getOrDefault(id, 0.0);
+      }
+      int count = domainIds.size() + topicIds.size() + techIds.size();
+      return count == 0 ? 0 : score / Math.sqrt(count);
+    }
+
+    boolean isEmpty() {
+      return domains.isEmpty() && topics.isEmpty() && techs.isEmpty();
+    }
+  }
+
+  /** A feed being computed, with the changes committed meanwhile */
+  private static class Computation {
+    final List<IdeaChangedEvent> ideaChanges = new ArrayList<>();
+
+    // The ids of the users whose interests changed
+    final Set<String> interestsChanged = new HashSet<>();
+  }
+
+  /** An idea of a feed with its score */
+  static class ScoredIdea {
+
+    /** Highest score first, then newest first */
+    static final Comparator<ScoredIdea> BEST_FIRST =
+        Comparator.<ScoredIdea>comparingDouble(idea -> idea.score)
+            .thenComparingLong(idea -> idea.date)
+            .thenComparing(idea -> idea.id)
+            .reversed();
+
+    final String id;
+    final long date;
+    final double score;
+
+    ScoredIdea(String id, Date date, double score) {
+      this.id = id;
+      this.date = date == null ? 0 : date.getTime();
+      this.score = score;
+    }
+  }
+
+  /** The cached recommendations of a user */
+  static class Feed {
+    final String userId;
+    final Interests interests;
+    final long computedAt;
+
+    // The recommended ideas, best first
+    final List<ScoredIdea> ideas = new ArrayList<>();
+
+    Feed(String userId, Interests interests, long computedAt) {
+      this.userId = userId;
+      this.interests = interests;
+      this.computedAt = computedAt;
+    }
+
+    /**
+     * Insert an idea where it belongs, if it is related to the interests and among the best ones
+     *
+     * @param idea The scored idea
+     * @param size The maximum number of ideas of the feed
+     */
+    void offer(ScoredIdea idea, int size) {
+      if (idea.score <= 0) {
+        return;
+      }
+      int index = Collections.binarySearch(ideas, idea, ScoredIdea.BEST_FIRST);
+      int position = index >= 0 ? index : -index - 1;
+      if (position >= size) {
+        return;
+      }
+      ideas.add(position, idea);
+      if (ideas.size() > size) {
+        ideas.remove(ideas.size() - 1);
+      }
+    }
+
+    /**
+     * Get the ids of the best ideas of the feed
+     *
+     * @param count The maximum number of ids to return
+     * @return The ids of the best ideas, best first
+     */
+    List<String> topIds(int count) {
+      List<String> ids = new ArrayList<>();
+      for (ScoredIdea idea : ideas.subList(0, Math.min(count, ideas.size()))) {
+        ids.add(idea.id);
+      }
+      return ids;
+    }
+
+    /**
+     * Take an idea out of the feed, if it is in it
+     *
+     * @param ideaId The id of the idea
+     */
+    void remove(String ideaId) {
+      ideas.removeIf(idea -> idea.id.equals(ideaId));
+    }
+  }
+}
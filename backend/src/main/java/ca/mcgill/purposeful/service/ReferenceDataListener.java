@@ -0,0 +1,131 @@
+package ca.mcgill.purposeful.service;
+
+import ca.mcgill.purposeful.model.Domain;
+import ca.mcgill.purposeful.model.Technology;
+import ca.mcgill.purposeful.model.Topic;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hibernate listener invalidating the cached lists of domains, topics and technologies, and
+ * renaming them in the idea index, once a transaction saving or deleting one of them commits,
+ * wherever the change comes from (bootstrap, services or tests). A change that is rolled back
+ * leaves the caches as they are.
+ */
+@Component
+public class ReferenceDataListener
+    implements PostCommitInsertEventListener,
+        PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+  @Autowired EntityManagerFactory entityManagerFactory;
+
+  /*
+   * Services holding the caches, looked up lazily since they depend on the repositories
+   */
+
+  @Autowired ObjectProvider<DomainService> domainService;
+
+  @Autowired ObjectProvider<TopicService> topicService;
+
+  @Autowired ObjectProvider<TechnologyService> technologyService;
+
+  // Only present when the idea index is enabled
+  @Autowired ObjectProvider<IdeaIndexService> ideaIndexService;
+
+  /** Register the listener with Hibernate */
+  @PostConstruct
+  public void register() {
+    EventListenerRegistry registry =
+        entityManagerFactory
+            .unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(EventListenerRegistry.class);
+    registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+    registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+    registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+  }
+
+  @Override
+  public boolean requiresPostCommitHandling(EntityPersister persister) {
+    Class<?> type = persister.getMappedClass();
+    return type == Domain.class || type == Topic.class || type == Technology.class;
+  }
+
+  @Override
+  public void onPostInsert(PostInsertEvent event) {
+    invalidate(event.getEntity());
+    rename(event.getEntity(), false);
+  }
+
+  @Override
+  public void onPostUpdate(PostUpdateEvent event) {
+    invalidate(event.getEntity());
+    rename(event.getEntity(), false);
+  }
+
+  @Override
+  public void onPostDelete(PostDeleteEvent event) {
+    invalidate(event.getEntity());
+    rename(event.getEntity(), true);
+  }
+
+  @Override
+  public void onPostInsertCommitFailed(PostInsertEvent event) {}
+
+  @Override
+  public void onPostUpdateCommitFailed(PostUpdateEvent event) {}
+
+  @Override
+  public void onPostDeleteCommitFailed(PostDeleteEvent event) {}
+
+  /**
+   * Invalidate the cached list the changed entity belongs to
+   *
+   * @param entity the domain, topic or technology that changed
+   */
+  private void invalidate(Object entity) {
+    if (entity instanceof Domain) {
+      domainService.ifAvailable(DomainService::invalidateDomains);
+    } else if (entity instanceof Topic) {
+      topicService.ifAvailable(TopicService::invalidateTopics);
+    } else if (entity instanceof Technology) {
+      technologyService.ifAvailable(TechnologyService::invalidateTechs);
+    }
+  }
+
+  /**
+   * Give the changed entity its current name in the idea index, if there is one
+   *
+   * @param entity the domain, topic or technology that changed
+   * @param deleted whether the entity was deleted, its name is then forgotten
+   */
+  private void rename(Object entity, boolean deleted) {
+    if (entity instanceof Domain) {
+      Domain domain = (Domain) entity;
+      ideaIndexService.ifAvailable(
+          index -> index.renameDomain(domain.getId(), deleted ? null : domain.getName()));
+    } else if (entity instanceof Topic) {
+      Topic topic = (Topic) entity;
+      ideaIndexService.ifAvailable(
+          index -> index.renameTopic(topic.getId(), deleted ? null : topic.getName()));
+    } else if (entity instanceof Technology) {
+      Technology tech = (Technology) entity;
+      ideaIndexService.ifAvailable(
+          index -> index.renameTech(tech.getId(), deleted ? null : tech.getName()));
+    }
+  }
+}
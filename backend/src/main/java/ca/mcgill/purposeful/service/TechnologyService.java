@@ -3,9 +3,18 @@ package ca.mcgill.purposeful.service;
 import ca.mcgill.purposeful.dao.TechnologyRepository;
 import ca.mcgill.purposeful.exception.GlobalException;
 import ca.mcgill.purposeful.model.Technology;
+import ca.mcgill.purposeful.util.ReferenceListCache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
@@ -19,6 +28,20 @@ public class TechnologyService {
 
   @Autowired TechnologyRepository technologyRepository;
 
+  // Looks up the technologies linked to ideas, without loading them
+  @PersistenceContext EntityManager entityManager;
+
+  /*
+   * Cache of the list of techs, served by the controller and used to validate ideas
+   */
+
+  /** How long the list is served from memory before being loaded again */
+  @Value("${purposeful.reference-cache.ttl-seconds:300}")
+  long cacheTimeToLiveSeconds;
+
+  private final ReferenceListCache<Technology> cache =
+      new ReferenceListCache<>(Technology::getId, Technology::getName, TechnologyService::copyOf);
+
   /**
    * Method to retrieve all existing technologies from the database.
    *
@@ -27,6 +50,102 @@ public class TechnologyService {
    */
   @Transactional
   public List<Technology> getAllTechs() {
+    return getTechList().getItems();
+  }
+
+  /**
+   * Get the cached list of all techs, loading it from the database if needed
+   *
+   * @return the cached list of techs, with its ETag and last modification date
+   */
+  @Transactional
+  public ReferenceListCache.Snapshot<Technology> getTechList() {
+    return cache.get(this::loadTechs, Duration.ofSeconds(cacheTimeToLiveSeconds));
+  }
+
+  /**
+   * Get a tech by id, checking that it exists against the cached list when it is there
+   *
+   * @param id the id of the tech
+   * @return a reference to the tech, managed by the current transaction, or null if it does not
+   *     exist
+   */
+  @Transactional
+  public Technology getTechById(String id) {
+    if (getTechList().contains(id)) {
+      return entityManager.getReference(Technology.class, id);
+    }
+    // It may have been created after the list was loaded
+    Technology tech = technologyRepository.findTechnologyById(id);
+    if (tech != null) {
+      invalidateTechs();
+    }
+    return tech;
+  }
+
+  /**
+   * Get the techs with the given ids. Those that are not in the cached list are looked up in a
+   * single query.
+   *
+   * @param ids the ids of the techs
+   * @return references to the techs that exist, managed by the current transaction, in no
+   *     particular order
+   */
+  @Transactional
+  public List<Technology> getTechsByIds(Collection<String> ids) {
+    ReferenceListCache.Snapshot<Technology> list = getTechList();
+    List<Technology> found = new ArrayList<>();
+    Set<String> missing = new HashSet<>();
+    for (String id : ids) {
+      if (list.contains(id)) {
+        found.add(entityManager.getReference(Technology.class, id));
+      } else {
+        missing.add(id);
+      }
+    }
+    if (!missing.isEmpty()) {
+      // Some may have been created after the list was loaded
+      List<Technology> loaded = technologyRepository.findTechnologiesByIdIn(missing);
+      if (!loaded.isEmpty()) {
+        found.addAll(loaded);
+        invalidateTechs();
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Autocomplete the name of a technology: get the technologies whose name, or a word of their
+   * name, starts with a prefix. Answered from the index of the cached list, without a query.
+   *
+   * @param prefix the start of the name, ignoring case and accents
+   * @param limit the maximum number of technologies to return
+   * @return the matching technologies, those whose name starts with the prefix first
+   * @throws GlobalException if the limit is not between 1 and the maximum number of matches
+   */
+  @Transactional
+  public List<Technology> autocompleteTechs(String prefix, int limit) {
+    if (limit < 1 || limit > ReferenceListCache.MAX_MATCHES) {
+      throw new GlobalException(
+          HttpStatus.BAD_REQUEST,
+          "The number of technologies must be between 1 and "
+              + ReferenceListCache.MAX_MATCHES
+              + ".");
+    }
+    return getTechList().findByPrefix(prefix, limit);
+  }
+
+  /** Make the next read load the list of techs from the database again */
+  public void invalidateTechs() {
+    cache.invalidate();
+  }
+
+  /**
+   * Load the list of techs from the database
+   *
+   * @return the techs in the database
+   */
+  private List<Technology> loadTechs() {
 
     List<Technology> techs = (List<Technology>) technologyRepository.findAll();
 
@@ -37,4 +156,17 @@ public class TechnologyService {
 
     return techs;
   }
+
+  /**
+   * Copy a tech, so that the cached one is never managed by a persistence context
+   *
+   * @param tech the tech
+   * @return the copy
+   */
+  private static Technology copyOf(Technology tech) {
+    Technology copy = new Technology();
+    copy.setId(tech.getId());
+    copy.setName(tech.getName());
+    return copy;
+  }
 }
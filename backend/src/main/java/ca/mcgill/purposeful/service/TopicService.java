@@ -3,9 +3,18 @@ package ca.mcgill.purposeful.service;
 import ca.mcgill.purposeful.dao.TopicRepository;
 import ca.mcgill.purposeful.exception.GlobalException;
 import ca.mcgill.purposeful.model.Topic;
+import ca.mcgill.purposeful.util.ReferenceListCache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
@@ -19,6 +28,20 @@ public class TopicService {
 
   @Autowired TopicRepository topicRepository;
 
+  // Looks up the topics linked to ideas, without loading them
+  @PersistenceContext EntityManager entityManager;
+
+  /*
+   * Cache of the list of topics, served by the controller and used to validate ideas
+   */
+
+  /** How long the list is served from memory before being loaded again */
+  @Value("${purposeful.reference-cache.ttl-seconds:300}")
+  long cacheTimeToLiveSeconds;
+
+  private final ReferenceListCache<Topic> cache =
+      new ReferenceListCache<>(Topic::getId, Topic::getName, TopicService::copyOf);
+
   /**
    * Method to retrieve all existing domains from the database.
    *
@@ -27,6 +50,100 @@ public class TopicService {
    */
   @Transactional
   public List<Topic> getAllTopics() {
+    return getTopicList().getItems();
+  }
+
+  /**
+   * Get the cached list of all topics, loading it from the database if needed
+   *
+   * @return the cached list of topics, with its ETag and last modification date
+   */
+  @Transactional
+  public ReferenceListCache.Snapshot<Topic> getTopicList() {
+    return cache.get(this::loadTopics, Duration.ofSeconds(cacheTimeToLiveSeconds));
+  }
+
+  /**
+   * Get a topic by id, checking that it exists against the cached list when it is there
+   *
+   * @param id the id of the topic
+   * @return a reference to the topic, managed by the current transaction, or null if it does not
+   *     exist
+   */
+  @Transactional
+  public Topic getTopicById(String id) {
+    if (getTopicList().contains(id)) {
+      return entityManager.getReference(Topic.class, id);
+    }
+    // It may have been created after the list was loaded
+    Topic topic = topicRepository.findTopicById(id);
+    if (topic != null) {
+      invalidateTopics();
+    }
+    return topic;
+  }
+
+  /**
+   * Get the topics with the given ids. Those that are not in the cached list are looked up in a
+   * single query.
+   *
+   * @param ids the ids of the topics
+   * @return references to the topics that exist, managed by the current transaction, in no
+   *     particular order
+   */
+  @Transactional
+  public List<Topic> getTopicsByIds(Collection<String> ids) {
+    ReferenceListCache.Snapshot<Topic> list = getTopicList();
+    List<Topic> found = new ArrayList<>();
+    Set<String> missing = new HashSet<>();
+    for (String id : ids) {
+      if (list.contains(id)) {
+        found.add(entityManager.getReference(Topic.class, id));
+      } else {
+        missing.add(id);
+      }
+    }
+    if (!missing.isEmpty()) {
+      // Some may have been created after the list was loaded
+      List<Topic> loaded = topicRepository.findTopicsByIdIn(missing);
+      if (!loaded.isEmpty()) {
+        found.addAll(loaded);
+        invalidateTopics();
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Autocomplete the name of a topic: get the topics whose name, or a word of their name,
+   * starts with a prefix. Answered from the index of the cached list, without a query.
+   *
+   * @param prefix the start of the name, ignoring case and accents
+   * @param limit the maximum number of topics to return
+   * @return the matching topics, those whose name starts with the prefix first
+   * @throws GlobalException if the limit is not between 1 and the maximum number of matches
+   */
+  @Transactional
+  public List<Topic> autocompleteTopics(String prefix, int limit) {
+    if (limit < 1 || limit > ReferenceListCache.MAX_MATCHES) {
+      throw new GlobalException(
+          HttpStatus.BAD_REQUEST,
+          "The number of topics must be between 1 and " + ReferenceListCache.MAX_MATCHES + ".");
+    }
+    return getTopicList().findByPrefix(prefix, limit);
+  }
+
+  /** Make the next read load the list of topics from the database again */
+  public void invalidateTopics() {
+    cache.invalidate();
+  }
+
+  /**
+   * Load the list of topics from the database
+   *
+   * @return the topics in the database
+   */
+  private List<Topic> loadTopics() {
 
     List<Topic> topics = (List<Topic>) topicRepository.findAll();
 
@@ -36,4 +153,17 @@ public class TopicService {
 
     return topics;
   }
+
+  /**
+   * Copy a topic, so that the cached one is never managed by a persistence context
+   *
+   * @param topic the topic
+   * @return the copy
+   */
+  private static Topic copyOf(Topic topic) {
+    Topic copy = new Topic();
+    copy.setId(topic.getId());
+    copy.setName(topic.getName());
+    return copy;
+  }
 }
@@ -0,0 +1,88 @@
+package ca.mcgill.purposeful.service;
+
+import java.util.Date;
+
+/**
+ * Published by the services when a high five or a collaboration request is added to an idea, or
+ * a high five is removed from it. The trending scores are only changed once the transaction
+ * commits (with a @TransactionalEventListener), so a rolled back activity never counts.
+ */
+public class TrendingActivityEvent {
+
+  /** What happened to the idea */
+  public enum Kind {
+    HIGH_FIVE,
+    HIGH_FIVE_REMOVED,
+    COLLABORATION_REQUEST
+  }
+
+  private final String ideaId;
+  private final Kind kind;
+  private final Date date;
+
+  private TrendingActivityEvent(String ideaId, Kind kind, Date date) {
+    this.ideaId = ideaId;
+    this.kind = kind;
+    this.date = date;
+  }
+
+  /**
+   * Describe a high five given to an idea
+   *
+   * @param ideaId The id of the idea
+   * @param date The date of the high five
+   * @return The event
+   */
+  public static TrendingActivityEvent highFive(String ideaId, Date date) {
+    return new TrendingActivityEvent(ideaId, Kind.HIGH_FIVE, date);
+  }
+
+  /**
+   * Describe a high five taken back from an idea
+   *
+   * @param ideaId The id of the idea
+   * @param date The date the high five was given
+   * @return The event
+   */
+  public static TrendingActivityEvent highFiveRemoved(String ideaId, Date date) {
+    return new TrendingActivityEvent(ideaId, Kind.HIGH_FIVE_REMOVED, date);
+  }
+
+  /**
+   * Describe a collaboration request sent for an idea
+   *
+   * @param ideaId The id of the idea
+   * @param date The date of the collaboration request
+   * @return The event
+   */
+  public static TrendingActivityEvent collaborationRequest(String ideaId, Date date) {
+    return new TrendingActivityEvent(ideaId, Kind.COLLABORATION_REQUEST, date);
+  }
+
+  /**
+   * Get the id of the idea
+   *
+   * @return the id of the idea
+   */
+  public String getIdeaId() {
+    return ideaId;
+  }
+
+  /**
+   * Get what happened to the idea
+   *
+   * @return the kind of activity
+   */
+  public Kind getKind() {
+    return kind;
+  }
+
+  /**
+   * Get the date of the activity
+   *
+   * @return the date of the activity
+   */
+  public Date getDate() {
+    return date;
+  }
+}
@@ -0,0 +1,348 @@
+package ca.mcgill.purposeful.service;
+
+import ca.mcgill.purposeful.dao.CollaborationRequestRepository;
+import ca.mcgill.purposeful.dao.ReactionRepository;
+import jakarta.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * In memory trending score of the ideas. Every high five and collaboration request adds to the
+ * score of its idea a weight that halves every purposeful.trending.half-life-hours, so the score
+ * favours the ideas with the most recent activity. A collaboration request weighs
+ * purposeful.trending.collaboration-request-weight high fives.
+ *
+ * <p>Rather than decaying every score as time passes, a weight is scaled up by how long after a
+ * fixed epoch it was added (forward decay): the scores all decay at the same rate, so their order
+ * never changes and only needs to be updated when something happens. The epoch is moved forward
+ * before the scaled weights get too large.
+ *
+ * <p>The scores are computed from the database on startup, then updated with the {@link
+ * TrendingActivityEvent}s of the transactions that commit, and directly by the reaction buffer. A
+ * removed high five is subtracted at the date it was made, so it takes back exactly the weight it
+ * added. The scores are still computed again every day (purposeful.trending.rebuild-cron), only to
+ * correct the drift of the rounding errors and of the rare removals whose date is unknown.
+ */
+@Service
+public class TrendingService {
+
+  // Weights scaled by more than 2^64 are rescaled to a new epoch
+  private static final double MAX_HALF_LIVES = 64;
+
+  // Scores that decayed below this weight (about 20 half-lives) are dropped
+  private static final double MIN_WEIGHT = 1e-6;
+
+  /*
+   * CRUD repos
+   */
+
+  @Autowired ReactionRepository reactionRepository;
+
+  @Autowired CollaborationRequestRepository collaborationRequestRepository;
+
+  /*
+   * Configuration
+   */
+
+  /** The number of hours after which the weight of an activity is halved */
+  @Value("${purposeful.trending.half-life-hours:24}")
+  double halfLifeHours = 24;
+
+  /** The weight of a collaboration request, the weight of a high five being 1 */
+  @Value("${purposeful.trending.collaboration-request-weight:3}")
+  double collaborationRequestWeight = 3;
+
+  /*
+   * Scores, guarded by the lock
+   */
+
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+  // The score of each idea with some activity, scaled to the epoch
+  private Map<String, Double> scores = new HashMap<>();
+
+  private long epoch = System.currentTimeMillis();
+
+  // The activity added while the scores are rebuilt, null when they are not rebuilding
+  private List<Activity> changesDuringRebuild;
+
+  /*
+   * Service functions
+   */
+
+  /**
+   * Compute the scores from the high fives and collaboration requests of the last 20 half-lives.
+   * Called on startup, and every day to correct the drift. The database is read without holding
+   * the lock, so the activity added meanwhile is recorded and added again to the new scores.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(cron = "${purposeful.trending.rebuild-cron:0 30 4 * * *}")
+  @Transactional
+  public synchronized void rebuild() {
+    lock.writeLock().lock();
+    try {
+      changesDuringRebuild = new ArrayList<>();
+    } finally {
+      lock.writeLock().unlock();
+    }
+
+    long now = System.currentTimeMillis();
+    Date since = new Date(now - (long) (halfLifeHours * 3_600_000 * 20));
+    Map<String, Double> rebuilt = new HashMap<>();
+    try {
+      for (Object[] reaction : reactionRepository.findIdeaIdsAndDatesSince(since)) {
+        rebuilt.merge((String) reaction[0], scaled(1, (Date) reaction[1], now), Double::sum);
+      }
+      for (Object[] request : collaborationRequestRepository.findIdeaIdsAndDatesSince(since)) {
+        rebuilt.merge(
+            (String) request[0],
+            scaled(collaborationRequestWeight, (Date) request[1], now),
+            Double::sum);
+      }
+    } catch (RuntimeException e) {
+      lock.writeLock().lock();
+      try {
+        changesDuringRebuild = null;
+      } finally {
+        lock.writeLock().unlock();
+      }
+      throw e;
+    }
+
+    lock.writeLock().lock();
+    try {
+      scores = rebuilt;
+      epoch = now;
+      // Only the activity committed in the instant before the database is read can be counted
+      // twice, until the next rebuild
+      for (Activity activity : changesDuringRebuild) {
+        apply(activity, System.currentTimeMillis());
+      }
+      changesDuringRebuild = null;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Add a high five or a collaboration request to the score of an idea, or subtract a removed high
+   * five, once the transaction that changed it commits
+   *
+   * @param activity The activity on the idea
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onActivity(TrendingActivityEvent activity) {
+    if (activity.getKind() == TrendingActivityEvent.Kind.HIGH_FIVE) {
+      recordReaction(activity.getIdeaId(), activity.getDate());
+    } else if (activity.getKind() == TrendingActivityEvent.Kind.HIGH_FIVE_REMOVED) {
+      removeReaction(activity.getIdeaId(), activity.getDate());
+    } else {
+      recordCollaborationRequest(activity.getIdeaId(), activity.getDate());
+    }
+  }
+
+  /**
+   * Add a high five to the score of an idea
+   *
+   * @param ideaId The id of the idea
+   * @param date The date of the high five
+   */
+  public void recordReaction(String ideaId, Date date) {
+    add(ideaId, 1, date);
+  }
+
+  /**
+   * Subtract a removed high five from the score of an idea
+   *
+   * @param ideaId The id of the idea
+   * @param date The date of the high five, or when it was removed if it is unknown
+   */
+  public void removeReaction(String ideaId, Date date) {
+    add(ideaId, -1, date);
+  }
+
+  /**
+   * Add a collaboration request to the score of an idea
+   *
+   * @param ideaId The id of the idea
+   * @param date The date of the collaboration request
+   */
+  public void recordCollaborationRequest(String ideaId, Date date) {
+    add(ideaId, collaborationRequestWeight, date);
+  }
+
+  /**
+   * Get the score of an idea, in high fives made now
+   *
+   * @param ideaId The id of the idea
+   * @return The score of the idea (0 if it has no recent activity)
+   */
+  public double getScore(String ideaId) {
+    lock.readLock().lock();
+    try {
+      double score = scores.getOrDefault(ideaId, 0.0);
+      return score * Math.pow(2, -halfLives(System.currentTimeMillis()));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Get the ids of the ideas with the highest scores. Only the best ideas are kept in a heap while
+   * going through the scores, so only those are sorted.
+   *
+   * @param count The maximum number of ids to return
+   * @return The ids of the ideas with the highest scores, from highest to lowest (ties are broken
+   *     by id)
+   */
+  public List<String> getTopIdeaIds(int count) {
+    lock.readLock().lock();
+    try {
+      // Keep the best ideas, the worst kept one being on top
+      Comparator<Map.Entry<String, Double>> highestFirst = highestFirst();
+      PriorityQueue<Map.Entry<String, Double>> top =
+          new PriorityQueue<>(count + 1, highestFirst.reversed());
+      for (Map.Entry<String, Double> score : scores.entrySet()) {
+        top.add(score);
+        if (top.size() > count) {
+          top.poll();
+        }
+      }
+
+      List<Map.Entry<String, Double>> sorted = new ArrayList<>(top);
+      sorted.sort(highestFirst);
+      List<String> ids = new ArrayList<>();
+      for (Map.Entry<String, Double> score : sorted) {
+        ids.add(score.getKey());
+      }
+      return ids;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /*
+   * Helper functions
+   */
+
+  /**
+   * Add a weight to the score of an idea, moving the epoch forward first if needed
+   *
+   * @param ideaId The id of the idea
+   * @param weight The weight of the activity (negative to remove it)
+   * @param date The date of the activity
+   */
+  private void add(String ideaId, double weight, Date date) {
+    Activity activity = new Activity(ideaId, weight, date);
+    long now = System.currentTimeMillis();
+    lock.writeLock().lock();
+    try {
+      apply(activity, now);
+      if (changesDuringRebuild != null) {
+        changesDuringRebuild.add(activity);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Add the weight of an activity to the score of its idea. To be called with the write lock
+   * held.
+   *
+   * @param activity The activity
+   * @param now The current time, in milliseconds
+   */
+  private void apply(Activity activity, long now) {
+    if (halfLives(now) > MAX_HALF_LIVES) {
+      rescale(now);
+    }
+    double score =
+        scores.getOrDefault(activity.ideaId, 0.0) + scaled(activity.weight, activity.date, epoch);
+    // A removed high five whose date is unknown can be subtracted with a larger weight than it
+    // was added with
+    if (score * Math.pow(2, -halfLives(now)) < MIN_WEIGHT) {
+      scores.remove(activity.ideaId);
+    } else {
+      scores.put(activity.ideaId, score);
+    }
+  }
+
+  /**
+   * Scale the scores to a new epoch, dropping the ones that decayed to nothing. To be called with
+   * the write lock held.
+   *
+   * @param now The new epoch
+   */
+  private void rescale(long now) {
+    double factor = Math.pow(2, -halfLives(now));
+    Map<String, Double> rescaled = new HashMap<>();
+    for (Map.Entry<String, Double> score : scores.entrySet()) {
+      double value = score.getValue() * factor;
+      if (value >= MIN_WEIGHT) {
+        rescaled.put(score.getKey(), value);
+      }
+    }
+    scores = rescaled;
+    epoch = now;
+  }
+
+  /**
+   * Scale a weight to an epoch
+   *
+   * @param weight The weight of the activity
+   * @param date The date of the activity
+   * @param epoch The epoch, in milliseconds
+   * @return The weight scaled by the number of half-lives between the epoch and the activity
+   */
+  private double scaled(double weight, Date date, long epoch) {
+    return weight * Math.pow(2, (date.getTime() - epoch) / (halfLifeHours * 3_600_000));
+  }
+
+  /**
+   * The number of half-lives between the epoch and a time
+   *
+   * @param time The time, in milliseconds
+   * @return The number of half-lives
+   */
+  private double halfLives(long time) {
+    return (time - epoch) / (halfLifeHours * 3_600_000);
+  }
+
+  /**
+   * Order scores from highest to lowest, then by id
+   *
+   * @return The comparator
+   */
+  private static Comparator<Map.Entry<String, Double>> highestFirst() {
+    return Map.Entry.<String, Double>comparingByValue()
+        .reversed()
+        .thenComparing(Map.Entry.comparingByKey());
+  }
+
+  /** A weight added to the score of an idea (negative when it is removed) */
+  private static class Activity {
+    final String ideaId;
+    final double weight;
+    final Date date;
+
+    Activity(String ideaId, double weight, Date date) {
+      this.ideaId = ideaId;
+      this.weight = weight;
+      this.date = date;
+    }
+  }
+}
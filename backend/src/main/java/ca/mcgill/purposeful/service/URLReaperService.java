@@ -0,0 +1,39 @@
+package ca.mcgill.purposeful.service;
+
+import ca.mcgill.purposeful.dao.URLRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Job deleting the URLs no idea links to. Ideas and their URLs are now created and modified in a
+ * single transaction, but URLs used to be saved in a transaction of their own before the idea, and
+ * were left behind whenever the idea failed to be saved. Supporting images replaced by a
+ * modification are also left behind.
+ *
+ * <p>The job runs on the cron expression purposeful.url-reaper.cron (every day at 4 AM by
+ * default, "-" to disable it).
+ */
+@Service
+public class URLReaperService {
+
+  /*
+   * CRUD repos
+   */
+
+  @Autowired URLRepository urlRepository;
+
+  /*
+   * Service functions
+   */
+
+  /**
+   * Delete the URLs that are neither a preset icon, the icon of an idea nor a supporting image
+   *
+   * @return the number of deleted URLs
+   */
+  @Scheduled(cron = "${purposeful.url-reaper.cron:0 0 4 * * *}")
+  public int reapUnreferencedURLs() {
+    return urlRepository.deleteUnreferencedURLs();
+  }
+}
@@ -0,0 +1,77 @@
+package ca.mcgill.purposeful.util;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * Content address of an icon URL. Two URLs that only differ in ways that do not change the resource
+ * they point to (case of the scheme and host, default port, fragment, surrounding spaces) have the
+ * same hash, so an icon is only stored once however it is written.
+ */
+public final class IconHash {
+
+  private IconHash() {}
+
+  /**
+   * Get the hash of an icon URL
+   *
+   * @param url The icon URL
+   * @return The SHA-256 of the normalized URL, in hexadecimal
+   */
+  public static String of(String url) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of()
+          .formatHex(digest.digest(normalize(url).getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Normalize a URL. Values that are not absolute URLs (e.g. file names) are only trimmed.
+   *
+   * @param url The URL
+   * @return The normalized URL
+   */
+  public static String normalize(String url) {
+    String trimmed = url.trim();
+    URI uri;
+    try {
+      uri = new URI(trimmed);
+    } catch (URISyntaxException e) {
+      return trimmed;
+    }
+    if (uri.getScheme() == null || uri.getHost() == null) {
+      return trimmed;
+    }
+
+    String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+    int port = uri.getPort();
+    if ((scheme.equals("http") && port == 80) || (scheme.equals("https") && port == 443)) {
+      port = -1;
+    }
+    String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+
+    StringBuilder normalized = new StringBuilder();
+    normalized.append(scheme).append("://");
+    if (uri.getRawUserInfo() != null) {
+      normalized.append(uri.getRawUserInfo()).append('@');
+    }
+    normalized.append(uri.getHost().toLowerCase(Locale.ROOT));
+    if (port != -1) {
+      normalized.append(':').append(port);
+    }
+    normalized.append(path);
+    if (uri.getRawQuery() != null) {
+      normalized.append('?').append(uri.getRawQuery());
+    }
+    return normalized.toString();
+  }
+}
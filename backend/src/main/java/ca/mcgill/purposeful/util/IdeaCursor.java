@@ -0,0 +1,84 @@
+package ca.mcgill.purposeful.util;
+
+import ca.mcgill.purposeful.exception.GlobalException;
+import ca.mcgill.purposeful.model.Idea;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Opaque cursor used to paginate through ideas ordered from newest to oldest. It holds the (date,
+ * id) pair of the last idea of a page, encoded in URL safe base 64 so clients just send it back.
+ *
+ * @author Wassim Jabbour
+ */
+public class IdeaCursor {
+
+  private final Date date;
+  private final String id;
+
+  /**
+   * Constructor
+   *
+   * @param date The date of the last idea of the page
+   * @param id The id of the last idea of the page
+   */
+  public IdeaCursor(Date date, String id) {
+    this.date = date;
+    this.id = id;
+  }
+
+  /**
+   * Get the date of the last idea of the page
+   *
+   * @return The date
+   */
+  public Date getDate() {
+    return date;
+  }
+
+  /**
+   * Get the id of the last idea of the page
+   *
+   * @return The id
+   */
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * Build the cursor pointing right after the given idea
+   *
+   * @param idea The last idea of a page
+   * @return The encoded cursor
+   */
+  public static String encode(Idea idea) {
+    String raw = idea.getDate().getTime() + ":" + idea.getId();
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decode a cursor sent back by a client
+   *
+   * @param cursor The encoded cursor
+   * @return The decoded cursor
+   * @throws GlobalException if the cursor is not one we generated
+   */
+  public static IdeaCursor decode(String cursor) {
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      int separator = raw.indexOf(':');
+      long time = Long.parseLong(raw.substring(0, separator));
+      String id = raw.substring(separator + 1);
+      if (id.isEmpty()) {
+        throw new IllegalArgumentException();
+      }
+      return new IdeaCursor(new Date(time), id);
+    } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+      throw new GlobalException(HttpStatus.BAD_REQUEST, "The page cursor is invalid.");
+    }
+  }
+}
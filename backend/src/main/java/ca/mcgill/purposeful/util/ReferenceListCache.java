@@ -0,0 +1,304 @@
+package ca.mcgill.purposeful.util;
+
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import org.springframework.util.DigestUtils;
+
+/**
+ * Cache-aside holder for a small list of reference data (domains, topics, technologies) that almost
+ * never changes. The list is loaded on the first read, then served from memory until it is older
+ * than the time to live or is invalidated.
+ *
+ * <p>Every loaded list carries an ETag computed from its content and the time its content last
+ * changed, so controllers can answer conditional requests with a 304. It is also indexed by name
+ * for autocompletion: the names, and the names from each of their words on, are kept sorted so the
+ * items starting with a prefix are found with a binary search.
+ *
+ * <p>The cached items are copies that no persistence context manages, and every read hands out
+ * new copies of them, so a caller can neither attach them to an entity nor change them for the
+ * other threads. Entities should link to a reference looked up by id instead.
+ *
+ * @param <T> the type of the items
+ */
+public class ReferenceListCache<T> {
+
+  /** The maximum number of items an autocompletion can return */
+  public static final int MAX_MATCHES = 50;
+
+  private final Function<T, String> idOf;
+  private final Function<T, String> nameOf;
+  private final UnaryOperator<T> copyOf;
+  private final AtomicReference<Snapshot<T>> current = new AtomicReference<>();
+
+  /**
+   * Constructor
+   *
+   * @param idOf Gets the id of an item
+   * @param nameOf Gets the name of an item, part of the content the ETag is computed from
+   * @param copyOf Copies an item, keeping its id and name
+   */
+  public ReferenceListCache(
+      Function<T, String> idOf, Function<T, String> nameOf, UnaryOperator<T> copyOf) {
+    this.idOf = idOf;
+    this.nameOf = nameOf;
+    this.copyOf = copyOf;
+  }
+
+  /**
+   * Get the cached list, loading it first if it is missing, expired or invalidated
+   *
+   * @param loader Loads the list from the database
+   * @param timeToLive How long a loaded list is served before being loaded again
+   * @return The cached list
+   */
+  public Snapshot<T> get(Supplier<List<T>> loader, Duration timeToLive) {
+    Snapshot<T> snapshot = current.get();
+    if (snapshot != null && System.currentTimeMillis() < snapshot.expiresAt) {
+      return snapshot;
+    }
+    Snapshot<T> loaded =
+        new Snapshot<>(loader.get(), idOf, nameOf, copyOf, snapshot, timeToLive);
+    current.set(loaded);
+    return loaded;
+  }
+
+  /** Make the next read load the list again */
+  public void invalidate() {
+    current.updateAndGet(snapshot -> snapshot == null ? null : snapshot.expired());
+  }
+
+  /**
+   * An immutable list loaded from the database, along with its validators
+   *
+   * @param <T> the type of the items
+   */
+  public static final class Snapshot<T> {
+
+    private final List<T> items;
+    private final Map<String, T> itemsById;
+    private final PrefixIndex<T> names;
+    private final PrefixIndex<T> words;
+    private final String eTag;
+    private final long lastModified;
+    private final long expiresAt;
+    private final UnaryOperator<T> copyOf;
+
+    private Snapshot(
+        List<T> loaded,
+        Function<T, String> idOf,
+        Function<T, String> nameOf,
+        UnaryOperator<T> copyOf,
+        Snapshot<T> previous,
+        Duration timeToLive) {
+      this.copyOf = copyOf;
+      this.items = new ArrayList<>();
+      this.itemsById = new HashMap<>();
+      List<String> content = new ArrayList<>();
+      List<Map.Entry<String, T>> nameKeys = new ArrayList<>();
+      List<Map.Entry<String, T>> wordKeys = new ArrayList<>();
+      for (T item : loaded) {
+        // Keep nothing a persistence context manages
+        item = copyOf.apply(item);
+        items.add(item);
+        itemsById.put(idOf.apply(item), item);
+        content.add(idOf.apply(item) + ":" + nameOf.apply(item));
+
+        // "Machine learning" is found from "mach" and, after the names starting with it, "learn"
+        String name = normalize(nameOf.apply(item));
+        nameKeys.add(Map.entry(name, item));
+        for (int i = 1; i < name.length(); i++) {
+          if (Character.isLetterOrDigit(name.charAt(i))
+              && !Character.isLetterOrDigit(name.charAt(i - 1))) {
+            wordKeys.add(Map.entry(name.substring(i), item));
+          }
+        }
+      }
+      this.names = new PrefixIndex<>(nameKeys);
+      this.words = new PrefixIndex<>(wordKeys);
+      Collections.sort(content);
+      this.eTag =
+          "\""
+              + DigestUtils.md5DigestAsHex(
+                  String.join("\n", content).getBytes(StandardCharsets.UTF_8))
+              + "\"";
+
+      // HTTP dates have a precision of one second, and the date only moves if the content changed
+      long now = System.currentTimeMillis() / 1000 * 1000;
+      this.lastModified =
+          previous != null && previous.eTag.equals(eTag) ? previous.lastModified : now;
+      this.expiresAt = System.currentTimeMillis() + timeToLive.toMillis();
+    }
+
+    private Snapshot(Snapshot<T> snapshot) {
+      this.items = snapshot.items;
+      this.itemsById = snapshot.itemsById;
+      this.names = snapshot.names;
+      this.words = snapshot.words;
+      this.eTag = snapshot.eTag;
+      this.lastModified = snapshot.lastModified;
+      this.expiresAt = 0;
+      this.copyOf = snapshot.copyOf;
+    }
+
+    /**
+     * Copy of this snapshot that is already expired
+     *
+     * @return The expired copy
+     */
+    private Snapshot<T> expired() {
+      return new Snapshot<>(this);
+    }
+
+    /**
+     * Get the items of the list
+     *
+     * @return Copies of the items
+     */
+    public List<T> getItems() {
+      return copies(items);
+    }
+
+    /**
+     * Get an item of the list by its id
+     *
+     * @param id The id of the item
+     * @return A copy of the item, or null if it is not in the list
+     */
+    public T getById(String id) {
+      T item = itemsById.get(id);
+      return item == null ? null : copyOf.apply(item);
+    }
+
+    /**
+     * Check if an item is in the list
+     *
+     * @param id The id of the item
+     * @return true if the item is in the list
+     */
+    public boolean contains(String id) {
+      return itemsById.containsKey(id);
+    }
+
+    /**
+     * Get the items whose name, or one of the words of their name, starts with a prefix, ignoring
+     * case and accents. The items whose name starts with the prefix come first, each group sorted
+     * by name.
+     *
+     * @param prefix The start of the name or word
+     * @param limit The maximum number of items to return
+     * @return Copies of the matching items
+     */
+    public List<T> findByPrefix(String prefix, int limit) {
+      String key = normalize(prefix);
+      Set<T> matches = new LinkedHashSet<>();
+      names.collect(key, limit, matches);
+      words.collect(key, limit, matches);
+      return copies(matches);
+    }
+
+    /**
+     * Get the ETag of the list, which changes whenever its content does
+     *
+     * @return The quoted ETag
+     */
+    public String getETag() {
+      return eTag;
+    }
+
+    /**
+     * Get the last time the content of the list changed
+     *
+     * @return The time in milliseconds since the epoch
+     */
+    public long getLastModified() {
+      return lastModified;
+    }
+
+    /**
+     * Copy cached items
+     *
+     * @param cached The cached items
+     * @return The copies, in the same order
+     */
+    private List<T> copies(Collection<T> cached) {
+      List<T> copies = new ArrayList<>(cached.size());
+      for (T item : cached) {
+        copies.add(copyOf.apply(item));
+      }
+      return copies;
+    }
+  }
+
+  /**
+   * Keys sorted so that the ones starting with a prefix are next to each other, each with its item
+   *
+   * @param <T> the type of the items
+   */
+  private static final class PrefixIndex<T> {
+
+    private final String[] keys;
+    private final List<T> items;
+
+    private PrefixIndex(List<Map.Entry<String, T>> entries) {
+      entries.sort(Map.Entry.comparingByKey());
+      this.keys = new String[entries.size()];
+      this.items = new ArrayList<>(entries.size());
+      for (int i = 0; i < keys.length; i++) {
+        keys[i] = entries.get(i).getKey();
+        items.add(entries.get(i).getValue());
+      }
+    }
+
+    /**
+     * Add the items whose key starts with a prefix until there are enough
+     *
+     * @param prefix The normalized prefix
+     * @param limit The maximum number of matches
+     * @param matches The matches so far, the items are added to
+     */
+    private void collect(String prefix, int limit, Set<T> matches) {
+      // The first key that is not before the prefix
+      int low = 0;
+      int high = keys.length;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (keys[middle].compareTo(prefix) < 0) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      for (int i = low; i < keys.length && matches.size() < limit; i++) {
+        if (!keys[i].startsWith(prefix)) {
+          break;
+        }
+        matches.add(items.get(i));
+      }
+    }
+  }
+
+  /**
+   * Normalize a name for prefix lookups, ignoring case and accents
+   *
+   * @param name The name
+   * @return The name in lower case, without accents
+   */
+  private static String normalize(String name) {
+    String decomposed = Normalizer.normalize(name == null ? "" : name.strip(), Normalizer.Form.NFD);
+    return decomposed.replaceAll("\\p{M}", "").toLowerCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,115 @@
+package ca.mcgill.purposeful.configuration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ca.mcgill.purposeful.exception.GlobalException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/** To test the hashing of the passwords on the dedicated threads */
+public class TestBoundedPasswordEncoder {
+
+  private final CountDownLatch release = new CountDownLatch(1);
+  private final CountDownLatch started = new CountDownLatch(1);
+
+  private BoundedPasswordEncoder encoder;
+
+  @AfterEach
+  public void shutdown() {
+    release.countDown();
+    if (encoder != null) {
+      encoder.shutdown();
+    }
+  }
+
+  /** Test that the passwords are hashed and checked by the delegate */
+  @Test
+  public void testEncodeAndMatches() {
+    encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 1, 1, 5000);
+
+    String hash = encoder.encode("Password1");
+
+    assertTrue(encoder.matches("Password1", hash));
+    assertFalse(encoder.matches("Password2", hash));
+  }
+
+  /** Test that a password is rejected right away once too many wait for a thread */
+  @Test
+  public void testEncode_QueueFull() throws Exception {
+    encoder = new BoundedPasswordEncoder(blockingEncoder(), 1, 1, 5000);
+
+    // One password is hashed and one waits
+    CompletableFuture.runAsync(() -> encoder.encode("first"));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    CompletableFuture.runAsync(() -> encoder.encode("second"));
+    waitForQueuedPassword();
+
+    GlobalException e = assertThrows(GlobalException.class, () -> encoder.encode("third"));
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatus());
+    assertEquals("Too many logins at once. Please try again in a moment.", e.getMessage());
+  }
+
+  /** Test that a request stops waiting for its password after the timeout */
+  @Test
+  public void testEncode_Timeout() {
+    encoder = new BoundedPasswordEncoder(blockingEncoder(), 1, 1, 50);
+
+    GlobalException e = assertThrows(GlobalException.class, () -> encoder.encode("password"));
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatus());
+  }
+
+  /** Test that the hashes with a lower cost are hashed again */
+  @Test
+  public void testUpgradeEncoding() {
+    encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(5), 1, 1, 5000);
+
+    assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("Password1")));
+    assertFalse(encoder.upgradeEncoding(new BCryptPasswordEncoder(5).encode("Password1")));
+  }
+
+  /** Test that the calibrated cost stays within the bounds */
+  @Test
+  public void testCalibrateBCryptCost() {
+    assertEquals(
+        BoundedPasswordEncoder.MIN_BCRYPT_COST, BoundedPasswordEncoder.calibrateBCryptCost(1));
+    assertEquals(
+        BoundedPasswordEncoder.MAX_BCRYPT_COST,
+        BoundedPasswordEncoder.calibrateBCryptCost(Long.MAX_VALUE / 1_000_000));
+  }
+
+  /** An encoder that hashes nothing until released */
+  private PasswordEncoder blockingEncoder() {
+    return new PasswordEncoder() {
+      @Override
+      public String encode(CharSequence rawPassword) {
+        started.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return rawPassword.toString();
+      }
+
+      @Override
+      public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return encode(rawPassword).equals(encodedPassword);
+      }
+    };
+  }
+
+  private void waitForQueuedPassword() throws InterruptedException {
+    for (int i = 0; i < 500 && encoder.getQueuedPasswords() == 0; i++) {
+      Thread.sleep(10);
+    }
+  }
+}
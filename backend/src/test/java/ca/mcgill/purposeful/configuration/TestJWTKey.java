@@ -0,0 +1,164 @@
+package ca.mcgill.purposeful.configuration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+/** To test the loading and the rotation of the JWT keys */
+public class TestJWTKey {
+
+  @TempDir Path tempDir;
+
+  /** Test that the keys loaded from the same files have the same ids */
+  @Test
+  public void testFromPemFiles() throws Exception {
+    Path privateKey = writePrivateKey("private.pem");
+    Path publicKey = writePublicKey("public.pem");
+
+    JWTKey keys = JWTKey.fromPemFiles(List.of(privateKey, publicKey));
+
+    assertTrue(keys.getSigningKey().isPrivate());
+    assertEquals(2, keys.getVerificationKeys().getKeys().size());
+    assertFalse(keys.getVerificationKeys().getKeys().get(0).isPrivate());
+    assertEquals(
+        keys.getSigningKey().getKeyID(),
+        JWTKey.fromPemFiles(List.of(privateKey)).getSigningKey().getKeyID());
+  }
+
+  /** Test that a public key cannot sign the tokens */
+  @Test
+  public void testFromPemFiles_PublicSigningKey() throws Exception {
+    Path publicKey = writePublicKey("public.pem");
+
+    assertThrows(IllegalArgumentException.class, () -> JWTKey.fromPemFiles(List.of(publicKey)));
+  }
+
+  /**
+   * Test that after a rotation, the tokens signed by the previous key are still valid, and that
+   * another instance with the same files accepts the tokens of this one
+   */
+  @Test
+  public void testRotation() throws Exception {
+    Path oldKey = writePrivateKey("old.pem");
+    Path newKey = writePrivateKey("new.pem");
+
+    SecurityConfiguration beforeRotation = configuration(oldKey);
+    String oldToken = encode(beforeRotation);
+    SecurityConfiguration afterRotation = configuration(newKey, oldKey);
+    String newToken = encode(afterRotation);
+
+    JwtDecoder decoder = configuration(newKey, oldKey).jwtDecoder();
+    assertEquals("user@email.com", decoder.decode(oldToken).getSubject());
+    Jwt decoded = decoder.decode(newToken);
+    String newKeyId = afterRotation.jwtKeys().getSigningKey().getKeyID();
+    assertEquals(newKeyId, decoded.getHeaders().get("kid"));
+
+    // Once the old key is removed, its tokens are rejected
+    assertThrows(JwtException.class, () -> configuration(newKey).jwtDecoder().decode(oldToken));
+  }
+
+  /** Test that the tokens can be signed with ES256, by a generated or a loaded key */
+  @Test
+  public void testES256() throws Exception {
+    assertEquals(JWSAlgorithm.ES256, configuration("ES256").jwtKeys().getSigningAlgorithm());
+
+    Path ecKey = writeECPrivateKey("ec.pem");
+    Path rsaKey = writePrivateKey("rsa.pem");
+    SecurityConfiguration configuration = configuration("ES256", ecKey, rsaKey);
+    String token = encode(configuration);
+
+    Jwt decoded = configuration.jwtDecoder().decode(token);
+    assertEquals("ES256", decoded.getHeaders().get("alg").toString());
+    // The tokens of the previous RSA key stay valid after switching to ES256
+    assertEquals(
+        "user@email.com",
+        configuration.jwtDecoder().decode(encode(configuration(rsaKey))).getSubject());
+    // The algorithm must match the signing key
+    assertThrows(IllegalStateException.class, () -> configuration("RS256", ecKey).jwtKeys());
+  }
+
+  private static SecurityConfiguration configuration(Path... keyFiles) {
+    return configuration("RS256", keyFiles);
+  }
+
+  private static SecurityConfiguration configuration(String algorithm, Path... keyFiles) {
+    SecurityConfiguration configuration = new SecurityConfiguration();
+    configuration.algorithm = algorithm;
+    configuration.keyStore = "";
+    configuration.keyFiles = new String[keyFiles.length];
+    for (int i = 0; i < keyFiles.length; i++) {
+      configuration.keyFiles[i] = keyFiles[i].toString();
+    }
+    return configuration;
+  }
+
+  private static String encode(SecurityConfiguration configuration) throws Exception {
+    Instant now = Instant.now();
+    JwtClaimsSet claims =
+        JwtClaimsSet.builder()
+            .issuer("self")
+            .issuedAt(now)
+            .expiresAt(now.plus(1, ChronoUnit.HOURS))
+            .subject("user@email.com")
+            .build();
+    return configuration.jwtEncoder().encode(JwtEncoderParameters.from(claims)).getTokenValue();
+  }
+
+  private Path writePrivateKey(String fileName) throws Exception {
+    return writePem(fileName, "PRIVATE KEY", generateKeyPair().getPrivate().getEncoded());
+  }
+
+  private Path writeECPrivateKey(String fileName) throws Exception {
+    KeyPairGenerator keyGenerator = KeyPairGenerator.getInstance("EC");
+    keyGenerator.initialize(new ECGenParameterSpec("secp256r1"));
+    KeyPair keyPair = keyGenerator.generateKeyPair();
+    // The public key of an EC key follows its private key
+    return Files.writeString(
+        tempDir.resolve(fileName),
+        pem("PRIVATE KEY", keyPair.getPrivate().getEncoded())
+            + pem("PUBLIC KEY", keyPair.getPublic().getEncoded()));
+  }
+
+  private Path writePublicKey(String fileName) throws Exception {
+    return writePem(fileName, "PUBLIC KEY", generateKeyPair().getPublic().getEncoded());
+  }
+
+  private static KeyPair generateKeyPair() throws Exception {
+    KeyPairGenerator keyGenerator = KeyPairGenerator.getInstance("RSA");
+    keyGenerator.initialize(2048);
+    return keyGenerator.generateKeyPair();
+  }
+
+  private Path writePem(String fileName, String type, byte[] encoded) throws Exception {
+    return Files.writeString(tempDir.resolve(fileName), pem(type, encoded));
+  }
+
+  private static String pem(String type, byte[] encoded) {
+    return "-----BEGIN "
+        + type
+        + "-----\n"
+        + Base64.getMimeEncoder().encodeToString(encoded)
+        + "\n-----END "
+        + type
+        + "-----\n";
+  }
+}
@@ -0,0 +1,153 @@
+package ca.mcgill.purposeful.configuration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+/** To test the cache of the verified usernames and passwords */
+@ExtendWith(MockitoExtension.class)
+public class TestVerifiedCredentialCache {
+
+  private static final long MINUTE = 60_000;
+
+  @Mock private AuthenticationProvider provider;
+  @Mock private UserDetailsService userDetailsService;
+
+  private VerifiedCredentialCache cache;
+
+  /** Every user has the password "Password1", stored as the hash "hash" */
+  @BeforeEach
+  public void setMockOutput() {
+    cache = new VerifiedCredentialCache(provider, userDetailsService, 2, MINUTE);
+    lenient()
+        .when(userDetailsService.loadUserByUsername(anyString()))
+        .thenAnswer(invocation -> user(invocation.getArgument(0), "hash"));
+    lenient()
+        .when(provider.authenticate(any(Authentication.class)))
+        .thenAnswer(TestVerifiedCredentialCache::verify);
+  }
+
+  /** Test that credentials are checked once, then reused */
+  @Test
+  public void testAuthenticate_Cached() {
+    cache.authenticate(basic("user@email.com", "Password1"));
+    Authentication second = cache.authenticate(basic("user@email.com", "Password1"));
+
+    assertEquals("user@email.com", second.getName());
+    assertEquals("User", second.getAuthorities().iterator().next().getAuthority());
+    assertNull(second.getCredentials());
+    verify(provider, times(1)).authenticate(any(Authentication.class));
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+  }
+
+  /** Test that a wrong password is not cached, nor let in by the right one being cached */
+  @Test
+  public void testAuthenticate_WrongPassword() {
+    cache.authenticate(basic("user@email.com", "Password1"));
+
+    assertThrows(
+        BadCredentialsException.class,
+        () -> cache.authenticate(basic("user@email.com", "Password2")));
+    assertThrows(
+        BadCredentialsException.class,
+        () -> cache.authenticate(basic("user@email.com", "Password2")));
+    assertEquals(1, cache.size());
+    assertEquals(0, cache.getHits());
+  }
+
+  /** Test that the credentials are checked again once the password of the user changed */
+  @Test
+  public void testAuthenticate_PasswordChanged() {
+    cache.authenticate(basic("user@email.com", "Password1"));
+    when(userDetailsService.loadUserByUsername("user@email.com"))
+        .thenReturn(user("user@email.com", "newHash"));
+    when(provider.authenticate(any(Authentication.class)))
+        .thenThrow(new BadCredentialsException("Bad credentials"));
+
+    assertThrows(
+        BadCredentialsException.class,
+        () -> cache.authenticate(basic("user@email.com", "Password1")));
+    assertEquals(0, cache.getHits());
+    assertEquals(0, cache.size());
+  }
+
+  /** Test that the credentials of a deleted user are checked again */
+  @Test
+  public void testAuthenticate_UserDeleted() {
+    cache.authenticate(basic("user@email.com", "Password1"));
+    when(userDetailsService.loadUserByUsername("user@email.com"))
+        .thenThrow(new UsernameNotFoundException("No user with email user@email.com"));
+    when(provider.authenticate(any(Authentication.class)))
+        .thenThrow(new BadCredentialsException("Bad credentials"));
+
+    assertThrows(
+        BadCredentialsException.class,
+        () -> cache.authenticate(basic("user@email.com", "Password1")));
+    assertEquals(0, cache.getHits());
+  }
+
+  /** Test that credentials are not reused past the time to live */
+  @Test
+  public void testAuthenticate_Expired() {
+    VerifiedCredentialCache noTimeToLive =
+        new VerifiedCredentialCache(provider, userDetailsService, 2, 0);
+
+    noTimeToLive.authenticate(basic("user@email.com", "Password1"));
+    noTimeToLive.authenticate(basic("user@email.com", "Password1"));
+
+    assertEquals(0, noTimeToLive.getHits());
+    verify(provider, times(2)).authenticate(any(Authentication.class));
+  }
+
+  /** Test that the least recently used credentials are evicted past the maximum size */
+  @Test
+  public void testAuthenticate_MaxSize() {
+    cache.authenticate(basic("first@email.com", "Password1"));
+    cache.authenticate(basic("second@email.com", "Password1"));
+    cache.authenticate(basic("first@email.com", "Password1"));
+    cache.authenticate(basic("third@email.com", "Password1"));
+
+    assertEquals(2, cache.size());
+    cache.authenticate(basic("first@email.com", "Password1"));
+    cache.authenticate(basic("second@email.com", "Password1"));
+    assertEquals(2, cache.getHits());
+    assertEquals(4, cache.getMisses());
+  }
+
+  private static Authentication basic(String username, String password) {
+    return UsernamePasswordAuthenticationToken.unauthenticated(username, password);
+  }
+
+  private static UserDetails user(String username, String passwordHash) {
+    return User.withUsername(username).password(passwordHash).authorities("User").build();
+  }
+
+  private static Authentication verify(InvocationOnMock invocation) {
+    Authentication authentication = invocation.getArgument(0);
+    if (!"Password1".equals(authentication.getCredentials())) {
+      throw new BadCredentialsException("Bad credentials");
+    }
+    UserDetails user = user(authentication.getName(), "hash");
+    return UsernamePasswordAuthenticationToken.authenticated(
+        user, authentication.getCredentials(), user.getAuthorities());
+  }
+}
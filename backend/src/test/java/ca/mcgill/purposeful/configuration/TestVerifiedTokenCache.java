@@ -0,0 +1,130 @@
+package ca.mcgill.purposeful.configuration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+/** To test the cache of the verified bearer tokens */
+@ExtendWith(MockitoExtension.class)
+public class TestVerifiedTokenCache {
+
+  private static final long HOUR = 3_600_000;
+
+  @Mock private AuthenticationProvider provider;
+
+  private VerifiedTokenCache cache;
+
+  /** Every token is valid, its value being the email of the user */
+  @BeforeEach
+  public void setMockOutput() {
+    cache = new VerifiedTokenCache(provider, 2, HOUR);
+    lenient()
+        .when(provider.authenticate(any(Authentication.class)))
+        .thenAnswer(TestVerifiedTokenCache::verify);
+  }
+
+  /** Test that a token is verified once, then reused */
+  @Test
+  public void testAuthenticate_Cached() {
+    Authentication first = cache.authenticate(bearer("user@email.com"));
+    Authentication second = cache.authenticate(bearer("user@email.com"));
+
+    assertSame(first, second);
+    assertEquals("user@email.com", second.getName());
+    verify(provider, times(1)).authenticate(any(Authentication.class));
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+  }
+
+  /** Test that an invalid token is not cached */
+  @Test
+  public void testAuthenticate_Invalid() {
+    when(provider.authenticate(any(Authentication.class)))
+        .thenThrow(new BadCredentialsException("Invalid token"));
+
+    assertThrows(BadCredentialsException.class, () -> cache.authenticate(bearer("forged")));
+    assertThrows(BadCredentialsException.class, () -> cache.authenticate(bearer("forged")));
+    assertEquals(0, cache.size());
+  }
+
+  /** Test that a token is not reused past its expiry nor past the time to live */
+  @Test
+  public void testAuthenticate_Expired() {
+    cache.authenticate(bearer("expired"));
+    cache.authenticate(bearer("expired"));
+    assertEquals(0, cache.getHits());
+
+    VerifiedTokenCache noTimeToLive = new VerifiedTokenCache(provider, 2, 0);
+    noTimeToLive.authenticate(bearer("user@email.com"));
+    noTimeToLive.authenticate(bearer("user@email.com"));
+    assertEquals(0, noTimeToLive.getHits());
+  }
+
+  /** Test that the least recently used token is evicted past the maximum size */
+  @Test
+  public void testAuthenticate_MaxSize() {
+    cache.authenticate(bearer("first@email.com"));
+    cache.authenticate(bearer("second@email.com"));
+    cache.authenticate(bearer("first@email.com"));
+    cache.authenticate(bearer("third@email.com"));
+
+    assertEquals(2, cache.size());
+    cache.authenticate(bearer("first@email.com"));
+    cache.authenticate(bearer("second@email.com"));
+    assertEquals(2, cache.getHits());
+    assertEquals(4, cache.getMisses());
+  }
+
+  /** Test that the evicted tokens are verified again */
+  @Test
+  public void testEvict() {
+    cache.authenticate(bearer("user@email.com"));
+    cache.authenticate(bearer("other@email.com"));
+
+    cache.evict("user@email.com");
+    assertEquals(1, cache.size());
+    cache.evictSubject("other@email.com");
+    assertEquals(0, cache.size());
+
+    cache.authenticate(bearer("user@email.com"));
+    assertEquals(0, cache.getHits());
+  }
+
+  private static BearerTokenAuthenticationToken bearer(String token) {
+    return new BearerTokenAuthenticationToken(token);
+  }
+
+  private static Authentication verify(InvocationOnMock invocation) {
+    String token = ((BearerTokenAuthenticationToken) invocation.getArgument(0)).getToken();
+    Instant now = Instant.now();
+    Instant expiresAt =
+        token.equals("expired") ? now.minusSeconds(1) : now.plus(1, ChronoUnit.HOURS);
+    Jwt jwt =
+        Jwt.withTokenValue(token)
+            .header("alg", "RS256")
+            .subject(token)
+            .issuedAt(now.minus(1, ChronoUnit.HOURS))
+            .expiresAt(expiresAt)
+            .build();
+    return new JwtAuthenticationToken(jwt, List.of(new SimpleGrantedAuthority("User")), token);
+  }
+}
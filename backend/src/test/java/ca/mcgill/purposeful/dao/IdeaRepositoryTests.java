@@ -2,20 +2,35 @@ package ca.mcgill.purposeful.dao;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import ca.mcgill.purposeful.dto.IdeaDTO;
+import ca.mcgill.purposeful.dto.IdeaSummaryDTO;
 import ca.mcgill.purposeful.model.AppUser;
+import ca.mcgill.purposeful.model.Domain;
 import ca.mcgill.purposeful.model.Idea;
 import ca.mcgill.purposeful.model.RegularUser;
+import ca.mcgill.purposeful.model.Technology;
+import ca.mcgill.purposeful.model.Topic;
 import ca.mcgill.purposeful.model.URL;
 import ca.mcgill.purposeful.util.DatabaseUtil;
+import jakarta.persistence.EntityManagerFactory;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @SpringBootTest
 public class IdeaRepositoryTests {
@@ -30,6 +45,16 @@ public class IdeaRepositoryTests {
 
   @Autowired private RegularUserRepository regularUserRepository;
 
+  @Autowired private DomainRepository domainRepository;
+
+  @Autowired private TopicRepository topicRepository;
+
+  @Autowired private TechnologyRepository technologyRepository;
+
+  @Autowired private EntityManagerFactory entityManagerFactory;
+
+  @Autowired private TransactionTemplate transactionTemplate;
+
   /** Clear the database before all tests */
   @BeforeAll
   public static void clearDatabaseBefore(@Autowired DatabaseUtil util) {
@@ -97,4 +122,405 @@ public class IdeaRepositoryTests {
     assertEquals(idea2.getUser().getId(), idea.getUser().getId());
     assertEquals(idea2.getIconUrl().getURL(), idea.getIconUrl().getURL());
   }
+
+  /**
+   * Loading the details of an idea must not join its collections together: each element is loaded
+   * once, and the domains, topics and technologies take one query each.
+   */
+  @Test
+  public void testFindIdeaByIdDetail() {
+
+    AppUser user = new AppUser();
+    user.setEmail("detail@mail.purposeful.com");
+    user.setFirstname("Rob");
+    user.setLastname("Sab");
+    user.setPassword(passwordEncoder.encode("something"));
+    appUserRepository.save(user);
+
+    RegularUser regUser = new RegularUser();
+    regUser.setAppUser(user);
+    regUser.setVerifiedCompany(false);
+    regularUserRepository.save(regUser);
+
+    Set<Domain> domains = new HashSet<>();
+    Set<Topic> topics = new HashSet<>();
+    Set<Technology> techs = new HashSet<>();
+    List<URL> images = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      Domain domain = new Domain();
+      domain.setName("Detail domain " + i);
+      domains.add(domainRepository.save(domain));
+
+      Topic topic = new Topic();
+      topic.setName("Detail topic " + i);
+      topics.add(topicRepository.save(topic));
+
+      Technology tech = new Technology();
+      tech.setName("Detail tech " + i);
+      techs.add(technologyRepository.save(tech));
+
+      URL image = new URL();
+      image.setURL("detail image " + i);
+      image.setPresetIcon(false);
+      images.add(urlRepository.save(image));
+    }
+
+    Idea idea = createSearchIdea("Detail", "testing", "This is a test idea.");
+    idea.setDomains(domains);
+    idea.setTopics(topics);
+    idea.setTechs(techs);
+    idea.setSupportingImageUrls(images);
+    idea.setUser(regUser);
+    ideaRepository.save(idea);
+
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.setStatisticsEnabled(true);
+    statistics.clear();
+
+    IdeaDTO detail =
+        transactionTemplate.execute(
+            status -> new IdeaDTO(ideaRepository.findIdeaById(idea.getId())));
+
+    long statementCount = statistics.getPrepareStatementCount();
+    statistics.setStatisticsEnabled(false);
+
+    assertEquals(3, detail.getDomains().size());
+    assertEquals(3, detail.getTopics().size());
+    assertEquals(3, detail.getTechs().size());
+    assertEquals(3, detail.getImgUrls().size());
+    // 1 query for the idea, its icon, owner and images + 1 per set (domains, topics, techs)
+    assertTrue(statementCount <= 4, "Loading an idea took " + statementCount + " statements");
+  }
+
+  /**
+   * Browsing ideas by criteria leaves out the private ideas and the ideas that have none of the
+   * names of a filter, ignores the filters whose flag is false and sorts from newest to oldest.
+   */
+  @Test
+  public void testFindPublicIdeasByCriteria() {
+
+    AppUser user = new AppUser();
+    user.setEmail("criteria@mail.purposeful.com");
+    user.setFirstname("Rob");
+    user.setLastname("Sab");
+    user.setPassword(passwordEncoder.encode("something"));
+    appUserRepository.save(user);
+
+    RegularUser regUser = new RegularUser();
+    regUser.setAppUser(user);
+    regUser.setVerifiedCompany(false);
+    regularUserRepository.save(regUser);
+
+    Domain business = new Domain();
+    business.setName("Criteria business");
+    domainRepository.save(business);
+
+    Domain health = new Domain();
+    health.setName("Criteria health");
+    domainRepository.save(health);
+
+    Topic topic = new Topic();
+    topic.setName("Criteria topic");
+    topicRepository.save(topic);
+
+    Technology tech = new Technology();
+    tech.setName("Criteria tech");
+    technologyRepository.save(tech);
+
+    Idea oldest = createSearchIdea("Oldest", "testing", "This is a test idea.");
+    oldest.setDate(new Date(1000L));
+    oldest.setDomains(new HashSet<>(Set.of(business)));
+    oldest.setTopics(new HashSet<>(Set.of(topic)));
+    Idea middle = createSearchIdea("Middle", "testing", "This is a test idea.");
+    middle.setDate(new Date(2000L));
+    middle.setDomains(new HashSet<>(Set.of(health)));
+    middle.setTechs(new HashSet<>(Set.of(tech)));
+    Idea newest = createSearchIdea("Newest", "testing", "This is a test idea.");
+    newest.setDate(new Date(3000L));
+    newest.setDomains(new HashSet<>(Set.of(business, health)));
+    newest.setTopics(new HashSet<>(Set.of(topic)));
+    newest.setTechs(new HashSet<>(Set.of(tech)));
+    Idea hidden = createSearchIdea("Hidden", "testing", "This is a test idea.");
+    hidden.setDate(new Date(4000L));
+    hidden.setDomains(new HashSet<>(Set.of(business)));
+    hidden.setPrivate(true);
+    for (Idea idea : List.of(oldest, middle, newest, hidden)) {
+      idea.setUser(regUser);
+      ideaRepository.save(idea);
+    }
+
+    // No filter: every public idea, from newest to oldest
+    assertEquals(
+        List.of(newest.getId(), middle.getId(), oldest.getId()),
+        ids(
+            ideaRepository.findPublicIdeasByCriteria(
+                false, List.of(), false, List.of(), false, List.of())));
+    // One of the names of a filter is enough
+    assertEquals(
+        List.of(newest.getId(), oldest.getId()),
+        ids(
+            ideaRepository.findPublicIdeasByCriteria(
+                true, List.of("Criteria business", "Other"), false, List.of(), false, List.of())));
+    // Every filter must match
+    assertEquals(
+        List.of(newest.getId()),
+        ids(
+            ideaRepository.findPublicIdeasByCriteria(
+                true,
+                List.of("Criteria business"),
+                true,
+                List.of("Criteria topic"),
+                true,
+                List.of("Criteria tech"))));
+    // An idea without any topic never matches a topic filter
+    assertEquals(
+        List.of(),
+        ids(
+            ideaRepository.findPublicIdeasByCriteria(
+                true, List.of("Criteria health"), true, List.of("Other"), false, List.of())));
+    // Only the given ideas are looked at, with the same criteria
+    assertEquals(
+        Set.of(oldest.getId()),
+        new HashSet<>(
+            ideaRepository.findPublicIdeaIdsByCriteriaAndIdIn(
+                true,
+                List.of("Criteria business"),
+                false,
+                List.of(),
+                false,
+                List.of(),
+                List.of(oldest.getId(), middle.getId(), hidden.getId(), "removed"))));
+  }
+
+  /**
+   * Listing ideas must not issue one query per idea: one query loads the ideas with their icons,
+   * then each collection is loaded for the whole page at once.
+   */
+  @Test
+  public void testListIdeasStatementCount() {
+
+    AppUser user = new AppUser();
+    user.setEmail("statements@mail.purposeful.com");
+    user.setFirstname("Rob");
+    user.setLastname("Sab");
+    user.setPassword(passwordEncoder.encode("something"));
+    appUserRepository.save(user);
+
+    RegularUser regUser = new RegularUser();
+    regUser.setAppUser(user);
+    regUser.setVerifiedCompany(false);
+    regularUserRepository.save(regUser);
+
+    Domain domain = new Domain();
+    domain.setName("Statements domain");
+    domainRepository.save(domain);
+
+    Topic topic = new Topic();
+    topic.setName("Statements topic");
+    topicRepository.save(topic);
+
+    Technology tech = new Technology();
+    tech.setName("Statements tech");
+    technologyRepository.save(tech);
+
+    int ideaCount = 10;
+    for (int i = 0; i < ideaCount; i++) {
+      URL iconUrl = new URL();
+      iconUrl.setURL("icon" + i);
+      iconUrl.setPresetIcon(false);
+      urlRepository.save(iconUrl);
+
+      URL supportingUrl = new URL();
+      supportingUrl.setURL("supporting" + i);
+      supportingUrl.setPresetIcon(false);
+      urlRepository.save(supportingUrl);
+
+      Idea idea = new Idea();
+      idea.setDate(new Date(i * 1000L));
+      idea.setTitle("idea " + i);
+      idea.setDescription("This is a test idea.");
+      idea.setPurpose("testing");
+      idea.setIconUrl(iconUrl);
+      idea.setSupportingImageUrls(new ArrayList<>(List.of(supportingUrl)));
+      idea.setDomains(new HashSet<>(Set.of(domain)));
+      idea.setTopics(new HashSet<>(Set.of(topic)));
+      idea.setTechs(new HashSet<>(Set.of(tech)));
+      idea.setUser(regUser);
+      ideaRepository.save(idea);
+    }
+
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.setStatisticsEnabled(true);
+    statistics.clear();
+
+    // Load the ideas and everything a listing displays in a fresh persistence context
+    List<IdeaDTO> ideas =
+        transactionTemplate.execute(
+            status ->
+                IdeaDTO.convertToDto(
+                    ideaRepository.findPublicIdeasByCriteria(
+                        false, List.of(), false, List.of(), false, List.of())));
+
+    long statementCount = statistics.getPrepareStatementCount();
+    statistics.setStatisticsEnabled(false);
+
+    assertEquals(ideaCount, ideas.size());
+    for (IdeaDTO idea : ideas) {
+      assertEquals(1, idea.getDomains().size());
+      assertEquals(1, idea.getTopics().size());
+      assertEquals(1, idea.getTechs().size());
+      assertEquals(1, idea.getImgUrls().size());
+      assertNotNull(idea.getIconUrl());
+    }
+
+    // 1 query for the ideas and their icons + 1 per collection (domains, topics, techs, images)
+    assertTrue(statementCount <= 5, "Listing ideas took " + statementCount + " statements");
+  }
+
+  /**
+   * Searching ideas matches the start of words in the title, purpose and description, ranks the
+   * title first and leaves out private ideas and the ideas that do not match the filters. The
+   * facet counts of the domains ignore the domain filter.
+   */
+  @Test
+  public void testSearchPublicIdeaIds() {
+
+    AppUser user = new AppUser();
+    user.setEmail("search@mail.purposeful.com");
+    user.setFirstname("Rob");
+    user.setLastname("Sab");
+    user.setPassword(passwordEncoder.encode("something"));
+    appUserRepository.save(user);
+
+    RegularUser regUser = new RegularUser();
+    regUser.setAppUser(user);
+    regUser.setVerifiedCompany(false);
+    regularUserRepository.save(regUser);
+
+    Domain domain = new Domain();
+    domain.setName("Search domain");
+    domainRepository.save(domain);
+
+    Idea inDescription = createSearchIdea("Rooftops", "energy", "Cover roofs with solar panels.");
+    Idea inTitle = createSearchIdea("Solar panels", "energy", "Cheaper electricity.");
+    Idea unrelated = createSearchIdea("Wind turbines", "energy", "Cheaper electricity.");
+    Idea hidden = createSearchIdea("Solar ovens", "cooking", "Cook with the sun.");
+    hidden.setPrivate(true);
+    for (Idea idea : List.of(inDescription, inTitle, unrelated, hidden)) {
+      idea.setDomains(new HashSet<>(Set.of(domain)));
+      idea.setUser(regUser);
+      ideaRepository.save(idea);
+    }
+
+    assertEquals(
+        List.of(inTitle.getId(), inDescription.getId()),
+        ideaRepository.searchPublicIdeaIds(
+            "sol:* & pan:*", false, List.of(""), false, List.of(""), false, List.of(""), 10, 0));
+    assertEquals(
+        List.of(inDescription.getId()),
+        ideaRepository.searchPublicIdeaIds(
+            "sol:*", false, List.of(""), false, List.of(""), false, List.of(""), 1, 1));
+    assertEquals(
+        List.of(),
+        ideaRepository.searchPublicIdeaIds(
+            "sol:*", true, List.of("Other domain"), false, List.of(""), false, List.of(""), 10, 0));
+
+    // The facets count the matching public ideas in one query
+    List<Object[]> facets =
+        ideaRepository.countPublicIdeasByFacet(
+            true, "sol:*", true, List.of("Other domain"), false, List.of(""), false, List.of(""));
+    assertEquals(1, facets.size());
+    assertEquals("domain", facets.get(0)[0]);
+    assertEquals("Search domain", facets.get(0)[1]);
+    assertEquals(2L, ((Number) facets.get(0)[2]).longValue());
+  }
+
+  /**
+   * Listing idea summaries selects only their columns, without loading any entity, and the names
+   * of their domains, topics and technologies take one more query for the whole list.
+   */
+  @Test
+  public void testListIdeaSummaries() {
+
+    AppUser user = new AppUser();
+    user.setEmail("summaries@mail.purposeful.com");
+    user.setFirstname("Rob");
+    user.setLastname("Sab");
+    user.setPassword(passwordEncoder.encode("something"));
+    appUserRepository.save(user);
+
+    RegularUser regUser = new RegularUser();
+    regUser.setAppUser(user);
+    regUser.setVerifiedCompany(false);
+    regularUserRepository.save(regUser);
+
+    Domain domain = new Domain();
+    domain.setName("Summaries domain");
+    domainRepository.save(domain);
+
+    Topic topic = new Topic();
+    topic.setName("Summaries topic");
+    topicRepository.save(topic);
+
+    Technology tech = new Technology();
+    tech.setName("Summaries tech");
+    technologyRepository.save(tech);
+
+    Idea older = createSearchIdea("Older", "testing", "This is a test idea.");
+    older.setDate(new Date(1000L));
+    Idea newer = createSearchIdea("Newer", "testing", "This is a test idea.");
+    newer.setDate(new Date(2000L));
+    for (Idea idea : List.of(older, newer)) {
+      idea.setDomains(new HashSet<>(Set.of(domain)));
+      idea.setTopics(new HashSet<>(Set.of(topic)));
+      idea.setTechs(new HashSet<>(Set.of(tech)));
+      idea.setUser(regUser);
+      ideaRepository.save(idea);
+    }
+
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.setStatisticsEnabled(true);
+    statistics.clear();
+
+    List<IdeaSummaryDTO> summaries =
+        ideaRepository.findIdeaSummariesByOwnerEmail(user.getEmail(), Pageable.unpaged());
+    List<Object[]> names =
+        ideaRepository.findTaxonomyNamesByIdeaIdIn(List.of(older.getId(), newer.getId()));
+
+    long statementCount = statistics.getPrepareStatementCount();
+    long entityLoadCount = statistics.getEntityLoadCount();
+    statistics.setStatisticsEnabled(false);
+
+    assertEquals(2, summaries.size());
+    assertEquals(newer.getId(), summaries.get(0).getId());
+    assertEquals("Newer", summaries.get(0).getTitle());
+    assertEquals("icon Newer", summaries.get(0).getIconUrl());
+    assertEquals(older.getId(), summaries.get(1).getId());
+    assertEquals(6, names.size());
+    assertEquals(2, statementCount);
+    assertEquals(0, entityLoadCount);
+  }
+
+  private static List<String> ids(List<Idea> ideas) {
+    List<String> ids = new ArrayList<>();
+    for (Idea idea : ideas) {
+      ids.add(idea.getId());
+    }
+    return ids;
+  }
+
+  private Idea createSearchIdea(String title, String purpose, String description) {
+    URL iconUrl = new URL();
+    iconUrl.setURL("icon " + title);
+    iconUrl.setPresetIcon(false);
+    urlRepository.save(iconUrl);
+
+    Idea idea = new Idea();
+    idea.setDate(Date.from(Instant.now()));
+    idea.setTitle(title);
+    idea.setPurpose(purpose);
+    idea.setDescription(description);
+    idea.setIconUrl(iconUrl);
+    return idea;
+  }
 }
@@ -7,6 +7,8 @@ import ca.mcgill.purposeful.model.*;
 import ca.mcgill.purposeful.util.DatabaseUtil;
 import java.time.Instant;
 import java.util.Date;
+import java.util.List;
+import java.util.Set;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -95,4 +97,59 @@ public class ReactionRepositoryTests {
     assertEquals(foundReaction.getDate().compareTo(reaction.getDate()), 0);
     assertEquals(foundReaction.getIdea().getId(), idea.getId());
   }
+
+  /** Test that only the ideas the user reacted to are found */
+  @Test
+  public void testFindReactedIdeaIds() {
+    URL url = new URL();
+    url.setURL("www.url.com");
+    urlRepository.save(url);
+
+    AppUser user = new AppUser();
+    user.setEmail("friend@gmail.com");
+    user.setFirstname("Rob");
+    user.setLastname("Sab");
+    user.setPassword("person");
+    appUserRepository.save(user);
+
+    RegularUser regUser = new RegularUser();
+    regUser.setAppUser(user);
+    regUser.setVerifiedCompany(false);
+    regularUserRepository.save(regUser);
+
+    Idea reactedIdea = createIdea("Brilliant Idea", url, regUser);
+    Idea otherIdea = createIdea("Other Idea", url, regUser);
+
+    Reaction reaction = new Reaction();
+    reaction.setReactionType(Reaction.ReactionType.HighFive);
+    reaction.setDate(Date.from(Instant.now()));
+    reaction.setIdea(reactedIdea);
+    reaction.setRegularUser(regUser);
+    reactionRepository.save(reaction);
+
+    Set<String> reacted =
+        reactionRepository.findReactedIdeaIds(
+            regUser.getId(), List.of(reactedIdea.getId(), otherIdea.getId()));
+
+    assertEquals(Set.of(reactedIdea.getId()), reacted);
+  }
+
+  /**
+   * Create and save an idea
+   *
+   * @param title The title of the idea
+   * @param url The icon of the idea
+   * @param regUser The owner of the idea
+   * @return The saved idea
+   */
+  private Idea createIdea(String title, URL url, RegularUser regUser) {
+    Idea idea = new Idea();
+    idea.setDate(Date.from(Instant.now()));
+    idea.setTitle(title);
+    idea.setPurpose("huge learning experience");
+    idea.setDescription("It's a good idea");
+    idea.setIconUrl(url);
+    idea.setUser(regUser);
+    return ideaRepository.save(idea);
+  }
 }
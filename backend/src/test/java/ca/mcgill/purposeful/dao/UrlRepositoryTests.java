@@ -2,14 +2,24 @@ package ca.mcgill.purposeful.dao;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
+import ca.mcgill.purposeful.model.AppUser;
+import ca.mcgill.purposeful.model.Idea;
+import ca.mcgill.purposeful.model.RegularUser;
 import ca.mcgill.purposeful.model.URL;
 import ca.mcgill.purposeful.util.DatabaseUtil;
+import ca.mcgill.purposeful.util.IconHash;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
 
 /**
  * To test the URL CRUD repository methods.
@@ -21,6 +31,14 @@ public class UrlRepositoryTests {
 
   @Autowired private URLRepository urlRepository;
 
+  @Autowired private IdeaRepository ideaRepository;
+
+  @Autowired private AppUserRepository appUserRepository;
+
+  @Autowired private RegularUserRepository regularUserRepository;
+
+  @Autowired private PasswordEncoder passwordEncoder;
+
   /** Clear the database before all tests */
   @BeforeAll
   public static void clearDatabaseBefore(@Autowired DatabaseUtil util) {
@@ -68,4 +86,75 @@ public class UrlRepositoryTests {
     assertEquals(str, url.getURL());
     assertEquals(id, url.getId());
   }
+
+  /** Only the URLs that are neither a preset icon nor linked to an idea are deleted */
+  @Test
+  public void testDeleteUnreferencedURLs() {
+    URL icon = createUrl("www.icon.com", false);
+    URL supportingImage = createUrl("www.image.com", false);
+    URL presetIcon = createUrl("www.preset.com", true);
+    URL orphan = createUrl("www.orphan.com", false);
+
+    AppUser user = new AppUser();
+    user.setEmail("reaper@mail.purposeful.com");
+    user.setFirstname("Rob");
+    user.setLastname("Sab");
+    user.setPassword(passwordEncoder.encode("something"));
+    appUserRepository.save(user);
+    RegularUser regUser = new RegularUser();
+    regUser.setAppUser(user);
+    regUser.setVerifiedCompany(false);
+    regularUserRepository.save(regUser);
+
+    Idea idea = new Idea();
+    idea.setDate(Date.from(Instant.now()));
+    idea.setTitle("my idea");
+    idea.setDescription("This is a test idea.");
+    idea.setPurpose("testing");
+    idea.setIconUrl(icon);
+    idea.setSupportingImageUrls(List.of(supportingImage));
+    idea.setUser(regUser);
+    ideaRepository.save(idea);
+
+    assertEquals(1, urlRepository.deleteUnreferencedURLs());
+
+    assertNull(urlRepository.findURLById(orphan.getId()));
+    assertNotNull(urlRepository.findURLById(icon.getId()));
+    assertNotNull(urlRepository.findURLById(supportingImage.getId()));
+    assertNotNull(urlRepository.findURLById(presetIcon.getId()));
+  }
+
+  /** An icon is only inserted once per hash, the icon inserted first is kept */
+  @Test
+  public void testInsertIconIfAbsent() {
+    String iconHash = IconHash.of("https://icons.com/icon.png");
+    String firstId = UUID.randomUUID().toString();
+
+    assertEquals(
+        1, urlRepository.insertIconIfAbsent(firstId, "https://icons.com/icon.png", iconHash));
+    assertEquals(
+        0,
+        urlRepository.insertIconIfAbsent(
+            UUID.randomUUID().toString(), "HTTPS://icons.com/icon.png", iconHash));
+
+    URL icon = urlRepository.findURLByIconHash(iconHash);
+    assertNotNull(icon);
+    assertEquals(firstId, icon.getId());
+    assertEquals("https://icons.com/icon.png", icon.getURL());
+  }
+
+  /**
+   * Create a URL and save it
+   *
+   * @param str the URL
+   * @param presetIcon whether it is a preset icon
+   * @return the saved URL
+   */
+  private URL createUrl(String str, boolean presetIcon) {
+    URL url = new URL();
+    url.setURL(str);
+    url.setPresetIcon(presetIcon);
+    urlRepository.save(url);
+    return url;
+  }
 }
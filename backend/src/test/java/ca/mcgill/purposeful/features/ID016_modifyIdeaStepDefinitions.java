@@ -149,19 +149,19 @@ public class ID016_modifyIdeaStepDefinitions {
     if (field.equalsIgnoreCase("domains")) {
       domainIds = new ArrayList<>();
       for (String single_id : List.of(new_value.split(","))) {
-        domainIds.add(idMap.get(single_id));
+        domainIds.add(idMap.getOrDefault(single_id, single_id));
       }
     }
     if (field.equalsIgnoreCase("topics")) {
       topicIds = new ArrayList<>();
       for (String single_id : List.of(new_value.split(","))) {
-        topicIds.add(idMap.get(single_id));
+        topicIds.add(idMap.getOrDefault(single_id, single_id));
       }
     }
     if (field.equalsIgnoreCase("techs")) {
       techIds = new ArrayList<>();
       for (String single_id : List.of(new_value.split(","))) {
-        techIds.add(idMap.get(single_id));
+        techIds.add(idMap.getOrDefault(single_id, single_id));
       }
     }
     if (field.equalsIgnoreCase("image URLs")) {
@@ -4,6 +4,9 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import ca.mcgill.purposeful.configuration.Authority;
 import ca.mcgill.purposeful.dao.AppUserRepository;
@@ -12,6 +15,7 @@ import ca.mcgill.purposeful.dao.RegularUserRepository;
 import ca.mcgill.purposeful.model.AppUser;
 import ca.mcgill.purposeful.model.Moderator;
 import ca.mcgill.purposeful.model.RegularUser;
+import ca.mcgill.purposeful.model.SecurityUser;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -20,6 +24,8 @@ import org.mockito.Mock;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.stubbing.Answer;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 /** This class tests the AppUser service */
@@ -872,4 +878,28 @@ public class TestAppUserService {
     }
     fail();
   }
+
+  /** Method to check that a password hashed again on login replaces the stored one */
+  @Test
+  public void testUpdatePassword_Success() {
+    UserDetails user = appUserService.loadUserByUsername(VALID_REGULARUSER_EMAIL_TWO);
+
+    UserDetails updated = appUserService.updatePassword(user, VALID_PASSWORD_ENCODED);
+
+    assertEquals(VALID_REGULARUSER_EMAIL_TWO, updated.getUsername());
+    assertEquals(VALID_PASSWORD_ENCODED, updated.getPassword());
+    verify(appUserRepository, times(1)).save(any(AppUser.class));
+  }
+
+  /** Method to check that the password of a deleted user is not hashed again */
+  @Test
+  public void testUpdatePassword_NotInDB() {
+    AppUser appUser = new AppUser();
+    appUser.setEmail("unregisteredemail@gmail.com");
+
+    assertThrows(
+        UsernameNotFoundException.class,
+        () -> appUserService.updatePassword(new SecurityUser(appUser), VALID_PASSWORD_ENCODED));
+    verify(appUserRepository, never()).save(any(AppUser.class));
+  }
 }
@@ -5,7 +5,10 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import ca.mcgill.purposeful.dao.CollaborationRequestRepository;
 import ca.mcgill.purposeful.dao.RegularUserRepository;
@@ -17,6 +20,7 @@ import ca.mcgill.purposeful.model.Idea;
 import ca.mcgill.purposeful.model.RegularUser;
 import ca.mcgill.purposeful.model.Technology;
 import ca.mcgill.purposeful.model.Topic;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
@@ -24,10 +28,12 @@ import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 
 /**
@@ -41,6 +47,7 @@ public class TestCollaborationRequestService {
   @Mock private CollaborationRequestRepository collaborationRequestRepository;
   @Mock private RegularUserRepository regularUserRepository;
   @Mock private IdeaService ideaService;
+  @Mock private ApplicationEventPublisher eventPublisher;
   @InjectMocks private CollaborationRequestService collaborationRequestService;
 
   // Set the mock output of each function in the repository
@@ -82,6 +89,15 @@ public class TestCollaborationRequestService {
       assertEquals(collabReq.getIdea().getId(), MockDatabase.idea1.getId());
       assertEquals(collabReq.getMessage(), "Test message");
       assertEquals(collabReq.getAdditionalContact(), "Test additional contact");
+      assertNotNull(collabReq.getDate());
+      List<TrendingActivityEvent> activity = publishedActivity();
+      assertEquals(1, activity.size());
+      assertActivity(
+          TrendingActivityEvent.Kind.COLLABORATION_REQUEST,
+          MockDatabase.idea1.getId(),
+          collabReq.getDate(),
+          activity.get(0));
+      verify(eventPublisher, times(1)).publishEvent(any(InterestsChangedEvent.class));
 
     } catch (GlobalException e) {
       fail(); // Shouldn't get here
@@ -190,6 +206,38 @@ public class TestCollaborationRequestService {
     }
   }
 
+  /**
+   * Get the trending activity published by the service, in order
+   *
+   * @return the published trending activity events
+   */
+  private List<TrendingActivityEvent> publishedActivity() {
+    ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+    verify(eventPublisher, atLeast(0)).publishEvent(events.capture());
+    List<TrendingActivityEvent> activity = new ArrayList<>();
+    for (Object event : events.getAllValues()) {
+      if (event instanceof TrendingActivityEvent) {
+        activity.add((TrendingActivityEvent) event);
+      }
+    }
+    return activity;
+  }
+
+  /**
+   * Assert that a trending activity event describes an activity
+   *
+   * @param kind the expected kind of activity
+   * @param ideaId the expected id of the idea
+   * @param date the expected date of the activity
+   * @param activity the event
+   */
+  private static void assertActivity(
+      TrendingActivityEvent.Kind kind, String ideaId, Date date, TrendingActivityEvent activity) {
+    assertEquals(kind, activity.getKind());
+    assertEquals(ideaId, activity.getIdeaId());
+    assertEquals(date, activity.getDate());
+  }
+
   /** This class holds all of the mock objects of the database */
   static final class MockDatabase {
 
@@ -0,0 +1,203 @@
+package ca.mcgill.purposeful.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import ca.mcgill.purposeful.dao.DomainRepository;
+import ca.mcgill.purposeful.exception.GlobalException;
+import ca.mcgill.purposeful.model.Domain;
+import ca.mcgill.purposeful.util.ReferenceListCache;
+import jakarta.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/** To test the cached list of domains */
+@ExtendWith(MockitoExtension.class)
+public class TestDomainService {
+
+  @Mock private DomainRepository domainRepository;
+
+  @Mock private EntityManager entityManager;
+
+  @InjectMocks private DomainService domainService;
+
+  // The domains in the mock database
+  private final List<Domain> domains = new ArrayList<>();
+
+  // Set the mock output of each function in the repository
+  @BeforeEach
+  public void setMockOutput() {
+    domainService.cacheTimeToLiveSeconds = 300;
+    domains.add(createDomain("Finance"));
+    domains.add(createDomain("Health"));
+    lenient().when(domainRepository.findAll()).thenAnswer(invocation -> new ArrayList<>(domains));
+    lenient().when(domainRepository.findDomainById(anyString())).thenAnswer(this::findDomainById);
+    lenient()
+        .when(entityManager.getReference(eq(Domain.class), anyString()))
+        .thenAnswer(TestDomainService::getReference);
+  }
+
+  /** Test that the list is loaded once, then served from memory */
+  @Test
+  public void testGetAllDomains_Cached() {
+    assertEquals(2, domainService.getAllDomains().size());
+    assertEquals(2, domainService.getAllDomains().size());
+    String id = domains.get(0).getId();
+    assertEquals(id, domainService.getDomainById(id).getId());
+
+    verify(domainRepository, times(1)).findAll();
+    verify(domainRepository, never()).findDomainById(anyString());
+    verify(entityManager, times(1)).getReference(Domain.class, id);
+  }
+
+  /** Test that the cached domains are never handed out, so they cannot be shared or attached */
+  @Test
+  public void testGetAllDomains_Copies() {
+    Domain first = domainService.getAllDomains().get(0);
+
+    assertNotSame(domains.get(0), first);
+    assertNotSame(first, domainService.getAllDomains().get(0));
+    assertNotSame(first, domainService.getDomainList().getById(first.getId()));
+    assertEquals(domains.get(0).getName(), first.getName());
+
+    // Changing a copy does not change the cached list
+    first.setName("Changed");
+    assertEquals(domains.get(0).getName(), domainService.getAllDomains().get(0).getName());
+  }
+
+  /** Test that invalidating the cache loads the list again and changes its ETag */
+  @Test
+  public void testInvalidateDomains() {
+    ReferenceListCache.Snapshot<Domain> before = domainService.getDomainList();
+
+    domains.add(createDomain("Education"));
+    domainService.invalidateDomains();
+    ReferenceListCache.Snapshot<Domain> after = domainService.getDomainList();
+
+    assertEquals(3, after.getItems().size());
+    assertNotEquals(before.getETag(), after.getETag());
+    verify(domainRepository, times(2)).findAll();
+  }
+
+  /** Test that reloading an unchanged list keeps its ETag and last modification date */
+  @Test
+  public void testGetDomainList_UnchangedValidators() {
+    ReferenceListCache.Snapshot<Domain> before = domainService.getDomainList();
+
+    domainService.invalidateDomains();
+    ReferenceListCache.Snapshot<Domain> after = domainService.getDomainList();
+
+    assertEquals(before.getETag(), after.getETag());
+    assertEquals(before.getLastModified(), after.getLastModified());
+  }
+
+  /** Test that a domain created after the list was loaded is still found */
+  @Test
+  public void testGetDomainById_CreatedAfterLoad() {
+    domainService.getAllDomains();
+    Domain created = createDomain("Education");
+    domains.add(created);
+
+    assertEquals(created, domainService.getDomainById(created.getId()));
+    assertNull(domainService.getDomainById(UUID.randomUUID().toString()));
+  }
+
+  /**
+   * Test that the domains starting with a prefix come first, then those with a word starting with
+   * it, ignoring case and accents
+   */
+  @Test
+  public void testAutocompleteDomains() {
+    Domain healthcare = createDomain("Healthcare");
+    Domain mentalHealth = createDomain("Mental health");
+    Domain energy = createDomain("\u00c9nergie renouvelable");
+    domains.addAll(List.of(healthcare, mentalHealth, energy));
+
+    assertEquals(
+        names(domains.get(1), healthcare, mentalHealth),
+        names(domainService.autocompleteDomains("HEAL", 10)));
+    assertEquals(names(domains.get(1)), names(domainService.autocompleteDomains("heal", 1)));
+    assertEquals(names(energy), names(domainService.autocompleteDomains("energ", 10)));
+    assertEquals(names(energy), names(domainService.autocompleteDomains("renouv", 10)));
+    assertEquals(List.of(), domainService.autocompleteDomains("sport", 10));
+
+    // Served from the cached list
+    verify(domainRepository, times(1)).findAll();
+  }
+
+  /** Test that an autocompletion cannot return too many domains */
+  @Test
+  public void testAutocompleteDomains_InvalidLimit() {
+    GlobalException e =
+        assertThrows(GlobalException.class, () -> domainService.autocompleteDomains("a", 51));
+    assertEquals("The number of domains must be between 1 and 50.", e.getMessage());
+    assertThrows(GlobalException.class, () -> domainService.autocompleteDomains("a", 0));
+  }
+
+  /**
+   * Create a domain with a random id
+   *
+   * @param name The name of the domain
+   * @return The domain
+   */
+  private static Domain createDomain(String name) {
+    Domain domain = new Domain();
+    domain.setId(UUID.randomUUID().toString());
+    domain.setName(name);
+    return domain;
+  }
+
+  /**
+   * Get the names of domains
+   *
+   * @param domains The domains
+   * @return The names of the domains, in order
+   */
+  private static List<String> names(Domain... domains) {
+    return names(List.of(domains));
+  }
+
+  /**
+   * Get the names of domains
+   *
+   * @param domains The domains
+   * @return The names of the domains, in order
+   */
+  private static List<String> names(List<Domain> domains) {
+    List<String> names = new ArrayList<>();
+    for (Domain domain : domains) {
+      names.add(domain.getName());
+    }
+    return names;
+  }
+
+  private static Domain getReference(InvocationOnMock invocation) {
+    Domain reference = new Domain();
+    reference.setId(invocation.getArgument(1));
+    return reference;
+  }
+
+  private Domain findDomainById(InvocationOnMock invocation) {
+    String id = invocation.getArgument(0);
+    for (Domain domain : domains) {
+      if (domain.getId().equals(id)) {
+        return domain;
+      }
+    }
+    return null;
+  }
+}
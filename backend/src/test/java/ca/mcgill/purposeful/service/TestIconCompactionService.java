@@ -0,0 +1,97 @@
+package ca.mcgill.purposeful.service;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import ca.mcgill.purposeful.dao.IdeaRepository;
+import ca.mcgill.purposeful.dao.URLRepository;
+import ca.mcgill.purposeful.model.URL;
+import ca.mcgill.purposeful.util.IconHash;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/** To test the merging of the icons stored more than once */
+@ExtendWith(MockitoExtension.class)
+public class TestIconCompactionService {
+
+  @Mock private URLRepository urlRepository;
+
+  @Mock private IdeaRepository ideaRepository;
+
+  @InjectMocks private IconCompactionService iconCompactionService;
+
+  /** Test that icons with the same normalized URL are merged into the first one */
+  @Test
+  public void testCompactIcons_MergesDuplicates() {
+    URL first = createIcon("https://icons.com/a.png", false);
+    URL duplicate = createIcon("HTTPS://ICONS.com/a.png", true);
+    URL other = createIcon("https://icons.com/b.png", false);
+    when(urlRepository.findIconsWithoutHash()).thenReturn(List.of(first, duplicate, other));
+    when(urlRepository.findURLsByIconHashIn(any())).thenReturn(List.of());
+
+    iconCompactionService.compactIcons();
+
+    // Changed with statements only, the loaded icons are left as they are
+    assertNull(first.getIconHash());
+    verify(urlRepository, times(1))
+        .updateIcon(first.getId(), IconHash.of("https://icons.com/a.png"), true);
+    verify(urlRepository, times(1))
+        .updateIcon(other.getId(), IconHash.of("https://icons.com/b.png"), false);
+    verify(ideaRepository, times(1)).replaceIcons(first, List.of(duplicate));
+    verify(urlRepository, times(1)).deleteURLsByIdIn(List.of(duplicate.getId()));
+    verify(urlRepository, never()).deleteAll(any());
+  }
+
+  /** Test that an icon that already has its hash is kept over the ones without one */
+  @Test
+  public void testCompactIcons_KeepsHashedIcon() {
+    URL hashed = createIcon("https://icons.com/a.png", false);
+    hashed.setIconHash(IconHash.of(hashed.getURL()));
+    URL old = createIcon("https://icons.com/a.png", false);
+    when(urlRepository.findIconsWithoutHash()).thenReturn(List.of(old));
+    when(urlRepository.findURLsByIconHashIn(any())).thenReturn(List.of(hashed));
+
+    iconCompactionService.compactIcons();
+
+    verify(urlRepository, times(1)).updateIcon(hashed.getId(), hashed.getIconHash(), false);
+    verify(urlRepository, never()).updateIcon(eq(old.getId()), anyString(), anyBoolean());
+    verify(ideaRepository, times(1)).replaceIcons(hashed, List.of(old));
+    verify(urlRepository, times(1)).deleteURLsByIdIn(List.of(old.getId()));
+  }
+
+  /** Test that nothing happens once every icon has its hash */
+  @Test
+  public void testCompactIcons_NothingToDo() {
+    when(urlRepository.findIconsWithoutHash()).thenReturn(List.of());
+
+    iconCompactionService.compactIcons();
+
+    verify(urlRepository, never()).updateIcon(anyString(), anyString(), anyBoolean());
+    verify(ideaRepository, never()).replaceIcons(any(), any());
+    verify(urlRepository, never()).deleteURLsByIdIn(any());
+  }
+
+  /**
+   * Create an icon without a hash
+   *
+   * @param url The URL of the icon
+   * @param presetIcon Whether it is a preset icon
+   * @return The icon
+   */
+  private static URL createIcon(String url, boolean presetIcon) {
+    URL icon = new URL();
+    icon.setId(UUID.randomUUID().toString());
+    icon.setURL(url);
+    icon.setPresetIcon(presetIcon);
+    return icon;
+  }
+}
@@ -0,0 +1,430 @@
+package ca.mcgill.purposeful.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import ca.mcgill.purposeful.dao.IdeaRepository;
+import ca.mcgill.purposeful.dao.RegularUserRepository;
+import ca.mcgill.purposeful.dao.URLRepository;
+import ca.mcgill.purposeful.dto.IdeaImportResultDTO;
+import ca.mcgill.purposeful.dto.IdeaRequestDTO;
+import ca.mcgill.purposeful.exception.GlobalException;
+import ca.mcgill.purposeful.model.*;
+import ca.mcgill.purposeful.util.IconHash;
+import java.util.*;
+import java.util.function.Function;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/** To test the bulk creation of ideas */
+@ExtendWith(MockitoExtension.class)
+public class TestIdeaImportService {
+
+  // Mocks
+  @Mock private IdeaRepository ideaRepository;
+
+  @Mock private URLRepository urlRepository;
+
+  @Mock private RegularUserRepository regularUserRepository;
+
+  @Mock private DomainService domainService;
+
+  @Mock private TopicService topicService;
+
+  @Mock private TechnologyService technologyService;
+
+  @Mock private PlatformTransactionManager transactionManager;
+
+  @Mock private ApplicationEventPublisher eventPublisher;
+
+  // Inject mocks
+  @InjectMocks private IdeaImportService ideaImportService;
+
+  // Set the mock output of each function in the repository
+  @BeforeEach
+  public void setMockOutput() {
+    MockRepository.savedUrls.clear();
+    MockRepository.savedIdeas.clear();
+    MockRepository.icons.clear();
+    MockRepository.icons.put(MockDatabase.icon.getIconHash(), MockDatabase.icon);
+    lenient()
+        .when(regularUserRepository.findRegularUserByAppUserEmail(anyString()))
+        .thenAnswer(MockRepository::findRegularUserByAppUserEmail);
+    lenient()
+        .when(domainService.getDomainsByIds(any()))
+        .thenAnswer(invocation -> MockRepository.findAllById(invocation, MockDatabase.domains));
+    lenient()
+        .when(topicService.getTopicsByIds(any()))
+        .thenAnswer(invocation -> MockRepository.findAllById(invocation, MockDatabase.topics));
+    lenient()
+        .when(technologyService.getTechsByIds(any()))
+        .thenAnswer(invocation -> MockRepository.findAllById(invocation, MockDatabase.techs));
+    lenient()
+        .when(urlRepository.findURLsByIconHashIn(any()))
+        .thenAnswer(MockRepository::findURLsByIconHashIn);
+    lenient()
+        .when(urlRepository.insertIconIfAbsent(anyString(), anyString(), anyString()))
+        .thenAnswer(MockRepository::insertIconIfAbsent);
+    lenient().when(urlRepository.saveAll(any())).thenAnswer(MockRepository::saveAllUrls);
+    lenient().when(ideaRepository.saveAll(any())).thenAnswer(MockRepository::saveAllIdeas);
+  }
+
+  /** Test that valid ideas are all created, reusing the existing icon */
+  @Test
+  public void testImportIdeas_Success() {
+    long start = System.currentTimeMillis();
+    List<IdeaRequestDTO> ideaDTOs = List.of(createIdeaDTO("First"), createIdeaDTO("Second"));
+
+    List<IdeaImportResultDTO> results =
+        ideaImportService.importIdeas(ideaDTOs.iterator(), MockDatabase.EMAIL);
+
+    assertEquals(2, results.size());
+    for (int i = 0; i < results.size(); i++) {
+      assertEquals(i, results.get(i).getIndex());
+      assertNotNull(results.get(i).getIdeaId());
+      assertNull(results.get(i).getError());
+    }
+    verify(urlRepository, times(1)).findURLsByIconHashIn(any());
+    verify(urlRepository, never()).insertIconIfAbsent(anyString(), anyString(), anyString());
+    verify(ideaRepository, times(1)).saveAll(any());
+
+    // Only the supporting images are new, the icon already exists
+    @SuppressWarnings("unchecked")
+    List<URL> savedUrls = (List<URL>) MockRepository.savedUrls.get(0);
+    assertEquals(2, savedUrls.size());
+    @SuppressWarnings("unchecked")
+    List<Idea> savedIdeas = (List<Idea>) MockRepository.savedIdeas.get(0);
+    assertEquals(MockDatabase.icon, savedIdeas.get(0).getIconUrl());
+    assertEquals(MockDatabase.user, savedIdeas.get(0).getUser());
+    assertEquals(Set.of(MockDatabase.domain), savedIdeas.get(0).getDomains());
+
+    // Dated by the server, not with the date that was sent
+    assertTrue(savedIdeas.get(0).getDate().getTime() >= start);
+  }
+
+  /** Test that a new icon is inserted once for all the ideas of the chunk that use it */
+  @Test
+  public void testImportIdeas_NewIcon() {
+    List<IdeaRequestDTO> ideaDTOs =
+        List.of(
+            createIdeaDTO("First", "https://Example.com/new.png"),
+            createIdeaDTO("Second", "https://example.com:443/new.png"));
+
+    List<IdeaImportResultDTO> results =
+        ideaImportService.importIdeas(ideaDTOs.iterator(), MockDatabase.EMAIL);
+
+    assertNotNull(results.get(0).getIdeaId());
+    assertNotNull(results.get(1).getIdeaId());
+    verify(urlRepository, times(1)).insertIconIfAbsent(anyString(), anyString(), anyString());
+    @SuppressWarnings("unchecked")
+    List<Idea> savedIdeas = (List<Idea>) MockRepository.savedIdeas.get(0);
+    URL savedIcon = MockRepository.icons.get(IconHash.of("https://example.com/new.png"));
+    assertNotNull(savedIcon);
+    assertEquals(savedIcon, savedIdeas.get(0).getIconUrl());
+    assertEquals(savedIcon, savedIdeas.get(1).getIconUrl());
+  }
+
+  /** Test that invalid ideas are reported without stopping the valid ones */
+  @Test
+  public void testImportIdeas_InvalidIdeas() {
+    IdeaRequestDTO noDomain =
+        createIdeaDTO(
+            "No domain",
+            List.of(),
+            List.of(MockDatabase.topic.getId()),
+            MockDatabase.icon.getURL());
+    IdeaRequestDTO unknownTopic =
+        createIdeaDTO(
+            "Unknown topic",
+            List.of(MockDatabase.domain.getId()),
+            List.of("Unknown"),
+            MockDatabase.icon.getURL());
+    IdeaRequestDTO noTitle = createIdeaDTO(null);
+    List<IdeaRequestDTO> ideaDTOs =
+        List.of(noDomain, createIdeaDTO("Valid"), unknownTopic, noTitle);
+
+    List<IdeaImportResultDTO> results =
+        ideaImportService.importIdeas(ideaDTOs.iterator(), MockDatabase.EMAIL);
+
+    assertEquals(4, results.size());
+    assertEquals("You must specify at least 1 domain", results.get(0).getError());
+    assertNotNull(results.get(1).getIdeaId());
+    assertEquals(
+        "You are attempting to link your idea to an object that does not exist (topics: Unknown)",
+        results.get(2).getError());
+    assertEquals("Necessary fields have been left empty", results.get(3).getError());
+    assertNull(results.get(3).getIdeaId());
+
+    // Only the URL of the valid idea is saved
+    assertEquals(1, MockRepository.savedUrls.get(0).size());
+  }
+
+  /** Test that ideas are saved in chunks, keeping their index */
+  @Test
+  public void testImportIdeas_Chunks() {
+    List<IdeaRequestDTO> ideaDTOs = new ArrayList<>();
+    for (int i = 0; i < IdeaImportService.CHUNK_SIZE * 2 + 1; i++) {
+      ideaDTOs.add(createIdeaDTO("Idea " + i));
+    }
+
+    List<IdeaImportResultDTO> results =
+        ideaImportService.importIdeas(ideaDTOs.iterator(), MockDatabase.EMAIL);
+
+    assertEquals(ideaDTOs.size(), results.size());
+    assertEquals(ideaDTOs.size() - 1, results.get(ideaDTOs.size() - 1).getIndex());
+    verify(ideaRepository, times(3)).saveAll(any());
+    verify(domainService, times(3)).getDomainsByIds(any());
+    assertEquals(1, MockRepository.savedIdeas.get(2).size());
+  }
+
+  /** Test that an idea that cannot be read is reported, and the ideas after it are created */
+  @Test
+  public void testImportIdeas_UnreadableIdea() {
+    Iterator<IdeaRequestDTO> ideaDTOs =
+        new Iterator<>() {
+          private int read = 0;
+
+          @Override
+          public boolean hasNext() {
+            return read < 3;
+          }
+
+          @Override
+          public IdeaRequestDTO next() {
+            if (++read == 2) {
+              throw new IllegalStateException("Malformed idea");
+            }
+            return createIdeaDTO("Readable " + read);
+          }
+        };
+
+    List<IdeaImportResultDTO> results = ideaImportService.importIdeas(ideaDTOs, MockDatabase.EMAIL);
+
+    assertEquals(3, results.size());
+    assertNotNull(results.get(0).getIdeaId());
+    assertEquals(1, results.get(1).getIndex());
+    assertEquals("The idea could not be read", results.get(1).getError());
+    assertNull(results.get(1).getIdeaId());
+    assertNotNull(results.get(2).getIdeaId());
+    assertEquals(2, MockRepository.savedIdeas.get(0).size());
+  }
+
+  /** Test that the ideas read before the reader fails for good are still created */
+  @Test
+  public void testImportIdeas_Unreadable() {
+    Iterator<IdeaRequestDTO> ideaDTOs =
+        new Iterator<>() {
+          private boolean read = false;
+
+          @Override
+          public boolean hasNext() {
+            return true;
+          }
+
+          @Override
+          public IdeaRequestDTO next() {
+            if (read) {
+              throw new IllegalStateException("Malformed idea");
+            }
+            read = true;
+            return createIdeaDTO("Readable");
+          }
+        };
+
+    List<IdeaImportResultDTO> results = ideaImportService.importIdeas(ideaDTOs, MockDatabase.EMAIL);
+
+    int unreadable = IdeaImportService.MAX_UNREADABLE_IN_A_ROW;
+    assertEquals(unreadable + 2, results.size());
+    assertNotNull(results.get(0).getIdeaId());
+    for (int i = 1; i <= unreadable; i++) {
+      assertEquals(i, results.get(i).getIndex());
+      assertEquals("The idea could not be read", results.get(i).getError());
+    }
+    assertEquals(unreadable + 1, results.get(unreadable + 1).getIndex());
+    assertEquals(
+        "The rest of the ideas could not be read", results.get(unreadable + 1).getError());
+  }
+
+  /** Test that no idea is created for a user that does not exist */
+  @Test
+  public void testImportIdeas_NonExistentUser() {
+    GlobalException e =
+        assertThrows(
+            GlobalException.class,
+            () ->
+                ideaImportService.importIdeas(
+                    List.of(createIdeaDTO("Idea")).iterator(), "nobody@gmail.com"));
+    assertEquals("This account does not exist.", e.getMessage());
+    verify(ideaRepository, never()).saveAll(any());
+  }
+
+  /**
+   * Create a valid idea to import, with the existing icon and one supporting image
+   *
+   * @param title The title of the idea
+   * @return The idea
+   */
+  private static IdeaRequestDTO createIdeaDTO(String title) {
+    return createIdeaDTO(
+        title,
+        List.of(MockDatabase.domain.getId()),
+        List.of(MockDatabase.topic.getId()),
+        MockDatabase.icon.getURL());
+  }
+
+  /**
+   * Create a valid idea to import, with the given icon and one supporting image
+   *
+   * @param title The title of the idea
+   * @param iconUrl The icon of the idea
+   * @return The idea
+   */
+  private static IdeaRequestDTO createIdeaDTO(String title, String iconUrl) {
+    return createIdeaDTO(
+        title, List.of(MockDatabase.domain.getId()), List.of(MockDatabase.topic.getId()), iconUrl);
+  }
+
+  /**
+   * Create an idea to import, with one supporting image, dated long ago
+   *
+   * @param title The title of the idea
+   * @param domainIds The domains of the idea
+   * @param topicIds The topics of the idea
+   * @param iconUrl The icon of the idea
+   * @return The idea
+   */
+  private static IdeaRequestDTO createIdeaDTO(
+      String title, List<String> domainIds, List<String> topicIds, String iconUrl) {
+    return new IdeaRequestDTO(
+        null,
+        title,
+        "Purpose",
+        "Description",
+        new Date(0),
+        false,
+        false,
+        false,
+        domainIds,
+        List.of(MockDatabase.tech.getId()),
+        topicIds,
+        List.of("image.png"),
+        iconUrl);
+  }
+
+  /** This class mocks the repositories and services */
+  static final class MockRepository {
+
+    // The lists given to each call of saveAll
+    static List<List<?>> savedUrls = new ArrayList<>();
+    static List<List<?>> savedIdeas = new ArrayList<>();
+
+    // The icons in the database by hash
+    static Map<String, URL> icons = new HashMap<>();
+
+    static RegularUser findRegularUserByAppUserEmail(InvocationOnMock invocation) {
+      String email = invocation.getArgument(0);
+      return MockDatabase.EMAIL.equals(email) ? MockDatabase.user : null;
+    }
+
+    static <T> List<T> findAllById(InvocationOnMock invocation, Map<String, T> objectsById) {
+      Collection<String> ids = invocation.getArgument(0);
+      List<T> found = new ArrayList<>();
+      for (String id : ids) {
+        if (objectsById.containsKey(id)) {
+          found.add(objectsById.get(id));
+        }
+      }
+      return found;
+    }
+
+    static List<URL> findURLsByIconHashIn(InvocationOnMock invocation) {
+      Collection<String> iconHashes = invocation.getArgument(0);
+      List<URL> found = new ArrayList<>();
+      for (String iconHash : iconHashes) {
+        if (icons.containsKey(iconHash)) {
+          found.add(icons.get(iconHash));
+        }
+      }
+      return found;
+    }
+
+    static int insertIconIfAbsent(InvocationOnMock invocation) {
+      String iconHash = invocation.getArgument(2);
+      if (icons.containsKey(iconHash)) {
+        return 0;
+      }
+      URL icon = new URL();
+      icon.setId(invocation.getArgument(0));
+      icon.setURL(invocation.getArgument(1));
+      icon.setIconHash(iconHash);
+      icons.put(iconHash, icon);
+      return 1;
+    }
+
+    static List<URL> saveAllUrls(InvocationOnMock invocation) {
+      List<URL> urls = new ArrayList<>(invocation.<Collection<URL>>getArgument(0));
+      urls.forEach(url -> url.setId(UUID.randomUUID().toString()));
+      savedUrls.add(urls);
+      return urls;
+    }
+
+    static List<Idea> saveAllIdeas(InvocationOnMock invocation) {
+      List<Idea> ideas = new ArrayList<>(invocation.<Collection<Idea>>getArgument(0));
+      ideas.forEach(idea -> idea.setId(UUID.randomUUID().toString()));
+      savedIdeas.add(ideas);
+      return ideas;
+    }
+  }
+
+  /** This class holds all of the mock objects of the database */
+  static final class MockDatabase {
+
+    static final String EMAIL = "importer@gmail.com";
+
+    static RegularUser user = new RegularUser();
+    static Domain domain = new Domain();
+    static Topic topic = new Topic();
+    static Technology tech = new Technology();
+    static URL icon = new URL();
+
+    static Map<String, Domain> domains;
+    static Map<String, Topic> topics;
+    static Map<String, Technology> techs;
+
+    static {
+      user.setId(UUID.randomUUID().toString());
+      domain.setId(UUID.randomUUID().toString());
+      domain.setName("Finance");
+      topic.setId(UUID.randomUUID().toString());
+      topic.setName("Music");
+      tech.setId(UUID.randomUUID().toString());
+      tech.setName("Java");
+      icon.setId(UUID.randomUUID().toString());
+      icon.setURL("icon.png");
+      icon.setIconHash(IconHash.of(icon.getURL()));
+
+      domains = byId(List.of(domain), Domain::getId);
+      topics = byId(List.of(topic), Topic::getId);
+      techs = byId(List.of(tech), Technology::getId);
+    }
+
+    static <T> Map<String, T> byId(List<T> objects, Function<T, String> idOf) {
+      Map<String, T> objectsById = new HashMap<>();
+      objects.forEach(object -> objectsById.put(idOf.apply(object), object));
+      return objectsById;
+    }
+  }
+}
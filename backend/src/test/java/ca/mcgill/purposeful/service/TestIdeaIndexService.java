@@ -0,0 +1,252 @@
+package ca.mcgill.purposeful.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.*;
+
+import ca.mcgill.purposeful.dao.IdeaRepository;
+import ca.mcgill.purposeful.dto.FacetCountsDTO;
+import ca.mcgill.purposeful.model.Domain;
+import ca.mcgill.purposeful.model.Idea;
+import ca.mcgill.purposeful.model.Technology;
+import ca.mcgill.purposeful.model.Topic;
+import ca.mcgill.purposeful.util.IdeaCursor;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/** To test the in memory idea index */
+@ExtendWith(MockitoExtension.class)
+public class TestIdeaIndexService {
+
+  @Mock private IdeaRepository ideaRepository;
+
+  @InjectMocks private IdeaIndexService ideaIndexService;
+
+  // Set the mock output of each function in the repository, then build the index
+  @BeforeEach
+  public void setMockOutput() {
+    lenient()
+        .when(
+            ideaRepository.findPublicIdeasByCriteria(
+                anyBoolean(), any(), anyBoolean(), any(), anyBoolean(), any()))
+        .thenAnswer(MockRepository::findPublicIdeasByCriteria);
+    ideaIndexService.rebuild();
+  }
+
+  /** Test that all the public ideas are returned from newest to oldest when there is no filter */
+  @Test
+  public void testFindPageIds_NoFilter() {
+    assertTrue(ideaIndexService.isReady());
+
+    List<String> ids = ideaIndexService.findPageIds(null, null, null, null, 10);
+
+    assertEquals(
+        List.of(MockDatabase.idea3.getId(), MockDatabase.idea2.getId(), MockDatabase.idea1.getId()),
+        ids);
+  }
+
+  /** Test that a filter keeps the ideas having any of its names, and filters are combined */
+  @Test
+  public void testFindPageIds_Filters() {
+    List<String> ids =
+        ideaIndexService.findPageIds(
+            List.of(MockDatabase.domain1.getName(), MockDatabase.domain2.getName()),
+            null,
+            null,
+            null,
+            10);
+    assertEquals(
+        List.of(MockDatabase.idea3.getId(), MockDatabase.idea2.getId(), MockDatabase.idea1.getId()),
+        ids);
+
+    ids =
+        ideaIndexService.findPageIds(
+            List.of(MockDatabase.domain1.getName()),
+            List.of(MockDatabase.topic1.getName()),
+            null,
+            null,
+            10);
+    assertEquals(List.of(MockDatabase.idea1.getId()), ids);
+
+    ids = ideaIndexService.findPageIds(null, null, List.of("Unknown tech"), null, 10);
+    assertTrue(ids.isEmpty());
+  }
+
+  /** Test that pages follow each other through the cursor */
+  @Test
+  public void testFindPageIds_Pages() {
+    List<String> firstPage = ideaIndexService.findPageIds(null, null, null, null, 2);
+    assertEquals(List.of(MockDatabase.idea3.getId(), MockDatabase.idea2.getId()), firstPage);
+
+    IdeaCursor after = new IdeaCursor(MockDatabase.idea2.getDate(), MockDatabase.idea2.getId());
+    List<String> secondPage = ideaIndexService.findPageIds(null, null, null, after, 2);
+    assertEquals(List.of(MockDatabase.idea1.getId()), secondPage);
+  }
+
+  /** Test that the index follows ideas being created, made private and removed */
+  @Test
+  public void testOnIdeaChanged() {
+    Idea created = createIdea(20000, MockDatabase.domain2, MockDatabase.topic2, MockDatabase.tech1);
+    ideaIndexService.onIdeaChanged(IdeaChangedEvent.saved(created));
+    assertEquals(
+        List.of(created.getId()),
+        ideaIndexService.findPageIds(
+            List.of(MockDatabase.domain2.getName()), null, null, null, 1));
+
+    created.setPrivate(true);
+    ideaIndexService.onIdeaChanged(IdeaChangedEvent.saved(created));
+    assertEquals(
+        List.of(MockDatabase.idea3.getId()),
+        ideaIndexService.findPageIds(
+            List.of(MockDatabase.domain2.getName()), null, null, null, 1));
+
+    ideaIndexService.onIdeaChanged(IdeaChangedEvent.removed(MockDatabase.idea3.getId()));
+    assertTrue(
+        ideaIndexService
+            .findPageIds(List.of(MockDatabase.domain2.getName()), null, null, null, 1)
+            .isEmpty());
+  }
+
+  /** Test that the ordinal of a removed idea is given to the next one without its old names */
+  @Test
+  public void testOnIdeaChanged_ReusedOrdinal() {
+    ideaIndexService.onIdeaChanged(IdeaChangedEvent.removed(MockDatabase.idea1.getId()));
+    Idea created = createIdea(20000, MockDatabase.domain2, MockDatabase.topic2, MockDatabase.tech1);
+    ideaIndexService.onIdeaChanged(IdeaChangedEvent.saved(created));
+
+    assertEquals(
+        List.of(created.getId(), MockDatabase.idea3.getId(), MockDatabase.idea2.getId()),
+        ideaIndexService.findPageIds(null, null, null, null, 10));
+    assertEquals(
+        List.of(MockDatabase.idea2.getId()),
+        ideaIndexService.findPageIds(
+            List.of(MockDatabase.domain1.getName()), null, null, null, 10));
+  }
+
+  /** Test that a renamed domain is found by its new name only */
+  @Test
+  public void testRenameDomain() {
+    ideaIndexService.renameDomain(MockDatabase.domain2.getId(), "Renamed");
+
+    assertEquals(
+        List.of(MockDatabase.idea3.getId()),
+        ideaIndexService.findPageIds(List.of("Renamed"), null, null, null, 10));
+    assertTrue(
+        ideaIndexService
+            .findPageIds(List.of(MockDatabase.domain2.getName()), null, null, null, 10)
+            .isEmpty());
+    assertEquals(
+        Map.of("Finance", 2L, "Renamed", 1L),
+        ideaIndexService.countFacets(null, null, null).getDomains());
+  }
+
+  /** Test that the changes committed while the ideas are read for a rebuild are not lost */
+  @Test
+  public void testRebuild_ChangesDuringRebuild() {
+    Idea created = createIdea(20000, MockDatabase.domain2, MockDatabase.topic2, MockDatabase.tech1);
+    when(ideaRepository.findPublicIdeasByCriteria(
+            anyBoolean(), any(), anyBoolean(), any(), anyBoolean(), any()))
+        .thenAnswer(
+            invocation -> {
+              // Committed after the ideas were read, so missing from them
+              ideaIndexService.onIdeaChanged(IdeaChangedEvent.saved(created));
+              ideaIndexService.onIdeaChanged(
+                  IdeaChangedEvent.removed(MockDatabase.idea1.getId()));
+              return MockRepository.findPublicIdeasByCriteria(invocation);
+            });
+
+    ideaIndexService.rebuild();
+
+    assertEquals(
+        List.of(created.getId(), MockDatabase.idea3.getId(), MockDatabase.idea2.getId()),
+        ideaIndexService.findPageIds(null, null, null, null, 10));
+  }
+
+  /** Test that the counts of a kind are filtered by the other kinds only */
+  @Test
+  public void testCountFacets() {
+    FacetCountsDTO facets = ideaIndexService.countFacets(null, null, null);
+    assertEquals(List.of("Finance", "Health"), new ArrayList<>(facets.getDomains().keySet()));
+    assertEquals(Map.of("Finance", 2L, "Health", 1L), facets.getDomains());
+    assertEquals(Map.of("Art", 2L, "Music", 1L), facets.getTopics());
+    assertEquals(Map.of("Java", 3L), facets.getTechnologies());
+
+    facets =
+        ideaIndexService.countFacets(
+            List.of(MockDatabase.domain1.getName()), List.of(MockDatabase.topic2.getName()), null);
+    assertEquals(Map.of("Finance", 1L, "Health", 1L), facets.getDomains());
+    assertEquals(Map.of("Art", 1L, "Music", 1L), facets.getTopics());
+    assertEquals(Map.of("Java", 1L), facets.getTechnologies());
+  }
+
+  /**
+   * Create a public idea
+   *
+   * @param date The date of the idea, in milliseconds
+   * @param domain The domain of the idea
+   * @param topic The topic of the idea
+   * @param tech The technology of the idea
+   * @return The idea
+   */
+  private static Idea createIdea(long date, Domain domain, Topic topic, Technology tech) {
+    Idea idea = new Idea();
+    idea.setId(UUID.randomUUID().toString());
+    idea.setDate(new Date(date));
+    idea.setDomains(Set.of(domain));
+    idea.setTopics(Set.of(topic));
+    idea.setTechs(Set.of(tech));
+    return idea;
+  }
+
+  /** This class mocks the repository */
+  static final class MockRepository {
+
+    static List<Idea> findPublicIdeasByCriteria(InvocationOnMock invocation) {
+      return List.of(MockDatabase.idea1, MockDatabase.idea2, MockDatabase.idea3);
+    }
+  }
+
+  /** This class holds all of the mock objects of the database */
+  static final class MockDatabase {
+
+    static Domain domain1 = new Domain();
+    static Domain domain2 = new Domain();
+    static Topic topic1 = new Topic();
+    static Topic topic2 = new Topic();
+    static Technology tech1 = new Technology();
+
+    static Idea idea1;
+    static Idea idea2;
+    static Idea idea3;
+
+    static {
+      domain1.setId(UUID.randomUUID().toString());
+      domain1.setName("Finance");
+      domain2.setId(UUID.randomUUID().toString());
+      domain2.setName("Health");
+      topic1.setId(UUID.randomUUID().toString());
+      topic1.setName("Music");
+      topic2.setId(UUID.randomUUID().toString());
+      topic2.setName("Art");
+      tech1.setId(UUID.randomUUID().toString());
+      tech1.setName("Java");
+
+      idea1 = createIdea(10000, domain1, topic1, tech1);
+      idea2 = createIdea(12000, domain1, topic2, tech1);
+      idea3 = createIdea(13000, domain2, topic2, tech1);
+    }
+  }
+}
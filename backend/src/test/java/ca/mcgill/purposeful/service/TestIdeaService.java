@@ -4,12 +4,19 @@ import static org.junit.Assert.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 import ca.mcgill.purposeful.dao.*;
+import ca.mcgill.purposeful.dto.FacetCountsDTO;
+import ca.mcgill.purposeful.dto.IdeaSummaryDTO;
+import ca.mcgill.purposeful.exception.GlobalException;
 import ca.mcgill.purposeful.model.*;
+import ca.mcgill.purposeful.util.IconHash;
+import ca.mcgill.purposeful.util.IdeaCursor;
 import java.util.*;
+import java.util.function.Function;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -17,6 +24,9 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 
 /**
  * To test the idea service methods
@@ -50,6 +60,16 @@ public class TestIdeaService {
 
   @Mock private CollaborationRequestRepository collaborationRequestRepository;
 
+  @Mock private DomainService domainService;
+
+  @Mock private TopicService topicService;
+
+  @Mock private TechnologyService technologyService;
+
+  @Mock private TrendingService trendingService;
+
+  @Mock private ApplicationEventPublisher eventPublisher;
+
   // Inject mocks
   @InjectMocks private IdeaService ideaService;
 
@@ -59,8 +79,38 @@ public class TestIdeaService {
     lenient()
         .when(ideaRepository.findIdeaById(anyString()))
         .thenAnswer(MockRepository::findIdeaById);
+    lenient()
+        .when(ideaRepository.findIdeaWithOwnerById(anyString()))
+        .thenAnswer(MockRepository::findIdeaById);
     lenient().when(ideaRepository.save(any(Idea.class))).thenAnswer(MockRepository::save);
     lenient().when(ideaRepository.findAll()).thenAnswer(MockRepository::findAll);
+    lenient()
+        .when(ideaRepository.findIdeasByOwnerEmail(anyString(), any(Pageable.class)))
+        .thenAnswer(MockRepository::findIdeasByOwnerEmail);
+    lenient()
+        .when(
+            ideaRepository.findPublicIdeasByCriteria(
+                anyBoolean(),
+                any(),
+                anyBoolean(),
+                any(),
+                anyBoolean(),
+                any(),
+                any(Pageable.class)))
+        .thenAnswer(MockRepository::findPublicIdeasByCriteriaPage);
+    lenient()
+        .when(
+            ideaRepository.findPublicIdeasByCriteriaAfter(
+                anyBoolean(),
+                any(),
+                anyBoolean(),
+                any(),
+                anyBoolean(),
+                any(),
+                any(Date.class),
+                anyString(),
+                any(Pageable.class)))
+        .thenAnswer(MockRepository::findPublicIdeasByCriteriaAfter);
     lenient()
         .when(domainRepository.findDomainById(anyString()))
         .thenAnswer(MockRepository::findDomainById);
@@ -70,13 +120,42 @@ public class TestIdeaService {
     lenient()
         .when(technologyRepository.findTechnologyById(anyString()))
         .thenAnswer(MockRepository::findTechnologyById);
+    lenient()
+        .when(domainService.getDomainById(anyString()))
+        .thenAnswer(MockRepository::findDomainById);
+    lenient()
+        .when(topicService.getTopicById(anyString()))
+        .thenAnswer(MockRepository::findTopicById);
+    lenient()
+        .when(technologyService.getTechById(anyString()))
+        .thenAnswer(MockRepository::findTechnologyById);
     lenient().when(urlRepository.findURLById(anyString())).thenAnswer(MockRepository::findURLById);
+    lenient()
+        .when(urlRepository.findURLsByIdIn(any()))
+        .thenAnswer(invocation -> MockRepository.findAllById(invocation, MockRepository::getURL));
+    lenient()
+        .when(domainService.getDomainsByIds(any()))
+        .thenAnswer(
+            invocation -> MockRepository.findAllById(invocation, MockRepository::getDomain));
+    lenient()
+        .when(topicService.getTopicsByIds(any()))
+        .thenAnswer(
+            invocation -> MockRepository.findAllById(invocation, MockRepository::getTopic));
+    lenient()
+        .when(technologyService.getTechsByIds(any()))
+        .thenAnswer(
+            invocation -> MockRepository.findAllById(invocation, MockRepository::getTechnology));
     lenient()
         .when(regularUserRepository.findRegularUserByAppUserEmail(anyString()))
         .thenAnswer(MockRepository::findRegularUserByAppUserEmail);
     lenient()
         .when(collaborationRequestRepository.findAll())
         .thenAnswer(MockRepository::findAllRequests);
+    lenient()
+        .when(
+            collaborationRequestRepository.findRequestedPublicIdeasByRequesterId(
+                anyString(), any(Pageable.class)))
+        .thenAnswer(MockRepository::findRequestedPublicIdeasByRequesterId);
   }
 
   /**
@@ -126,6 +205,150 @@ public class TestIdeaService {
     assertTrue(createdIdeas.isEmpty());
   }
 
+  /**
+   * Test access one page of a user's created ideas, from newest to oldest
+   */
+  @Test
+  public void testGetCreatedIdeas_Page() {
+    String testUserEmail = MockDatabase.user1.getAppUser().getEmail().toUpperCase();
+
+    List<Idea> firstPage = ideaService.getCreatedIdeas(testUserEmail, 0, 1);
+    List<Idea> secondPage = ideaService.getCreatedIdeas(testUserEmail, 1, 1);
+
+    assertEquals(1, firstPage.size());
+    assertEquals(1, secondPage.size());
+    assertTrue(firstPage.get(0).getDate().after(secondPage.get(0).getDate()));
+  }
+
+  /**
+   * Test access a page of a user's created ideas with an invalid page size
+   */
+  @Test
+  public void testGetCreatedIdeas_InvalidPageSize() {
+    String testUserEmail = MockDatabase.user1.getAppUser().getEmail();
+
+    try {
+      ideaService.getCreatedIdeas(testUserEmail, 0, 0);
+      fail();
+    } catch (GlobalException e) {
+      assertEquals("The page size must be between 1 and 100.", e.getMessage());
+      assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
+    }
+  }
+
+  /**
+   * Test access the summaries of a user's created ideas, with their names of domains, topics and
+   * technologies fetched by a single query
+   */
+  @Test
+  public void testGetCreatedIdeaSummaries_Success() {
+    String testUserEmail = MockDatabase.user1.getAppUser().getEmail();
+    IdeaSummaryDTO newer = new IdeaSummaryDTO("newer", "Newer", "Purpose", new Date(2), null, 3);
+    IdeaSummaryDTO older = new IdeaSummaryDTO("older", "Older", "Purpose", new Date(1), null, 0);
+    when(ideaRepository.findIdeaSummariesByOwnerEmail(testUserEmail, Pageable.unpaged()))
+        .thenReturn(List.of(newer, older));
+    when(ideaRepository.findTaxonomyNamesByIdeaIdIn(any()))
+        .thenReturn(
+            List.of(
+                new Object[] {"newer", "domain", "Science"},
+                new Object[] {"newer", "topic", "Health"},
+                new Object[] {"older", "technology", "Java"},
+                new Object[] {"older", "technology", "Python"}));
+
+    List<IdeaSummaryDTO> summaries =
+        ideaService.getCreatedIdeaSummaries(testUserEmail, Pageable.unpaged());
+
+    assertEquals(List.of(newer, older), summaries);
+    assertEquals(Set.of("Science"), newer.getDomains());
+    assertEquals(Set.of("Health"), newer.getTopics());
+    assertTrue(newer.getTechs().isEmpty());
+    assertEquals(Set.of("Java", "Python"), older.getTechs());
+    verify(ideaRepository, times(1)).findTaxonomyNamesByIdeaIdIn(any());
+    verify(ideaRepository, never()).findIdeasByOwnerEmail(anyString(), any(Pageable.class));
+  }
+
+  /**
+   * Test access the summaries of a user without ideas, which does not look up any names
+   */
+  @Test
+  public void testGetCreatedIdeaSummaries_EmptyList() {
+    when(ideaRepository.findIdeaSummariesByOwnerEmail(anyString(), any(Pageable.class)))
+        .thenReturn(List.of());
+
+    List<IdeaSummaryDTO> summaries =
+        ideaService.getCreatedIdeaSummaries("example2@gmail.com", Pageable.unpaged());
+
+    assertTrue(summaries.isEmpty());
+    verify(ideaRepository, never()).findTaxonomyNamesByIdeaIdIn(any());
+  }
+
+  /**
+   * Test that the names of many summaries are looked up in batches, so the ids never exceed the
+   * number of parameters a query accepts
+   */
+  @Test
+  public void testGetCreatedIdeaSummaries_ManyIdeas() {
+    List<IdeaSummaryDTO> many = new ArrayList<>();
+    for (int i = 0; i < 1500; i++) {
+      many.add(new IdeaSummaryDTO("idea" + i, "Idea", "Purpose", new Date(i), null, 0));
+    }
+    when(ideaRepository.findIdeaSummariesByOwnerEmail(anyString(), any(Pageable.class)))
+        .thenReturn(many);
+    List<Integer> batchSizes = new ArrayList<>();
+    when(ideaRepository.findTaxonomyNamesByIdeaIdIn(any()))
+        .thenAnswer(
+            invocation -> {
+              batchSizes.add(invocation.<Collection<String>>getArgument(0).size());
+              return List.of();
+            });
+
+    ideaService.getCreatedIdeaSummaries(
+        MockDatabase.user1.getAppUser().getEmail(), Pageable.unpaged());
+
+    assertEquals(List.of(1000, 500), batchSizes);
+  }
+
+  /**
+   * Test that no summaries matching the criteria is an error, like for the ideas
+   */
+  @Test
+  public void testGetIdeaSummariesByAllCriteria_NoMatch() {
+    when(ideaRepository.findPublicIdeaSummariesByCriteria(
+            anyBoolean(), any(), anyBoolean(), any(), anyBoolean(), any(), any(Pageable.class)))
+        .thenReturn(List.of());
+
+    try {
+      ideaService.getIdeaSummariesByAllCriteria(
+          List.of("Unknown"), null, null, IdeaService.pageRequest(0, 20));
+      fail();
+    } catch (GlobalException e) {
+      assertEquals(
+          "No ideas match the given criteria. Please try again with different criteria.",
+          e.getMessage());
+      assertEquals(HttpStatus.NOT_FOUND, e.getStatus());
+    }
+  }
+
+  /**
+   * Test that a page request must have a valid index and size
+   */
+  @Test
+  public void testPageRequest_Invalid() {
+    assertEquals(Pageable.ofSize(5).withPage(2), IdeaService.pageRequest(2, 5));
+    try {
+      IdeaService.pageRequest(-1, 5);
+      fail();
+    } catch (GlobalException e) {
+      assertEquals("The page cannot be negative.", e.getMessage());
+    }
+    try {
+      IdeaService.pageRequest(0, IdeaService.MAX_PAGE_SIZE + 1);
+      fail();
+    } catch (GlobalException e) {
+      assertEquals("The page size must be between 1 and 100.", e.getMessage());
+    }
+  }
+
   /**
    * Test the getIdeaById method (Success case)
    *
@@ -188,6 +411,13 @@ public class TestIdeaService {
       search_techs.add(tech.getName());
     }
 
+    // The database returns the matching ideas from most recent to oldest
+    when(ideaRepository.findPublicIdeasByCriteria(
+            true, search_domains, true, search_topics, true, search_techs))
+        .thenReturn(
+            List.of(
+                MockDatabase.idea4, MockDatabase.idea3, MockDatabase.idea2, MockDatabase.idea1));
+
     // Try to get the ideas by all criteria
     Iterable<Idea> fetchedIdeas =
         ideaService.getIdeasByAllCriteria(search_domains, search_topics, search_techs);
@@ -230,6 +460,10 @@ public class TestIdeaService {
     List<String> search_techs = new ArrayList<>();
     search_techs.add(MockDatabase.tech2.getName());
 
+    when(ideaRepository.findPublicIdeasByCriteria(
+            true, search_domains, true, search_topics, true, search_techs))
+        .thenReturn(List.of(MockDatabase.idea1));
+
     // Try to get the ideas by all criteria
     Iterable<Idea> fetchedIdeas =
         ideaService.getIdeasByAllCriteria(search_domains, search_topics, search_techs);
@@ -249,6 +483,13 @@ public class TestIdeaService {
   @Test
   public void testGetIdeasByAllCriteria_Success3() {
 
+    // A null list is not filtered on, and is passed to the database as an empty one
+    when(ideaRepository.findPublicIdeasByCriteria(
+            false, List.of(), false, List.of(), false, List.of()))
+        .thenReturn(
+            List.of(
+                MockDatabase.idea4, MockDatabase.idea3, MockDatabase.idea2, MockDatabase.idea1));
+
     // Try to get the ideas by date (All criteria are null)
     Iterable<Idea> fetchedIdeas = ideaService.getIdeasByAllCriteria(null, null, null);
     Iterator<Idea> iterator = fetchedIdeas.iterator();
@@ -279,6 +520,9 @@ public class TestIdeaService {
     for (Topic topic : MockDatabase.topicGroup3) {
       search_topics.add(topic.getName());
     }
+    when(ideaRepository.findPublicIdeasByCriteria(
+            false, List.of(), true, search_topics, false, List.of()))
+        .thenReturn(List.of());
 
     // Try to get the ideas by date (All criteria are null)
     try {
@@ -292,6 +536,282 @@ public class TestIdeaService {
     fail();
   }
 
+  /**
+   * Test browsing ideas one page at a time by following the cursors (Success case)
+   *
+   * @author Wassim Jabbour
+   */
+  @Test
+  public void testGetIdeasPageByAllCriteria_Success() {
+
+    // First page holds the 2 newest ideas
+    List<Idea> firstPage = ideaService.getIdeasPageByAllCriteria(null, null, null, 2, null);
+    assertEquals(2, firstPage.size());
+    assertEquals(MockDatabase.idea4, firstPage.get(0));
+    assertEquals(MockDatabase.idea3, firstPage.get(1));
+
+    // Second page starts right after the last idea of the first page
+    List<Idea> secondPage =
+        ideaService.getIdeasPageByAllCriteria(
+            null, null, null, 2, IdeaCursor.encode(firstPage.get(1)));
+    assertEquals(2, secondPage.size());
+    assertEquals(MockDatabase.idea2, secondPage.get(0));
+    assertEquals(MockDatabase.idea1, secondPage.get(1));
+
+    // Third page is empty since there are only 4 ideas
+    List<Idea> thirdPage =
+        ideaService.getIdeasPageByAllCriteria(
+            null, null, null, 2, IdeaCursor.encode(secondPage.get(1)));
+    assertTrue(thirdPage.isEmpty());
+  }
+
+  /**
+   * Test browsing ideas with an invalid page size (Failure case)
+   *
+   * @author Wassim Jabbour
+   */
+  @Test
+  public void testGetIdeasPageByAllCriteria_InvalidPageSize() {
+    try {
+      ideaService.getIdeasPageByAllCriteria(null, null, null, 0, null);
+    } catch (Exception e) {
+      assertEquals("The page size must be between 1 and 100.", e.getMessage());
+      return;
+    }
+    fail();
+  }
+
+  /**
+   * Test browsing ideas with a cursor that was not generated by the backend (Failure case)
+   *
+   * @author Wassim Jabbour
+   */
+  @Test
+  public void testGetIdeasPageByAllCriteria_InvalidCursor() {
+    try {
+      ideaService.getIdeasPageByAllCriteria(null, null, null, 2, "not a cursor");
+    } catch (Exception e) {
+      assertEquals("The page cursor is invalid.", e.getMessage());
+      return;
+    }
+    fail();
+  }
+
+  /**
+   * Test browsing the trending ideas one page at a time, skipping the removed ones (Success case)
+   */
+  @Test
+  public void testGetTrendingIdeasPage_Success() {
+    mockTrendingIdeas(
+        MockDatabase.idea2.getId(),
+        MockDatabase.idea1.getId(),
+        "removed",
+        MockDatabase.idea4.getId());
+
+    List<Idea> firstPage = ideaService.getTrendingIdeasPage(null, null, null, 2, null);
+    assertEquals(List.of(MockDatabase.idea2, MockDatabase.idea1), firstPage);
+
+    String cursor = IdeaService.nextOffsetCursor(null, 2);
+    List<Idea> secondPage = ideaService.getTrendingIdeasPage(null, null, null, 2, cursor);
+    assertEquals(List.of(MockDatabase.idea4), secondPage);
+  }
+
+  /**
+   * Test that the trending ideas are filtered by the database, and kept in the trending order
+   * (Success case)
+   */
+  @Test
+  public void testGetTrendingIdeasPage_Filtered() {
+    List<String> trending =
+        List.of(
+            MockDatabase.idea2.getId(), MockDatabase.idea1.getId(), MockDatabase.idea4.getId());
+    mockTrendingIdeas(trending.toArray(new String[0]));
+    when(ideaRepository.findPublicIdeaIdsByCriteriaAndIdIn(
+            true, List.of("business"), false, List.of(), false, List.of(), trending))
+        .thenReturn(List.of(MockDatabase.idea4.getId(), MockDatabase.idea1.getId()));
+
+    List<Idea> page = ideaService.getTrendingIdeasPage(List.of("business"), null, null, 2, null);
+
+    assertEquals(List.of(MockDatabase.idea1, MockDatabase.idea4), page);
+    // Only the ideas of the page are loaded
+    verify(ideaRepository, times(1))
+        .findIdeasByIdIn(List.of(MockDatabase.idea1.getId(), MockDatabase.idea4.getId()));
+  }
+
+  /** Test that there is no trending idea without recent activity (Failure case) */
+  @Test
+  public void testGetTrendingIdeasPage_NoActivity() {
+    mockTrendingIdeas();
+    try {
+      ideaService.getTrendingIdeasPage(null, null, null, 2, null);
+    } catch (Exception e) {
+      assertEquals(
+          "No ideas match the given criteria. Please try again with different criteria.",
+          e.getMessage());
+      return;
+    }
+    fail();
+  }
+
+  /** Test browsing the trending ideas with an invalid cursor (Failure case) */
+  @Test
+  public void testGetTrendingIdeasPage_InvalidCursor() {
+    try {
+      ideaService.getTrendingIdeasPage(null, null, null, 2, "-2");
+    } catch (Exception e) {
+      assertEquals("The page cursor is invalid.", e.getMessage());
+      return;
+    }
+    fail();
+  }
+
+  /** Test searching ideas one page at a time, in the order of relevance (Success case) */
+  @Test
+  public void testSearchIdeasPage_Success() {
+    mockFindIdeasByIdIn();
+    when(ideaRepository.searchPublicIdeaIds(
+            eq("sol:* & pan:*"),
+            eq(true),
+            eq(List.of("business")),
+            eq(false),
+            eq(List.of("")),
+            eq(false),
+            eq(List.of("")),
+            eq(2),
+            eq(0)))
+        .thenReturn(List.of(MockDatabase.idea2.getId(), MockDatabase.idea1.getId()));
+
+    List<Idea> page =
+        ideaService.searchIdeasPage(" Sol, PAN!", List.of("business"), null, null, 2, null);
+
+    assertEquals(List.of(MockDatabase.idea2, MockDatabase.idea1), page);
+  }
+
+  /** Test that search results can only be browsed up to a maximum (Success case) */
+  @Test
+  public void testSearchIdeasPage_LastPage() {
+    mockFindIdeasByIdIn();
+    when(ideaRepository.searchPublicIdeaIds(
+            anyString(),
+            anyBoolean(),
+            any(),
+            anyBoolean(),
+            any(),
+            anyBoolean(),
+            any(),
+            eq(1),
+            eq(IdeaService.MAX_SEARCH_RESULTS - 1)))
+        .thenReturn(List.of(MockDatabase.idea4.getId()));
+
+    String cursor = Integer.toString(IdeaService.MAX_SEARCH_RESULTS - 1);
+    assertEquals(
+        List.of(MockDatabase.idea4),
+        ideaService.searchIdeasPage("solar", null, null, null, 2, cursor));
+
+    String end = IdeaService.nextOffsetCursor(cursor, 1);
+    assertEquals(List.of(), ideaService.searchIdeasPage("solar", null, null, null, 2, end));
+  }
+
+  /** Test searching for a text that matches no idea (Failure case) */
+  @Test
+  public void testSearchIdeasPage_NoMatch() {
+    try {
+      ideaService.searchIdeasPage("nothing", null, null, null, 2, null);
+    } catch (Exception e) {
+      assertEquals(
+          "No ideas match the given search. Please try again with different words or criteria.",
+          e.getMessage());
+      return;
+    }
+    fail();
+  }
+
+  /** Test that the facet counts are read from the aggregate query, ordered by count */
+  @Test
+  public void testGetFacetCounts() {
+    when(ideaRepository.countPublicIdeasByFacet(
+            eq(true),
+            eq("solar:*"),
+            eq(false),
+            eq(List.of("")),
+            eq(true),
+            eq(List.of("Energy")),
+            eq(false),
+            eq(List.of(""))))
+        .thenReturn(
+            List.of(
+                new Object[] {"domain", "Health", 1L},
+                new Object[] {"domain", "Business", 3L},
+                new Object[] {"topic", "Energy", 4L},
+                new Object[] {"technology", "Java", 2L}));
+
+    FacetCountsDTO facets = ideaService.getFacetCounts("solar", null, List.of("Energy"), null);
+
+    assertEquals(List.of("Business", "Health"), new ArrayList<>(facets.getDomains().keySet()));
+    assertEquals(Map.of("Business", 3L, "Health", 1L), facets.getDomains());
+    assertEquals(Map.of("Energy", 4L), facets.getTopics());
+    assertEquals(Map.of("Java", 2L), facets.getTechnologies());
+  }
+
+  /** Test that the search text is turned into a query that cannot change its syntax */
+  @Test
+  public void testToPrefixQuery() {
+    assertEquals("solar:*", IdeaService.toPrefixQuery("solar"));
+    assertEquals(
+        "c:* & \u00e9nergie:* & 2:* & or:*", IdeaService.toPrefixQuery("C++ \u00e9nergie|2 'or'!"));
+    try {
+      IdeaService.toPrefixQuery(" & :* ! ");
+    } catch (Exception e) {
+      assertEquals("The search must contain at least one letter or digit.", e.getMessage());
+      return;
+    }
+    fail();
+  }
+
+  /**
+   * Make the given ideas the trending ones, in order
+   *
+   * @param ids The ids of the trending ideas, from the most to the least trending
+   */
+  private void mockTrendingIdeas(String... ids) {
+    List<String> trending = List.of(ids);
+    when(trendingService.getTopIdeaIds(anyInt()))
+        .thenAnswer(
+            invocation ->
+                trending.subList(
+                    0, Math.min(invocation.<Integer>getArgument(0), trending.size())));
+    // Every trending idea matches, unless a test says otherwise
+    lenient()
+        .when(
+            ideaRepository.findPublicIdeaIdsByCriteriaAndIdIn(
+                anyBoolean(), any(), anyBoolean(), any(), anyBoolean(), any(), any()))
+        .thenAnswer(invocation -> new ArrayList<>(invocation.<List<String>>getArgument(6)));
+    mockFindIdeasByIdIn();
+  }
+
+  /** Load the ideas of the mock database by id */
+  private void mockFindIdeasByIdIn() {
+    lenient().when(ideaRepository.findIdeasByIdInOrder(any())).thenCallRealMethod();
+    lenient()
+        .when(ideaRepository.findIdeasByIdIn(any()))
+        .thenAnswer(
+            invocation -> {
+              Collection<String> wanted = invocation.getArgument(0);
+              List<Idea> found = new ArrayList<>();
+              for (Idea idea :
+                  List.of(
+                      MockDatabase.idea1,
+                      MockDatabase.idea2,
+                      MockDatabase.idea3,
+                      MockDatabase.idea4)) {
+                if (wanted.contains(idea.getId())) {
+                  found.add(idea);
+                }
+              }
+              return found;
+            });
+  }
+
   /**
    * Test creation of idea
    *
@@ -584,6 +1104,24 @@ public class TestIdeaService {
     assertEquals("Necessary fields have been left empty", message);
   }
 
+  /** Test that the domains are resolved at once and that every missing one is listed */
+  @Test
+  public void testCheckDomains_ListsAllMissing() {
+    List<String> domainIds = List.of(MockDatabase.domain1.getId(), "Fake1", "Fake2");
+
+    try {
+      ideaService.checkDomains(domainIds);
+      fail();
+    } catch (GlobalException e) {
+      assertEquals(
+          "You are attempting to link your idea to an object that does not exist"
+              + " (domains: Fake1, Fake2)",
+          e.getMessage());
+      assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
+    }
+    verify(domainService, times(1)).getDomainsByIds(domainIds);
+  }
+
   /**
    * Test non-exsting object violation
    *
@@ -621,7 +1159,9 @@ public class TestIdeaService {
       message = e.getMessage();
     }
     // Check error message
-    assertEquals("You are attempting to link your idea to an object that does not exist", message);
+    assertEquals(
+        "You are attempting to link your idea to an object that does not exist (domains: Ram)",
+        message);
   }
 
   /**
@@ -648,6 +1188,22 @@ public class TestIdeaService {
     assertFalse(iterator.hasNext()); // Check only the 2 ideas are in the list
   }
 
+  /**
+   * Test getting one page of the ideas by Collaboration Request, from newest to oldest
+   */
+  @Test
+  public void testGetIdeasByCollaborationRequest_Page() {
+    List<Idea> firstPage =
+        ideaService.getIdeasByCollaborationRequest(MockDatabase.appUser2.getEmail(), 0, 1);
+    List<Idea> secondPage =
+        ideaService.getIdeasByCollaborationRequest(MockDatabase.appUser2.getEmail(), 1, 1);
+
+    assertEquals(1, firstPage.size());
+    assertEquals(MockDatabase.idea4, firstPage.get(0));
+    assertEquals(1, secondPage.size());
+    assertEquals(MockDatabase.idea3, secondPage.get(0));
+  }
+
   /**
    * Test getting ideas by Collaboration Request (Success case 2). The user did not make
    * collaboration requests before
@@ -741,7 +1297,10 @@ public class TestIdeaService {
     }
 
     static Domain findDomainById(InvocationOnMock invocation) {
-      String id = invocation.getArgument(0);
+      return getDomain(invocation.getArgument(0));
+    }
+
+    static Domain getDomain(String id) {
       if (id.equals(MockDatabase.originalDomain.getId())) {
         return MockDatabase.originalDomain;
       } else if (id.equals(MockDatabase.newDomain.getId())) {
@@ -756,7 +1315,10 @@ public class TestIdeaService {
     }
 
     static Technology findTechnologyById(InvocationOnMock invocation) {
-      String id = invocation.getArgument(0);
+      return getTechnology(invocation.getArgument(0));
+    }
+
+    static Technology getTechnology(String id) {
       if (id.equals(MockDatabase.originalTech.getId())) {
         return MockDatabase.originalTech;
       } else if (id.equals(MockDatabase.newTech.getId())) {
@@ -771,7 +1333,10 @@ public class TestIdeaService {
     }
 
     static Topic findTopicById(InvocationOnMock invocation) {
-      String id = invocation.getArgument(0);
+      return getTopic(invocation.getArgument(0));
+    }
+
+    static Topic getTopic(String id) {
       if (id.equals(MockDatabase.originalTopic.getId())) {
         return MockDatabase.originalTopic;
       } else if (id.equals(MockDatabase.newTopic.getId())) {
@@ -790,7 +1355,10 @@ public class TestIdeaService {
     }
 
     static URL findURLById(InvocationOnMock invocation) {
-      String id = invocation.getArgument(0);
+      return getURL(invocation.getArgument(0));
+    }
+
+    static URL getURL(String id) {
       if (id.equals(MockDatabase.originalImgUrl.getId())) {
         return MockDatabase.originalImgUrl;
       } else if (id.equals(MockDatabase.newImgUrl.getId())) {
@@ -806,6 +1374,25 @@ public class TestIdeaService {
       }
     }
 
+    /**
+     * Emulate a query finding all the objects with the given ids, using the lookup by id
+     *
+     * @param invocation the invocation, with the ids as first argument
+     * @param findById the lookup by id
+     * @return the objects that exist
+     */
+    static <T> List<T> findAllById(InvocationOnMock invocation, Function<String, T> findById) {
+      Collection<String> ids = invocation.getArgument(0);
+      List<T> found = new ArrayList<>();
+      for (String id : ids) {
+        T object = findById.apply(id);
+        if (object != null) {
+          found.add(object);
+        }
+      }
+      return found;
+    }
+
     static Idea save(InvocationOnMock invocation) {
       return invocation.getArgument(0);
     }
@@ -819,6 +1406,56 @@ public class TestIdeaService {
       return ideas;
     }
 
+    static List<Idea> findIdeasByOwnerEmail(InvocationOnMock invocation) {
+      String email = invocation.getArgument(0);
+      Pageable pageable = invocation.getArgument(1);
+
+      List<Idea> ideas = new ArrayList<>();
+      for (Idea idea : findAll(invocation)) {
+        if (idea.getUser().getAppUser().getEmail().equalsIgnoreCase(email)) {
+          ideas.add(idea);
+        }
+      }
+      ideas.sort((idea1, idea2) -> idea2.getDate().compareTo(idea1.getDate()));
+      if (pageable.isUnpaged()) {
+        return ideas;
+      }
+      int from = Math.min((int) pageable.getOffset(), ideas.size());
+      int to = Math.min(from + pageable.getPageSize(), ideas.size());
+      return ideas.subList(from, to);
+    }
+
+    /** The public ideas from newest to oldest, as the database returns them without filters */
+    static List<Idea> findPublicIdeasNewestFirst() {
+      List<Idea> ideas = new ArrayList<>();
+      for (Idea idea : findAll(null)) {
+        if (!idea.isPrivate()) {
+          ideas.add(idea);
+        }
+      }
+      ideas.sort((idea1, idea2) -> idea2.getDate().compareTo(idea1.getDate()));
+      return ideas;
+    }
+
+    static List<Idea> findPublicIdeasByCriteriaPage(InvocationOnMock invocation) {
+      List<Idea> ideas = findPublicIdeasNewestFirst();
+      Pageable pageable = invocation.getArgument(6);
+      return ideas.subList(0, Math.min(pageable.getPageSize(), ideas.size()));
+    }
+
+    static List<Idea> findPublicIdeasByCriteriaAfter(InvocationOnMock invocation) {
+      Date cursorDate = invocation.getArgument(6);
+      Pageable pageable = invocation.getArgument(8);
+      List<Idea> ideas = new ArrayList<>();
+      for (Idea idea : findPublicIdeasNewestFirst()) {
+        // Ideas of the mock database all have distinct dates
+        if (idea.getDate().before(cursorDate)) {
+          ideas.add(idea);
+        }
+      }
+      return ideas.subList(0, Math.min(pageable.getPageSize(), ideas.size()));
+    }
+
     static Iterable<CollaborationRequest> findAllRequests(InvocationOnMock invocation) {
       HashSet<CollaborationRequest> requests = new HashSet<>();
       requests.add(MockDatabase.collaborationRequest1);
@@ -826,6 +1463,25 @@ public class TestIdeaService {
       return requests;
     }
 
+    static List<Idea> findRequestedPublicIdeasByRequesterId(InvocationOnMock invocation) {
+      String requesterId = invocation.getArgument(0);
+      Pageable pageable = invocation.getArgument(1);
+
+      List<Idea> ideas = new ArrayList<>();
+      for (CollaborationRequest request : findAllRequests(invocation)) {
+        if (request.getRequester().getId().equals(requesterId) && !request.getIdea().isPrivate()) {
+          ideas.add(request.getIdea());
+        }
+      }
+      ideas.sort((idea1, idea2) -> idea2.getDate().compareTo(idea1.getDate()));
+      if (pageable.isUnpaged()) {
+        return ideas;
+      }
+      int from = Math.min((int) pageable.getOffset(), ideas.size());
+      int to = Math.min(from + pageable.getPageSize(), ideas.size());
+      return ideas.subList(from, to);
+    }
+
     static RegularUser findRegularUserByAppUserEmail(InvocationOnMock invocation) {
       String email = invocation.getArgument(0);
       if (email.equals(MockDatabase.appUser1.getEmail())) {
@@ -853,6 +1509,30 @@ public class TestIdeaService {
 
     // Verify
     verify(ideaRepository, times(1)).deleteById(idea.getId());
+    verify(eventPublisher, times(1)).publishEvent(any(IdeaChangedEvent.class));
+  }
+
+  /** Test that an icon written differently is found through the hash of its normalized URL */
+  @Test
+  public void testCreateIconURL_Existing() {
+    URL icon = MockDatabase.originalIconUrl;
+    when(urlRepository.findURLByIconHash(IconHash.of("HTTPS://Icons.com:443/icon.png")))
+        .thenReturn(icon);
+
+    assertEquals(icon.getId(), ideaService.createIconURL("https://icons.com/icon.png "));
+    verify(urlRepository, never()).insertIconIfAbsent(anyString(), anyString(), anyString());
+  }
+
+  /** Test that a new icon is inserted, and the saved icon is returned */
+  @Test
+  public void testCreateIconURL_New() {
+    URL icon = MockDatabase.originalIconUrl;
+    String iconHash = IconHash.of("https://icons.com/new.png");
+    when(urlRepository.findURLByIconHash(iconHash)).thenReturn(null).thenReturn(icon);
+
+    assertEquals(icon.getId(), ideaService.createIconURL("https://icons.com/new.png"));
+    verify(urlRepository, times(1))
+        .insertIconIfAbsent(anyString(), eq("https://icons.com/new.png"), eq(iconHash));
   }
 
   /** This class holds all of the mock objects of the database */
@@ -945,8 +1625,10 @@ public class TestIdeaService {
 
       // Initialize users
       appUser1.setEmail("example@gmail.com");
+      user1.setId(UUID.randomUUID().toString());
       user1.setAppUser(appUser1);
       appUser2.setEmail("example2@gmail.com");
+      user2.setId(UUID.randomUUID().toString());
       user2.setAppUser(appUser2);
 
       // Initialize topics
@@ -0,0 +1,245 @@
+package ca.mcgill.purposeful.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import ca.mcgill.purposeful.dao.IdeaRepository;
+import ca.mcgill.purposeful.dao.ReactionRepository;
+import ca.mcgill.purposeful.model.Reaction;
+import ca.mcgill.purposeful.model.Reaction.ReactionType;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/** To test the write-behind buffer of the reactions */
+@ExtendWith(MockitoExtension.class)
+public class TestReactionBufferService {
+
+  private static final String IDEA_ID = "idea";
+  private static final String USER_ID = "user";
+  private static final String OTHER_USER_ID = "otherUser";
+
+  @Mock private ReactionRepository reactionRepository;
+
+  @Mock private IdeaRepository ideaRepository;
+
+  @Mock private IdeaService ideaService;
+
+  @Mock private TrendingService trendingService;
+
+  @Mock private PlatformTransactionManager transactionManager;
+
+  @Mock private ApplicationEventPublisher eventPublisher;
+
+  @InjectMocks private ReactionBufferService reactionBufferService;
+
+  @TempDir Path tempDir;
+
+  /** Nobody reacts to the idea in the database */
+  @BeforeEach
+  public void setMockOutput() {
+    reactionBufferService.maxSize = 100;
+    lenient()
+        .when(reactionRepository.insertReactionIfAbsent(
+                anyString(), anyInt(), any(Date.class), anyString(), anyString()))
+        .thenReturn(1);
+    lenient()
+        .when(reactionRepository.deleteReactionByIdeaAndUser(anyString(), anyString()))
+        .thenReturn(1);
+  }
+
+  /** Test that a high five is written on the next flush */
+  @Test
+  public void testToggle_Create() {
+    assertTrue(reactionBufferService.toggle(new Date(), ReactionType.HighFive, IDEA_ID, USER_ID));
+    verify(reactionRepository, never())
+        .insertReactionIfAbsent(anyString(), anyInt(), any(Date.class), anyString(), anyString());
+
+    reactionBufferService.flush();
+
+    verify(ideaService, times(1)).getIdeaById(IDEA_ID);
+    verify(reactionRepository, times(1))
+        .insertReactionIfAbsent(
+            anyString(),
+            eq(ReactionType.HighFive.ordinal()),
+            any(Date.class),
+            eq(IDEA_ID),
+            eq(USER_ID));
+    verify(ideaRepository, times(1)).addHighFives(IDEA_ID, 1);
+  }
+
+  /** Test that removing a high five of the database deletes it on the next flush */
+  @Test
+  public void testToggle_Delete() {
+    when(reactionRepository.findReactionByIdea_IdAndRegularUser_Id(IDEA_ID, USER_ID))
+        .thenReturn(new Reaction());
+
+    assertFalse(reactionBufferService.toggle(new Date(), ReactionType.HighFive, IDEA_ID, USER_ID));
+    reactionBufferService.flush();
+
+    verify(reactionRepository, times(1)).deleteReactionByIdeaAndUser(IDEA_ID, USER_ID);
+    verify(ideaRepository, times(1)).addHighFives(IDEA_ID, -1);
+  }
+
+  /** Test that removing a high five of the database takes it out of the trending score */
+  @Test
+  public void testToggle_DeleteStored() {
+    Date reactedOn = new Date(10000);
+    Reaction reaction = new Reaction();
+    reaction.setDate(reactedOn);
+    when(reactionRepository.findReactionByIdea_IdAndRegularUser_Id(IDEA_ID, USER_ID))
+        .thenReturn(reaction);
+
+    assertFalse(reactionBufferService.toggle(new Date(), ReactionType.HighFive, IDEA_ID, USER_ID));
+
+    // The high five is taken out at the date it was made, not at the date of the toggle
+    verify(trendingService, times(1)).removeReaction(IDEA_ID, reactedOn);
+    verify(trendingService, never()).recordReaction(anyString(), any(Date.class));
+  }
+
+  /** Test that a toggle and its undo cancel out without reading the database twice */
+  @Test
+  public void testToggle_Coalesced() {
+    Date reactedOn = new Date(10000);
+    assertTrue(reactionBufferService.toggle(reactedOn, ReactionType.HighFive, IDEA_ID, USER_ID));
+    assertFalse(reactionBufferService.toggle(new Date(), ReactionType.HighFive, IDEA_ID, USER_ID));
+    reactionBufferService.flush();
+
+    // The undone high five is taken out of the trending score at the date it was made
+    verify(trendingService, times(1)).recordReaction(IDEA_ID, reactedOn);
+    verify(trendingService, times(1)).removeReaction(IDEA_ID, reactedOn);
+
+    verify(reactionRepository, times(1)).findReactionByIdea_IdAndRegularUser_Id(IDEA_ID, USER_ID);
+    verify(reactionRepository, never())
+        .insertReactionIfAbsent(anyString(), anyInt(), any(Date.class), anyString(), anyString());
+    verify(reactionRepository, never()).deleteReactionByIdeaAndUser(anyString(), anyString());
+    verify(ideaRepository, never()).addHighFives(anyString(), anyInt());
+  }
+
+  /** Test that the high fives of many users change the number of high fives of the idea once */
+  @Test
+  public void testFlush_OneCounterUpdatePerIdea() {
+    reactionBufferService.toggle(new Date(), ReactionType.HighFive, IDEA_ID, USER_ID);
+    reactionBufferService.toggle(new Date(), ReactionType.HighFive, IDEA_ID, OTHER_USER_ID);
+    reactionBufferService.flush();
+
+    verify(ideaRepository, times(1)).addHighFives(IDEA_ID, 2);
+  }
+
+  /** Test that the interests of each user whose reactions are written change once */
+  @Test
+  public void testFlush_InterestsChanged() {
+    reactionBufferService.toggle(new Date(), ReactionType.HighFive, IDEA_ID, USER_ID);
+    reactionBufferService.toggle(new Date(), ReactionType.HighFive, "otherIdea", USER_ID);
+    reactionBufferService.toggle(new Date(), ReactionType.HighFive, IDEA_ID, OTHER_USER_ID);
+    verify(eventPublisher, never()).publishEvent(any(InterestsChangedEvent.class));
+
+    reactionBufferService.flush();
+
+    ArgumentCaptor<InterestsChangedEvent> changes =
+        ArgumentCaptor.forClass(InterestsChangedEvent.class);
+    verify(eventPublisher, times(2)).publishEvent(changes.capture());
+    Set<String> userIds = new HashSet<>();
+    for (InterestsChangedEvent change : changes.getAllValues()) {
+      userIds.add(change.getUserId());
+    }
+    assertEquals(Set.of(USER_ID, OTHER_USER_ID), userIds);
+  }
+
+  /** Test that the buffer is flushed as soon as it holds more than its maximum size */
+  @Test
+  public void testToggle_MaxSize() {
+    reactionBufferService.maxSize = 1;
+
+    reactionBufferService.toggle(new Date(), ReactionType.HighFive, IDEA_ID, USER_ID);
+    verify(ideaRepository, never()).addHighFives(anyString(), anyInt());
+    reactionBufferService.toggle(new Date(), ReactionType.HighFive, IDEA_ID, OTHER_USER_ID);
+
+    verify(ideaRepository, times(1)).addHighFives(IDEA_ID, 2);
+  }
+
+  /** Test that the reactions of a failed flush are written by the next one */
+  @Test
+  public void testFlush_Failure() {
+    when(reactionRepository.insertReactionIfAbsent(
+            anyString(), anyInt(), any(Date.class), anyString(), anyString()))
+        .thenThrow(new RuntimeException("Connection lost"))
+        .thenReturn(1);
+
+    reactionBufferService.toggle(new Date(), ReactionType.HighFive, IDEA_ID, USER_ID);
+    assertThrows(RuntimeException.class, () -> reactionBufferService.flush());
+    verify(ideaRepository, never()).addHighFives(anyString(), anyInt());
+
+    // The user still reacts to the idea
+    assertFalse(reactionBufferService.toggle(new Date(), ReactionType.HighFive, IDEA_ID, USER_ID));
+    assertTrue(reactionBufferService.toggle(new Date(), ReactionType.HighFive, IDEA_ID, USER_ID));
+    reactionBufferService.flush();
+
+    verify(ideaRepository, times(1)).addHighFives(IDEA_ID, 1);
+  }
+
+  /** Test that the journaled reactions are written after a restart */
+  @Test
+  public void testOpenJournal_Replay() {
+    String journalPath = tempDir.resolve("reactions.journal").toString();
+    reactionBufferService.journalPath = journalPath;
+    reactionBufferService.openJournal();
+    reactionBufferService.toggle(new Date(), ReactionType.HighFive, IDEA_ID, USER_ID);
+
+    // Restart without flushing
+    ReactionBufferService restarted = new ReactionBufferService();
+    restarted.reactionRepository = reactionRepository;
+    restarted.ideaRepository = ideaRepository;
+    restarted.ideaService = ideaService;
+    restarted.transactionManager = transactionManager;
+    restarted.eventPublisher = eventPublisher;
+    restarted.maxSize = 100;
+    restarted.journalPath = journalPath;
+    restarted.openJournal();
+    restarted.flushJournal();
+
+    verify(reactionRepository, times(1))
+        .insertReactionIfAbsent(anyString(), anyInt(), any(Date.class), eq(IDEA_ID), eq(USER_ID));
+    verify(ideaRepository, times(1)).addHighFives(IDEA_ID, 1);
+
+    // Once flushed, the journal is empty
+    ReactionBufferService flushed = new ReactionBufferService();
+    flushed.journalPath = journalPath;
+    flushed.openJournal();
+    flushed.flushJournal();
+    verifyNoMoreInteractions(ideaRepository);
+  }
+
+  /** Test that the buffered reactions replace the ones of the database */
+  @Test
+  public void testApplyBuffered() {
+    when(reactionRepository.findReactionByIdea_IdAndRegularUser_Id("reactedIdea", USER_ID))
+        .thenReturn(new Reaction());
+    reactionBufferService.toggle(new Date(), ReactionType.HighFive, IDEA_ID, USER_ID);
+    reactionBufferService.toggle(new Date(), ReactionType.HighFive, "reactedIdea", USER_ID);
+
+    Set<String> reacted = new HashSet<>(Set.of("reactedIdea", "otherIdea"));
+    reactionBufferService.applyBuffered(
+        USER_ID, List.of(IDEA_ID, "reactedIdea", "otherIdea"), reacted);
+
+    assertEquals(Set.of(IDEA_ID, "otherIdea"), reacted);
+  }
+}
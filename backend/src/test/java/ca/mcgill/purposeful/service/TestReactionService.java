@@ -1,26 +1,36 @@
 package ca.mcgill.purposeful.service;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 import ca.mcgill.purposeful.dao.IdeaRepository;
 import ca.mcgill.purposeful.dao.ReactionRepository;
 import ca.mcgill.purposeful.dao.RegularUserRepository;
+import ca.mcgill.purposeful.exception.GlobalException;
 import ca.mcgill.purposeful.model.*;
 import ca.mcgill.purposeful.model.Reaction.ReactionType;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
 
 /**
  * To test the idea service methods
@@ -35,6 +45,7 @@ public class TestReactionService {
   @Mock private IdeaRepository ideaRepository;
   @Mock private RegularUserRepository regularUserRepository;
   @Mock private IdeaService ideaService;
+  @Mock private ApplicationEventPublisher eventPublisher;
 
   // Inject mocks
   @InjectMocks private ReactionService reactionService;
@@ -54,6 +65,17 @@ public class TestReactionService {
         .when(reactionRepository.save(any(Reaction.class)))
         .thenAnswer(ReactionMockRepository::save);
 
+    lenient()
+        .when(
+            reactionRepository.deleteReactionByIdeaAndUserReturningDate(anyString(), anyString()))
+        .thenAnswer(ReactionMockRepository::deleteReactionByIdeaAndUser);
+
+    lenient()
+        .when(
+            reactionRepository.insertReactionIfAbsent(
+                anyString(), anyInt(), any(Date.class), anyString(), anyString()))
+        .thenReturn(1);
+
     lenient()
         .when(ideaRepository.findIdeaById(anyString()))
         .thenAnswer(ReactionMockRepository::findIdeaById);
@@ -73,17 +95,30 @@ public class TestReactionService {
     // target reaction
     Reaction targetReaction = ReactionMockDatabase.reaction1;
 
-    // Call service layer
+    // Call service layer, after the reaction was made
     Reaction reaction =
         reactionService.react(
-            targetReaction.getDate(),
+            new Date(20000),
             targetReaction.getReactionType(),
             targetReaction.getIdea().getId(),
             targetReaction.getRegularUser().getId());
 
     // Verify
     assertNull(reaction);
-    verify(reactionRepository, times(1)).deleteReactionById(ReactionMockDatabase.reaction1.getId());
+    verify(reactionRepository, times(1))
+        .deleteReactionByIdeaAndUserReturningDate(
+            ReactionMockDatabase.idea1.getId(), ReactionMockDatabase.user1.getId());
+    verify(ideaRepository, times(1)).addHighFives(ReactionMockDatabase.idea1.getId(), -1);
+    List<TrendingActivityEvent> activity = publishedActivity();
+    assertEquals(1, activity.size());
+    assertActivity(
+        TrendingActivityEvent.Kind.HIGH_FIVE_REMOVED,
+        ReactionMockDatabase.idea1.getId(),
+        targetReaction.getDate(),
+        activity.get(0));
+    verify(eventPublisher, times(1)).publishEvent(any(InterestsChangedEvent.class));
+    verify(reactionRepository, never())
+        .insertReactionIfAbsent(anyString(), anyInt(), any(Date.class), anyString(), anyString());
   }
 
   /**
@@ -102,6 +137,10 @@ public class TestReactionService {
     newReaction.setIdea(ReactionMockDatabase.idea2);
     newReaction.setRegularUser(ReactionMockDatabase.user1);
 
+    when(reactionRepository.findReactionByIdea_IdAndRegularUser_Id(
+            newReaction.getIdea().getId(), newReaction.getRegularUser().getId()))
+        .thenReturn(newReaction);
+
     // Call service layer
     Reaction reaction =
         reactionService.react(
@@ -112,16 +151,30 @@ public class TestReactionService {
 
     // Verify
     assertNotNull(reaction);
-    verify(reactionRepository, times(1)).save(reaction);
+    verify(reactionRepository, times(1))
+        .insertReactionIfAbsent(
+            anyString(),
+            eq(ReactionType.HighFive.ordinal()),
+            eq(newReaction.getDate()),
+            eq(newReaction.getIdea().getId()),
+            eq(newReaction.getRegularUser().getId()));
+    verify(ideaRepository, times(1)).addHighFives(newReaction.getIdea().getId(), 1);
+    List<TrendingActivityEvent> activity = publishedActivity();
+    assertEquals(1, activity.size());
+    assertActivity(
+        TrendingActivityEvent.Kind.HIGH_FIVE,
+        newReaction.getIdea().getId(),
+        newReaction.getDate(),
+        activity.get(0));
+    verify(eventPublisher, times(1)).publishEvent(any(InterestsChangedEvent.class));
   }
 
   /**
-   * Test the react method (Invalid idea case)
-   *
-   * @author Athmane Benarous
+   * Test the react method (Concurrent create case, e.g. a double click): the reaction inserted by
+   * the other request is returned and only counted once
    */
   @Test
-  public void testReact_Failure() {
+  public void testReact_AlreadyCreated() {
     // new reaction
     Reaction newReaction = new Reaction();
 
@@ -131,6 +184,13 @@ public class TestReactionService {
     newReaction.setIdea(ReactionMockDatabase.idea2);
     newReaction.setRegularUser(ReactionMockDatabase.user1);
 
+    when(reactionRepository.insertReactionIfAbsent(
+            anyString(), anyInt(), any(Date.class), anyString(), anyString()))
+        .thenReturn(0);
+    when(reactionRepository.findReactionByIdea_IdAndRegularUser_Id(
+            newReaction.getIdea().getId(), newReaction.getRegularUser().getId()))
+        .thenReturn(newReaction);
+
     // Call service layer
     Reaction reaction =
         reactionService.react(
@@ -140,8 +200,163 @@ public class TestReactionService {
             newReaction.getRegularUser().getId());
 
     // Verify
-    assertNotNull(reaction);
-    verify(reactionRepository, times(1)).save(reaction);
+    assertEquals(newReaction, reaction);
+    verify(ideaRepository, never()).addHighFives(anyString(), anyInt());
+    verify(eventPublisher, never()).publishEvent(any(InterestsChangedEvent.class));
+    assertEquals(List.of(), publishedActivity());
+  }
+
+  /**
+   * Test the react method (Invalid idea case)
+   *
+   * @author Athmane Benarous
+   */
+  @Test
+  public void testReact_Failure() {
+    String invalidIdeaId = UUID.randomUUID().toString();
+    when(ideaService.getIdeaWithOwnerById(invalidIdeaId))
+        .thenThrow(new GlobalException(HttpStatus.NOT_FOUND, "Idea not found"));
+
+    // Call service layer
+    assertThrows(
+        GlobalException.class,
+        () ->
+            reactionService.react(
+                new Date(12000),
+                ReactionType.HighFive,
+                invalidIdeaId,
+                ReactionMockDatabase.user1.getId()));
+
+    // Verify
+    verify(reactionRepository, never())
+        .insertReactionIfAbsent(anyString(), anyInt(), any(Date.class), anyString(), anyString());
+    verify(ideaRepository, never()).addHighFives(anyString(), anyInt());
+  }
+
+  /** Test that removing a reaction takes it out of the high fives of its idea */
+  @Test
+  public void testRemoveReaction() {
+    Reaction targetReaction = ReactionMockDatabase.reaction1;
+    when(reactionRepository.deleteReactionById(targetReaction.getId())).thenReturn(1);
+
+    reactionService.removeReaction(targetReaction.getId());
+
+    verify(ideaRepository, times(1)).addHighFives(targetReaction.getIdea().getId(), -1);
+    List<TrendingActivityEvent> activity = publishedActivity();
+    assertEquals(1, activity.size());
+    assertActivity(
+        TrendingActivityEvent.Kind.HIGH_FIVE_REMOVED,
+        targetReaction.getIdea().getId(),
+        targetReaction.getDate(),
+        activity.get(0));
+  }
+
+  /** Test that a reaction removed concurrently by another request is not counted twice */
+  @Test
+  public void testRemoveReaction_AlreadyRemoved() {
+    Reaction targetReaction = ReactionMockDatabase.reaction1;
+    when(reactionRepository.deleteReactionById(targetReaction.getId())).thenReturn(0);
+
+    reactionService.removeReaction(targetReaction.getId());
+
+    verify(ideaRepository, never()).addHighFives(anyString(), anyInt());
+    assertEquals(List.of(), publishedActivity());
+  }
+
+  /** Test that removing the reactions of a user takes each idea's removed ones out of its count */
+  @Test
+  public void testRemoveReactionsByRegularUser() {
+    String idea1Id = ReactionMockDatabase.idea1.getId();
+    String idea2Id = ReactionMockDatabase.idea2.getId();
+    String userId = ReactionMockDatabase.user1.getId();
+    when(reactionRepository.deleteReactionsByUser(userId))
+        .thenReturn(
+            List.of(
+                new Object[] {idea1Id, new Date(10000)},
+                new Object[] {idea2Id, new Date(11000)},
+                new Object[] {idea2Id, new Date(12000)}));
+
+    reactionService.removeReactionsByRegularUser(userId);
+
+    verify(ideaRepository, times(1)).addHighFives(idea1Id, -1);
+    verify(ideaRepository, times(1)).addHighFives(idea2Id, -2);
+    List<TrendingActivityEvent> activity = publishedActivity();
+    assertEquals(3, activity.size());
+    assertActivity(
+        TrendingActivityEvent.Kind.HIGH_FIVE_REMOVED, idea2Id, new Date(11000), activity.get(1));
+  }
+
+  /** Test that removing the reactions of a user who has none fails */
+  @Test
+  public void testRemoveReactionsByRegularUser_None() {
+    String userId = ReactionMockDatabase.user1.getId();
+    when(reactionRepository.deleteReactionsByUser(userId)).thenReturn(List.of());
+
+    assertThrows(
+        GlobalException.class, () -> reactionService.removeReactionsByRegularUser(userId));
+    verify(ideaRepository, never()).addHighFives(anyString(), anyInt());
+  }
+
+  /** Test that the ideas a user reacted to are found with a single query */
+  @Test
+  public void testGetReactedIdeaIds() {
+    String idea1Id = ReactionMockDatabase.idea1.getId();
+    String idea2Id = ReactionMockDatabase.idea2.getId();
+    when(regularUserRepository.findRegularUserByAppUserEmail("user1@gmail.com"))
+        .thenReturn(ReactionMockDatabase.user1);
+    when(reactionRepository.findReactedIdeaIds(
+            ReactionMockDatabase.user1.getId(), List.of(idea1Id, idea2Id)))
+        .thenReturn(Set.of(idea1Id));
+
+    Set<String> reacted =
+        reactionService.getReactedIdeaIds("user1@gmail.com", List.of(idea1Id, idea2Id));
+
+    assertEquals(Set.of(idea1Id), reacted);
+    verify(reactionRepository, times(1)).findReactedIdeaIds(anyString(), any());
+    verify(reactionRepository, never()).findReactionByIdea_IdAndRegularUser_Id(any(), any());
+  }
+
+  /** Test that a user who is not a regular user reacted to no idea */
+  @Test
+  public void testGetReactedIdeaIds_NotRegularUser() {
+    Set<String> reacted =
+        reactionService.getReactedIdeaIds(
+            "moderator@gmail.com", List.of(ReactionMockDatabase.idea1.getId()));
+
+    assertEquals(Set.of(), reacted);
+    verify(reactionRepository, never()).findReactedIdeaIds(anyString(), any());
+  }
+
+  /**
+   * Get the trending activity published by the service, in order
+   *
+   * @return the published trending activity events
+   */
+  private List<TrendingActivityEvent> publishedActivity() {
+    ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+    verify(eventPublisher, atLeast(0)).publishEvent(events.capture());
+    List<TrendingActivityEvent> activity = new ArrayList<>();
+    for (Object event : events.getAllValues()) {
+      if (event instanceof TrendingActivityEvent) {
+        activity.add((TrendingActivityEvent) event);
+      }
+    }
+    return activity;
+  }
+
+  /**
+   * Assert that a trending activity event describes an activity
+   *
+   * @param kind the expected kind of activity
+   * @param ideaId the expected id of the idea
+   * @param date the expected date of the activity
+   * @param activity the event
+   */
+  private static void assertActivity(
+      TrendingActivityEvent.Kind kind, String ideaId, Date date, TrendingActivityEvent activity) {
+    assertEquals(kind, activity.getKind());
+    assertEquals(ideaId, activity.getIdeaId());
+    assertEquals(date, activity.getDate());
   }
 
   /**
@@ -185,6 +400,11 @@ public class TestReactionService {
       }
     }
 
+    static List<Date> deleteReactionByIdeaAndUser(InvocationOnMock invocation) {
+      Reaction reaction = findReactionByIdeaAndRegularUser(invocation);
+      return reaction == null ? List.of() : List.of(reaction.getDate());
+    }
+
     static Reaction save(InvocationOnMock invocation) {
       return invocation.getArgument(0);
     }
@@ -0,0 +1,317 @@
+package ca.mcgill.purposeful.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import ca.mcgill.purposeful.dao.CollaborationRequestRepository;
+import ca.mcgill.purposeful.dao.IdeaRepository;
+import ca.mcgill.purposeful.dao.ReactionRepository;
+import ca.mcgill.purposeful.dao.RegularUserRepository;
+import ca.mcgill.purposeful.exception.GlobalException;
+import ca.mcgill.purposeful.model.Domain;
+import ca.mcgill.purposeful.model.Idea;
+import ca.mcgill.purposeful.model.RegularUser;
+import ca.mcgill.purposeful.model.Topic;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+/** To test the recommendations of ideas */
+@ExtendWith(MockitoExtension.class)
+public class TestRecommendationService {
+
+  private static final String EMAIL = "user@email.com";
+  private static final String USER_ID = "user";
+  private static final String OTHER_USER_ID = "otherUser";
+
+  @Mock private IdeaRepository ideaRepository;
+
+  @Mock private RegularUserRepository regularUserRepository;
+
+  @Mock private ReactionRepository reactionRepository;
+
+  @Mock private CollaborationRequestRepository collaborationRequestRepository;
+
+  @InjectMocks private RecommendationService recommendationService;
+
+  /**
+   * The user is interested in the AI domain and the health topic, and high-fived an idea about
+   * robotics
+   */
+  @BeforeEach
+  public void setMockOutput() {
+    MockDatabase.clear();
+    RegularUser user = new RegularUser();
+    user.setId(USER_ID);
+    user.setDomains(new HashSet<>(Set.of(MockDatabase.domain("ai"))));
+    user.setInterests(new HashSet<>(Set.of(MockDatabase.topic("health"))));
+    lenient().when(regularUserRepository.findRegularUserByAppUserEmail(EMAIL)).thenReturn(user);
+
+    Idea reacted = MockDatabase.idea("reacted", 0, Set.of("robotics"), Set.of());
+    lenient()
+        .when(reactionRepository.findReactedIdeas(eq(USER_ID), any(Pageable.class)))
+        .thenReturn(List.of(reacted));
+    lenient()
+        .when(reactionRepository.findReactedIdeaIds(eq(USER_ID), anyCollection()))
+        .thenReturn(Set.of("reacted"));
+    lenient()
+        .when(
+            collaborationRequestRepository.findRequestedPublicIdeasByRequesterId(
+                eq(USER_ID), any(Pageable.class)))
+        .thenReturn(List.of());
+
+    lenient()
+        .when(
+            ideaRepository.findPublicIdeasRelatedTo(
+                anyString(),
+                anyCollection(),
+                anyCollection(),
+                anyCollection(),
+                any(Pageable.class)))
+        .thenAnswer(MockRepository::findPublicIdeasRelatedTo);
+    lenient()
+        .when(ideaRepository.findIdeasByIdIn(anyCollection()))
+        .thenAnswer(MockRepository::findIdeasByIdIn);
+    lenient().when(ideaRepository.findIdeasByIdInOrder(anyList())).thenCallRealMethod();
+  }
+
+  /** Test that the ideas sharing the most with the interests come first */
+  @Test
+  public void testGetRecommendedIdeas() {
+    MockDatabase.idea("aiAndHealth", 1, Set.of("ai"), Set.of("health"));
+    MockDatabase.idea("ai", 2, Set.of("ai"), Set.of());
+    MockDatabase.idea("robotics", 3, Set.of("robotics"), Set.of());
+    MockDatabase.idea("unrelated", 4, Set.of("finance"), Set.of());
+
+    assertEquals(
+        List.of("aiAndHealth", "ai", "robotics"),
+        ids(recommendationService.getRecommendedIdeas(EMAIL, 10)));
+    assertEquals(List.of("aiAndHealth"), ids(recommendationService.getRecommendedIdeas(EMAIL, 1)));
+  }
+
+  /** Test that the ideas the user already high-fived are not recommended */
+  @Test
+  public void testGetRecommendedIdeas_ExcludesReacted() {
+    MockDatabase.idea("ai", 1, Set.of("ai"), Set.of());
+
+    assertEquals(List.of("ai"), ids(recommendationService.getRecommendedIdeas(EMAIL, 10)));
+  }
+
+  /** Test that a feed is computed once and then served from the cache */
+  @Test
+  public void testGetRecommendedIdeas_Cached() {
+    MockDatabase.idea("ai", 1, Set.of("ai"), Set.of());
+
+    recommendationService.getRecommendedIdeas(EMAIL, 10);
+    recommendationService.getRecommendedIdeas(EMAIL, 10);
+
+    verify(regularUserRepository, times(1)).findRegularUserByAppUserEmail(EMAIL);
+    verify(ideaRepository, times(1))
+        .findPublicIdeasRelatedTo(
+            anyString(), anyCollection(), anyCollection(), anyCollection(), any(Pageable.class));
+
+    // Computed again once expired
+    recommendationService.timeToLiveMinutes = 0;
+    recommendationService.getRecommendedIdeas(EMAIL, 10);
+    verify(regularUserRepository, times(2)).findRegularUserByAppUserEmail(EMAIL);
+  }
+
+  /** Test that saved ideas are inserted into or taken out of the cached feeds */
+  @Test
+  public void testOnIdeaChanged() {
+    MockDatabase.idea("ai", 1, Set.of("ai"), Set.of());
+    recommendationService.getRecommendedIdeas(EMAIL, 10);
+
+    Idea created = MockDatabase.idea("aiAndHealth", 2, Set.of("ai"), Set.of("health"));
+    recommendationService.onIdeaChanged(IdeaChangedEvent.saved(created));
+    Idea own = MockDatabase.idea("own", 3, Set.of("ai"), Set.of("health"));
+    own.getUser().setId(USER_ID);
+    recommendationService.onIdeaChanged(IdeaChangedEvent.saved(own));
+    assertEquals(
+        List.of("aiAndHealth", "ai"), ids(recommendationService.getRecommendedIdeas(EMAIL, 10)));
+
+    created.setPrivate(true);
+    recommendationService.onIdeaChanged(IdeaChangedEvent.saved(created));
+    assertEquals(List.of("ai"), ids(recommendationService.getRecommendedIdeas(EMAIL, 10)));
+
+    recommendationService.onIdeaChanged(IdeaChangedEvent.removed("ai"));
+    assertEquals(List.of(), ids(recommendationService.getRecommendedIdeas(EMAIL, 10)));
+    verify(regularUserRepository, times(1)).findRegularUserByAppUserEmail(EMAIL);
+  }
+
+  /** Test that the feed of a user is computed again once their interests changed */
+  @Test
+  public void testOnInterestsChanged() {
+    MockDatabase.idea("ai", 1, Set.of("ai"), Set.of());
+    recommendationService.getRecommendedIdeas(EMAIL, 10);
+
+    // The interests of another user do not change this feed
+    recommendationService.onInterestsChanged(new InterestsChangedEvent(OTHER_USER_ID));
+    recommendationService.getRecommendedIdeas(EMAIL, 10);
+    verify(regularUserRepository, times(1)).findRegularUserByAppUserEmail(EMAIL);
+
+    recommendationService.onInterestsChanged(new InterestsChangedEvent(USER_ID));
+    recommendationService.getRecommendedIdeas(EMAIL, 10);
+    verify(regularUserRepository, times(2)).findRegularUserByAppUserEmail(EMAIL);
+  }
+
+  /** Test that an idea saved while a feed is computed is inserted into it */
+  @Test
+  public void testGetRecommendedIdeas_IdeaChangedDuringComputation() {
+    MockDatabase.idea("ai", 1, Set.of("ai"), Set.of());
+    when(reactionRepository.findReactedIdeaIds(eq(USER_ID), anyCollection()))
+        .thenAnswer(
+            invocation -> {
+              // Committed after the candidates were read, so missing from them
+              Idea created = MockDatabase.idea("aiAndHealth", 2, Set.of("ai"), Set.of("health"));
+              recommendationService.onIdeaChanged(IdeaChangedEvent.saved(created));
+              return Set.of("reacted");
+            });
+
+    assertEquals(
+        List.of("aiAndHealth", "ai"), ids(recommendationService.getRecommendedIdeas(EMAIL, 10)));
+    assertEquals(
+        List.of("aiAndHealth", "ai"), ids(recommendationService.getRecommendedIdeas(EMAIL, 10)));
+    verify(regularUserRepository, times(1)).findRegularUserByAppUserEmail(EMAIL);
+  }
+
+  /** Test that a feed computed while the interests of its user change is not cached */
+  @Test
+  public void testGetRecommendedIdeas_InterestsChangedDuringComputation() {
+    MockDatabase.idea("ai", 1, Set.of("ai"), Set.of());
+    when(reactionRepository.findReactedIdeaIds(eq(USER_ID), anyCollection()))
+        .thenAnswer(
+            invocation -> {
+              recommendationService.onInterestsChanged(new InterestsChangedEvent(USER_ID));
+              return Set.of("reacted");
+            })
+        .thenReturn(Set.of("reacted"));
+
+    assertEquals(List.of("ai"), ids(recommendationService.getRecommendedIdeas(EMAIL, 10)));
+    recommendationService.getRecommendedIdeas(EMAIL, 10);
+    recommendationService.getRecommendedIdeas(EMAIL, 10);
+    verify(regularUserRepository, times(2)).findRegularUserByAppUserEmail(EMAIL);
+  }
+
+  /** Test that the number of ideas must fit in a feed */
+  @Test
+  public void testGetRecommendedIdeas_InvalidCount() {
+    GlobalException e =
+        assertThrows(
+            GlobalException.class, () -> recommendationService.getRecommendedIdeas(EMAIL, 0));
+    assertEquals("The number of ideas must be between 1 and 50.", e.getMessage());
+    assertThrows(
+        GlobalException.class, () -> recommendationService.getRecommendedIdeas(EMAIL, 51));
+  }
+
+  /** Test that only regular users get recommendations */
+  @Test
+  public void testGetRecommendedIdeas_NotRegularUser() {
+    GlobalException e =
+        assertThrows(
+            GlobalException.class,
+            () -> recommendationService.getRecommendedIdeas("moderator@email.com", 10));
+    assertEquals("This account does not exist.", e.getMessage());
+  }
+
+  private static List<String> ids(List<Idea> ideas) {
+    List<String> ids = new ArrayList<>();
+    for (Idea idea : ideas) {
+      ids.add(idea.getId());
+    }
+    return ids;
+  }
+
+  /** Answers the repository queries from the mock database */
+  static final class MockRepository {
+
+    static List<Idea> findPublicIdeasRelatedTo(InvocationOnMock invocation) {
+      String userId = invocation.getArgument(0);
+      Collection<String> domainIds = invocation.getArgument(1);
+      Collection<String> topicIds = invocation.getArgument(2);
+      List<Idea> related = new ArrayList<>();
+      for (Idea idea : MockDatabase.ideas.values()) {
+        if (idea.isPrivate() || idea.getUser().getId().equals(userId)) {
+          continue;
+        }
+        if (idea.getDomains().stream().anyMatch(d -> domainIds.contains(d.getId()))
+            || idea.getTopics().stream().anyMatch(t -> topicIds.contains(t.getId()))) {
+          related.add(idea);
+        }
+      }
+      related.sort((a, b) -> b.getDate().compareTo(a.getDate()));
+      return related;
+    }
+
+    static List<Idea> findIdeasByIdIn(InvocationOnMock invocation) {
+      Collection<String> ids = invocation.getArgument(0);
+      List<Idea> ideas = new ArrayList<>();
+      for (String id : ids) {
+        if (MockDatabase.ideas.containsKey(id)) {
+          ideas.add(MockDatabase.ideas.get(id));
+        }
+      }
+      return ideas;
+    }
+  }
+
+  /** The ideas, domains and topics of the tests */
+  static final class MockDatabase {
+
+    static final Map<String, Idea> ideas = new HashMap<>();
+
+    static void clear() {
+      ideas.clear();
+    }
+
+    static Domain domain(String id) {
+      Domain domain = new Domain();
+      domain.setId(id);
+      return domain;
+    }
+
+    static Topic topic(String id) {
+      Topic topic = new Topic();
+      topic.setId(id);
+      return topic;
+    }
+
+    static Idea idea(String id, int day, Set<String> domainIds, Set<String> topicIds) {
+      RegularUser owner = new RegularUser();
+      owner.setId(OTHER_USER_ID);
+      Idea idea = new Idea();
+      idea.setId(id);
+      idea.setDate(new Date(day * 86_400_000L));
+      idea.setUser(owner);
+      idea.setDomains(new HashSet<>());
+      for (String domainId : domainIds) {
+        idea.getDomains().add(domain(domainId));
+      }
+      idea.setTopics(new HashSet<>());
+      for (String topicId : topicIds) {
+        idea.getTopics().add(topic(topicId));
+      }
+      idea.setTechs(new HashSet<>());
+      ideas.put(id, idea);
+      return idea;
+    }
+  }
+}
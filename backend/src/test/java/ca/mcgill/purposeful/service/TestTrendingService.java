@@ -0,0 +1,129 @@
+package ca.mcgill.purposeful.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import ca.mcgill.purposeful.dao.CollaborationRequestRepository;
+import ca.mcgill.purposeful.dao.ReactionRepository;
+import java.util.Date;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/** To test the trending scores of the ideas */
+@ExtendWith(MockitoExtension.class)
+public class TestTrendingService {
+
+  private static final long HOUR = 3_600_000;
+
+  @Mock private ReactionRepository reactionRepository;
+
+  @Mock private CollaborationRequestRepository collaborationRequestRepository;
+
+  @InjectMocks private TrendingService trendingService;
+
+  /** Test that a high five loses half of its weight every half-life */
+  @Test
+  public void testRecordReaction_Decays() {
+    long now = System.currentTimeMillis();
+    trendingService.recordReaction("new", new Date(now));
+    trendingService.recordReaction("old", new Date(now - 24 * HOUR));
+
+    assertEquals(1, trendingService.getScore("new"), 0.01);
+    assertEquals(0.5, trendingService.getScore("old"), 0.01);
+    assertEquals(0, trendingService.getScore("none"));
+  }
+
+  /** Test that recent activity ranks an idea above one with more but older activity */
+  @Test
+  public void testGetTopIdeaIds() {
+    long now = System.currentTimeMillis();
+    for (int i = 0; i < 3; i++) {
+      trendingService.recordReaction("lastWeek", new Date(now - 7 * 24 * HOUR));
+    }
+    trendingService.recordReaction("today", new Date(now));
+    trendingService.recordCollaborationRequest("requested", new Date(now));
+    trendingService.recordReaction("yesterday", new Date(now - 24 * HOUR));
+
+    assertEquals(List.of("requested", "today"), trendingService.getTopIdeaIds(2));
+    assertEquals(
+        List.of("requested", "today", "yesterday", "lastWeek"),
+        trendingService.getTopIdeaIds(10));
+  }
+
+  /** Test that a removed high five no longer counts */
+  @Test
+  public void testRemoveReaction() {
+    Date date = new Date();
+    trendingService.recordReaction("idea", date);
+    trendingService.recordReaction("idea", date);
+    trendingService.removeReaction("idea", date);
+
+    assertEquals(1, trendingService.getScore("idea"), 0.01);
+
+    trendingService.removeReaction("idea", date);
+
+    assertEquals(List.of(), trendingService.getTopIdeaIds(10));
+  }
+
+  /** Test that the committed activity changes the scores */
+  @Test
+  public void testOnActivity() {
+    Date date = new Date();
+    trendingService.onActivity(TrendingActivityEvent.highFive("reacted", date));
+    trendingService.onActivity(TrendingActivityEvent.highFive("undone", date));
+    trendingService.onActivity(TrendingActivityEvent.highFiveRemoved("undone", date));
+    trendingService.onActivity(TrendingActivityEvent.collaborationRequest("requested", date));
+
+    assertEquals(1, trendingService.getScore("reacted"), 0.01);
+    assertEquals(0, trendingService.getScore("undone"), 0.01);
+    assertEquals(3, trendingService.getScore("requested"), 0.01);
+  }
+
+  /** Test that the scores are computed from the high fives and collaboration requests */
+  @Test
+  public void testRebuild() {
+    long now = System.currentTimeMillis();
+    trendingService.recordReaction("forgotten", new Date(now));
+    when(reactionRepository.findIdeaIdsAndDatesSince(any(Date.class)))
+        .thenReturn(
+            List.of(
+                new Object[] {"reacted", new Date(now)},
+                new Object[] {"reacted", new Date(now - 24 * HOUR)}));
+    when(collaborationRequestRepository.findIdeaIdsAndDatesSince(any(Date.class)))
+        .thenReturn(List.<Object[]>of(new Object[] {"requested", new Date(now)}));
+
+    trendingService.rebuild();
+
+    assertEquals(1.5, trendingService.getScore("reacted"), 0.01);
+    assertEquals(3, trendingService.getScore("requested"), 0.01);
+    assertEquals(List.of("requested", "reacted"), trendingService.getTopIdeaIds(10));
+  }
+
+  /** Test that the activity added while the database is read for a rebuild is not lost */
+  @Test
+  public void testRebuild_ChangesDuringRebuild() {
+    long now = System.currentTimeMillis();
+    when(reactionRepository.findIdeaIdsAndDatesSince(any(Date.class)))
+        .thenAnswer(
+            invocation -> {
+              // Committed after the high fives were read, so missing from them
+              trendingService.recordReaction("late", new Date(now));
+              trendingService.removeReaction("undone", new Date(now));
+              return List.of(
+                  new Object[] {"undone", new Date(now)}, new Object[] {"kept", new Date(now)});
+            });
+    when(collaborationRequestRepository.findIdeaIdsAndDatesSince(any(Date.class)))
+        .thenReturn(List.of());
+
+    trendingService.rebuild();
+
+    assertEquals(1, trendingService.getScore("late"), 0.01);
+    assertEquals(0, trendingService.getScore("undone"), 0.01);
+    assertEquals(List.of("kept", "late"), trendingService.getTopIdeaIds(10));
+  }
+}
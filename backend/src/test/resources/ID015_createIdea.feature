@@ -45,12 +45,12 @@ Feature: Create Idea
     And the number of ideas in the database is 0
 
     Examples:
-      | title                                                                                                   | purpose          | description               | isPaid | inProgress | isPrivate | domains              | topics              | techs             | iconUrl      | supportingImageUrls | error                                                                 | statusCode |
-      |                                                                                                         | Save people time | AI daily schedule builder | true   | false      | false     | Software,Science     | AI,Machine Learning | Tensorflow,Python | schedule.png | img.png,img2.png    | Necessary fields have been left empty                                 | 400        |
-      | Smart Schedule Manager                                                                                  |                  | AI daily schedule builder | true   | false      | false     | Software,Science     | AI,Machine Learning | Tensorflow,Python | schedule.png | img.png,img2.png    | Necessary fields have been left empty                                 | 400        |
-      | Smart Schedule Manager                                                                                  | Save people time |                           | true   | false      | false     | Software,Science     | AI,Machine Learning | Tensorflow,Python | schedule.png | img.png,img2.png    | Necessary fields have been left empty                                 | 400        |
-      | exampleTitle                                                                                            | improve testing  | Example description       | true   |            | false     |                      | AI,Machine Learning |                   | schedule.png |                     | You must specify at least 1 domain                                    | 400        |
-      | exampleTitle                                                                                            | improve testing  | Example description       | true   |            | false     | Software,Science     |                     |                   | schedule.png |                     | You must specify at least 1 topic                                     | 400        |
-      | Smart Schedule Manager                                                                                  | Save people time | AI daily schedule builder | true   | false      | false     | Software,Science     | AI,Machine Learning | Tensorflow,Python |              | img.png,img2.png    | An idea icon is required                                              | 400        |
-      | wfbypsX1842YKvElZNfDYCtjMU6UZXXF15KltjAsMdpYt8VFBLbpaS28R8PyiUrUJX79y77dtmEyrnfzOk0aAIp2wz8wX3J6wjynwqe | Save people time | AI daily schedule builder | true   | false      | false     | Software,Science     | AI,Machine Learning | Tensorflow,Python | schedule.png | img.png,img2.png    | Idea titles cannot exceed 100 characters                              | 400        |
-      | Smart Schedule Manager                                                                                  | Save people time | AI daily schedule builder | true   | false      | false     | Software,NonExistent | AI,Machine Learning | Tensorflow,Python | schedule.png | img.png,img2.png    | You are attempting to link your idea to an object that does not exist | 400        |
+      | title                                                                                                   | purpose          | description               | isPaid | inProgress | isPrivate | domains              | topics              | techs             | iconUrl      | supportingImageUrls | error                                                                                        | statusCode |
+      |                                                                                                         | Save people time | AI daily schedule builder | true   | false      | false     | Software,Science     | AI,Machine Learning | Tensorflow,Python | schedule.png | img.png,img2.png    | Necessary fields have been left empty                                                        | 400        |
+      | Smart Schedule Manager                                                                                  |                  | AI daily schedule builder | true   | false      | false     | Software,Science     | AI,Machine Learning | Tensorflow,Python | schedule.png | img.png,img2.png    | Necessary fields have been left empty                                                        | 400        |
+      | Smart Schedule Manager                                                                                  | Save people time |                           | true   | false      | false     | Software,Science     | AI,Machine Learning | Tensorflow,Python | schedule.png | img.png,img2.png    | Necessary fields have been left empty                                                        | 400        |
+      | exampleTitle                                                                                            | improve testing  | Example description       | true   |            | false     |                      | AI,Machine Learning |                   | schedule.png |                     | You must specify at least 1 domain                                                           | 400        |
+      | exampleTitle                                                                                            | improve testing  | Example description       | true   |            | false     | Software,Science     |                     |                   | schedule.png |                     | You must specify at least 1 topic                                                            | 400        |
+      | Smart Schedule Manager                                                                                  | Save people time | AI daily schedule builder | true   | false      | false     | Software,Science     | AI,Machine Learning | Tensorflow,Python |              | img.png,img2.png    | An idea icon is required                                                                     | 400        |
+      | wfbypsX1842YKvElZNfDYCtjMU6UZXXF15KltjAsMdpYt8VFBLbpaS28R8PyiUrUJX79y77dtmEyrnfzOk0aAIp2wz8wX3J6wjynwqe | Save people time | AI daily schedule builder | true   | false      | false     | Software,Science     | AI,Machine Learning | Tensorflow,Python | schedule.png | img.png,img2.png    | Idea titles cannot exceed 100 characters                                                     | 400        |
+      | Smart Schedule Manager                                                                                  | Save people time | AI daily schedule builder | true   | false      | false     | Software,NonExistent | AI,Machine Learning | Tensorflow,Python | schedule.png | img.png,img2.png    | You are attempting to link your idea to an object that does not exist (domains: NonExistent) | 400        |